@@ -51,6 +51,17 @@ public @interface FailQpsRtStats {
      */
     boolean isMonitorEnable() default true;
 
+    /**
+     * 定义采样间隔：每个线程每 N 次调用计时 1 次，默认 1（每次调用都计时）。
+     * <p/>
+     * 调用次数和失败次数始终精确统计（每次调用都检查返回值），只有被采样的调用才计时，
+     * 响应时间按采样间隔加权记录（估算值）；
+     * 采样由线程本地的计数器决定（不使用随机数），非 2 的幂向上取整为 2 的幂。
+     *
+     * @return 采样间隔
+     */
+    int samplingInterval() default 1;
+
     /**
      * 定义指标度量。
      *
@@ -0,0 +1,176 @@
+package com.common.aspect;
+
+import java.lang.reflect.Method;
+
+import com.common.annotation.FailQpsRtStats;
+import com.common.annotation.FailStats;
+import com.common.annotation.KVPair;
+import com.common.annotation.QpsRtStats;
+import com.common.metrics.Counter;
+import com.common.metrics.Meter;
+import com.common.metrics.MetricKey;
+import com.common.metrics.MetricsRegistry;
+import com.common.metrics.Timer;
+
+/**
+ * 监控方法的预编译描述：每个被监控的方法只在首次调用时从注解解析一次，不可变。
+ * <p/>
+ * 注解代理的每次属性读取都要反射调用，数组属性（维度列表）还会复制数组；
+ * 预编译后每次调用只需读取字段，直接记录到解析好的指标。关闭监控时指标为 {@code null}。
+ * <p/>
+ * 采样间隔大于 1 时，每个线程对每个方法维护一个调用计数器，每 N 次调用采样 1 次；
+ * 按方法分别计数，避免交替调用多个方法的线程总是采样到同一个方法。
+ *
+ * @since 2026-10-17
+ */
+final class MethodMonitorDescriptor {
+    private final String metric;
+    private final boolean monitorEnabled;
+    /**
+     * 方法调用失败的期望返回值；不统计失败次数时为 {@code null}
+     */
+    private final String expectedReturnValue;
+    private final Meter qpsMeter;
+    private final Counter failCounter;
+    private final Timer rtTimer;
+    /**
+     * 采样间隔（2 的幂）
+     */
+    private final int samplingInterval;
+    /**
+     * 线程本地的调用计数器；每次调用都采样时为 {@code null}
+     */
+    private final ThreadLocal<int[]> callCounter;
+
+    private MethodMonitorDescriptor(String metric, boolean monitorEnabled, String expectedReturnValue,
+                                    Meter qpsMeter, Counter failCounter, Timer rtTimer, int samplingInterval) {
+        this.metric = metric;
+        this.monitorEnabled = monitorEnabled;
+        this.expectedReturnValue = expectedReturnValue;
+        this.qpsMeter = qpsMeter;
+        this.failCounter = failCounter;
+        this.rtTimer = rtTimer;
+        this.samplingInterval = roundSamplingInterval(samplingInterval);
+        this.callCounter = (this.samplingInterval > 1) ? ThreadLocal.withInitial(() -> new int[1]) : null;
+    }
+
+    static MethodMonitorDescriptor of(Method method, QpsRtStats stats, MetricsRegistry registry) {
+        String metric = metricName(method, stats.metric(), stats.methodSignature());
+        if (!stats.isMonitorEnable()) {
+            return new MethodMonitorDescriptor(metric, false, null, null, null, null, 1);
+        }
+        return new MethodMonitorDescriptor(metric, true, null,
+                registry.meter(key(metric + PerformanceMonitorAspect.QPS_SUFFIX, stats.qpsTags())),
+                null,
+                registry.timer(key(metric + PerformanceMonitorAspect.RT_SUFFIX, stats.rtTags())),
+                stats.samplingInterval());
+    }
+
+    static MethodMonitorDescriptor of(Method method, FailStats stats, MetricsRegistry registry) {
+        String metric = metricName(method, stats.metric(), stats.methodSignature());
+        if (!stats.isMonitorEnable()) {
+            return new MethodMonitorDescriptor(metric, false, stats.expectedReturnValue(), null, null, null, 1);
+        }
+        return new MethodMonitorDescriptor(metric, true, stats.expectedReturnValue(),
+                null,
+                registry.counter(key(metric + PerformanceMonitorAspect.FAIL_SUFFIX, stats.tags())),
+                null,
+                1);
+    }
+
+    static MethodMonitorDescriptor of(Method method, FailQpsRtStats stats, MetricsRegistry registry) {
+        String metric = metricName(method, stats.metric(), stats.methodSignature());
+        if (!stats.isMonitorEnable()) {
+            return new MethodMonitorDescriptor(metric, false, stats.expectedReturnValue(), null, null, null, 1);
+        }
+        return new MethodMonitorDescriptor(metric, true, stats.expectedReturnValue(),
+                registry.meter(key(metric + PerformanceMonitorAspect.QPS_SUFFIX, stats.qpsTags())),
+                registry.counter(key(metric + PerformanceMonitorAspect.FAIL_SUFFIX, stats.failTags())),
+                registry.timer(key(metric + PerformanceMonitorAspect.RT_SUFFIX, stats.rtTags())),
+                stats.samplingInterval());
+    }
+
+    /**
+     * 解析指标名称：依次取注解的指标度量、监控方法的签名，都没有定义时取 {@code ${类名}.${方法名}}。
+     */
+    static String metricName(Method method, String metric, String methodSignature) {
+        if (!metric.isEmpty()) {
+            return metric;
+        }
+        if (!methodSignature.isEmpty()) {
+            return methodSignature;
+        }
+        return method.getDeclaringClass().getSimpleName() + '.' + method.getName();
+    }
+
+    /**
+     * 把采样间隔向上取整为 2 的幂，不大于 1 时每次调用都采样。
+     */
+    static int roundSamplingInterval(int interval) {
+        if (interval <= 1) {
+            return 1;
+        }
+        int power = Integer.highestOneBit(interval);
+        return (power == interval || power == (1 << 30)) ? power : power << 1;
+    }
+
+    private static MetricKey key(String metric, KVPair[] tags) {
+        String[] keyValues = new String[tags.length * 2];
+        for (int i = 0; i < tags.length; i++) {
+            keyValues[2 * i] = tags[i].key();
+            keyValues[2 * i + 1] = tags[i].value();
+        }
+        return MetricKey.of(metric, keyValues);
+    }
+
+    /**
+     * 返回当前线程的这次调用是否被采样。
+     */
+    boolean sample() {
+        if (callCounter == null) {
+            return true;
+        }
+        int[] count = callCounter.get();
+        return (count[0]++ & (samplingInterval - 1)) == 0;
+    }
+
+    /**
+     * 返回采样间隔，即每次被采样的调用代表的调用次数。
+     */
+    int samplingInterval() {
+        return samplingInterval;
+    }
+
+    /**
+     * 返回返回值是否表示方法调用失败。
+     */
+    boolean isFailure(Object retValue) {
+        return expectedReturnValue != null && expectedReturnValue.equals(String.valueOf(retValue));
+    }
+
+    String metric() {
+        return metric;
+    }
+
+    boolean isMonitorEnabled() {
+        return monitorEnabled;
+    }
+
+    Meter qpsMeter() {
+        return qpsMeter;
+    }
+
+    Counter failCounter() {
+        return failCounter;
+    }
+
+    Timer rtTimer() {
+        return rtTimer;
+    }
+
+    @Override
+    public String toString() {
+        return "MethodMonitorDescriptor{metric=" + metric + ", monitorEnabled=" + monitorEnabled
+                + ", samplingInterval=" + samplingInterval + '}';
+    }
+}
@@ -1,14 +1,29 @@
 package com.common.aspect;
 
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import com.common.annotation.FailQpsRtStats;
 import com.common.annotation.FailStats;
 import com.common.annotation.QpsRtStats;
+import com.common.metrics.MetricsRegistry;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
 
 /**
  * 性能监控切面。
+ * <p/>
+ * 把监控方法的调用次数（QPS）、响应时间（RT）和失败次数记录到进程内的 {@link MetricsRegistry}：
+ * 调用次数记录到速率计 {@code ${metric}.qps}（报告上一秒、最近一分钟和峰值的 QPS），
+ * 响应时间记录到直方图聚合器 {@code ${metric}.rt}（报告 p50/p90/p99/p999/max），
+ * 失败次数记录到计数器 {@code ${metric}.fail}，维度分别取自注解的 {@code qpsTags}、{@code rtTags} 和 {@code failTags}。
+ * 指标度量没有定义时依次取监控方法的签名、{@code ${类名}.${方法名}}。
+ * <p/>
+ * 每个被监控的方法首次调用时把注解预编译为不可变的描述，之后每次调用只取时间戳并累加计数。
+ * 注解的采样间隔大于 1 时，调用次数和失败次数仍然精确统计，只有被采样的调用才计时，响应时间按采样间隔加权记录。
  *
  * @author xingle
  * @since 2016年04月05日 18:43
@@ -17,11 +32,23 @@ import org.aspectj.lang.annotation.Aspect;
 @Aspect
 public class PerformanceMonitorAspect {
 
-//    /**
-//     * Sentry 监控器
-//     */
-//    @Setter
-//    private SentryMonitor sentryMonitor;
+    /**
+     * 调用次数的指标名称后缀
+     */
+    public static final String QPS_SUFFIX = ".qps";
+    /**
+     * 响应时间的指标名称后缀
+     */
+    public static final String RT_SUFFIX = ".rt";
+    /**
+     * 失败次数的指标名称后缀
+     */
+    public static final String FAIL_SUFFIX = ".fail";
+
+    /**
+     * 指标注册表及绑定到它的方法描述，设置指标注册表时整体替换
+     */
+    private volatile Binding binding = new Binding(MetricsRegistry.defaultRegistry());
 
     // 3. Declaring a pointcut
 //    @Pointcut("@annotation(com.common.annotation.QpsRtStats)")
@@ -33,28 +60,35 @@ public class PerformanceMonitorAspect {
     @Around(value = "@annotation(qpsRtStats)")
     public Object statsQpsRtAdvice(ProceedingJoinPoint pjp, QpsRtStats qpsRtStats)
             throws Throwable {
+        MethodMonitorDescriptor descriptor = qpsRtDescriptor(pjp, qpsRtStats);
+        if (!descriptor.isMonitorEnabled()) {
+            return pjp.proceed();
+        }
+        if (!descriptor.sample()) {
+            try {
+                return pjp.proceed();
+            } finally {
+                descriptor.qpsMeter().mark();
+            }
+        }
         long startTime = System.nanoTime();
 
         try {
             return pjp.proceed(); // 继续进行下一个通知或目标方法调用
         } finally {
             long estimatedTime = System.nanoTime() - startTime;
-            String metric = qpsRtStats.metric();
-            if (qpsRtStats.isMonitorEnable()) {
-//                sentryMonitor.putAvg(metric, qpsRtStats.rtTags(), estimatedTime);
-//                sentryMonitor.putSum(metric, qpsRtStats.qpsTags(), 1);
-            }
+            descriptor.rtTimer().record(estimatedTime, descriptor.samplingInterval());
+            descriptor.qpsMeter().mark();
         }
     }
 
     @Around(value = "@annotation(failStats)")
     public Object statsFailAdvice(ProceedingJoinPoint pjp, FailStats failStats)
             throws Throwable {
+        MethodMonitorDescriptor descriptor = failDescriptor(pjp, failStats);
         Object retValue = pjp.proceed();
-        if (failStats.expectedReturnValue().equals(String.valueOf(retValue))) {
-            if (failStats.isMonitorEnable()) {
-//                sentryMonitor.putSum(failStats.metric(), failStats.tags(), 1);
-            }
+        if (descriptor.isMonitorEnabled()) {
+            countFailure(descriptor, retValue);
         }
         return retValue;
     }
@@ -62,23 +96,104 @@ public class PerformanceMonitorAspect {
     @Around(value = "@annotation(failQpsRtStats)")
     public Object statsFailQpsRtAdvice(ProceedingJoinPoint pjp, FailQpsRtStats failQpsRtStats)
             throws Throwable {
+        MethodMonitorDescriptor descriptor = failQpsRtDescriptor(pjp, failQpsRtStats);
+        if (!descriptor.isMonitorEnabled()) {
+            return pjp.proceed();
+        }
+        if (!descriptor.sample()) {
+            try {
+                return countFailure(descriptor, pjp.proceed());
+            } finally {
+                descriptor.qpsMeter().mark();
+            }
+        }
         long startTime = System.nanoTime();
 
         try {
-            Object retValue = pjp.proceed();
-            if (failQpsRtStats.expectedReturnValue().equals(String.valueOf(retValue))) {
-                if (failQpsRtStats.isMonitorEnable()) {
-//                    sentryMonitor.putSum(failQpsRtStats.metric(), failQpsRtStats.failTags(), 1);
-                }
-            }
-            return retValue;
+            return countFailure(descriptor, pjp.proceed());
         } finally {
             long estimatedTime = System.nanoTime() - startTime;
-            if (failQpsRtStats.isMonitorEnable()) {
-                String metric = failQpsRtStats.metric();
-//                sentryMonitor.putAvg(metric, failQpsRtStats.rtTags(), estimatedTime);
-//                sentryMonitor.putSum(metric, failQpsRtStats.qpsTags(), 1);
-            }
+            descriptor.rtTimer().record(estimatedTime, descriptor.samplingInterval());
+            descriptor.qpsMeter().mark();
+        }
+    }
+
+    /**
+     * 检查每次调用的返回值，精确地记录失败次数（不采样）。
+     */
+    private static Object countFailure(MethodMonitorDescriptor descriptor, Object retValue) {
+        if (descriptor.isFailure(retValue)) {
+            descriptor.failCounter().increment();
+        }
+        return retValue;
+    }
+
+    // 预编译的方法描述
+
+    private MethodMonitorDescriptor qpsRtDescriptor(ProceedingJoinPoint pjp, QpsRtStats qpsRtStats) {
+        Binding current = binding;
+        Method method = method(pjp);
+        MethodMonitorDescriptor descriptor = current.qpsRtDescriptors.get(method);
+        if (descriptor == null) {
+            descriptor = current.qpsRtDescriptors.computeIfAbsent(method,
+                    m -> MethodMonitorDescriptor.of(m, qpsRtStats, current.metricsRegistry));
+        }
+        return descriptor;
+    }
+
+    private MethodMonitorDescriptor failDescriptor(ProceedingJoinPoint pjp, FailStats failStats) {
+        Binding current = binding;
+        Method method = method(pjp);
+        MethodMonitorDescriptor descriptor = current.failDescriptors.get(method);
+        if (descriptor == null) {
+            descriptor = current.failDescriptors.computeIfAbsent(method,
+                    m -> MethodMonitorDescriptor.of(m, failStats, current.metricsRegistry));
+        }
+        return descriptor;
+    }
+
+    private MethodMonitorDescriptor failQpsRtDescriptor(ProceedingJoinPoint pjp, FailQpsRtStats failQpsRtStats) {
+        Binding current = binding;
+        Method method = method(pjp);
+        MethodMonitorDescriptor descriptor = current.failQpsRtDescriptors.get(method);
+        if (descriptor == null) {
+            descriptor = current.failQpsRtDescriptors.computeIfAbsent(method,
+                    m -> MethodMonitorDescriptor.of(m, failQpsRtStats, current.metricsRegistry));
+        }
+        return descriptor;
+    }
+
+    private static Method method(ProceedingJoinPoint pjp) {
+        return ((MethodSignature) pjp.getSignature()).getMethod();
+    }
+
+    public MetricsRegistry getMetricsRegistry() {
+        return binding.metricsRegistry;
+    }
+
+    /**
+     * 设置指标注册表，已预编译的方法描述随之失效。
+     * <p/>
+     * 注册表和方法描述一起替换，并发预编译的描述只会缓存在它所绑定的注册表的映射中。
+     */
+    public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+        if (metricsRegistry == null) {
+            throw new IllegalArgumentException("metricsRegistry must be not null");
+        }
+        this.binding = new Binding(metricsRegistry);
+    }
+
+    /**
+     * 指标注册表及按方法预编译的描述，每种注解一个映射（同一个方法可以同时使用多种注解）。
+     */
+    private static final class Binding {
+        private final MetricsRegistry metricsRegistry;
+        private final ConcurrentMap<Method, MethodMonitorDescriptor> qpsRtDescriptors = new ConcurrentHashMap<>();
+        private final ConcurrentMap<Method, MethodMonitorDescriptor> failDescriptors = new ConcurrentHashMap<>();
+        private final ConcurrentMap<Method, MethodMonitorDescriptor> failQpsRtDescriptors = new ConcurrentHashMap<>();
+
+        Binding(MetricsRegistry metricsRegistry) {
+            this.metricsRegistry = metricsRegistry;
         }
     }
 
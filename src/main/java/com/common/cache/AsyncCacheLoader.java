@@ -0,0 +1,36 @@
+package com.common.cache;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步的缓存加载器：返回值的异步结果，加载期间不占用调用线程。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @see AsyncLoadingCache
+ * @since 2026-10-17
+ */
+@FunctionalInterface
+public interface AsyncCacheLoader<K, V> {
+
+  /**
+   * 异步地加载值。
+   *
+   * @param key 键
+   * @return 值的异步结果，不能为 {@code null}；值为 {@code null} 表示键不存在
+   * @throws Exception 发起加载失败
+   */
+  CompletableFuture<V> asyncLoad(K key) throws Exception;
+
+  /**
+   * 异步地重新加载值（{@code refreshAfterWrite}），默认调用 {@link #asyncLoad(Object)}。
+   *
+   * @param key      键
+   * @param oldValue 旧值
+   * @return 新值的异步结果，失败时缓存保留旧值
+   * @throws Exception 发起重新加载失败
+   */
+  default CompletableFuture<V> asyncReload(K key, V oldValue) throws Exception {
+    return asyncLoad(key);
+  }
+}
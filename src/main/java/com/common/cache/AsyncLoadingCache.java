@@ -0,0 +1,239 @@
+package com.common.cache;
+
+import java.io.Closeable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheLoader.InvalidCacheLoadException;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * 异步的可自动加载缓存：{@link #get} 返回值的 {@link CompletableFuture}，未命中时不阻塞调用线程。
+ * <p/>
+ * 缓存中保存的是值的异步结果：未命中时由 {@link AsyncCacheLoader} 发起加载并立即返回其结果，
+ * 同一个键的并发请求共享同一个进行中的加载（由底层缓存的按键加载保证只发起一次）。
+ * 加载失败或值为 {@code null} 的结果会被移除，下一次请求重新加载；重新加载期间继续提供旧值。
+ * <p/>
+ * 底层缓存由 {@link LocalCacheFactory} 按规格创建，淘汰、过期、刷新、统计指标和注册表与同步缓存相同；
+ * 其中加载耗时只包括发起加载的时间，过期时间从发起加载时开始计算。
+ * 返回的异步结果由所有请求共享，调用方不应完成或取消它。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @see LocalCacheFactory#newAsyncLoadingCache
+ * @since 2026-10-17
+ */
+public final class AsyncLoadingCache<K, V> implements Closeable {
+  private final LoadingCache<K, CompletableFuture<V>> cache;
+
+  AsyncLoadingCache(LoadingCache<K, CompletableFuture<V>> cache, FutureLoader<K, V> loader) {
+    this.cache = cache;
+    loader.map = cache.asMap();
+  }
+
+  /**
+   * 返回值的异步结果，未命中时发起异步加载。
+   *
+   * @param key 键
+   * @return 值的异步结果；键不存在时以 {@link InvalidCacheLoadException} 异常完成
+   */
+  public CompletableFuture<V> get(K key) {
+    if (key == null) {
+      throw new NullPointerException("key");
+    }
+    CompletableFuture<V> future;
+    try {
+      future = cache.getUnchecked(key);
+    } catch (UncheckedExecutionException | ExecutionError e) {
+      // 发起加载失败
+      return failedFuture(e.getCause());
+    } catch (RuntimeException e) {
+      return failedFuture(e);
+    }
+    if (future.isCompletedExceptionally()) {
+      // 已失败的结果可能在写入缓存之前完成，不会被完成回调移除
+      cache.asMap().remove(key, future);
+    }
+    return future;
+  }
+
+  /**
+   * 返回多个键的值的异步结果，未命中的键分别发起异步加载。
+   *
+   * @param keys 键
+   * @return 键到值的映射的异步结果；任意一个键加载失败时以其异常完成
+   */
+  public CompletableFuture<ImmutableMap<K, V>> getAll(Iterable<? extends K> keys) {
+    final Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+    for (K key : keys) {
+      futures.put(key, get(key));
+    }
+    return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+        .thenApply(ignored -> {
+          ImmutableMap.Builder<K, V> result = ImmutableMap.builder();
+          for (Map.Entry<K, CompletableFuture<V>> entry : futures.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().join());
+          }
+          return result.build();
+        });
+  }
+
+  /**
+   * 返回缓存中的值的异步结果（可能仍在加载中），不发起加载。
+   *
+   * @param key 键
+   * @return 值的异步结果；不存在时返回 {@code null}
+   */
+  public CompletableFuture<V> getIfPresent(Object key) {
+    return cache.getIfPresent(key);
+  }
+
+  /**
+   * 放入值。
+   */
+  public void put(K key, V value) {
+    if (value == null) {
+      throw new NullPointerException("value");
+    }
+    cache.put(key, CompletableFuture.completedFuture(value));
+  }
+
+  /**
+   * 移除值（进行中的加载完成后不会写入缓存）。
+   */
+  public void invalidate(Object key) {
+    cache.invalidate(key);
+  }
+
+  /**
+   * 移除所有值。
+   */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  /**
+   * 返回条目数（包括进行中的加载）。
+   */
+  public long size() {
+    return cache.size();
+  }
+
+  /**
+   * 返回累积的统计信息。
+   */
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  /**
+   * 返回滑动窗口的统计指标。
+   */
+  public CacheMetrics metrics() {
+    return LocalCacheFactory.metrics(cache);
+  }
+
+  /**
+   * 返回保存值的异步结果的底层缓存。
+   */
+  public LoadingCache<K, CompletableFuture<V>> synchronous() {
+    return cache;
+  }
+
+  /**
+   * 关闭缓存：取消定时任务、从注册表中取消注册并清空所有条目。
+   *
+   * @see LocalCacheFactory#close(com.google.common.cache.Cache)
+   */
+  @Override
+  public void close() {
+    LocalCacheFactory.close(cache);
+  }
+
+  @Override
+  public String toString() {
+    return "AsyncLoadingCache{size=" + size() + ", " + stats() + '}';
+  }
+
+  private static <V> CompletableFuture<V> failedFuture(Throwable t) {
+    CompletableFuture<V> future = new CompletableFuture<>();
+    future.completeExceptionally(t);
+    return future;
+  }
+
+  /**
+   * 把异步的缓存加载器适配为加载异步结果的缓存加载器：加载只发起异步加载，不等待其完成。
+   */
+  static final class FutureLoader<K, V> extends CacheLoader<K, CompletableFuture<V>> {
+    private final AsyncCacheLoader<K, V> asyncLoader;
+    /**
+     * 底层缓存的映射视图，用于移除失败的结果
+     */
+    volatile ConcurrentMap<K, CompletableFuture<V>> map;
+
+    FutureLoader(AsyncCacheLoader<K, V> asyncLoader) {
+      if (asyncLoader == null) {
+        throw new IllegalArgumentException("asyncLoader must be not null");
+      }
+      this.asyncLoader = asyncLoader;
+    }
+
+    @Override
+    public CompletableFuture<V> load(final K key) throws Exception {
+      final CompletableFuture<V> future = requireNonNull(key, asyncLoader.asyncLoad(key));
+      future.whenComplete((value, error) -> {
+        ConcurrentMap<K, CompletableFuture<V>> m = map;
+        if (error != null && m != null) {
+          m.remove(key, future);
+        }
+      });
+      return future;
+    }
+
+    @Override
+    public ListenableFuture<CompletableFuture<V>> reload(K key, CompletableFuture<V> oldFuture) throws Exception {
+      if (!oldFuture.isDone() || oldFuture.isCompletedExceptionally()) {
+        // 仍在加载中或已失败，跳过这次刷新（不重置写入时间，加载中的结果仍按时过期）
+        return RefreshSkippedException.skipped();
+      }
+      final SettableFuture<CompletableFuture<V>> result = SettableFuture.create();
+      requireNonNull(key, asyncLoader.asyncReload(key, oldFuture.join())).whenComplete((value, error) -> {
+        if (error != null) {
+          result.setException(error);
+        } else {
+          result.set(CompletableFuture.completedFuture(value));
+        }
+      });
+      return result;
+    }
+
+    /**
+     * 值为 {@code null} 时以 {@link InvalidCacheLoadException} 异常完成。
+     */
+    private CompletableFuture<V> requireNonNull(final K key, CompletableFuture<V> future) {
+      if (future == null) {
+        throw new InvalidCacheLoadException(asyncLoader + " returned null future for key " + key + ".");
+      }
+      return future.thenApply(value -> {
+        if (value == null) {
+          throw new InvalidCacheLoadException("AsyncCacheLoader returned null for key " + key + ".");
+        }
+        return value;
+      });
+    }
+
+    @Override
+    public String toString() {
+      return asyncLoader.toString();
+    }
+  }
+}
@@ -0,0 +1,252 @@
+package com.common.cache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.cache.CacheLoader;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * 合并并发未命中的批量缓存加载器。
+ * <p/>
+ * 在一个时间窗口内（或收集满一批键后），把多个线程的 {@link #load(Object)} 合并成一次
+ * {@link CacheLoader#loadAll(Iterable)} 调用，等待中的调用者从批量结果中取得各自的值。
+ * <p/>
+ * 不需要额外的线程：每一批的第一个调用者作为“领导者”，等待时间窗口结束或批次收集满后，执行批量加载。
+ * <p/>
+ * 被包装的加载器不支持批量加载（没有重写 {@link CacheLoader#loadAll(Iterable)}，或者抛出
+ * {@link CacheLoader.UnsupportedLoadingOperationException}）时不合并：各调用者直接在自己的线程中并行地加载，
+ * 而不是由领导者串行加载所有键，也不等待时间窗口。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @since 2026-10-17
+ */
+public final class BatchingCacheLoader<K, V> extends CacheLoader<K, V> {
+  private final CacheLoader<K, V> delegate;
+  private final int maxBatchSize;
+  private final long batchWindowNanos;
+  /**
+   * 被包装的加载器是否支持批量加载，批量加载抛出不支持的异常后置为 {@code false}
+   */
+  private volatile boolean bulkSupported;
+
+  /**
+   * 正在收集键的批次，由 this 保护
+   */
+  private Batch<K, V> current;
+
+  private final LongAdder batchCount = new LongAdder();
+  private final LongAdder batchKeyCount = new LongAdder();
+  private final LongAccumulator maxBatchKeys = new LongAccumulator(Math::max, 0L);
+  private final LongAdder batchLatencyNanos = new LongAdder();
+  private final LongAccumulator maxBatchLatencyNanos = new LongAccumulator(Math::max, 0L);
+  private final LongAdder batchFailureCount = new LongAdder();
+
+  /**
+   * 创建一个新的批量缓存加载器。
+   *
+   * @param delegate     支持批量加载的缓存加载器
+   * @param maxBatchSize 每批最多的键数，收集满即刻加载
+   * @param batchWindow  收集一批键的时间窗口
+   * @param timeUnit     时间窗口的单位
+   */
+  public BatchingCacheLoader(CacheLoader<K, V> delegate, int maxBatchSize, long batchWindow, TimeUnit timeUnit) {
+    if (delegate == null) {
+      throw new IllegalArgumentException("delegate must be not null");
+    }
+    if (maxBatchSize <= 0) {
+      throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+    }
+    if (batchWindow < 0L) {
+      throw new IllegalArgumentException("batchWindow must be non-negative: " + batchWindow);
+    }
+    this.delegate = delegate;
+    this.maxBatchSize = maxBatchSize;
+    this.batchWindowNanos = timeUnit.toNanos(batchWindow);
+    this.bulkSupported = overridesLoadAll(delegate);
+  }
+
+  /**
+   * 返回缓存加载器是否重写了 {@link CacheLoader#loadAll(Iterable)}（默认实现不支持批量加载）。
+   */
+  static boolean overridesLoadAll(CacheLoader<?, ?> loader) {
+    try {
+      return loader.getClass().getMethod("loadAll", Iterable.class).getDeclaringClass() != CacheLoader.class;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public V load(K key) throws Exception {
+    if (!bulkSupported) {
+      return delegate.load(key);
+    }
+    Batch<K, V> batch;
+    SettableFuture<V> future;
+    boolean leader = false;
+    synchronized (this) {
+      batch = current;
+      if (batch == null) {
+        batch = current = new Batch<>();
+        leader = true;
+      }
+      future = batch.futures.get(key);
+      if (future == null) {
+        future = SettableFuture.create();
+        batch.futures.put(key, future);
+      }
+      if (batch.futures.size() >= maxBatchSize) {
+        // 收集满，关闭批次
+        current = null;
+        batch.full.countDown();
+      }
+    }
+
+    if (leader) {
+      Uninterruptibles.awaitUninterruptibly(batch.full, batchWindowNanos, TimeUnit.NANOSECONDS);
+      synchronized (this) {
+        if (current == batch) {
+          current = null;
+        }
+      }
+      execute(batch);
+    }
+
+    try {
+      return Uninterruptibles.getUninterruptibly(future);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof UnsupportedLoadingOperationException) {
+        // 不支持批量加载，在自己的线程中加载
+        return delegate.load(key);
+      }
+      if (cause instanceof Exception) {
+        throw (Exception) cause;
+      }
+      throw (Error) cause;
+    }
+  }
+
+  @Override
+  public Map<K, V> loadAll(Iterable<? extends K> keys) throws Exception {
+    return delegate.loadAll(keys);
+  }
+
+  /**
+   * 执行一批键的加载（批次已关闭，不再有新键加入）。
+   */
+  private void execute(Batch<K, V> batch) {
+    List<K> keys = new ArrayList<>(batch.futures.keySet());
+    long startTime = System.nanoTime();
+    Map<K, V> result;
+    try {
+      result = delegate.loadAll(keys);
+    } catch (UnsupportedLoadingOperationException e) {
+      // 不再合并；本批次的调用者收到该异常后各自加载
+      bulkSupported = false;
+      for (SettableFuture<V> future : batch.futures.values()) {
+        future.setException(e);
+      }
+      return;
+    } catch (Throwable t) {
+      batchFailureCount.increment();
+      for (SettableFuture<V> future : batch.futures.values()) {
+        future.setException(t);
+      }
+      if (t instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      recordBatch(keys.size(), startTime);
+      return;
+    }
+    // 批量结果中缺失的键返回 null，由缓存抛出无效缓存加载异常
+    for (Map.Entry<K, SettableFuture<V>> entry : batch.futures.entrySet()) {
+      entry.getValue().set(result == null ? null : result.get(entry.getKey()));
+    }
+    recordBatch(keys.size(), startTime);
+  }
+
+  private void recordBatch(int size, long startTime) {
+    long latency = System.nanoTime() - startTime;
+    batchCount.increment();
+    batchKeyCount.add(size);
+    maxBatchKeys.accumulate(size);
+    batchLatencyNanos.add(latency);
+    maxBatchLatencyNanos.accumulate(latency);
+  }
+
+  // 统计信息
+
+  /**
+   * 返回执行的批次数。
+   */
+  public long batchCount() {
+    return batchCount.sum();
+  }
+
+  /**
+   * 返回执行失败的批次数。
+   */
+  public long batchFailureCount() {
+    return batchFailureCount.sum();
+  }
+
+  /**
+   * 返回平均每批的键数。
+   */
+  public double averageBatchSize() {
+    long batches = batchCount.sum();
+    return (batches == 0L) ? 0.0d : (double) batchKeyCount.sum() / batches;
+  }
+
+  /**
+   * 返回最大的一批键数。
+   */
+  public long maxBatchSize() {
+    return maxBatchKeys.get();
+  }
+
+  /**
+   * 返回平均每批的加载耗时（纳秒）。
+   */
+  public double averageBatchLatencyNanos() {
+    long batches = batchCount.sum();
+    return (batches == 0L) ? 0.0d : (double) batchLatencyNanos.sum() / batches;
+  }
+
+  /**
+   * 返回最长的一批加载耗时（纳秒）。
+   */
+  public long maxBatchLatencyNanos() {
+    return maxBatchLatencyNanos.get();
+  }
+
+  @Override
+  public String toString() {
+    return "BatchingCacheLoader{batchCount=" + batchCount()
+        + ", batchFailureCount=" + batchFailureCount()
+        + ", averageBatchSize=" + averageBatchSize()
+        + ", maxBatchSize=" + maxBatchSize()
+        + ", averageBatchLatencyNanos=" + averageBatchLatencyNanos()
+        + ", maxBatchLatencyNanos=" + maxBatchLatencyNanos()
+        + '}';
+  }
+
+  /**
+   * 一批待加载的键。
+   */
+  private static final class Batch<K, V> {
+    private final Map<K, SettableFuture<V>> futures = new LinkedHashMap<>();
+    private final CountDownLatch full = new CountDownLatch(1);
+  }
+}
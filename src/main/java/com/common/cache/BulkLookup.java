@@ -0,0 +1,105 @@
+package com.common.cache;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.cache.AbstractCache.StatsCounter;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheLoader.InvalidCacheLoadException;
+import com.google.common.cache.CacheLoader.UnsupportedLoadingOperationException;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * 各缓存引擎共用的批量查找（{@code getAll}）实现，统计口径与 Guava 一致：
+ * <ul>
+ * <li>已缓存的键各计一次命中，未缓存的键（去重后）各计一次未命中；</li>
+ * <li>未命中的键优先批量加载（{@link CacheLoader#loadAll(Iterable)}），批量加载本身不再计未命中；</li>
+ * <li>加载器不支持批量加载时逐个加载，未命中由逐个加载记录，不重复计数。</li>
+ * </ul>
+ *
+ * @since 2026-10-17
+ */
+final class BulkLookup {
+
+  private BulkLookup() {
+  }
+
+  /**
+   * 批量查找的数据源。
+   *
+   * @param <K> 键类型
+   * @param <V> 值类型
+   */
+  interface Source<K, V> {
+
+    /**
+     * 返回已缓存且未过期的值，不存在时返回 {@code null}（不记录命中/未命中统计）。
+     */
+    V probe(K key);
+
+    /**
+     * 批量加载并写入缓存（不记录未命中统计）。
+     *
+     * @throws UnsupportedLoadingOperationException 加载器不支持批量加载
+     */
+    Map<K, V> loadAll(Set<K> keys) throws ExecutionException;
+
+    /**
+     * 加载单个键（自行记录命中/未命中统计）。
+     */
+    V get(K key) throws ExecutionException;
+  }
+
+  static <K, V> ImmutableMap<K, V> getAll(Iterable<? extends K> keys, Source<K, V> source,
+                                          StatsCounter statsCounter) throws ExecutionException {
+    Map<K, V> result = new LinkedHashMap<>();
+    Set<K> missingKeys = new LinkedHashSet<>();
+    int hits = 0;
+    int misses = 0;
+    try {
+      for (K key : keys) {
+        if (result.containsKey(key)) {
+          continue;
+        }
+        // 未命中的键先占位，保持结果与键的顺序一致
+        V value = source.probe(key);
+        result.put(key, value);
+        if (value == null) {
+          missingKeys.add(key);
+        } else {
+          hits++;
+        }
+      }
+      if (missingKeys.isEmpty()) {
+        return ImmutableMap.copyOf(result);
+      }
+
+      misses = missingKeys.size();
+      Map<K, V> loaded;
+      try {
+        loaded = source.loadAll(missingKeys);
+      } catch (UnsupportedLoadingOperationException e) {
+        // 不支持批量加载，则逐个加载
+        for (K key : missingKeys) {
+          misses--;
+          result.put(key, source.get(key));
+        }
+        return ImmutableMap.copyOf(result);
+      }
+      for (K key : missingKeys) {
+        V value = loaded.get(key);
+        if (value == null) {
+          throw new InvalidCacheLoadException("loadAll failed to return a value for " + key);
+        }
+        result.put(key, value);
+      }
+      return ImmutableMap.copyOf(result);
+    } finally {
+      statsCounter.recordHits(hits);
+      statsCounter.recordMisses(misses);
+    }
+  }
+}
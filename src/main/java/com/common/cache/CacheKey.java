@@ -0,0 +1,308 @@
+package com.common.cache;
+
+import java.util.Objects;
+
+/**
+ * 组合的缓存键，替代 {@link CacheUtils#toCacheKey(Object...)} 拼接的字符串键。
+ * <p/>
+ * 直接保存各个组成部分（最多 3 个时不分配数组，整数类型不装箱），创建时预先计算哈希值，
+ * {@link #equals(Object)} 先比较哈希值和整数部分，因此查找缓存时只分配键对象本身。
+ * 字符串形式（与 {@code CacheUtils.toCacheKey} 的格式相同，用 {@code ':'} 分隔）只在首次调用 {@link #toString()} 时生成，
+ * 用于日志或远程缓存的键。
+ * <p/>
+ * 整数类型的组成部分（{@code long}、{@code int}、{@link Long}、{@link Integer}、{@link Short}、{@link Byte}）按数值比较，
+ * 例如 {@code CacheKey.of("user", 24)} 与 {@code CacheKey.of("user", Long.valueOf(24L))} 相等。
+ * 其它组成部分应当是不可变的，按 {@link Object#equals(Object)} 比较，允许为 {@code null}。
+ *
+ * @see CacheUtils#toCacheKey(Object...)
+ * @since 2026-10-17
+ */
+public final class CacheKey {
+  private static final char SEPARATOR = ':';
+  /**
+   * 不使用数组保存的最多组成部分数
+   */
+  private static final int INLINE_SIZE = 3;
+
+  private final int size;
+  /**
+   * 第 i 位表示第 i 个组成部分是整数（保存在 {@code li}）
+   */
+  private final int longMask;
+  private final Object o0;
+  private final Object o1;
+  private final Object o2;
+  private final long l0;
+  private final long l1;
+  private final long l2;
+  /**
+   * 超过 {@value #INLINE_SIZE} 个组成部分时的所有组成部分，否则为 {@code null}
+   */
+  private final Object[] elements;
+  private final int hash;
+  /**
+   * 字符串形式，首次使用时生成（不可变对象的竞争写入是安全的）
+   */
+  private String string;
+
+  private CacheKey(int size, Object o0, long l0, Object o1, long l1, Object o2, long l2, int longMask) {
+    // 整数类型的对象转换为数值保存
+    if (size > 0 && (longMask & 1) == 0 && isIntegral(o0)) {
+      l0 = ((Number) o0).longValue();
+      o0 = null;
+      longMask |= 1;
+    }
+    if (size > 1 && (longMask & 2) == 0 && isIntegral(o1)) {
+      l1 = ((Number) o1).longValue();
+      o1 = null;
+      longMask |= 2;
+    }
+    if (size > 2 && (longMask & 4) == 0 && isIntegral(o2)) {
+      l2 = ((Number) o2).longValue();
+      o2 = null;
+      longMask |= 4;
+    }
+    this.size = size;
+    this.longMask = longMask;
+    this.o0 = o0;
+    this.o1 = o1;
+    this.o2 = o2;
+    this.l0 = l0;
+    this.l1 = l1;
+    this.l2 = l2;
+    this.elements = null;
+    int h = size;
+    h = 31 * h + (((longMask & 1) != 0) ? Long.hashCode(l0) : Objects.hashCode(o0));
+    h = 31 * h + (((longMask & 2) != 0) ? Long.hashCode(l1) : Objects.hashCode(o1));
+    h = 31 * h + (((longMask & 4) != 0) ? Long.hashCode(l2) : Objects.hashCode(o2));
+    this.hash = h;
+  }
+
+  private CacheKey(Object[] elements) {
+    this.size = elements.length;
+    this.longMask = 0;
+    this.o0 = null;
+    this.o1 = null;
+    this.o2 = null;
+    this.l0 = 0L;
+    this.l1 = 0L;
+    this.l2 = 0L;
+    this.elements = elements;
+    int h = size;
+    for (Object element : elements) {
+      h = 31 * h + (isIntegral(element) ? Long.hashCode(((Number) element).longValue()) : Objects.hashCode(element));
+    }
+    this.hash = h;
+  }
+
+  // 静态工厂方法 (static factory method)
+
+  /**
+   * 创建由 1 个组成部分组成的缓存键。
+   */
+  public static CacheKey of(Object e0) {
+    return new CacheKey(1, e0, 0L, null, 0L, null, 0L, 0);
+  }
+
+  /**
+   * 创建由 1 个组成部分组成的缓存键。
+   */
+  public static CacheKey of(long e0) {
+    return new CacheKey(1, null, e0, null, 0L, null, 0L, 1);
+  }
+
+  /**
+   * 创建由 2 个组成部分组成的缓存键。
+   */
+  public static CacheKey of(Object e0, Object e1) {
+    return new CacheKey(2, e0, 0L, e1, 0L, null, 0L, 0);
+  }
+
+  /**
+   * 创建由 2 个组成部分组成的缓存键。
+   */
+  public static CacheKey of(Object e0, long e1) {
+    return new CacheKey(2, e0, 0L, null, e1, null, 0L, 2);
+  }
+
+  /**
+   * 创建由 2 个组成部分组成的缓存键。
+   */
+  public static CacheKey of(long e0, long e1) {
+    return new CacheKey(2, null, e0, null, e1, null, 0L, 3);
+  }
+
+  /**
+   * 创建由 3 个组成部分组成的缓存键。
+   */
+  public static CacheKey of(Object e0, Object e1, Object e2) {
+    return new CacheKey(3, e0, 0L, e1, 0L, e2, 0L, 0);
+  }
+
+  /**
+   * 创建由 3 个组成部分组成的缓存键。
+   */
+  public static CacheKey of(Object e0, Object e1, long e2) {
+    return new CacheKey(3, e0, 0L, e1, 0L, null, e2, 4);
+  }
+
+  /**
+   * 创建由 3 个组成部分组成的缓存键。
+   */
+  public static CacheKey of(Object e0, long e1, long e2) {
+    return new CacheKey(3, e0, 0L, null, e1, null, e2, 6);
+  }
+
+  /**
+   * 创建由 3 个组成部分组成的缓存键。
+   */
+  public static CacheKey of(long e0, long e1, long e2) {
+    return new CacheKey(3, null, e0, null, e1, null, e2, 7);
+  }
+
+  /**
+   * 创建组合的缓存键。超过 3 个组成部分时直接保存传入的数组，调用方之后不应修改该数组。
+   *
+   * @param elements 组成部分
+   * @return 缓存键
+   */
+  public static CacheKey of(Object... elements) {
+    if (elements == null || elements.length == 0) {
+      throw new IllegalArgumentException("elements must be not empty");
+    }
+    switch (elements.length) {
+      case 1:
+        return of(elements[0]);
+      case 2:
+        return of(elements[0], elements[1]);
+      case 3:
+        return of(elements[0], elements[1], elements[2]);
+      default:
+        return new CacheKey(elements);
+    }
+  }
+
+  // 访问方法
+
+  /**
+   * 返回组成部分的个数。
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * 返回第 {@code index} 个组成部分，整数类型返回 {@link Long}。
+   *
+   * @param index 下标，从 0 开始
+   * @return 组成部分
+   */
+  public Object get(int index) {
+    checkIndex(index);
+    if (elements != null) {
+      Object element = elements[index];
+      return isIntegral(element) ? (Object) ((Number) element).longValue() : element;
+    }
+    if (isLong(index)) {
+      return getLong(index);
+    }
+    return (index == 0) ? o0 : (index == 1) ? o1 : o2;
+  }
+
+  /**
+   * 返回第 {@code index} 个整数类型的组成部分（不装箱）。
+   *
+   * @param index 下标，从 0 开始
+   * @return 组成部分的数值
+   * @throws IllegalArgumentException 不是整数类型
+   */
+  public long getLong(int index) {
+    checkIndex(index);
+    if (elements != null) {
+      if (!isIntegral(elements[index])) {
+        throw new IllegalArgumentException("element " + index + " is not integral: " + this);
+      }
+      return ((Number) elements[index]).longValue();
+    }
+    if (!isLong(index)) {
+      throw new IllegalArgumentException("element " + index + " is not integral: " + this);
+    }
+    return (index == 0) ? l0 : (index == 1) ? l1 : l2;
+  }
+
+  private boolean isLong(int index) {
+    return (longMask & (1 << index)) != 0;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("index " + index + " out of size " + size);
+    }
+  }
+
+  private static boolean isIntegral(Object o) {
+    return o instanceof Long || o instanceof Integer || o instanceof Short || o instanceof Byte;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof CacheKey)) {
+      return false;
+    }
+    CacheKey that = (CacheKey) obj;
+    if (hash != that.hash || size != that.size || longMask != that.longMask) {
+      return false;
+    }
+    if (elements != null) {
+      for (int i = 0; i < size; i++) {
+        if (!elementEquals(elements[i], that.elements[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return l0 == that.l0 && l1 == that.l1 && l2 == that.l2
+        && Objects.equals(o0, that.o0) && Objects.equals(o1, that.o1) && Objects.equals(o2, that.o2);
+  }
+
+  private static boolean elementEquals(Object a, Object b) {
+    if (isIntegral(a) && isIntegral(b)) {
+      return ((Number) a).longValue() == ((Number) b).longValue();
+    }
+    return Objects.equals(a, b);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  /**
+   * 返回字符串形式，格式与 {@link CacheUtils#toCacheKey(Object...)} 相同，例如 {@code "tweet:83723:comment-to"}。
+   */
+  @Override
+  public String toString() {
+    String s = string;
+    if (s == null) {
+      StringBuilder sb = new StringBuilder(16 * size);
+      for (int i = 0; i < size; i++) {
+        if (i > 0) {
+          sb.append(SEPARATOR);
+        }
+        if (elements != null) {
+          sb.append(elements[i]);
+        } else if (isLong(i)) {
+          sb.append(getLong(i));
+        } else {
+          sb.append((i == 0) ? o0 : (i == 1) ? o1 : o2);
+        }
+      }
+      s = sb.toString();
+      string = s;
+    }
+    return s;
+  }
+}
@@ -0,0 +1,120 @@
+package com.common.cache;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 工厂创建的一个缓存的生命周期：记录为该缓存登记的定时任务、巡检、关闭钩子和预热，以及注册名称，关闭时统一撤销。
+ * <p/>
+ * 不引用缓存本身，缓存的清空和内存的释放由 {@link LocalCacheFactory#close} 负责。
+ *
+ * @since 2026-10-17
+ */
+final class CacheLifecycle implements Closeable {
+  private final CacheRegistry registry;
+  private final List<Future<?>> tasks = new CopyOnWriteArrayList<>();
+  private final List<CacheSweeper.Registration<?>> registrations = new CopyOnWriteArrayList<>();
+  private final List<Thread> shutdownHooks = new CopyOnWriteArrayList<>();
+  private final List<Runnable> closeActions = new CopyOnWriteArrayList<>();
+  private final AtomicBoolean closed = new AtomicBoolean();
+  private volatile String registeredName;
+
+  CacheLifecycle(CacheRegistry registry) {
+    this.registry = registry;
+  }
+
+  /**
+   * 记录缓存在注册表中的注册名称。
+   */
+  void registered(String name) {
+    this.registeredName = name;
+  }
+
+  /**
+   * 返回注册名称；尚未注册时返回 {@code null}。
+   */
+  String registeredName() {
+    return registeredName;
+  }
+
+  /**
+   * 记录一个定时任务（或后台任务），关闭时取消。
+   */
+  void addTask(Future<?> task) {
+    tasks.add(task);
+  }
+
+  /**
+   * 记录一个巡检登记，关闭时取消登记。
+   */
+  void addRegistration(CacheSweeper.Registration<?> registration) {
+    registrations.add(registration);
+  }
+
+  /**
+   * 注册一个 JVM 关闭钩子，关闭时移除。
+   */
+  void addShutdownHook(Thread hook) {
+    Runtime.getRuntime().addShutdownHook(hook);
+    shutdownHooks.add(hook);
+  }
+
+  /**
+   * 记录一个关闭时执行的操作（如取消预热）。
+   */
+  void addCloseAction(Runnable action) {
+    closeActions.add(action);
+  }
+
+  /**
+   * 返回是否已关闭。
+   */
+  boolean isClosed() {
+    return closed.get();
+  }
+
+  /**
+   * 执行关闭操作，取消定时任务和巡检登记，移除关闭钩子，并从注册表中取消注册。重复关闭没有影响。
+   */
+  @Override
+  public void close() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    for (Runnable action : closeActions) {
+      action.run();
+    }
+    closeActions.clear();
+    for (Future<?> task : tasks) {
+      task.cancel(false);
+    }
+    tasks.clear();
+    for (CacheSweeper.Registration<?> registration : registrations) {
+      registration.cancel();
+    }
+    registrations.clear();
+    for (Thread hook : shutdownHooks) {
+      try {
+        Runtime.getRuntime().removeShutdownHook(hook);
+      } catch (IllegalStateException e) {
+        // JVM 正在关闭，钩子已开始执行
+      }
+    }
+    shutdownHooks.clear();
+    String name = registeredName;
+    if (name != null) {
+      registry.unregister(name);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "CacheLifecycle{registeredName=" + registeredName
+        + ", tasks=" + tasks.size()
+        + ", registrations=" + registrations.size()
+        + ", closed=" + closed.get() + '}';
+  }
+}
@@ -0,0 +1,337 @@
+package com.common.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.common.metrics.LatencyHistogram;
+import com.common.metrics.RollingCounter;
+import com.google.common.base.Ticker;
+import com.google.common.cache.AbstractCache.StatsCounter;
+import com.google.common.cache.CacheStats;
+
+/**
+ * 缓存的统计指标：累积的 {@link CacheStats}、滑动窗口（1、5、15 分钟）的命中率和淘汰速率，
+ * 提供旧值（stale-while-revalidate / stale-if-error）的次数，以及加载和重新加载耗时的直方图（p50/p99/p999）。
+ * <p/>
+ * 记录操作都是无锁的分条计数（{@link LongAdder}），可以放在缓存读写的热路径上。
+ * 窗口按 {@value #BUCKET_SECONDS} 秒分桶，只统计已结束的桶，最多滞后一个桶的时长。
+ * <p/>
+ * {@link TinyLfuLoadingCache}、{@link OffHeapLoadingCache} 和 {@link LongLoadingCache} 直接记录到本对象；
+ * Guava 的缓存无法替换其内部的统计计数器，由 {@link LocalCacheFactory} 定期地同步累积的 {@link CacheStats}，
+ * 并在加载器外层记录耗时。
+ *
+ * @see LocalCacheFactory#metrics(com.google.common.cache.Cache)
+ * @since 2026-10-17
+ */
+public final class CacheMetrics implements StatsCounter {
+  /**
+   * 窗口每个桶的时长（秒）
+   */
+  static final int BUCKET_SECONDS = 5;
+
+  /**
+   * 滑动窗口
+   */
+  public enum Window {
+    ONE_MINUTE(1),
+    FIVE_MINUTES(5),
+    FIFTEEN_MINUTES(15);
+
+    private final int minutes;
+    private final int buckets;
+
+    Window(int minutes) {
+      this.minutes = minutes;
+      this.buckets = (int) (TimeUnit.MINUTES.toSeconds(minutes) / BUCKET_SECONDS);
+    }
+
+    public int minutes() {
+      return minutes;
+    }
+  }
+
+  private static final int MAX_WINDOW_BUCKETS = Window.FIFTEEN_MINUTES.buckets;
+
+  // 累积的计数
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder loadSuccessCount = new LongAdder();
+  private final LongAdder loadExceptionCount = new LongAdder();
+  private final LongAdder totalLoadTime = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+  private final LongAdder staleHitCount = new LongAdder();
+  private final LongAdder staleIfErrorCount = new LongAdder();
+  private final LongAdder earlyRefreshCount = new LongAdder();
+
+  // 滑动窗口的计数
+
+  private final RollingCounter hits;
+  private final RollingCounter misses;
+  private final RollingCounter evictions;
+  private final RollingCounter loadExceptions;
+  private final RollingCounter staleHits;
+
+  private final LatencyHistogram loadLatency = new LatencyHistogram();
+  private final LatencyHistogram refreshLatency = new LatencyHistogram();
+
+  /**
+   * 上次同步的累积统计信息（只用于 Guava 的缓存）
+   */
+  private CacheStats synced = new CacheStats(0L, 0L, 0L, 0L, 0L, 0L);
+
+  public CacheMetrics() {
+    this(Ticker.systemTicker());
+  }
+
+  CacheMetrics(Ticker ticker) {
+    this.hits = new RollingCounter(BUCKET_SECONDS, TimeUnit.SECONDS, MAX_WINDOW_BUCKETS, ticker);
+    this.misses = new RollingCounter(BUCKET_SECONDS, TimeUnit.SECONDS, MAX_WINDOW_BUCKETS, ticker);
+    this.evictions = new RollingCounter(BUCKET_SECONDS, TimeUnit.SECONDS, MAX_WINDOW_BUCKETS, ticker);
+    this.loadExceptions = new RollingCounter(BUCKET_SECONDS, TimeUnit.SECONDS, MAX_WINDOW_BUCKETS, ticker);
+    this.staleHits = new RollingCounter(BUCKET_SECONDS, TimeUnit.SECONDS, MAX_WINDOW_BUCKETS, ticker);
+  }
+
+  // 记录
+
+  @Override
+  public void recordHits(int count) {
+    hitCount.add(count);
+    hits.add(count);
+  }
+
+  @Override
+  public void recordMisses(int count) {
+    missCount.add(count);
+    misses.add(count);
+  }
+
+  @Override
+  public void recordLoadSuccess(long loadTime) {
+    loadSuccessCount.increment();
+    totalLoadTime.add(loadTime);
+    loadLatency.record(loadTime);
+  }
+
+  @Override
+  public void recordLoadException(long loadTime) {
+    loadExceptionCount.increment();
+    totalLoadTime.add(loadTime);
+    loadExceptions.increment();
+    loadLatency.record(loadTime);
+  }
+
+  /**
+   * 记录一次成功的重新加载（同时计入累积的加载次数，与 Guava 的语义一致）。
+   *
+   * @param loadTime 从发起到完成的耗时（纳秒），包含在刷新调度器中排队的时间
+   */
+  public void recordRefreshSuccess(long loadTime) {
+    loadSuccessCount.increment();
+    totalLoadTime.add(loadTime);
+    refreshLatency.record(loadTime);
+  }
+
+  /**
+   * 记录一次失败的重新加载（同时计入累积的加载次数，与 Guava 的语义一致）。
+   *
+   * @param loadTime 从发起到失败的耗时（纳秒）
+   */
+  public void recordRefreshException(long loadTime) {
+    loadExceptionCount.increment();
+    totalLoadTime.add(loadTime);
+    loadExceptions.increment();
+    refreshLatency.record(loadTime);
+  }
+
+  @Override
+  public void recordEviction() {
+    evictionCount.increment();
+    evictions.increment();
+  }
+
+  /**
+   * 记录一次提供旧值的命中：条目已超过刷新周期（软过期时间），返回旧值的同时在后台重新加载。
+   * <p/>
+   * 命中本身仍由 {@link #recordHits(int)} 记录。
+   */
+  public void recordStaleHit() {
+    staleHitCount.increment();
+    staleHits.increment();
+  }
+
+  /**
+   * 记录一次因上次重新加载失败而提供旧值的命中（同时也是一次 {@link #recordStaleHit()}）。
+   */
+  public void recordStaleIfError() {
+    staleIfErrorCount.increment();
+  }
+
+  /**
+   * 记录一次概率性的提前刷新（XFetch）。
+   */
+  public void recordEarlyRefresh() {
+    earlyRefreshCount.increment();
+  }
+
+  /**
+   * 只记录加载耗时的分布（计数由缓存自身统计）。
+   */
+  void recordLoadLatency(long loadTime) {
+    loadLatency.record(loadTime);
+  }
+
+  /**
+   * 只记录重新加载耗时的分布（计数由缓存自身统计）。
+   */
+  void recordRefreshLatency(long loadTime) {
+    refreshLatency.record(loadTime);
+  }
+
+  /**
+   * 同步缓存自身累积的统计信息，把增量计入累积计数和当前的窗口（耗时的分布不在此同步）。
+   */
+  synchronized void sync(CacheStats cumulative) {
+    CacheStats delta = cumulative.minus(synced);
+    synced = cumulative;
+    hitCount.add(delta.hitCount());
+    hits.add(delta.hitCount());
+    missCount.add(delta.missCount());
+    misses.add(delta.missCount());
+    loadSuccessCount.add(delta.loadSuccessCount());
+    loadExceptionCount.add(delta.loadExceptionCount());
+    loadExceptions.add(delta.loadExceptionCount());
+    totalLoadTime.add(delta.totalLoadTime());
+    evictionCount.add(delta.evictionCount());
+    evictions.add(delta.evictionCount());
+  }
+
+  // 读取
+
+  @Override
+  public CacheStats snapshot() {
+    return new CacheStats(
+        hitCount.sum(),
+        missCount.sum(),
+        loadSuccessCount.sum(),
+        loadExceptionCount.sum(),
+        totalLoadTime.sum(),
+        evictionCount.sum());
+  }
+
+  /**
+   * 返回窗口内的请求数（命中数 + 未命中数）。
+   */
+  public long requestCount(Window window) {
+    return hits.sum(window.buckets) + misses.sum(window.buckets);
+  }
+
+  /**
+   * 返回窗口内的命中率；没有请求时返回 1.0（与 {@link CacheStats#hitRate()} 一致）。
+   */
+  public double hitRate(Window window) {
+    long hitCount = hits.sum(window.buckets);
+    long requestCount = hitCount + misses.sum(window.buckets);
+    return (requestCount == 0L) ? 1.0 : (double) hitCount / requestCount;
+  }
+
+  /**
+   * 返回窗口内的未命中率；没有请求时返回 0.0（与 {@link CacheStats#missRate()} 一致）。
+   */
+  public double missRate(Window window) {
+    long missCount = misses.sum(window.buckets);
+    long requestCount = hits.sum(window.buckets) + missCount;
+    return (requestCount == 0L) ? 0.0 : (double) missCount / requestCount;
+  }
+
+  /**
+   * 返回窗口内平均每秒的淘汰数。
+   */
+  public double evictionRate(Window window) {
+    return (double) evictions.sum(window.buckets) / (window.buckets * BUCKET_SECONDS);
+  }
+
+  /**
+   * 返回窗口内平均每秒的加载失败数（包括重新加载）。
+   */
+  public double loadExceptionRate(Window window) {
+    return (double) loadExceptions.sum(window.buckets) / (window.buckets * BUCKET_SECONDS);
+  }
+
+  /**
+   * 返回窗口内提供旧值的命中占请求数的比例；没有请求时返回 0.0。
+   */
+  public double staleHitRate(Window window) {
+    long requestCount = requestCount(window);
+    return (requestCount == 0L) ? 0.0 : (double) staleHits.sum(window.buckets) / requestCount;
+  }
+
+  /**
+   * 返回累积的提供旧值的命中数。
+   */
+  public long staleHitCount() {
+    return staleHitCount.sum();
+  }
+
+  /**
+   * 返回累积的因上次重新加载失败而提供旧值的命中数。
+   */
+  public long staleIfErrorCount() {
+    return staleIfErrorCount.sum();
+  }
+
+  /**
+   * 返回累积的概率性提前刷新次数。
+   */
+  public long earlyRefreshCount() {
+    return earlyRefreshCount.sum();
+  }
+
+  /**
+   * 返回加载耗时（纳秒）的分布。
+   */
+  public LatencyHistogram.Snapshot loadLatency() {
+    return loadLatency.snapshot();
+  }
+
+  /**
+   * 返回重新加载耗时（纳秒，包含排队的时间）的分布。
+   */
+  public LatencyHistogram.Snapshot refreshLatency() {
+    return refreshLatency.snapshot();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder hitRates = new StringBuilder();
+    StringBuilder evictionRates = new StringBuilder();
+    for (Window window : Window.values()) {
+      String separator = (window.ordinal() == 0) ? "" : ", ";
+      hitRates.append(separator).append(window.minutes).append("m=")
+          .append(String.format("%.4f", hitRate(window)));
+      evictionRates.append(separator).append(window.minutes).append("m=")
+          .append(String.format("%.2f/s", evictionRate(window)));
+    }
+    StringBuilder sb = new StringBuilder("CacheMetrics{");
+    sb.append("hitRate=[").append(hitRates).append("], evictionRate=[").append(evictionRates).append(']');
+    sb.append(", staleHitCount=").append(staleHitCount.sum())
+        .append(", staleIfErrorCount=").append(staleIfErrorCount.sum())
+        .append(", earlyRefreshCount=").append(earlyRefreshCount.sum());
+    appendLatency(sb.append(", loadLatency="), loadLatency.snapshot());
+    appendLatency(sb.append(", refreshLatency="), refreshLatency.snapshot());
+    return sb.append('}').toString();
+  }
+
+  private static void appendLatency(StringBuilder sb, LatencyHistogram.Snapshot snapshot) {
+    sb.append("[count=").append(snapshot.count())
+        .append(", p50=").append(millis(snapshot.percentile(50.0)))
+        .append("ms, p99=").append(millis(snapshot.percentile(99.0)))
+        .append("ms, p999=").append(millis(snapshot.percentile(99.9)))
+        .append("ms, max=").append(millis(snapshot.max()))
+        .append("ms]");
+  }
+
+  private static String millis(long nanos) {
+    return String.format("%.3f", nanos / 1e6);
+  }
+}
@@ -0,0 +1,173 @@
+package com.common.cache;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 本地缓存的注册表：记录 {@link LocalCacheFactory} 创建的所有缓存，按使用方的服务名称查找，
+ * 并把每个缓存注册为 JMX 的 MXBean（{@code com.common.cache:type=LocalCache,name=<注册名称>}），
+ * 不支持运行时调整的缓存的容量和过期时间属性是只读的。
+ * <p/>
+ * 同一个服务名称创建了多个缓存时，后创建的缓存注册为 {@code serviceName#2}、{@code serviceName#3}……
+ * <p/>
+ * 注册表只弱引用缓存（见 {@link ManagedCache}）：没有关闭就不再使用的缓存被回收后，
+ * 在下一次注册、查找或定期巡检时自动取消注册（以及 JMX）。
+ *
+ * @see LocalCacheFactory#registry()
+ * @since 2026-10-17
+ */
+public final class CacheRegistry {
+  private static final Logger LOGGER = LoggerFactory.getLogger("localCache");
+
+  static final String JMX_DOMAIN = "com.common.cache";
+
+  private final ConcurrentMap<String, ManagedCache> caches = new ConcurrentHashMap<>();
+  private final MBeanServer mBeanServer;
+
+  CacheRegistry() {
+    this(ManagementFactory.getPlatformMBeanServer());
+  }
+
+  CacheRegistry(MBeanServer mBeanServer) {
+    this.mBeanServer = mBeanServer;
+  }
+
+  /**
+   * 注册缓存。
+   *
+   * @param serviceName 使用方的服务名称
+   * @param spec        缓存配置的规格（用于日志）
+   * @param factory     按注册名称创建注册信息
+   * @return 注册的缓存
+   */
+  ManagedCache register(String serviceName, String spec, Function<String, ManagedCache> factory) {
+    // 先释放已被回收的缓存占用的注册名称
+    expungeCollected();
+    String name = serviceName;
+    ManagedCache managedCache = factory.apply(name);
+    for (int i = 2; caches.putIfAbsent(name, managedCache) != null; i++) {
+      name = serviceName + '#' + i;
+      managedCache = factory.apply(name);
+    }
+    if (mBeanServer != null) {
+      try {
+        mBeanServer.registerMBean(mBean(managedCache), objectName(name));
+      } catch (JMException | RuntimeException e) {
+        LOGGER.warn("Failed to register {}'s cache to JMX, spec={}", name, spec, e);
+      }
+    }
+    return managedCache;
+  }
+
+  /**
+   * 取消注册缓存。
+   *
+   * @param name 注册名称
+   * @return 被取消注册的缓存；不存在时返回 {@code null}
+   */
+  public ManagedCache unregister(String name) {
+    ManagedCache managedCache = caches.remove(name);
+    if (managedCache != null) {
+      unregisterMBean(name);
+    }
+    return managedCache;
+  }
+
+  /**
+   * 取消注册已被回收（没有关闭就不再使用）的缓存。
+   *
+   * @return 取消注册的缓存数
+   */
+  int expungeCollected() {
+    int count = 0;
+    for (Map.Entry<String, ManagedCache> entry : caches.entrySet()) {
+      if (entry.getValue().isCollected() && caches.remove(entry.getKey(), entry.getValue())) {
+        unregisterMBean(entry.getKey());
+        LOGGER.info("{}'s cache was garbage collected without being closed, unregistered", entry.getKey());
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private void unregisterMBean(String name) {
+    if (mBeanServer != null) {
+      try {
+        mBeanServer.unregisterMBean(objectName(name));
+      } catch (JMException | RuntimeException e) {
+        LOGGER.warn("Failed to unregister {}'s cache from JMX", name, e);
+      }
+    }
+  }
+
+  /**
+   * 按注册名称查找缓存。
+   *
+   * @param name 注册名称（使用方的服务名称）
+   * @return 缓存；不存在或已被回收时返回 {@code null}
+   */
+  public ManagedCache get(String name) {
+    ManagedCache managedCache = caches.get(name);
+    if (managedCache != null && managedCache.isCollected()) {
+      expungeCollected();
+      return null;
+    }
+    return managedCache;
+  }
+
+  /**
+   * 返回所有注册名称。
+   */
+  public List<String> names() {
+    expungeCollected();
+    List<String> names = new ArrayList<>(caches.keySet());
+    Collections.sort(names);
+    return names;
+  }
+
+  /**
+   * 返回所有注册的缓存。
+   */
+  public List<ManagedCache> caches() {
+    List<ManagedCache> list = new ArrayList<>();
+    for (String name : names()) {
+      ManagedCache managedCache = caches.get(name);
+      if (managedCache != null) {
+        list.add(managedCache);
+      }
+    }
+    return list;
+  }
+
+  /**
+   * 不支持运行时调整的缓存只暴露只读的属性。
+   */
+  private static StandardMBean mBean(ManagedCache managedCache) throws JMException {
+    return managedCache.isTunable()
+        ? new StandardMBean(managedCache, TunableCacheMXBean.class, true)
+        : new StandardMBean(managedCache, ManagedCacheMXBean.class, true);
+  }
+
+  static ObjectName objectName(String name) throws JMException {
+    return new ObjectName(JMX_DOMAIN + ":type=LocalCache,name=" + ObjectName.quote(name));
+  }
+
+  @Override
+  public String toString() {
+    return "CacheRegistry{caches=" + names() + '}';
+  }
+}
@@ -0,0 +1,311 @@
+package com.common.cache;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+
+/**
+ * 本地缓存的快照：把缓存条目写入内存映射文件，重启后并行地恢复，避免冷启动时集中回源。
+ * <p/>
+ * 文件格式（大端字节序）：
+ * <pre>
+ * 文件头：int 魔数，int 版本号，long 快照时间（毫秒）
+ * 数据块：int 数据长度，int 条目数，条目…
+ * 条目：  long 写入时间（毫秒），int 键长度，键，int 值长度，值
+ * 结束：  int 0
+ * </pre>
+ * 写入时逐个条目编码、流式地写入按块映射的文件（不复制整个缓存），写完后原子地替换旧快照；
+ * 恢复时每个数据块作为一个任务并行地解码，跳过已过期（写入时间超过 {@code expireAfterWrite}）的条目。
+ * <p/>
+ * 对于 Guava 的缓存，写入时间取快照时间；{@link TinyLfuLoadingCache} 和 {@link OffHeapLoadingCache}
+ * 保留条目真实的写入时间，恢复后按剩余的存活时间过期。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @since 2026-10-17
+ */
+public final class CacheSnapshotter<K, V> {
+  private static final int MAGIC = 0x4c435331;
+  private static final int VERSION = 1;
+  private static final int FILE_HEADER_SIZE = 16;
+  private static final int BLOCK_HEADER_SIZE = 8;
+  private static final int RECORD_OVERHEAD = 16;
+  /**
+   * 数据块的目标大小，也是恢复时的并行粒度
+   */
+  private static final int BLOCK_SIZE = 4 << 20;
+
+  private final Path file;
+  private final ValueCodec<K> keyCodec;
+  private final ValueCodec<V> valueCodec;
+
+  /**
+   * 创建一个新的缓存快照。
+   *
+   * @param file       快照文件
+   * @param keyCodec   键的编解码器
+   * @param valueCodec 值的编解码器
+   */
+  public CacheSnapshotter(Path file, ValueCodec<K> keyCodec, ValueCodec<V> valueCodec) {
+    if (file == null || keyCodec == null || valueCodec == null) {
+      throw new IllegalArgumentException("file, keyCodec and valueCodec must be not null");
+    }
+    this.file = file;
+    this.keyCodec = keyCodec;
+    this.valueCodec = valueCodec;
+  }
+
+  /**
+   * 返回快照文件。
+   */
+  public Path file() {
+    return file;
+  }
+
+  /**
+   * 把缓存条目写入快照文件。
+   *
+   * @param cache 缓存
+   * @return 写入的条目数
+   * @throws IOException 写入失败（旧快照保持不变）
+   */
+  public synchronized long save(Cache<K, V> cache) throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+    long count;
+    try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      SnapshotWriter writer = new SnapshotWriter(channel, System.currentTimeMillis());
+      if (cache instanceof SnapshotSupport) {
+        @SuppressWarnings("unchecked")
+        SnapshotSupport<K, V> snapshotSupport = (SnapshotSupport<K, V>) cache;
+        snapshotSupport.forEachEntry(writer::append);
+      } else {
+        for (Map.Entry<K, V> entry : cache.asMap().entrySet()) {
+          writer.append(entry.getKey(), entry.getValue(), 0L);
+        }
+      }
+      count = writer.finish();
+      channel.force(false);
+    } catch (SnapshotException e) {
+      Files.deleteIfExists(tempFile);
+      throw e.getCause();
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(tempFile);
+      throw e;
+    }
+    try {
+      Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+    return count;
+  }
+
+  /**
+   * 从快照文件并行地恢复缓存条目，已存在的条目不会被覆盖。
+   *
+   * @param cache                 缓存
+   * @param expireAfterWriteNanos 写入过期时间（纳秒），-1 表示不过期
+   * @param executor              并行解码数据块的执行器
+   * @return 恢复的条目数；快照文件不存在时返回 0
+   * @throws IOException 快照文件损坏或读取失败（可能已恢复了部分条目）
+   */
+  public long restore(Cache<K, V> cache, long expireAfterWriteNanos, Executor executor) throws IOException {
+    if (!Files.isRegularFile(file)) {
+      return 0L;
+    }
+    long now = System.currentTimeMillis();
+    List<CompletableFuture<Long>> tasks = new ArrayList<>();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      ByteBuffer header = readFully(channel, 0L, FILE_HEADER_SIZE);
+      if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+        throw new IOException("Not a cache snapshot: " + file);
+      }
+      long position = FILE_HEADER_SIZE;
+      while (true) {
+        int length = readFully(channel, position, 4).getInt();
+        if (length == 0) {
+          break;
+        }
+        if (length < 0 || position + BLOCK_HEADER_SIZE + length > size) {
+          throw new IOException("Corrupt cache snapshot at " + position + ": " + file);
+        }
+        int records = readFully(channel, position + 4, 4).getInt();
+        // 映射在通道关闭后依然有效
+        MappedByteBuffer block =
+            channel.map(FileChannel.MapMode.READ_ONLY, position + BLOCK_HEADER_SIZE, length);
+        tasks.add(CompletableFuture.supplyAsync(
+            () -> restoreBlock(cache, block, records, now, expireAfterWriteNanos), executor));
+        position += BLOCK_HEADER_SIZE + length;
+      }
+    }
+
+    long count = 0L;
+    IOException failure = null;
+    for (CompletableFuture<Long> task : tasks) {
+      try {
+        count += task.join();
+      } catch (CompletionException e) {
+        if (failure == null) {
+          failure = new IOException("Corrupt cache snapshot: " + file, e.getCause());
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    return count;
+  }
+
+  private long restoreBlock(Cache<K, V> cache, ByteBuffer block, int records, long now, long expireAfterWriteNanos) {
+    long count = 0L;
+    for (int i = 0; i < records; i++) {
+      long writeTime = block.getLong();
+      byte[] keyBytes = new byte[block.getInt()];
+      block.get(keyBytes);
+      byte[] valueBytes = new byte[block.getInt()];
+      block.get(valueBytes);
+
+      long ageNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, now - writeTime));
+      if (expireAfterWriteNanos >= 0L && ageNanos >= expireAfterWriteNanos) {
+        continue;
+      }
+      K key = keyCodec.decode(keyBytes);
+      V value = (key == null) ? null : valueCodec.decode(valueBytes);
+      if (value == null) {
+        continue;
+      }
+      if (cache instanceof SnapshotSupport) {
+        @SuppressWarnings("unchecked")
+        SnapshotSupport<K, V> snapshotSupport = (SnapshotSupport<K, V>) cache;
+        snapshotSupport.restore(key, value, ageNanos);
+      } else {
+        cache.asMap().putIfAbsent(key, value);
+      }
+      count++;
+    }
+    return count;
+  }
+
+  private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new EOFException("Truncated cache snapshot");
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  @Override
+  public String toString() {
+    return "CacheSnapshotter{" + file + '}';
+  }
+
+  /**
+   * 流式的快照写入者：每个数据块映射一段文件，写满后回填块头。
+   */
+  private final class SnapshotWriter {
+    private final FileChannel channel;
+    private final long snapshotTime;
+    private long position = FILE_HEADER_SIZE;
+    private MappedByteBuffer block;
+    private long blockStart;
+    private int blockRecords;
+    private long count;
+
+    SnapshotWriter(FileChannel channel, long snapshotTime) throws IOException {
+      this.channel = channel;
+      this.snapshotTime = snapshotTime;
+      MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0L, FILE_HEADER_SIZE);
+      header.putInt(MAGIC).putInt(VERSION).putLong(snapshotTime);
+    }
+
+    void append(K key, V value, long ageNanos) {
+      byte[] keyBytes = keyCodec.encode(key);
+      byte[] valueBytes = (keyBytes == null) ? null : valueCodec.encode(value);
+      if (valueBytes == null) {
+        // 无法编码的条目不写入快照
+        return;
+      }
+      int size = RECORD_OVERHEAD + keyBytes.length + valueBytes.length;
+      try {
+        if (block == null || block.remaining() < size) {
+          finishBlock();
+          startBlock(size);
+        }
+      } catch (IOException e) {
+        throw new SnapshotException(e);
+      }
+      block.putLong(snapshotTime - TimeUnit.NANOSECONDS.toMillis(ageNanos));
+      block.putInt(keyBytes.length).put(keyBytes);
+      block.putInt(valueBytes.length).put(valueBytes);
+      blockRecords++;
+    }
+
+    private void startBlock(int size) throws IOException {
+      blockStart = position;
+      block = channel.map(FileChannel.MapMode.READ_WRITE, blockStart, BLOCK_HEADER_SIZE + Math.max(BLOCK_SIZE, size));
+      block.position(BLOCK_HEADER_SIZE);
+    }
+
+    private void finishBlock() {
+      if (block == null) {
+        return;
+      }
+      block.putInt(0, block.position() - BLOCK_HEADER_SIZE);
+      block.putInt(4, blockRecords);
+      position = blockStart + block.position();
+      count += blockRecords;
+      blockRecords = 0;
+      block = null;
+    }
+
+    long finish() throws IOException {
+      finishBlock();
+      MappedByteBuffer end = channel.map(FileChannel.MapMode.READ_WRITE, position, 4);
+      end.putInt(0);
+      position += 4;
+      channel.truncate(position);
+      return count;
+    }
+  }
+
+  /**
+   * 遍历缓存时的写入异常（穿透 {@link SnapshotSupport.EntryConsumer}）。
+   */
+  private static final class SnapshotException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    SnapshotException(IOException cause) {
+      super(cause);
+    }
+
+    @Override
+    public synchronized IOException getCause() {
+      return (IOException) super.getCause();
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package com.common.cache;
+
+import java.lang.ref.WeakReference;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 共享的缓存巡检器：由一个定时任务依次对所有登记的缓存执行操作（如记录统计信息），取代每个缓存一个定时任务。
+ * <p/>
+ * 只弱引用登记的缓存，已被回收的缓存在下一次巡检时自动移除；操作本身不能引用缓存，由巡检时作为参数传入。
+ * 某个缓存的操作抛出异常时只记录日志，不影响其它缓存和后续的巡检。
+ *
+ * @since 2026-10-17
+ */
+final class CacheSweeper {
+  private static final Logger LOGGER = LoggerFactory.getLogger("localCache");
+
+  private final String name;
+  private final Set<Registration<?>> registrations = ConcurrentHashMap.newKeySet();
+
+  /**
+   * @param name 巡检器的名称（用于日志）
+   */
+  CacheSweeper(String name) {
+    this.name = name;
+  }
+
+  /**
+   * 登记一个缓存。
+   *
+   * @param target 缓存（弱引用）
+   * @param action 巡检时执行的操作，不能引用缓存
+   * @param <C>    缓存类型
+   * @return 登记信息，用于取消登记
+   */
+  <C> Registration<C> register(C target, Consumer<? super C> action) {
+    if (target == null) {
+      throw new IllegalArgumentException("target must be not null");
+    }
+    if (action == null) {
+      throw new IllegalArgumentException("action must be not null");
+    }
+    Registration<C> registration = new Registration<>(this, target, action);
+    registrations.add(registration);
+    return registration;
+  }
+
+  /**
+   * 对所有存活的缓存执行一次操作，并移除已被回收的缓存。
+   */
+  void sweep() {
+    for (Registration<?> registration : registrations) {
+      if (!registration.run()) {
+        registrations.remove(registration);
+      }
+    }
+  }
+
+  /**
+   * 返回登记的缓存数（包括尚未移除的已被回收的缓存）。
+   */
+  int size() {
+    return registrations.size();
+  }
+
+  @Override
+  public String toString() {
+    return "CacheSweeper{name=" + name + ", size=" + size() + '}';
+  }
+
+  /**
+   * 一个缓存的登记信息。
+   */
+  static final class Registration<C> {
+    private final CacheSweeper sweeper;
+    private final WeakReference<C> target;
+    private final Consumer<? super C> action;
+
+    private Registration(CacheSweeper sweeper, C target, Consumer<? super C> action) {
+      this.sweeper = sweeper;
+      this.target = new WeakReference<>(target);
+      this.action = action;
+    }
+
+    /**
+     * 执行操作。
+     *
+     * @return 缓存是否存活
+     */
+    private boolean run() {
+      C cache = target.get();
+      if (cache == null) {
+        return false;
+      }
+      try {
+        action.accept(cache);
+      } catch (RuntimeException e) {
+        LOGGER.warn("{} failed to sweep {}", sweeper.name, cache.getClass().getSimpleName(), e);
+      }
+      return true;
+    }
+
+    /**
+     * 取消登记。
+     */
+    void cancel() {
+      sweeper.registrations.remove(this);
+    }
+  }
+}
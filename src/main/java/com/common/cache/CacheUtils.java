@@ -12,6 +12,14 @@ public final class CacheUtils {
     private CacheUtils() {
     }
 
+    /**
+     * 用 {@code ':'} 拼接缓存键。
+     * <p/>
+     * 每次调用都会分配数组和字符串，本地缓存的热点路径上建议使用 {@link CacheKey#of} 组合的缓存键。
+     *
+     * @param keyElements 缓存键的组成部分
+     * @return 缓存键
+     */
     public static String toCacheKey(Object... keyElements) {
         if (ArrayUtils.isEmpty(keyElements)) {
             throw new IllegalArgumentException("keyElements must be not empty");
@@ -0,0 +1,356 @@
+package com.common.cache;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 缓存预热器：在后台从 {@link KeySource} 逐个读取键，按批次并行地加载到缓存中，并限制加载速率。
+ * <p/>
+ * 每批键通过缓存的 {@code getAll} 加载（支持批量加载的缓存加载器一次加载一批），同时加载的批次数不超过并发度，
+ * 加载速率（每秒的键数）由令牌桶限制，避免预热时压垮数据库；读取键的速度受这两者反压，不会在内存中堆积。
+ * <p/>
+ * 预热结束（完成、键的来源遍历失败或被取消）后进入就绪状态，健康检查可以通过 {@link #awaitReady} 等待。
+ * 部分键加载失败不影响预热继续进行，失败的键数可以通过 {@link #failedKeyCount()} 查看。
+ * <p/>
+ * 预热结束后不再引用缓存，登记预热器（如 {@link LocalCacheFactory#warmer}）不会阻止缓存被回收。
+ *
+ * @param <K> 键类型
+ * @see LocalCacheFactory#newWarmedLoadingCache
+ * @since 2026-10-17
+ */
+public final class CacheWarmer<K> implements Closeable {
+  private static final Logger LOGGER = LoggerFactory.getLogger("localCache");
+
+  /**
+   * 默认的每批键数
+   */
+  static final int DEFAULT_BATCH_SIZE = 100;
+  /**
+   * 默认的并发度
+   */
+  static final int DEFAULT_CONCURRENCY = 4;
+  /**
+   * 记录预热进度的最小间隔
+   */
+  private static final long PROGRESS_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10L);
+  /**
+   * 限速等待时检查取消的间隔（毫秒）
+   */
+  private static final long RATE_LIMIT_POLL_MILLIS = 100L;
+
+  private final String serviceName;
+  /**
+   * 预热的缓存，预热结束后置为 {@code null}
+   */
+  private LoadingCache<K, ?> cache;
+  private final KeySource<? extends K> keySource;
+  private final int batchSize;
+  private final int concurrency;
+  /**
+   * 每秒加载的键数上限，不大于 0 表示不限速
+   */
+  private final double rate;
+
+  private final AtomicBoolean started = new AtomicBoolean();
+  private final CountDownLatch ready = new CountDownLatch(1);
+  private volatile boolean cancelled;
+  private volatile Thread coordinator;
+  private volatile Throwable failure;
+  private volatile long startNanos;
+  private volatile long endNanos;
+  private final AtomicLong lastProgressLogNanos = new AtomicLong();
+
+  private final LongAdder submittedKeyCount = new LongAdder();
+  private final LongAdder loadedKeyCount = new LongAdder();
+  private final LongAdder failedKeyCount = new LongAdder();
+
+  /**
+   * 创建一个新的缓存预热器。
+   *
+   * @param serviceName 使用方的服务名称（用于区分日志和线程名称）
+   * @param cache       预热的缓存
+   * @param keySource   预热的键的来源
+   * @param batchSize   每批键数
+   * @param concurrency 同时加载的批次数
+   * @param rate        每秒加载的键数上限；不大于 0 时不限速
+   */
+  public CacheWarmer(String serviceName, LoadingCache<K, ?> cache, KeySource<? extends K> keySource,
+                     int batchSize, int concurrency, double rate) {
+    if (cache == null) {
+      throw new IllegalArgumentException("cache must be not null");
+    }
+    if (keySource == null) {
+      throw new IllegalArgumentException("keySource must be not null");
+    }
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+    }
+    if (concurrency <= 0) {
+      throw new IllegalArgumentException("concurrency must be positive: " + concurrency);
+    }
+    this.serviceName = serviceName;
+    this.cache = cache;
+    this.keySource = keySource;
+    this.batchSize = batchSize;
+    this.concurrency = concurrency;
+    this.rate = rate;
+  }
+
+  /**
+   * 在后台线程中开始预热。
+   *
+   * @throws IllegalStateException 已经开始过
+   */
+  public void start() {
+    if (!started.compareAndSet(false, true)) {
+      throw new IllegalStateException("warm-up already started");
+    }
+    Thread thread = new Thread(this::run, "local-cache-warm-up-" + serviceName);
+    thread.setDaemon(true);
+    coordinator = thread;
+    thread.start();
+  }
+
+  private void run() {
+    LoadingCache<K, ?> target = cache;
+    startNanos = System.nanoTime();
+    lastProgressLogNanos.set(startNanos);
+    ExecutorService workers = Executors.newFixedThreadPool(concurrency, new ThreadFactoryBuilder()
+        .setNameFormat("local-cache-warm-up-" + serviceName + "-%d").setDaemon(true).build());
+    Semaphore inFlight = new Semaphore(concurrency);
+    // 开始预热时才创建令牌桶，避免启动前积攒的令牌让首批突发
+    RateLimiter rateLimiter = (rate > 0d) ? RateLimiter.create(rate) : null;
+    try {
+      try {
+        BatchCollector collector = new BatchCollector(target, workers, inFlight, rateLimiter);
+        keySource.forEachKey(collector);
+        collector.flush();
+      } catch (CancellationException e) {
+        cancelled = true;
+      } catch (Exception e) {
+        failure = e;
+        LOGGER.warn("{}'s cache warm-up failed to iterate keys from {}", serviceName, keySource, e);
+      }
+      if (!cancelled) {
+        // 等待已提交的批次加载完成
+        inFlight.acquire(concurrency);
+      }
+    } catch (InterruptedException e) {
+      cancelled = true;
+    } finally {
+      if (cancelled) {
+        workers.shutdownNow();
+      } else {
+        workers.shutdown();
+      }
+      endNanos = System.nanoTime();
+      coordinator = null;
+      cache = null;
+      ready.countDown();
+      LOGGER.info("{}'s cache warm-up {} in {} ms, {}", serviceName,
+          cancelled ? "cancelled" : (failure == null) ? "completed" : "failed",
+          TimeUnit.NANOSECONDS.toMillis(elapsedNanos()), this);
+    }
+  }
+
+  /**
+   * 加载一批键；加载失败只计数，不中断预热。
+   */
+  private void load(LoadingCache<K, ?> target, List<K> keys) {
+    try {
+      target.getAll(keys);
+      loadedKeyCount.add(keys.size());
+    } catch (ExecutionException | RuntimeException | ExecutionError e) {
+      Throwable cause = e.getCause();
+      int loaded = (cause instanceof PartialLoadException)
+          ? ((PartialLoadException) cause).loadedValues().size() : 0;
+      loadedKeyCount.add(loaded);
+      failedKeyCount.add(keys.size() - loaded);
+      LOGGER.debug("{}'s cache warm-up failed to load {} keys", serviceName, keys.size() - loaded, e);
+    }
+    long now = System.nanoTime();
+    long last = lastProgressLogNanos.get();
+    if (now - last >= PROGRESS_LOG_INTERVAL_NANOS && lastProgressLogNanos.compareAndSet(last, now)) {
+      LOGGER.info("{}'s cache warm-up in progress, {}", serviceName, this);
+    }
+  }
+
+  /**
+   * 取消预热：停止读取键并中断加载中的批次，随后进入就绪状态。
+   */
+  @Override
+  public void close() {
+    cancelled = true;
+    Thread thread = coordinator;
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+
+  // 预热进度
+
+  /**
+   * 返回预热是否已结束（完成、失败或被取消）。
+   */
+  public boolean isReady() {
+    return ready.getCount() == 0L;
+  }
+
+  /**
+   * 等待预热结束。
+   *
+   * @param timeout 最长等待时间
+   * @param unit    时间单位
+   * @return 是否已结束
+   * @throws InterruptedException 等待时被中断
+   */
+  public boolean awaitReady(long timeout, TimeUnit unit) throws InterruptedException {
+    return ready.await(timeout, unit);
+  }
+
+  /**
+   * 返回遍历键的来源失败的原因；没有失败时返回 {@code null}。
+   */
+  public Throwable failure() {
+    return failure;
+  }
+
+  /**
+   * 返回是否已被取消。
+   */
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * 返回提交加载的键数。
+   */
+  public long submittedKeyCount() {
+    return submittedKeyCount.sum();
+  }
+
+  /**
+   * 返回加载成功的键数。
+   */
+  public long loadedKeyCount() {
+    return loadedKeyCount.sum();
+  }
+
+  /**
+   * 返回加载失败的键数。
+   */
+  public long failedKeyCount() {
+    return failedKeyCount.sum();
+  }
+
+  /**
+   * 返回预热已进行（或进行了）的时间（纳秒）；尚未开始时返回 0。
+   */
+  public long elapsedNanos() {
+    long start = startNanos;
+    if (start == 0L) {
+      return 0L;
+    }
+    return (isReady() ? endNanos : System.nanoTime()) - start;
+  }
+
+  @Override
+  public String toString() {
+    long elapsedNanos = elapsedNanos();
+    long loaded = loadedKeyCount();
+    return "CacheWarmer{ready=" + isReady()
+        + ", submittedKeyCount=" + submittedKeyCount()
+        + ", loadedKeyCount=" + loaded
+        + ", failedKeyCount=" + failedKeyCount()
+        + ", keysPerSecond=" + ((elapsedNanos == 0L) ? 0L : loaded * TimeUnit.SECONDS.toNanos(1L) / elapsedNanos)
+        + ", batchSize=" + batchSize
+        + ", concurrency=" + concurrency
+        + ", rate=" + ((rate > 0d) ? rate : "unlimited")
+        + '}';
+  }
+
+  /**
+   * 把键收集成批次，提交给加载线程池；限速和并发度的等待反压到键的来源。
+   */
+  private final class BatchCollector implements Consumer<K> {
+    private final LoadingCache<K, ?> target;
+    private final ExecutorService workers;
+    private final Semaphore inFlight;
+    private final RateLimiter rateLimiter;
+    private List<K> batch = new ArrayList<>();
+
+    BatchCollector(LoadingCache<K, ?> target, ExecutorService workers, Semaphore inFlight, RateLimiter rateLimiter) {
+      this.target = target;
+      this.workers = workers;
+      this.inFlight = inFlight;
+      this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public void accept(K key) {
+      if (cancelled) {
+        throw new CancellationException("warm-up cancelled");
+      }
+      batch.add(key);
+      if (batch.size() >= batchSize) {
+        flush();
+      }
+    }
+
+    void flush() {
+      if (batch.isEmpty()) {
+        return;
+      }
+      final List<K> keys = batch;
+      batch = new ArrayList<>();
+      try {
+        if (rateLimiter != null) {
+          acquirePermits(keys.size());
+        }
+        inFlight.acquire();
+      } catch (InterruptedException e) {
+        throw new CancellationException("warm-up interrupted");
+      }
+      submittedKeyCount.add(keys.size());
+      workers.execute(() -> {
+        try {
+          load(target, keys);
+        } finally {
+          inFlight.release();
+        }
+      });
+    }
+
+    /**
+     * 获取令牌；{@link RateLimiter#acquire(int)} 不响应中断，因此分段等待，每段之间检查是否已取消。
+     */
+    private void acquirePermits(int permits) throws InterruptedException {
+      while (!rateLimiter.tryAcquire(permits, RATE_LIMIT_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+        if (cancelled) {
+          throw new CancellationException("warm-up cancelled");
+        }
+        // 需要等待超过超时时间时 tryAcquire 立即返回，不会等待，因此这里睡眠不会超过令牌可用的时间
+        TimeUnit.MILLISECONDS.sleep(RATE_LIMIT_POLL_MILLIS);
+      }
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package com.common.cache;
+
+import com.google.common.cache.CacheLoader;
+
+/**
+ * 同时决定值的存活时间的缓存加载器。
+ * <p/>
+ * {@link CacheLoader#load} 的契约只能返回值，因此存活时间由 {@link #expireAfterWrite} 根据加载出的值给出，
+ * 如：
+ * <pre>{@code
+ * new ExpiringCacheLoader<Long, Item>() {
+ *   public Item load(Long id) {
+ *     return itemDao.find(id).orElse(Item.ABSENT);
+ *   }
+ *
+ *   public long expireAfterWrite(Long id, Item item) {
+ *     return (item == Item.ABSENT) ? TimeUnit.SECONDS.toNanos(5) : TimeUnit.MINUTES.toNanos(30);
+ *   }
+ * }
+ * }</pre>
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @see LocalCacheFactory#newExpiringLoadingCache(String, String, ExpiringCacheLoader)
+ * @since 2026-10-17
+ */
+public abstract class ExpiringCacheLoader<K, V> extends CacheLoader<K, V> implements Expiry<K, V> {
+}
@@ -0,0 +1,24 @@
+package com.common.cache;
+
+/**
+ * 按条目计算的过期策略：每个条目写入（加载、刷新、put）时由值决定自己的存活时间。
+ * <p/>
+ * 如热点数据缓存得久一些、冷数据短一些，“不存在”的结果（负缓存）只缓存几秒，都可以放在同一个缓存中。
+ * 由 {@link TinyLfuLoadingCache} 的分层时间轮管理，每个条目的过期成本是 O(1)，与存活时间是否相同无关。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @see ExpiringCacheLoader
+ * @since 2026-10-17
+ */
+public interface Expiry<K, V> {
+
+  /**
+   * 返回条目写入后的存活时间。
+   *
+   * @param key   键
+   * @param value 新写入的值
+   * @return 存活时间（纳秒）；{@link Long#MAX_VALUE} 表示不过期
+   */
+  long expireAfterWrite(K key, V value);
+}
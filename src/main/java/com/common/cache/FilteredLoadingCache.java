@@ -0,0 +1,278 @@
+package com.common.cache;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader.InvalidCacheLoadException;
+import com.google.common.cache.ForwardingLoadingCache;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 防止缓存穿透的缓存：在加载之前用键过滤器和负缓存拦截不存在的键。
+ * <p/>
+ * 键过滤器是由 {@link KeySource} 构建的 {@link ScalableBloomFilter}，过滤器判断不存在的键直接拦截（短路），
+ * 不再调用缓存加载器；过滤器判断可能存在、但缓存加载器返回 {@code null} 的键（误判）记入负缓存，
+ * 负缓存有独立的较短存活时间和容量上限。
+ * 被拦截的键与缓存加载器返回 {@code null} 时一样抛出 {@link InvalidCacheLoadException}，调用方的处理方式不变。
+ * <p/>
+ * 键过滤器在后台构建完成之前不拦截任何键；之后按 {@code keyFilterRebuild} 定期地重建，重建期间继续使用原来的过滤器。
+ * 新增的键需要通过 {@link #put}（或 {@link #markPresent}）告知过滤器，否则在下次重建之前会被拦截。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @see LocalCacheFactory#newFilteredLoadingCache
+ * @since 2026-10-17
+ */
+public final class FilteredLoadingCache<K, V> extends ForwardingLoadingCache.SimpleForwardingLoadingCache<K, V> {
+  private static final Logger LOGGER = LoggerFactory.getLogger("localCache");
+
+  /**
+   * 键过滤器的默认误判率
+   */
+  static final double DEFAULT_KEY_FILTER_FPP = 0.01d;
+  /**
+   * 负缓存的默认存活时间
+   */
+  static final long DEFAULT_NEGATIVE_TTL_NANOS = TimeUnit.SECONDS.toNanos(30L);
+  /**
+   * 负缓存的默认最大条目数
+   */
+  static final long DEFAULT_NEGATIVE_MAXIMUM_SIZE = 10_000L;
+  private static final long MIN_KEY_FILTER_CAPACITY = 1024L;
+
+  private final LoadingCache<K, V> cache;
+  private final KeySource<? extends K> keySource;
+  private final double keyFilterFpp;
+  private final Cache<Object, Boolean> negativeCache;
+  private final ReentrantLock rebuildLock = new ReentrantLock();
+
+  /**
+   * 键过滤器；尚未构建完成时为 {@code null}，不拦截任何键
+   */
+  private volatile ScalableBloomFilter keyFilter;
+  /**
+   * 正在重建的键过滤器，重建期间新增的键同时插入
+   */
+  private volatile ScalableBloomFilter rebuildingKeyFilter;
+
+  private final LongAdder shortCircuitCount = new LongAdder();
+  private final LongAdder negativeHitCount = new LongAdder();
+  private final LongAdder falsePositiveCount = new LongAdder();
+  private final LongAdder rebuildCount = new LongAdder();
+  private final LongAdder rebuildFailureCount = new LongAdder();
+
+  /**
+   * 创建一个新的防止缓存穿透的缓存。
+   *
+   * @param cache     被保护的缓存
+   * @param keySource 所有存在的键的来源
+   * @param spec      缓存配置的规格（{@code keyFilterFpp}、{@code negativeTtl}、{@code negativeMaximumSize}）
+   */
+  FilteredLoadingCache(LoadingCache<K, V> cache, KeySource<? extends K> keySource, LocalCacheSpec spec) {
+    super(cache);
+    if (keySource == null) {
+      throw new IllegalArgumentException("keySource must be not null");
+    }
+    this.cache = cache;
+    this.keySource = keySource;
+    this.keyFilterFpp = (spec.keyFilterFpp() > 0d) ? spec.keyFilterFpp() : DEFAULT_KEY_FILTER_FPP;
+    long negativeTtlNanos = (spec.negativeTtlNanos() > 0L) ? spec.negativeTtlNanos() : DEFAULT_NEGATIVE_TTL_NANOS;
+    long negativeMaximumSize =
+        (spec.negativeMaximumSize() > 0L) ? spec.negativeMaximumSize() : DEFAULT_NEGATIVE_MAXIMUM_SIZE;
+    this.negativeCache = CacheBuilder.newBuilder()
+        .maximumSize(negativeMaximumSize)
+        .expireAfterWrite(negativeTtlNanos, TimeUnit.NANOSECONDS)
+        .build();
+  }
+
+  /**
+   * 返回被保护的缓存。
+   */
+  LoadingCache<K, V> cache() {
+    return cache;
+  }
+
+  // 读操作
+
+  @Override
+  public V get(K key) throws ExecutionException {
+    checkPresent(key);
+    try {
+      return super.get(key);
+    } catch (InvalidCacheLoadException e) {
+      recordAbsent(key);
+      throw e;
+    }
+  }
+
+  @Override
+  public V getUnchecked(K key) {
+    checkPresent(key);
+    try {
+      return super.getUnchecked(key);
+    } catch (InvalidCacheLoadException e) {
+      recordAbsent(key);
+      throw e;
+    }
+  }
+
+  @Override
+  public ImmutableMap<K, V> getAll(Iterable<? extends K> keys) throws ExecutionException {
+    for (K key : keys) {
+      checkPresent(key);
+    }
+    return super.getAll(keys);
+  }
+
+  @Override
+  @SuppressWarnings("deprecation")
+  public V apply(K key) {
+    return getUnchecked(key);
+  }
+
+  /**
+   * 拦截键过滤器判断不存在的键，以及负缓存中的键。
+   */
+  private void checkPresent(Object key) {
+    ScalableBloomFilter filter = keyFilter;
+    if (filter != null && key != null && !filter.mightContain(key)) {
+      shortCircuitCount.increment();
+      throw new InvalidCacheLoadException("key filter rejected absent key " + key + ".");
+    }
+    if (key != null && negativeCache.getIfPresent(key) != null) {
+      negativeHitCount.increment();
+      throw new InvalidCacheLoadException("negative cache rejected absent key " + key + ".");
+    }
+  }
+
+  private void recordAbsent(Object key) {
+    if (keyFilter != null) {
+      falsePositiveCount.increment();
+    }
+    negativeCache.put(key, Boolean.TRUE);
+  }
+
+  // 写操作
+
+  @Override
+  public void put(K key, V value) {
+    markPresent(key);
+    super.put(key, value);
+  }
+
+  @Override
+  public void putAll(Map<? extends K, ? extends V> m) {
+    for (K key : m.keySet()) {
+      markPresent(key);
+    }
+    super.putAll(m);
+  }
+
+  /**
+   * 标记键已存在（例如新增了数据），使其不再被键过滤器和负缓存拦截。
+   *
+   * @param key 键
+   */
+  public void markPresent(K key) {
+    ScalableBloomFilter filter = keyFilter;
+    if (filter != null) {
+      filter.put(key);
+    }
+    ScalableBloomFilter rebuilding = rebuildingKeyFilter;
+    if (rebuilding != null) {
+      rebuilding.put(key);
+    }
+    negativeCache.invalidate(key);
+  }
+
+  /**
+   * 从键的来源重建键过滤器（同步执行）。遍历失败时继续使用原来的过滤器。
+   *
+   * @return 是否重建成功
+   */
+  public boolean rebuild() {
+    rebuildLock.lock();
+    try {
+      ScalableBloomFilter previous = keyFilter;
+      long capacity = (previous == null) ? MIN_KEY_FILTER_CAPACITY
+          : Math.max(MIN_KEY_FILTER_CAPACITY, previous.approximateCount());
+      ScalableBloomFilter rebuilding = new ScalableBloomFilter(capacity, keyFilterFpp);
+      rebuildingKeyFilter = rebuilding;
+      long startTime = System.nanoTime();
+      try {
+        keySource.forEachKey(rebuilding::put);
+      } catch (Exception e) {
+        rebuildFailureCount.increment();
+        LOGGER.warn("Failed to rebuild key filter from {}", keySource, e);
+        return false;
+      } finally {
+        rebuildingKeyFilter = null;
+      }
+      keyFilter = rebuilding;
+      rebuildCount.increment();
+      LOGGER.info("Rebuilt key filter in {} ms, {}",
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), rebuilding);
+      return true;
+    } finally {
+      rebuildLock.unlock();
+    }
+  }
+
+  // 统计信息
+
+  /**
+   * 返回键过滤器是否已构建完成。
+   */
+  public boolean isKeyFilterReady() {
+    return keyFilter != null;
+  }
+
+  /**
+   * 返回键过滤器拦截（短路）的次数。
+   */
+  public long shortCircuitCount() {
+    return shortCircuitCount.sum();
+  }
+
+  /**
+   * 返回负缓存拦截的次数。
+   */
+  public long negativeHitCount() {
+    return negativeHitCount.sum();
+  }
+
+  /**
+   * 返回键过滤器误判的次数：判断可能存在、但缓存加载器返回 {@code null}。
+   */
+  public long falsePositiveCount() {
+    return falsePositiveCount.sum();
+  }
+
+  /**
+   * 返回负缓存的条目数。
+   */
+  public long negativeSize() {
+    return negativeCache.size();
+  }
+
+  @Override
+  public String toString() {
+    ScalableBloomFilter filter = keyFilter;
+    return "FilteredLoadingCache{keyFilterReady=" + (filter != null)
+        + ", approximateKeyCount=" + ((filter == null) ? 0L : filter.approximateCount())
+        + ", shortCircuitCount=" + shortCircuitCount()
+        + ", negativeHitCount=" + negativeHitCount()
+        + ", falsePositiveCount=" + falsePositiveCount()
+        + ", negativeSize=" + negativeSize()
+        + ", rebuildCount=" + rebuildCount.sum()
+        + ", rebuildFailureCount=" + rebuildFailureCount.sum() + '}';
+  }
+}
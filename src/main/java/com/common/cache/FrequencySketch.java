@@ -0,0 +1,107 @@
+package com.common.cache;
+
+/**
+ * 估算键的访问频率的 4-bit Count-Min Sketch（TinyLFU 的频率过滤器）。
+ * <p/>
+ * 每个 long 存放 16 个 4-bit 计数器，每个键映射到 4 个计数器，频率取其最小值（上限为15）。
+ * 累计增加次数达到采样大小后，所有计数器减半（老化），使历史热点逐渐冷却。
+ * <p/>
+ * 非线程安全，由调用方（缓存维护锁）保证串行访问。
+ *
+ * @see <a href="https://arxiv.org/abs/1512.00727">TinyLFU: A Highly Efficient Cache Admission Policy</a>
+ * @since 2026-10-17
+ */
+final class FrequencySketch {
+  private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final long ONE_MASK = 0x1111111111111111L;
+
+  private final long[] table;
+  private final int tableMask;
+  private final int sampleSize;
+  private int size;
+
+  /**
+   * 创建一个新的频率估算器。
+   *
+   * @param maximumSize 缓存的最大条目数（决定计数器的数量）
+   */
+  FrequencySketch(long maximumSize) {
+    int maximum = (int) Math.min(Math.max(maximumSize, 1L), 1 << 30);
+    this.table = new long[ceilingPowerOfTwo(maximum)];
+    this.tableMask = table.length - 1;
+    this.sampleSize = (maximum > Integer.MAX_VALUE / 10) ? Integer.MAX_VALUE : 10 * maximum;
+  }
+
+  /**
+   * 返回元素的估算频率，范围 [0, 15]。
+   */
+  int frequency(Object e) {
+    int hash = spread(e.hashCode());
+    int start = (hash & 3) << 2;
+    int frequency = Integer.MAX_VALUE;
+    for (int i = 0; i < 4; i++) {
+      int index = indexOf(hash, i);
+      int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * 增加元素的访问频率；达到采样大小后执行老化。
+   */
+  void increment(Object e) {
+    int hash = spread(e.hashCode());
+    int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < 4; i++) {
+      added |= incrementAt(indexOf(hash, i), start + i);
+    }
+    if (added && (++size == sampleSize)) {
+      reset();
+    }
+  }
+
+  private boolean incrementAt(int i, int j) {
+    int offset = j << 2;
+    long mask = (0xfL << offset);
+    if ((table[i] & mask) != mask) {
+      table[i] += (1L << offset);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * 所有计数器减半。
+   */
+  private void reset() {
+    int count = 0;
+    for (int i = 0; i < table.length; i++) {
+      count += Long.bitCount(table[i] & ONE_MASK);
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    size = (size >>> 1) - (count >>> 2);
+  }
+
+  private int indexOf(int item, int i) {
+    long hash = (item + SEEDS[i]) * SEEDS[i];
+    hash += (hash >>> 32);
+    return ((int) hash) & tableMask;
+  }
+
+  /**
+   * 二次散列，避免质量较差的 hashCode 集中到少数计数器。
+   */
+  static int spread(int x) {
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    return (x >>> 16) ^ x;
+  }
+
+  static int ceilingPowerOfTwo(int x) {
+    return 1 << -Integer.numberOfLeadingZeros(x - 1);
+  }
+}
@@ -0,0 +1,73 @@
+package com.common.cache;
+
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.cache.ForwardingLoadingCache;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * 记录读取的键的 Guava 缓存（Guava 缓存没有读取的扩展点，其它引擎直接在读路径上记录）。
+ * <p/>
+ * 只记录通过 {@link LoadingCache} 接口的读取，不记录 {@link #asMap()} 视图的读取。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @see HotKeyTracker
+ * @since 2026-10-17
+ */
+final class HotKeyLoadingCache<K, V> extends ForwardingLoadingCache.SimpleForwardingLoadingCache<K, V> {
+  private final HotKeyTracker hotKeyTracker;
+
+  HotKeyLoadingCache(LoadingCache<K, V> delegate, HotKeyTracker hotKeyTracker) {
+    super(delegate);
+    this.hotKeyTracker = hotKeyTracker;
+  }
+
+  /**
+   * 返回热点键探测器。
+   */
+  HotKeyTracker hotKeyTracker() {
+    return hotKeyTracker;
+  }
+
+  @Override
+  public V getIfPresent(Object key) {
+    hotKeyTracker.record(key);
+    return super.getIfPresent(key);
+  }
+
+  @Override
+  public ImmutableMap<K, V> getAllPresent(Iterable<?> keys) {
+    for (Object key : keys) {
+      hotKeyTracker.record(key);
+    }
+    return super.getAllPresent(keys);
+  }
+
+  @Override
+  public V get(K key) throws ExecutionException {
+    hotKeyTracker.record(key);
+    return super.get(key);
+  }
+
+  @Override
+  public V getUnchecked(K key) {
+    hotKeyTracker.record(key);
+    return super.getUnchecked(key);
+  }
+
+  @Override
+  public ImmutableMap<K, V> getAll(Iterable<? extends K> keys) throws ExecutionException {
+    for (K key : keys) {
+      hotKeyTracker.record(key);
+    }
+    return super.getAll(keys);
+  }
+
+  @Override
+  @SuppressWarnings("deprecation")
+  public V apply(K key) {
+    return getUnchecked(key);
+  }
+}
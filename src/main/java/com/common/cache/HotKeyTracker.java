@@ -0,0 +1,278 @@
+package com.common.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.google.common.base.Ticker;
+
+/**
+ * 热点键探测：按时间窗口统计读取次数最多的 K 个键（{@code hotKeys=10,hotKeyWindow=1m}）。
+ * <p/>
+ * 读路径只把键追加到无锁的有损读缓冲区（{@link ReadBuffer}），缓冲区满时由抢到锁（{@code tryLock}）的线程批量处理：
+ * 计入 Count-Min Sketch 估算键的读取次数，并用大小为 K 的最小堆维护估算次数最多的键。
+ * 占用的内存是固定的：计数器的数量和堆的大小只由 K 决定。
+ * <p/>
+ * 每个窗口结束时保存当前窗口的热点键并清零重新统计。读缓冲区满且并发竞争时会丢弃部分读取，
+ * 因此次数是采样的估算值，适合比较键之间的热度，而不是精确计数。
+ *
+ * @see LocalCacheFactory#hotKeyTracker(com.google.common.cache.Cache)
+ * @since 2026-10-17
+ */
+public final class HotKeyTracker {
+  /**
+   * 最多统计的热点键数
+   */
+  static final int MAXIMUM_TOP_K = 1000;
+  /**
+   * Count-Min Sketch 的行数（每个键映射到的计数器数）
+   */
+  private static final int DEPTH = 4;
+  /**
+   * 每个热点键对应的 Count-Min Sketch 列数
+   */
+  private static final int WIDTH_PER_KEY = 128;
+  private static final int MIN_WIDTH = 256;
+  private static final int[] SEEDS = {0x97cb3127, 0x6fbe98f2, 0x2f90404f, 0x84222325};
+
+  private final int topK;
+  private final long windowNanos;
+  private final Ticker ticker;
+  private final ReadBuffer<Object> readBuffer = new ReadBuffer<>();
+  private final ReentrantLock lock = new ReentrantLock();
+
+  // 以下字段由 lock 保护
+
+  private final int[] counters;
+  private final int widthMask;
+  /**
+   * 按估算次数排列的最小堆
+   */
+  private final Object[] heapKeys;
+  private final int[] heapCounts;
+  private final Map<Object, Integer> heapIndex;
+  private int heapSize;
+  private long windowStart;
+
+  /**
+   * 上一个完整窗口的热点键，按次数从多到少排列
+   */
+  private volatile List<HotKey> lastWindow = Collections.emptyList();
+
+  /**
+   * 创建一个新的热点键探测器。
+   *
+   * @param topK        统计的热点键数
+   * @param windowNanos 统计窗口的时长（纳秒）
+   * @param ticker      时钟
+   */
+  HotKeyTracker(int topK, long windowNanos, Ticker ticker) {
+    if (topK <= 0 || topK > MAXIMUM_TOP_K) {
+      throw new IllegalArgumentException("topK must be in [1, " + MAXIMUM_TOP_K + "]: " + topK);
+    }
+    if (windowNanos <= 0L) {
+      throw new IllegalArgumentException("windowNanos must be positive: " + windowNanos);
+    }
+    if (ticker == null) {
+      throw new IllegalArgumentException("ticker must be not null");
+    }
+    this.topK = topK;
+    this.windowNanos = windowNanos;
+    this.ticker = ticker;
+    int width = FrequencySketch.ceilingPowerOfTwo(Math.max(MIN_WIDTH, topK * WIDTH_PER_KEY));
+    this.counters = new int[DEPTH * width];
+    this.widthMask = width - 1;
+    this.heapKeys = new Object[topK];
+    this.heapCounts = new int[topK];
+    this.heapIndex = new HashMap<>(topK * 2);
+    this.windowStart = ticker.read();
+  }
+
+  /**
+   * 记录一次读取（无锁）。
+   *
+   * @param key 键
+   */
+  void record(Object key) {
+    if (key == null) {
+      return;
+    }
+    if (readBuffer.offer(key) == ReadBuffer.FULL && lock.tryLock()) {
+      try {
+        drain(ticker.read());
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * 返回键在当前窗口内的估算读取次数（不加锁，是近似值）。
+   *
+   * @param key 键
+   */
+  int frequency(Object key) {
+    int hash = FrequencySketch.spread(key.hashCode());
+    int count = Integer.MAX_VALUE;
+    for (int i = 0; i < DEPTH; i++) {
+      count = Math.min(count, counters[i * (widthMask + 1) + (FrequencySketch.spread(hash ^ SEEDS[i]) & widthMask)]);
+    }
+    return count;
+  }
+
+  /**
+   * 返回上一个完整窗口的热点键，按估算次数从多到少排列。
+   */
+  public List<HotKey> topKeys() {
+    lock.lock();
+    try {
+      drain(ticker.read());
+    } finally {
+      lock.unlock();
+    }
+    return lastWindow;
+  }
+
+  /**
+   * 返回统计的热点键数。
+   */
+  public int topK() {
+    return topK;
+  }
+
+  /**
+   * 返回统计窗口的时长（纳秒）。
+   */
+  public long windowNanos() {
+    return windowNanos;
+  }
+
+  private void drain(long now) {
+    readBuffer.drainTo(this::increment);
+    if (now - windowStart >= windowNanos) {
+      lastWindow = snapshot();
+      Arrays.fill(counters, 0);
+      Arrays.fill(heapKeys, null);
+      heapIndex.clear();
+      heapSize = 0;
+      windowStart = now;
+    }
+  }
+
+  private void increment(Object key) {
+    int hash = FrequencySketch.spread(key.hashCode());
+    int count = Integer.MAX_VALUE;
+    for (int i = 0; i < DEPTH; i++) {
+      int index = i * (widthMask + 1) + (FrequencySketch.spread(hash ^ SEEDS[i]) & widthMask);
+      if (counters[index] < Integer.MAX_VALUE) {
+        counters[index]++;
+      }
+      count = Math.min(count, counters[index]);
+    }
+    offer(key, count);
+  }
+
+  /**
+   * 更新最小堆：已在堆中的键更新次数，否则替换次数最少的键。
+   */
+  private void offer(Object key, int count) {
+    Integer index = heapIndex.get(key);
+    if (index != null) {
+      heapCounts[index] = count;
+      siftDown(index);
+    } else if (heapSize < topK) {
+      set(heapSize, key, count);
+      siftUp(heapSize++);
+    } else if (count > heapCounts[0]) {
+      heapIndex.remove(heapKeys[0]);
+      set(0, key, count);
+      siftDown(0);
+    }
+  }
+
+  private void siftUp(int i) {
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      if (heapCounts[parent] <= heapCounts[i]) {
+        return;
+      }
+      swap(i, parent);
+      i = parent;
+    }
+  }
+
+  private void siftDown(int i) {
+    for (int child = 2 * i + 1; child < heapSize; i = child, child = 2 * i + 1) {
+      if (child + 1 < heapSize && heapCounts[child + 1] < heapCounts[child]) {
+        child++;
+      }
+      if (heapCounts[i] <= heapCounts[child]) {
+        return;
+      }
+      swap(i, child);
+    }
+  }
+
+  private void swap(int i, int j) {
+    Object key = heapKeys[i];
+    int count = heapCounts[i];
+    set(i, heapKeys[j], heapCounts[j]);
+    set(j, key, count);
+  }
+
+  private void set(int i, Object key, int count) {
+    heapKeys[i] = key;
+    heapCounts[i] = count;
+    heapIndex.put(key, i);
+  }
+
+  private List<HotKey> snapshot() {
+    List<HotKey> hotKeys = new ArrayList<>(heapSize);
+    for (int i = 0; i < heapSize; i++) {
+      hotKeys.add(new HotKey(heapKeys[i], heapCounts[i]));
+    }
+    hotKeys.sort((a, b) -> Long.compare(b.count, a.count));
+    return Collections.unmodifiableList(hotKeys);
+  }
+
+  @Override
+  public String toString() {
+    return "HotKeyTracker{topKeys=" + topKeys() + '}';
+  }
+
+  /**
+   * 热点键及其在窗口内的估算读取次数。
+   */
+  public static final class HotKey {
+    private final Object key;
+    private final long count;
+
+    HotKey(Object key, long count) {
+      this.key = key;
+      this.count = count;
+    }
+
+    /**
+     * 返回键。
+     */
+    public Object key() {
+      return key;
+    }
+
+    /**
+     * 返回窗口内的估算读取次数。
+     */
+    public long count() {
+      return count;
+    }
+
+    @Override
+    public String toString() {
+      return key + "=" + count;
+    }
+  }
+}
@@ -0,0 +1,416 @@
+package com.common.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.cache.Cache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 跨实例的缓存失效总线。
+ * <p/>
+ * 多个实例持有同样的本地缓存时，一个实例修改了数据源，调用 {@link #invalidate(String, String)}
+ * 立即失效本地缓存，并在一个时间窗口内把失效的键（通常由 {@link CacheUtils#toCacheKey(Object...)} 生成）
+ * 合并成批，经 {@link InvalidationTransport} 扇出到其它实例；其它实例按缓存名称批量地失效
+ * （{@link Cache#invalidateAll(Iterable)}）。这样缓存可以设置较长的过期时间，而不必靠短过期时间保证新鲜度。
+ * <p/>
+ * 传输通道是尽力而为的，丢失的消息由缓存的过期时间兜底。
+ * <p/>
+ * 消息格式：版本号（1 字节）、发送方标识（8 字节），随后是若干条记录，每条记录以 1 字节的类型开头：
+ * 切换当前缓存（缓存名称）、失效一个键（键）、失效当前缓存的全部条目。
+ *
+ * @since 2026-10-17
+ */
+public final class InvalidationBus implements Closeable {
+  private static final Logger LOGGER = LoggerFactory.getLogger("localCache");
+
+  private static final byte VERSION = 1;
+  private static final byte CACHE = 0;
+  private static final byte KEY = 1;
+  private static final byte ALL = 2;
+  /**
+   * 消息头的字节数（版本号 + 发送方标识）
+   */
+  private static final int HEADER_BYTES = 1 + 8;
+
+  private final InvalidationTransport transport;
+  /**
+   * 发送方标识，用于忽略自己发出的消息（如组播）
+   */
+  private final long origin = ThreadLocalRandom.current().nextLong();
+  private final ConcurrentMap<String, Cache<String, ?>> caches = new ConcurrentHashMap<>();
+  /**
+   * 等待发送的失效记录：{缓存名称, 键}，键为 {@code null} 表示全部失效
+   */
+  private final Queue<String[]> pending = new ConcurrentLinkedQueue<>();
+  private final ScheduledExecutorService flusher;
+
+  private final LongAdder publishedKeyCount = new LongAdder();
+  private final LongAdder publishedMessageCount = new LongAdder();
+  private final LongAdder publishFailureCount = new LongAdder();
+  private final LongAdder droppedKeyCount = new LongAdder();
+  private final LongAdder receivedMessageCount = new LongAdder();
+  private final LongAdder appliedKeyCount = new LongAdder();
+
+  /**
+   * 创建一个新的缓存失效总线。
+   *
+   * @param transport   传输通道
+   * @param batchWindow 合并失效的键的时间窗口
+   * @param timeUnit    时间窗口的单位
+   */
+  public InvalidationBus(InvalidationTransport transport, long batchWindow, TimeUnit timeUnit) {
+    if (transport == null) {
+      throw new IllegalArgumentException("transport must be not null");
+    }
+    if (batchWindow <= 0L) {
+      throw new IllegalArgumentException("batchWindow must be positive: " + batchWindow);
+    }
+    if (transport.maxMessageBytes() <= HEADER_BYTES) {
+      throw new IllegalArgumentException("maxMessageBytes is too small: " + transport.maxMessageBytes());
+    }
+    this.transport = transport;
+    this.flusher = new ScheduledThreadPoolExecutor(1,
+        new ThreadFactoryBuilder().setNameFormat("local-cache-invalidation-%d").setDaemon(true).build());
+    flusher.scheduleWithFixedDelay(this::flushQuietly, batchWindow, batchWindow, timeUnit);
+    transport.subscribe(this::receive);
+  }
+
+  /**
+   * 注册接收失效消息的缓存。
+   *
+   * @param cacheName 缓存名称，各实例中的同一个缓存使用相同的名称
+   * @param cache     以 {@link CacheUtils#toCacheKey(Object...)} 生成的字符串为键的缓存
+   */
+  public void register(String cacheName, Cache<String, ?> cache) {
+    if (cacheName == null) {
+      throw new IllegalArgumentException("cacheName must be not null");
+    }
+    if (cache == null) {
+      throw new IllegalArgumentException("cache must be not null");
+    }
+    caches.put(cacheName, cache);
+  }
+
+  /**
+   * 取消注册缓存。
+   */
+  public void unregister(String cacheName) {
+    caches.remove(cacheName);
+  }
+
+  /**
+   * 立即失效本地缓存中的键，并在时间窗口结束时通知其它实例。
+   *
+   * @param cacheName 缓存名称
+   * @param key       缓存键
+   */
+  public void invalidate(String cacheName, String key) {
+    if (cacheName == null) {
+      throw new IllegalArgumentException("cacheName must be not null");
+    }
+    if (key == null) {
+      throw new IllegalArgumentException("key must be not null");
+    }
+    Cache<String, ?> cache = caches.get(cacheName);
+    if (cache != null) {
+      cache.invalidate(key);
+    }
+    pending.add(new String[]{cacheName, key});
+  }
+
+  /**
+   * 立即失效本地缓存中的多个键，并在时间窗口结束时通知其它实例。
+   *
+   * @param cacheName 缓存名称
+   * @param keys      缓存键
+   */
+  public void invalidateAll(String cacheName, Iterable<String> keys) {
+    for (String key : keys) {
+      invalidate(cacheName, key);
+    }
+  }
+
+  /**
+   * 立即失效本地缓存的全部条目，并在时间窗口结束时通知其它实例。
+   *
+   * @param cacheName 缓存名称
+   */
+  public void invalidateAll(String cacheName) {
+    if (cacheName == null) {
+      throw new IllegalArgumentException("cacheName must be not null");
+    }
+    Cache<String, ?> cache = caches.get(cacheName);
+    if (cache != null) {
+      cache.invalidateAll();
+    }
+    pending.add(new String[]{cacheName, null});
+  }
+
+  /**
+   * 立即发送等待中的失效记录（不等待时间窗口结束）。
+   *
+   * @throws IOException 发送失败（失败的消息不会重发）
+   */
+  public synchronized void flush() throws IOException {
+    Map<String, Set<String>> batch = drain();
+    if (batch.isEmpty()) {
+      return;
+    }
+    IOException failure = null;
+    for (byte[] message : encode(batch)) {
+      try {
+        transport.publish(message);
+        publishedMessageCount.increment();
+      } catch (IOException e) {
+        publishFailureCount.increment();
+        failure = e;
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("Exception thrown during publishing invalidations by {}", transport, e);
+    }
+  }
+
+  /**
+   * 按缓存名称合并等待中的失效记录；全部失效的缓存用 {@code null} 表示。
+   */
+  private Map<String, Set<String>> drain() {
+    Map<String, Set<String>> batch = new LinkedHashMap<>();
+    String[] invalidation;
+    while ((invalidation = pending.poll()) != null) {
+      String cacheName = invalidation[0];
+      String key = invalidation[1];
+      if (key == null) {
+        batch.put(cacheName, null);
+      } else if (!batch.containsKey(cacheName)) {
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(key);
+        batch.put(cacheName, keys);
+      } else {
+        Set<String> keys = batch.get(cacheName);
+        if (keys != null) {
+          keys.add(key);
+        }
+      }
+    }
+    return batch;
+  }
+
+  // 编解码
+
+  private List<byte[]> encode(Map<String, Set<String>> batch) throws IOException {
+    int maxMessageBytes = transport.maxMessageBytes();
+    List<byte[]> messages = new ArrayList<>();
+    MessageWriter writer = new MessageWriter();
+    for (Map.Entry<String, Set<String>> entry : batch.entrySet()) {
+      String cacheName = entry.getKey();
+      byte[] cacheRecord = record(CACHE, cacheName);
+      if (entry.getValue() == null) {
+        writer = append(writer, messages, maxMessageBytes, cacheName, cacheRecord, new byte[]{ALL});
+        continue;
+      }
+      for (String key : entry.getValue()) {
+        byte[] keyRecord;
+        try {
+          keyRecord = record(KEY, key);
+        } catch (UTFDataFormatException e) {
+          // 键超过 65535 字节
+          droppedKeyCount.increment();
+          continue;
+        }
+        writer = append(writer, messages, maxMessageBytes, cacheName, cacheRecord, keyRecord);
+      }
+    }
+    if (!writer.isEmpty()) {
+      messages.add(writer.toByteArray());
+    }
+    return messages;
+  }
+
+  /**
+   * 把记录追加到当前消息，放不下时另起一条消息（新消息重新声明当前缓存）。
+   */
+  private MessageWriter append(MessageWriter writer, List<byte[]> messages, int maxMessageBytes,
+                               String cacheName, byte[] cacheRecord, byte[] record) throws IOException {
+    int extraBytes = cacheName.equals(writer.cacheName) ? 0 : cacheRecord.length;
+    if (writer.size() + extraBytes + record.length > maxMessageBytes) {
+      if (HEADER_BYTES + cacheRecord.length + record.length > maxMessageBytes) {
+        droppedKeyCount.increment();
+        LOGGER.warn("Invalidation of cache {} is too large to publish: {} bytes", cacheName, record.length);
+        return writer;
+      }
+      if (!writer.isEmpty()) {
+        messages.add(writer.toByteArray());
+      }
+      writer = new MessageWriter();
+    }
+    if (!cacheName.equals(writer.cacheName)) {
+      writer.write(cacheRecord);
+      writer.cacheName = cacheName;
+    }
+    writer.write(record);
+    if (record[0] == KEY) {
+      publishedKeyCount.increment();
+    }
+    return writer;
+  }
+
+  private static byte[] record(byte type, String value) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(value.length() + 3);
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeByte(type);
+    out.writeUTF(value);
+    return bytes.toByteArray();
+  }
+
+  /**
+   * 接收其它实例的消息，按缓存批量地失效。
+   */
+  private void receive(byte[] message) {
+    Map<String, Set<String>> batch = new LinkedHashMap<>();
+    try {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(message));
+      if (in.readByte() != VERSION) {
+        LOGGER.warn("Unsupported invalidation message version, ignored");
+        return;
+      }
+      if (in.readLong() == origin) {
+        return;
+      }
+      String cacheName = null;
+      while (in.available() > 0) {
+        byte type = in.readByte();
+        if (type != CACHE && cacheName == null) {
+          throw new IOException("record type " + type + " before any cache record");
+        }
+        switch (type) {
+          case CACHE:
+            cacheName = in.readUTF();
+            if (!batch.containsKey(cacheName)) {
+              batch.put(cacheName, new LinkedHashSet<>());
+            }
+            break;
+          case KEY:
+            String key = in.readUTF();
+            Set<String> keys = batch.get(cacheName);
+            if (keys != null) {
+              keys.add(key);
+            }
+            break;
+          case ALL:
+            batch.put(cacheName, null);
+            break;
+          default:
+            throw new IOException("unknown record type " + type);
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Malformed invalidation message, ignored", e);
+      return;
+    }
+    receivedMessageCount.increment();
+    for (Map.Entry<String, Set<String>> entry : batch.entrySet()) {
+      Cache<String, ?> cache = caches.get(entry.getKey());
+      if (cache == null) {
+        continue;
+      }
+      if (entry.getValue() == null) {
+        cache.invalidateAll();
+      } else {
+        cache.invalidateAll(entry.getValue());
+        appliedKeyCount.add(entry.getValue().size());
+      }
+    }
+  }
+
+  /**
+   * 发送所有等待中的失效记录，然后关闭传输通道。
+   */
+  @Override
+  public void close() throws IOException {
+    flusher.shutdown();
+    try {
+      flush();
+    } finally {
+      transport.close();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "InvalidationBus{"
+        + "transport=" + transport
+        + ", caches=" + caches.keySet()
+        + ", publishedKeyCount=" + publishedKeyCount.sum()
+        + ", publishedMessageCount=" + publishedMessageCount.sum()
+        + ", publishFailureCount=" + publishFailureCount.sum()
+        + ", droppedKeyCount=" + droppedKeyCount.sum()
+        + ", receivedMessageCount=" + receivedMessageCount.sum()
+        + ", appliedKeyCount=" + appliedKeyCount.sum()
+        + '}';
+  }
+
+  /**
+   * 正在编码的一条消息。
+   */
+  private final class MessageWriter {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+    /**
+     * 消息中当前的缓存名称
+     */
+    String cacheName;
+
+    MessageWriter() throws IOException {
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeByte(VERSION);
+      out.writeLong(origin);
+    }
+
+    void write(byte[] record) {
+      bytes.write(record, 0, record.length);
+    }
+
+    int size() {
+      return bytes.size();
+    }
+
+    boolean isEmpty() {
+      return bytes.size() <= HEADER_BYTES;
+    }
+
+    byte[] toByteArray() {
+      return bytes.toByteArray();
+    }
+  }
+}
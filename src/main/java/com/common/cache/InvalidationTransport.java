@@ -0,0 +1,37 @@
+package com.common.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * 缓存失效消息的传输通道，负责把 {@link InvalidationBus} 编码好的消息扇出到其它实例。
+ * <p/>
+ * 传输通道只需尽力而为（best effort）：丢失的消息由缓存的过期时间兜底。
+ *
+ * @see LoopbackInvalidationTransport
+ * @see UdpInvalidationTransport
+ * @since 2026-10-17
+ */
+public interface InvalidationTransport extends Closeable {
+
+  /**
+   * 返回单条消息的最大字节数，超出的批次由 {@link InvalidationBus} 拆分成多条消息。
+   */
+  int maxMessageBytes();
+
+  /**
+   * 把消息发送给其它实例。
+   *
+   * @param message 编码后的消息
+   * @throws IOException 发送失败
+   */
+  void publish(byte[] message) throws IOException;
+
+  /**
+   * 订阅其它实例发送的消息（每个传输通道只能订阅一次）。
+   *
+   * @param receiver 消息的接收者，在传输通道的接收线程中执行
+   */
+  void subscribe(Consumer<byte[]> receiver);
+}
@@ -0,0 +1,46 @@
+package com.common.cache;
+
+import com.common.json.JacksonUtil;
+
+/**
+ * 基于 {@link JacksonUtil#serialize(Object)} 和 {@link JacksonUtil#deserialize(byte[], Class)} 的 JSON 编解码器。
+ *
+ * @param <V> 值类型
+ * @since 2026-10-17
+ */
+public final class JacksonValueCodec<V> implements ValueCodec<V> {
+  private final Class<V> valueType;
+
+  private JacksonValueCodec(Class<V> valueType) {
+    this.valueType = valueType;
+  }
+
+  /**
+   * 创建一个新的 JSON 编解码器。
+   *
+   * @param valueType 值类型
+   * @param <V>       值类型
+   * @return JSON 编解码器
+   */
+  public static <V> JacksonValueCodec<V> of(Class<V> valueType) {
+    if (valueType == null) {
+      throw new IllegalArgumentException("valueType must be not null");
+    }
+    return new JacksonValueCodec<>(valueType);
+  }
+
+  @Override
+  public byte[] encode(V value) {
+    return JacksonUtil.serialize(value);
+  }
+
+  @Override
+  public V decode(byte[] bytes) {
+    return JacksonUtil.deserialize(bytes, valueType);
+  }
+
+  @Override
+  public String toString() {
+    return "JacksonValueCodec{" + valueType.getName() + '}';
+  }
+}
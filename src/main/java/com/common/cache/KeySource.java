@@ -0,0 +1,21 @@
+package com.common.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * 键的来源，用于构建 {@link FilteredLoadingCache} 的键过滤器（所有存在的键），以及 {@link CacheWarmer} 预热缓存。
+ *
+ * @param <K> 键类型
+ * @since 2026-10-17
+ */
+@FunctionalInterface
+public interface KeySource<K> {
+
+  /**
+   * 逐个遍历所有存在的键（例如分页扫描数据库的主键），不需要一次性全部载入内存。
+   *
+   * @param consumer 键的消费者
+   * @throws Exception 遍历失败：键过滤器放弃本次重建，继续使用原来的过滤器；预热提前结束
+   */
+  void forEachKey(Consumer<? super K> consumer) throws Exception;
+}
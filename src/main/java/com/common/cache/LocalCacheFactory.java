@@ -1,12 +1,20 @@
 package com.common.cache;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheBuilderSpec;
 import com.google.common.cache.CacheLoader;
@@ -42,23 +50,232 @@ public final class LocalCacheFactory {
    */
   private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
   /**
-   * 共享的异步任务执行服务
+   * 刷新任务的排队数上限
    */
-  private static final ExecutorService SHARED_EXECUTOR_SERVICE = new ThreadPoolExecutor(
-      2, PROCESSORS, 10L, TimeUnit.MINUTES,
-      new LinkedBlockingDeque<>(3),
-      new ThreadFactoryBuilder().setNameFormat("local-cache-shared-%d").setDaemon(true).build());
+  private static final int MAX_PENDING_REFRESH_TASKS = 1024;
+  /**
+   * 共享的异步刷新调度器
+   * <p/>
+   * 排队数由调度器控制（超出上限时跳过刷新、继续提供旧值），线程池本身的任务队列无需设置容量。
+   */
+  private static final RefreshScheduler SHARED_REFRESH_SCHEDULER = new RefreshScheduler(
+      new ThreadPoolExecutor(
+          Math.max(2, PROCESSORS), Math.max(2, PROCESSORS), 10L, TimeUnit.MINUTES,
+          new LinkedBlockingQueue<>(),
+          new ThreadFactoryBuilder().setNameFormat("local-cache-shared-%d").setDaemon(true).build()),
+      MAX_PENDING_REFRESH_TASKS);
   /**
    * 日志记录的异步任务执行服务
    */
   private static final ScheduledExecutorService LOGGER_SCHEDULED_EXECUTOR_SERVICE =
-      new ScheduledThreadPoolExecutor(1,
-          new ThreadFactoryBuilder().setNameFormat("local-cache-stats-%d").setDaemon(true).build());
+      newScheduledExecutorService("local-cache-stats-%d");
+  /**
+   * 定期写入快照的异步任务执行服务
+   */
+  private static final ScheduledExecutorService SNAPSHOT_SCHEDULED_EXECUTOR_SERVICE =
+      newScheduledExecutorService("local-cache-snapshot-%d");
+  /**
+   * 构建和重建键过滤器的异步任务执行服务
+   */
+  private static final ScheduledExecutorService KEY_FILTER_SCHEDULED_EXECUTOR_SERVICE =
+      newScheduledExecutorService("local-cache-key-filter-%d");
+  /**
+   * Guava 缓存的统计指标（其它引擎自带统计指标）
+   */
+  private static final Map<Cache<?, ?>, CacheMetrics> GUAVA_CACHE_METRICS =
+      Collections.synchronizedMap(new WeakHashMap<>());
+  /**
+   * 内存预算模式（{@code maximumBytes}）的 Guava 缓存估算占用字节数的权重计算器
+   */
+  private static final Map<Cache<?, ?>, RetainedSizeWeigher<?, ?>> RETAINED_SIZE_WEIGHERS =
+      Collections.synchronizedMap(new WeakHashMap<>());
+  /**
+   * 本工厂创建的所有缓存的注册表
+   */
+  private static final CacheRegistry REGISTRY = new CacheRegistry();
+  /**
+   * 记录统计信息的巡检器，每隔5分钟执行1次
+   */
+  private static final CacheSweeper STATS_SWEEPER = new CacheSweeper("statsSweeper");
+  /**
+   * 把 Guava 缓存累积的统计信息同步到滑动窗口的巡检器
+   */
+  private static final CacheSweeper METRICS_SWEEPER = new CacheSweeper("metricsSweeper");
+  /**
+   * 预热的缓存的预热器；预热器在预热结束后不再引用缓存，条目随缓存一起被回收
+   */
+  private static final Map<Cache<?, ?>, CacheWarmer<?>> WARMERS = Collections.synchronizedMap(new WeakHashMap<>());
+  /**
+   * 本工厂创建的缓存的生命周期，关闭缓存时撤销其定时任务和注册
+   */
+  private static final Map<Object, CacheLifecycle> LIFECYCLES = Collections.synchronizedMap(new WeakHashMap<>());
+
+  static {
+    // 所有缓存共享两个巡检任务，而不是每个缓存各自一个定时任务
+    LOGGER_SCHEDULED_EXECUTOR_SERVICE.scheduleWithFixedDelay(() -> {
+      STATS_SWEEPER.sweep();
+      REGISTRY.expungeCollected();
+    }, 5, 5, TimeUnit.MINUTES);
+    LOGGER_SCHEDULED_EXECUTOR_SERVICE.scheduleAtFixedRate(METRICS_SWEEPER::sweep,
+        CacheMetrics.BUCKET_SECONDS, CacheMetrics.BUCKET_SECONDS, TimeUnit.SECONDS);
+  }
 
   private LocalCacheFactory() {
     throw new AssertionError("no com.common.cache.LocalCacheFactory instances");
   }
 
+  /**
+   * 创建一个取消任务时立即从队列中移除的单线程定时任务执行服务，避免关闭的缓存被取消的任务继续引用。
+   */
+  private static ScheduledExecutorService newScheduledExecutorService(String nameFormat) {
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+        new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build());
+    executor.setRemoveOnCancelPolicy(true);
+    return executor;
+  }
+
+  /**
+   * 返回共享的异步刷新调度器，用于查看排队深度、丢弃次数等统计信息。
+   *
+   * @return 共享的异步刷新调度器
+   */
+  public static RefreshScheduler sharedRefreshScheduler() {
+    return SHARED_REFRESH_SCHEDULER;
+  }
+
+  /**
+   * 返回本工厂创建的所有缓存的注册表，用于按服务名称查看缓存的大小、命中率，以及在运行时调整容量和过期时间。
+   * 每个缓存同时注册为 JMX 的 MXBean。
+   *
+   * @return 缓存的注册表
+   * @see ManagedCacheMXBean
+   */
+  public static CacheRegistry registry() {
+    return REGISTRY;
+  }
+
+  /**
+   * 返回缓存的滑动窗口统计指标（1、5、15 分钟的命中率和淘汰速率，加载耗时的 p50/p99/p999）。
+   * <p/>
+   * Guava 缓存的计数每隔 {@value CacheMetrics#BUCKET_SECONDS} 秒同步一次。
+   *
+   * @param cache 本工厂创建的缓存
+   * @return 统计指标；不是本工厂创建的缓存时返回 {@code null}
+   * @see LongLoadingCache#metrics()
+   */
+  public static CacheMetrics metrics(Cache<?, ?> cache) {
+    cache = unwrap(cache);
+    if (cache instanceof TinyLfuLoadingCache) {
+      return ((TinyLfuLoadingCache<?, ?>) cache).metrics();
+    }
+    if (cache instanceof OffHeapLoadingCache) {
+      return ((OffHeapLoadingCache<?, ?>) cache).metrics();
+    }
+    return GUAVA_CACHE_METRICS.get(cache);
+  }
+
+  /**
+   * 返回缓存占用的总字节数：内存预算模式（{@code maximumBytes}）返回估算的键和值的保留大小，
+   * 堆外缓存返回已使用的堆外内存。
+   *
+   * @param cache 本工厂创建的缓存
+   * @return 字节数；不是按字节数淘汰的缓存时返回 -1
+   */
+  public static long estimatedBytes(Cache<?, ?> cache) {
+    cache = unwrap(cache);
+    if (cache instanceof OffHeapLoadingCache) {
+      return ((OffHeapLoadingCache<?, ?>) cache).usedBytes();
+    }
+    RetainedSizeWeigher<?, ?> weigher = RETAINED_SIZE_WEIGHERS.get(cache);
+    return (weigher == null) ? -1L : weigher.estimatedBytes();
+  }
+
+  /**
+   * 返回缓存的热点键探测器，用于查看每个窗口读取次数最多的键。
+   *
+   * @param cache 本工厂创建的缓存
+   * @return 热点键探测器；未开启（{@code hotKeys}）或不是本工厂创建的缓存时返回 {@code null}
+   */
+  public static HotKeyTracker hotKeyTracker(Cache<?, ?> cache) {
+    cache = unwrap(cache);
+    if (cache instanceof TinyLfuLoadingCache) {
+      return ((TinyLfuLoadingCache<?, ?>) cache).hotKeyTracker();
+    }
+    if (cache instanceof OffHeapLoadingCache) {
+      return ((OffHeapLoadingCache<?, ?>) cache).hotKeyTracker();
+    }
+    if (cache instanceof HotKeyLoadingCache) {
+      return ((HotKeyLoadingCache<?, ?>) cache).hotKeyTracker();
+    }
+    return null;
+  }
+
+  /**
+   * 返回缓存的预热器，用于查看预热进度，以及在健康检查中等待预热结束。
+   *
+   * @param cache 本工厂创建的缓存
+   * @return 预热器；不是通过 {@link #newWarmedLoadingCache} 创建的缓存时返回 {@code null}
+   */
+  public static CacheWarmer<?> warmer(Cache<?, ?> cache) {
+    return WARMERS.get(cache);
+  }
+
+  /**
+   * 返回防止缓存穿透的缓存所保护的缓存。
+   */
+  static Cache<?, ?> unwrap(Cache<?, ?> cache) {
+    return (cache instanceof FilteredLoadingCache) ? ((FilteredLoadingCache<?, ?>) cache).cache() : cache;
+  }
+
+  /**
+   * 关闭本工厂创建的缓存：取消它的定时任务（统计、快照、键过滤器重建）和 JVM 关闭钩子，
+   * 从注册表（以及 JMX）中取消注册，清空所有条目并释放堆外内存。
+   * <p/>
+   * 使用场景：动态创建和销毁的缓存（如按租户创建的缓存），不再使用时应该关闭，立即释放条目和堆外内存。
+   * 注册表和统计的巡检只弱引用缓存，没有关闭的普通缓存被回收后会自动取消注册；
+   * 但快照缓存（{@link #newSnapshotLoadingCache}）和防止缓存穿透的缓存（{@link #newFilteredLoadingCache}）
+   * 被各自的定时任务引用，必须关闭；预热缓存（{@link #newWarmedLoadingCache}）在预热结束前被预热线程引用。
+   * 关闭后不应再使用该缓存；重复关闭、或者关闭不是本工厂创建的缓存没有影响。
+   * 快照缓存（{@code snapshotFile}）关闭时不写入快照。
+   *
+   * @param cache 本工厂创建的缓存
+   */
+  public static void close(Cache<?, ?> cache) {
+    if (cache == null || !closeLifecycle(cache)) {
+      return;
+    }
+    WARMERS.remove(cache);
+    Cache<?, ?> unwrapped = unwrap(cache);
+    GUAVA_CACHE_METRICS.remove(unwrapped);
+    RETAINED_SIZE_WEIGHERS.remove(unwrapped);
+    if (unwrapped instanceof OffHeapLoadingCache) {
+      ((OffHeapLoadingCache<?, ?>) unwrapped).close();
+    } else {
+      cache.invalidateAll();
+    }
+  }
+
+  /**
+   * 关闭本工厂创建的键为基本类型 {@code long} 的缓存。
+   *
+   * @param cache 本工厂创建的缓存
+   * @see #close(Cache)
+   */
+  public static void close(LongLoadingCache<?> cache) {
+    if (cache != null && closeLifecycle(cache)) {
+      cache.invalidateAll();
+    }
+  }
+
+  private static boolean closeLifecycle(Object cache) {
+    CacheLifecycle lifecycle = LIFECYCLES.remove(cache);
+    if (lifecycle == null) {
+      return false;
+    }
+    lifecycle.close();
+    return true;
+  }
+
   // 静态工厂方法 (static factory method)
 
   /**
@@ -68,13 +285,13 @@ public final class LocalCacheFactory {
    * {@link #newLoadingCache(String, String, CacheLoader, ExecutorService)}。
    * <p/>
    * <b><font size="7" color="red">
-   * 注意：使用“共享的任务执行服务”来异步地重新加载（reload）缓存数据！
+   * 注意：使用“共享的异步刷新调度器”来异步地重新加载（reload）缓存数据！
    * </font></b>
    * <p/>
    * 内部实现：每隔一分钟定期地记录本地缓存的性能统计信息。
    *
    * @param serviceName     使用方的服务名称（用于区分日志）
-   * @param spec            缓存构建者配置的规格
+   * @param spec            缓存配置的规格，支持 {@link LocalCacheSpec} 的扩展配置项（如 {@code policy=tinylfu}）
    * @param syncCacheLoader 同步执行的缓存加载器
    * @param <K>             键类型
    * @param <V>             值类型
@@ -86,8 +303,8 @@ public final class LocalCacheFactory {
       CacheLoader<K, V> syncCacheLoader) {
     return newLoadingCache(
         serviceName,
-        spec,
-        syncCacheLoader, SHARED_EXECUTOR_SERVICE);
+        LocalCacheSpec.parse(spec),
+        syncCacheLoader, SHARED_REFRESH_SCHEDULER);
   }
 
   /**
@@ -103,7 +320,7 @@ public final class LocalCacheFactory {
    * 内部实现：每隔一分钟定期地记录本地缓存的性能统计信息。
    *
    * @param serviceName     使用方的服务名称（用于区分日志）
-   * @param spec            缓存构建者配置的规格
+   * @param spec            缓存配置的规格，支持 {@link LocalCacheSpec} 的扩展配置项（如 {@code policy=tinylfu}）
    * @param syncCacheLoader 同步执行的缓存加载器
    * @param executorService 单独的任务执行服务
    * @param <K>             键类型
@@ -114,11 +331,10 @@ public final class LocalCacheFactory {
       String serviceName,
       String spec,
       CacheLoader<K, V> syncCacheLoader, ExecutorService executorService) {
-    CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.from(spec);
     return newLoadingCache(
         serviceName,
-        cacheBuilder,
-        syncCacheLoader, executorService);
+        LocalCacheSpec.parse(spec),
+        syncCacheLoader, new RefreshScheduler(executorService, MAX_PENDING_REFRESH_TASKS));
   }
 
   /**
@@ -128,7 +344,7 @@ public final class LocalCacheFactory {
    * {@link #newLoadingCache(String, CacheBuilderSpec, CacheLoader, ExecutorService)}。
    * <p/>
    * <b><font size="7" color="red">
-   * 注意：使用“共享的任务执行服务”来异步地重新加载（reload）缓存数据！
+   * 注意：使用“共享的异步刷新调度器”来异步地重新加载（reload）缓存数据！
    * </font></b>
    * <p/>
    * 内部实现：每隔一分钟定期地记录本地缓存的性能统计信息。
@@ -146,8 +362,8 @@ public final class LocalCacheFactory {
       CacheLoader<K, V> syncCacheLoader) {
     return newLoadingCache(
         serviceName,
-        spec,
-        syncCacheLoader, SHARED_EXECUTOR_SERVICE);
+        CacheBuilder.from(spec),
+        syncCacheLoader, SHARED_REFRESH_SCHEDULER);
   }
 
   /**
@@ -188,7 +404,7 @@ public final class LocalCacheFactory {
    * {@link #newLoadingCache(String, CacheBuilder, CacheLoader, ExecutorService)}。
    * <p/>
    * <b><font size="7" color="red">
-   * 注意：使用“共享的任务执行服务”来异步地重新加载（reload）缓存数据！
+   * 注意：使用“共享的异步刷新调度器”来异步地重新加载（reload）缓存数据！
    * </font></b>
    * <p/>
    * 内部实现：每隔一分钟定期地记录本地缓存的性能统计信息。
@@ -207,7 +423,7 @@ public final class LocalCacheFactory {
     return newLoadingCache(
         serviceName,
         cacheBuilder,
-        syncCacheLoader, SHARED_EXECUTOR_SERVICE);
+        syncCacheLoader, SHARED_REFRESH_SCHEDULER);
   }
 
   /**
@@ -231,18 +447,746 @@ public final class LocalCacheFactory {
    * @return 一个新的可自动加载异步刷新的缓存实例
    */
   public static <K, V> LoadingCache<K, V> newLoadingCache(
-      final String serviceName,
+      String serviceName,
       CacheBuilder<Object, Object> cacheBuilder,
       CacheLoader<K, V> syncCacheLoader, ExecutorService executorService) {
-    // 封装成异步reload，记录缓存性能的累积统计信息
-    final LoadingCache<K, V> loadingCache = cacheBuilder
+    return newLoadingCache(
+        serviceName,
+        cacheBuilder,
+        syncCacheLoader, new RefreshScheduler(executorService, MAX_PENDING_REFRESH_TASKS));
+  }
+
+  /**
+   * 创建一个新的值存放在堆外内存的可自动加载异步刷新的缓存实例。
+   * <p/>
+   * 使用场景：缓存值总量很大（GB 级别）、引起老年代 GC 停顿的缓存。值经编解码器序列化后存放在堆外内存，
+   * 每次读取都会反序列化出新的值对象。
+   * <p/>
+   * <b><font size="7" color="red">
+   * 注意：使用“共享的异步刷新调度器”来异步地重新加载（reload）缓存数据！
+   * </font></b>
+   *
+   * @param serviceName     使用方的服务名称（用于区分日志）
+   * @param spec            缓存配置的规格，必须设置 {@code offHeapCapacity}（如 {@code offHeapCapacity=2g}）
+   * @param syncCacheLoader 同步执行的缓存加载器
+   * @param valueCodec      值的编解码器（如 {@link JacksonValueCodec}）
+   * @param <K>             键类型
+   * @param <V>             值类型
+   * @return 一个新的值存放在堆外内存的可自动加载异步刷新的缓存实例
+   * @see OffHeapLoadingCache
+   */
+  public static <K, V> LoadingCache<K, V> newOffHeapLoadingCache(
+      String serviceName,
+      String spec,
+      CacheLoader<K, V> syncCacheLoader, ValueCodec<V> valueCodec) {
+    return newLoadingCache(
+        serviceName,
+        requireOffHeap(LocalCacheSpec.parse(spec)),
+        syncCacheLoader, new CacheOptions<K, V>().valueCodec(valueCodec), SHARED_REFRESH_SCHEDULER);
+  }
+
+  /**
+   * 创建一个新的值存放在堆外内存的可自动加载异步刷新的缓存实例。
+   * <p/>
+   * <b><font size="7" color="red">
+   * 注意：每次都新创建一个“单独的任务执行服务”来异步地重新加载（reload）缓存数据！
+   * </font></b>
+   *
+   * @param serviceName     使用方的服务名称（用于区分日志）
+   * @param spec            缓存配置的规格，必须设置 {@code offHeapCapacity}（如 {@code offHeapCapacity=2g}）
+   * @param syncCacheLoader 同步执行的缓存加载器
+   * @param valueCodec      值的编解码器（如 {@link JacksonValueCodec}）
+   * @param executorService 单独的任务执行服务
+   * @param <K>             键类型
+   * @param <V>             值类型
+   * @return 一个新的值存放在堆外内存的可自动加载异步刷新的缓存实例
+   * @see OffHeapLoadingCache
+   */
+  public static <K, V> LoadingCache<K, V> newOffHeapLoadingCache(
+      String serviceName,
+      String spec,
+      CacheLoader<K, V> syncCacheLoader, ValueCodec<V> valueCodec, ExecutorService executorService) {
+    return newLoadingCache(
+        serviceName,
+        requireOffHeap(LocalCacheSpec.parse(spec)),
+        syncCacheLoader, new CacheOptions<K, V>().valueCodec(valueCodec),
+        new RefreshScheduler(executorService, MAX_PENDING_REFRESH_TASKS));
+  }
+
+  /**
+   * 创建一个新的支持快照（热重启）的可自动加载异步刷新的缓存实例。
+   * <p/>
+   * 使用场景：冷启动时集中回源、压垮后端的缓存。创建时从快照文件并行地恢复未过期的条目，
+   * JVM 关闭时（以及每隔 {@code snapshotInterval}）把缓存条目写入快照文件。
+   * 规格中同时设置了 {@code offHeapCapacity} 时，值存放在堆外内存。
+   * <p/>
+   * <b><font size="7" color="red">
+   * 注意：使用“共享的异步刷新调度器”来异步地重新加载（reload）缓存数据！
+   * </font></b>
+   *
+   * @param serviceName     使用方的服务名称（用于区分日志）
+   * @param spec            缓存配置的规格，必须设置 {@code snapshotFile}（如 {@code snapshotFile=/data/cache/item.snapshot}）
+   * @param syncCacheLoader 同步执行的缓存加载器
+   * @param keyCodec        键的编解码器
+   * @param valueCodec      值的编解码器（如 {@link JacksonValueCodec}）
+   * @param <K>             键类型
+   * @param <V>             值类型
+   * @return 一个新的支持快照的可自动加载异步刷新的缓存实例
+   * @see CacheSnapshotter
+   */
+  public static <K, V> LoadingCache<K, V> newSnapshotLoadingCache(
+      String serviceName,
+      String spec,
+      CacheLoader<K, V> syncCacheLoader, ValueCodec<K> keyCodec, ValueCodec<V> valueCodec) {
+    return newLoadingCache(
+        serviceName,
+        requireSnapshot(LocalCacheSpec.parse(spec)),
+        syncCacheLoader, new CacheOptions<K, V>().keyCodec(keyCodec).valueCodec(valueCodec),
+        SHARED_REFRESH_SCHEDULER);
+  }
+
+  /**
+   * 创建一个新的支持快照（热重启）的可自动加载异步刷新的缓存实例。
+   * <p/>
+   * <b><font size="7" color="red">
+   * 注意：每次都新创建一个“单独的任务执行服务”来异步地重新加载（reload）缓存数据！
+   * </font></b>
+   *
+   * @param serviceName     使用方的服务名称（用于区分日志）
+   * @param spec            缓存配置的规格，必须设置 {@code snapshotFile}（如 {@code snapshotFile=/data/cache/item.snapshot}）
+   * @param syncCacheLoader 同步执行的缓存加载器
+   * @param keyCodec        键的编解码器
+   * @param valueCodec      值的编解码器（如 {@link JacksonValueCodec}）
+   * @param executorService 单独的任务执行服务
+   * @param <K>             键类型
+   * @param <V>             值类型
+   * @return 一个新的支持快照的可自动加载异步刷新的缓存实例
+   * @see CacheSnapshotter
+   */
+  public static <K, V> LoadingCache<K, V> newSnapshotLoadingCache(
+      String serviceName,
+      String spec,
+      CacheLoader<K, V> syncCacheLoader, ValueCodec<K> keyCodec, ValueCodec<V> valueCodec,
+      ExecutorService executorService) {
+    return newLoadingCache(
+        serviceName,
+        requireSnapshot(LocalCacheSpec.parse(spec)),
+        syncCacheLoader, new CacheOptions<K, V>().keyCodec(keyCodec).valueCodec(valueCodec),
+        new RefreshScheduler(executorService, MAX_PENDING_REFRESH_TASKS));
+  }
+
+  /**
+   * 创建一个新的键为基本类型 {@code long} 的可自动加载异步刷新的缓存实例。
+   * <p/>
+   * 使用场景：以 ID 为键的高频访问缓存。读写都不装箱，每个条目也没有额外的节点对象。
+   * <p/>
+   * <b><font size="7" color="red">
+   * 注意：使用“共享的异步刷新调度器”来异步地重新加载（reload）缓存数据！
+   * </font></b>
+   *
+   * @param serviceName     使用方的服务名称（用于区分日志）
+   * @param spec            缓存配置的规格（如 {@code maximumSize=100000,expireAfterWrite=10m}）
+   * @param syncCacheLoader 同步执行的缓存加载器
+   * @param <V>             值类型
+   * @return 一个新的键为 {@code long} 的可自动加载异步刷新的缓存实例
+   * @see LongLoadingCache
+   */
+  public static <V> LongLoadingCache<V> newLongLoadingCache(
+      String serviceName,
+      String spec,
+      LongCacheLoader<V> syncCacheLoader) {
+    return newLongLoadingCache(serviceName, LocalCacheSpec.parse(spec), syncCacheLoader, SHARED_REFRESH_SCHEDULER);
+  }
+
+  /**
+   * 创建一个新的键为基本类型 {@code long} 的可自动加载异步刷新的缓存实例。
+   * <p/>
+   * <b><font size="7" color="red">
+   * 注意：每次都新创建一个“单独的任务执行服务”来异步地重新加载（reload）缓存数据！
+   * </font></b>
+   *
+   * @param serviceName     使用方的服务名称（用于区分日志）
+   * @param spec            缓存配置的规格（如 {@code maximumSize=100000,expireAfterWrite=10m}）
+   * @param syncCacheLoader 同步执行的缓存加载器
+   * @param executorService 单独的任务执行服务
+   * @param <V>             值类型
+   * @return 一个新的键为 {@code long} 的可自动加载异步刷新的缓存实例
+   * @see LongLoadingCache
+   */
+  public static <V> LongLoadingCache<V> newLongLoadingCache(
+      String serviceName,
+      String spec,
+      LongCacheLoader<V> syncCacheLoader, ExecutorService executorService) {
+    return newLongLoadingCache(serviceName, LocalCacheSpec.parse(spec),
+        syncCacheLoader, new RefreshScheduler(executorService, MAX_PENDING_REFRESH_TASKS));
+  }
+
+  private static <V> LongLoadingCache<V> newLongLoadingCache(
+      final String serviceName,
+      LocalCacheSpec spec,
+      LongCacheLoader<V> syncCacheLoader, final RefreshScheduler refreshScheduler) {
+    final LongLoadingCache<V> loadingCache =
+        new LongLoadingCache<>(spec, syncCacheLoader, refreshScheduler.asyncReloading(syncCacheLoader));
+    CacheLifecycle lifecycle = new CacheLifecycle(REGISTRY);
+    lifecycle.registered(REGISTRY.register(serviceName, spec.toParsableString(),
+        name -> new ManagedCache(name, spec.toParsableString(), loadingCache, refreshScheduler)).getName());
+    // 定期地记录本地缓存的统计信息，每隔5分钟执行1次
+    lifecycle.addRegistration(STATS_SWEEPER.register(loadingCache, cache -> LOGGER.info("{}'s {}, {}, {}",
+        serviceName, cache, refreshScheduler, cache.metrics())));
+    LIFECYCLES.put(loadingCache, lifecycle);
+    return loadingCache;
+  }
+
+  /**
+   * 创建一个新的按条目过期的可自动加载异步刷新的缓存实例。
+   * <p/>
+   * 使用场景：同一个缓存中的值需要不同的存活时间（如冷热数据、“不存在”的负缓存），不必再按存活时间拆成多个缓存。
+   * 每个条目写入时由 {@link ExpiringCacheLoader#expireAfterWrite} 决定存活时间，由分层时间轮调度过期。
+   * 按条目过期只由 W-TinyLFU 引擎支持，因此总是使用 {@code policy=tinylfu}。
+   * <p/>
+   * <b><font size="7" color="red">
+   * 注意：使用“共享的异步刷新调度器”来异步地重新加载（reload）缓存数据！
+   * </font></b>
+   *
+   * @param serviceName     使用方的服务名称（用于区分日志）
+   * @param spec            缓存配置的规格（如 {@code maximumSize=100000,refreshAfterWrite=1m}）
+   * @param syncCacheLoader 同步执行、同时决定存活时间的缓存加载器
+   * @param <K>             键类型
+   * @param <V>             值类型
+   * @return 一个新的按条目过期的可自动加载异步刷新的缓存实例
+   * @see Expiry
+   */
+  public static <K, V> LoadingCache<K, V> newExpiringLoadingCache(
+      String serviceName,
+      String spec,
+      ExpiringCacheLoader<K, V> syncCacheLoader) {
+    return newLoadingCache(
+        serviceName,
+        requireOnHeap(LocalCacheSpec.parse(spec), "per-entry expiry"),
+        syncCacheLoader, new CacheOptions<K, V>().expiry(syncCacheLoader), SHARED_REFRESH_SCHEDULER);
+  }
+
+  /**
+   * 创建一个新的按条目过期的可自动加载异步刷新的缓存实例。
+   * <p/>
+   * <b><font size="7" color="red">
+   * 注意：每次都新创建一个“单独的任务执行服务”来异步地重新加载（reload）缓存数据！
+   * </font></b>
+   *
+   * @param serviceName     使用方的服务名称（用于区分日志）
+   * @param spec            缓存配置的规格（如 {@code maximumSize=100000,refreshAfterWrite=1m}）
+   * @param syncCacheLoader 同步执行、同时决定存活时间的缓存加载器
+   * @param executorService 单独的任务执行服务
+   * @param <K>             键类型
+   * @param <V>             值类型
+   * @return 一个新的按条目过期的可自动加载异步刷新的缓存实例
+   * @see Expiry
+   */
+  public static <K, V> LoadingCache<K, V> newExpiringLoadingCache(
+      String serviceName,
+      String spec,
+      ExpiringCacheLoader<K, V> syncCacheLoader, ExecutorService executorService) {
+    return newLoadingCache(
+        serviceName,
+        requireOnHeap(LocalCacheSpec.parse(spec), "per-entry expiry"),
+        syncCacheLoader, new CacheOptions<K, V>().expiry(syncCacheLoader),
+        new RefreshScheduler(executorService, MAX_PENDING_REFRESH_TASKS));
+  }
+
+  /**
+   * 创建一个新的防止缓存穿透的可自动加载异步刷新的缓存实例。
+   * <p/>
+   * 使用场景：大量请求不存在的键（如不存在的 ID），缓存加载器没有值可以缓存，每次都穿透到数据库。
+   * 由所有存在的键构建键过滤器（可扩容的布隆过滤器），直接拦截一定不存在的键；
+   * 过滤器误判的键由缓存加载器返回 {@code null}，记入存活时间较短的负缓存（{@code negativeTtl}）。
+   * 被拦截的键与缓存加载器返回 {@code null} 时一样抛出
+   * {@link com.google.common.cache.CacheLoader.InvalidCacheLoadException}。
+   * <p/>
+   * <b><font size="7" color="red">
+   * 注意：使用“共享的异步刷新调度器”来异步地重新加载（reload）缓存数据！
+   * </font></b>
+   *
+   * @param serviceName     使用方的服务名称（用于区分日志）
+   * @param spec            缓存配置的规格（如 {@code maximumSize=100000,keyFilterRebuild=1h,negativeTtl=30s}）
+   * @param syncCacheLoader 同步执行的缓存加载器，键不存在时返回 {@code null}
+   * @param keySource       所有存在的键的来源，创建时在后台构建键过滤器，并按 {@code keyFilterRebuild} 定期地重建
+   * @param <K>             键类型
+   * @param <V>             值类型
+   * @return 一个新的防止缓存穿透的可自动加载异步刷新的缓存实例
+   * @see FilteredLoadingCache
+   */
+  public static <K, V> FilteredLoadingCache<K, V> newFilteredLoadingCache(
+      String serviceName,
+      String spec,
+      CacheLoader<K, V> syncCacheLoader, KeySource<? extends K> keySource) {
+    return (FilteredLoadingCache<K, V>) newLoadingCache(
+        serviceName,
+        requireOnHeap(LocalCacheSpec.parse(spec), "keyFilter"),
+        syncCacheLoader, new CacheOptions<K, V>().keySource(requireKeySource(keySource)),
+        SHARED_REFRESH_SCHEDULER);
+  }
+
+  /**
+   * 创建一个新的防止缓存穿透的可自动加载异步刷新的缓存实例。
+   * <p/>
+   * <b><font size="7" color="red">
+   * 注意：每次都新创建一个“单独的任务执行服务”来异步地重新加载（reload）缓存数据！
+   * </font></b>
+   *
+   * @param serviceName     使用方的服务名称（用于区分日志）
+   * @param spec            缓存配置的规格（如 {@code maximumSize=100000,keyFilterRebuild=1h,negativeTtl=30s}）
+   * @param syncCacheLoader 同步执行的缓存加载器，键不存在时返回 {@code null}
+   * @param keySource       所有存在的键的来源
+   * @param executorService 单独的任务执行服务
+   * @param <K>             键类型
+   * @param <V>             值类型
+   * @return 一个新的防止缓存穿透的可自动加载异步刷新的缓存实例
+   * @see FilteredLoadingCache
+   */
+  public static <K, V> FilteredLoadingCache<K, V> newFilteredLoadingCache(
+      String serviceName,
+      String spec,
+      CacheLoader<K, V> syncCacheLoader, KeySource<? extends K> keySource, ExecutorService executorService) {
+    return (FilteredLoadingCache<K, V>) newLoadingCache(
+        serviceName,
+        requireOnHeap(LocalCacheSpec.parse(spec), "keyFilter"),
+        syncCacheLoader, new CacheOptions<K, V>().keySource(requireKeySource(keySource)),
+        new RefreshScheduler(executorService, MAX_PENDING_REFRESH_TASKS));
+  }
+
+  /**
+   * 创建一个新的异步加载的缓存实例。
+   * <p/>
+   * 使用场景：缓存加载器本身是异步的（如异步 RPC、异步 HTTP 客户端），未命中时不希望阻塞请求线程。
+   * {@link AsyncLoadingCache#get} 立即返回值的 {@link java.util.concurrent.CompletableFuture}，
+   * 同一个键的并发请求共享同一个进行中的加载；加载失败或值为 {@code null} 的结果不会被缓存。
+   * <p/>
+   * <b><font size="7" color="red">
+   * 注意：使用“共享的异步刷新调度器”来异步地重新加载（reload）缓存数据！
+   * </font></b>
+   *
+   * @param serviceName      使用方的服务名称（用于区分日志）
+   * @param spec             缓存配置的规格（如 {@code policy=tinylfu,maximumSize=100000,refreshAfterWrite=1m}）
+   * @param asyncCacheLoader 异步的缓存加载器
+   * @param <K>              键类型
+   * @param <V>              值类型
+   * @return 一个新的异步加载的缓存实例
+   * @see AsyncLoadingCache
+   */
+  public static <K, V> AsyncLoadingCache<K, V> newAsyncLoadingCache(
+      String serviceName,
+      String spec,
+      AsyncCacheLoader<K, V> asyncCacheLoader) {
+    return newAsyncLoadingCache(serviceName, spec, asyncCacheLoader, SHARED_REFRESH_SCHEDULER);
+  }
+
+  /**
+   * 创建一个新的异步加载的缓存实例。
+   * <p/>
+   * <b><font size="7" color="red">
+   * 注意：每次都新创建一个“单独的任务执行服务”来异步地重新加载（reload）缓存数据！
+   * </font></b>
+   *
+   * @param serviceName      使用方的服务名称（用于区分日志）
+   * @param spec             缓存配置的规格（如 {@code policy=tinylfu,maximumSize=100000,refreshAfterWrite=1m}）
+   * @param asyncCacheLoader 异步的缓存加载器
+   * @param executorService  单独的任务执行服务
+   * @param <K>              键类型
+   * @param <V>              值类型
+   * @return 一个新的异步加载的缓存实例
+   * @see AsyncLoadingCache
+   */
+  public static <K, V> AsyncLoadingCache<K, V> newAsyncLoadingCache(
+      String serviceName,
+      String spec,
+      AsyncCacheLoader<K, V> asyncCacheLoader, ExecutorService executorService) {
+    return newAsyncLoadingCache(serviceName, spec, asyncCacheLoader,
+        new RefreshScheduler(executorService, MAX_PENDING_REFRESH_TASKS));
+  }
+
+  private static <K, V> AsyncLoadingCache<K, V> newAsyncLoadingCache(
+      String serviceName,
+      String spec,
+      AsyncCacheLoader<K, V> asyncCacheLoader, RefreshScheduler refreshScheduler) {
+    LocalCacheSpec parsed = requireOnHeap(LocalCacheSpec.parse(spec), "async loading");
+    if (parsed.batchSize() > 0) {
+      throw new IllegalArgumentException("batchSize is not supported by async loading: " + spec);
+    }
+    AsyncLoadingCache.FutureLoader<K, V> futureLoader = new AsyncLoadingCache.FutureLoader<>(asyncCacheLoader);
+    return new AsyncLoadingCache<>(
+        newLoadingCache(serviceName, parsed, futureLoader, refreshScheduler), futureLoader);
+  }
+
+  /**
+   * 创建一个新的启动时预热的可自动加载异步刷新的缓存实例。
+   * <p/>
+   * 使用场景：服务启动后需要尽快达到正常的命中率，不希望冷缓存把流量全部穿透到数据库。
+   * 创建后立即在后台从 {@code warmUpKeys} 读取键，按批次（{@code warmUpBatchSize}）并行地
+   * （{@code warmUpConcurrency}）加载到缓存中，并限制每秒加载的键数（{@code warmUpRate}）。
+   * 预热进度和就绪状态通过 {@link #warmer(Cache)} 查看，健康检查可以等待 {@link CacheWarmer#awaitReady}。
+   * <p/>
+   * <b><font size="7" color="red">
+   * 注意：使用“共享的异步刷新调度器”来异步地重新加载（reload）缓存数据！
+   * </font></b>
+   *
+   * @param serviceName     使用方的服务名称（用于区分日志）
+   * @param spec            缓存配置的规格（如 {@code maximumSize=100000,warmUpConcurrency=4,warmUpRate=2000}）
+   * @param syncCacheLoader 同步执行的缓存加载器，建议支持批量加载（{@link CacheLoader#loadAll}）
+   * @param warmUpKeys      预热的键的来源（如最近的热点键、分页扫描的主键）
+   * @param <K>             键类型
+   * @param <V>             值类型
+   * @return 一个新的启动时预热的可自动加载异步刷新的缓存实例
+   * @see CacheWarmer
+   */
+  public static <K, V> LoadingCache<K, V> newWarmedLoadingCache(
+      String serviceName,
+      String spec,
+      CacheLoader<K, V> syncCacheLoader, KeySource<? extends K> warmUpKeys) {
+    return newLoadingCache(
+        serviceName,
+        requireOnHeap(LocalCacheSpec.parse(spec), "warmUp"),
+        syncCacheLoader, new CacheOptions<K, V>().warmUpKeys(requireKeySource(warmUpKeys)),
+        SHARED_REFRESH_SCHEDULER);
+  }
+
+  /**
+   * 创建一个新的启动时预热的可自动加载异步刷新的缓存实例。
+   * <p/>
+   * <b><font size="7" color="red">
+   * 注意：每次都新创建一个“单独的任务执行服务”来异步地重新加载（reload）缓存数据！
+   * </font></b>
+   *
+   * @param serviceName     使用方的服务名称（用于区分日志）
+   * @param spec            缓存配置的规格（如 {@code maximumSize=100000,warmUpConcurrency=4,warmUpRate=2000}）
+   * @param syncCacheLoader 同步执行的缓存加载器，建议支持批量加载（{@link CacheLoader#loadAll}）
+   * @param warmUpKeys      预热的键的来源
+   * @param executorService 单独的任务执行服务
+   * @param <K>             键类型
+   * @param <V>             值类型
+   * @return 一个新的启动时预热的可自动加载异步刷新的缓存实例
+   * @see CacheWarmer
+   */
+  public static <K, V> LoadingCache<K, V> newWarmedLoadingCache(
+      String serviceName,
+      String spec,
+      CacheLoader<K, V> syncCacheLoader, KeySource<? extends K> warmUpKeys, ExecutorService executorService) {
+    return newLoadingCache(
+        serviceName,
+        requireOnHeap(LocalCacheSpec.parse(spec), "warmUp"),
+        syncCacheLoader, new CacheOptions<K, V>().warmUpKeys(requireKeySource(warmUpKeys)),
+        new RefreshScheduler(executorService, MAX_PENDING_REFRESH_TASKS));
+  }
+
+  private static <K> KeySource<K> requireKeySource(KeySource<K> keySource) {
+    if (keySource == null) {
+      throw new IllegalArgumentException("keySource must be not null");
+    }
+    return keySource;
+  }
+
+  /**
+   * 只有堆内的缓存引擎支持的功能（{@code feature}）不能与 {@code offHeapCapacity} 同时使用。
+   */
+  private static LocalCacheSpec requireOnHeap(LocalCacheSpec spec, String feature) {
+    if (spec.offHeapCapacity() > 0L) {
+      throw new IllegalArgumentException("offHeapCapacity is not supported by " + feature + ": " + spec);
+    }
+    return spec;
+  }
+
+  private static LocalCacheSpec requireSnapshot(LocalCacheSpec spec) {
+    if (spec.snapshotFile() == null) {
+      throw new IllegalArgumentException("snapshotFile must be set: " + spec);
+    }
+    return spec;
+  }
+
+  private static LocalCacheSpec requireOffHeap(LocalCacheSpec spec) {
+    if (spec.offHeapCapacity() <= 0L) {
+      throw new IllegalArgumentException("offHeapCapacity must be set: " + spec);
+    }
+    return spec;
+  }
+
+  private static <K, V> LoadingCache<K, V> newLoadingCache(
+      String serviceName,
+      LocalCacheSpec spec,
+      CacheLoader<K, V> syncCacheLoader, RefreshScheduler refreshScheduler) {
+    if (spec.offHeapCapacity() > 0L) {
+      throw new IllegalArgumentException(
+          "offHeapCapacity requires a ValueCodec, use newOffHeapLoadingCache: " + spec);
+    }
+    return newLoadingCache(serviceName, spec, syncCacheLoader, new CacheOptions<K, V>(), refreshScheduler);
+  }
+
+  private static <K, V> LoadingCache<K, V> newLoadingCache(
+      String serviceName,
+      LocalCacheSpec spec,
+      CacheLoader<K, V> syncCacheLoader, CacheOptions<K, V> options, RefreshScheduler refreshScheduler) {
+    ValueCodec<K> keyCodec = options.keyCodec;
+    ValueCodec<V> valueCodec = options.valueCodec;
+    Expiry<? super K, ? super V> expiry = options.expiry;
+    KeySource<? extends K> keySource = options.keySource;
+    KeySource<? extends K> warmUpKeys = options.warmUpKeys;
+    if (keySource == null && spec.hasKeyFilterKeys()) {
+      throw new IllegalArgumentException(
+          "keyFilter requires a KeySource, use newFilteredLoadingCache: " + spec);
+    }
+    if (warmUpKeys == null && spec.hasWarmUpKeys()) {
+      throw new IllegalArgumentException(
+          "warmUp requires a KeySource, use newWarmedLoadingCache: " + spec);
+    }
+    if (spec.batchSize() > 0 && !BatchingCacheLoader.overridesLoadAll(syncCacheLoader)) {
+      // 逐个加载时合并只会让并行的未命中变成串行，并等待整个时间窗口
+      throw new IllegalArgumentException("batchSize requires a CacheLoader that overrides loadAll: " + spec);
+    }
+    if (spec.snapshotFile() != null && keyCodec == null) {
+      throw new IllegalArgumentException(
+          "snapshotFile requires a key ValueCodec, use newSnapshotLoadingCache: " + spec);
+    }
+    CacheLifecycle lifecycle = new CacheLifecycle(REGISTRY);
+    CacheLoader<K, V> cacheLoader = syncCacheLoader;
+    if (spec.loadAllChunkSize() > 0) {
+      // getAll 未命中的键按分片在刷新线程池中并行加载
+      cacheLoader = new PartitioningCacheLoader<>(
+          cacheLoader, spec.loadAllChunkSize(), spec.loadAllParallelism(), refreshScheduler.executor());
+    }
+    if (spec.batchSize() > 0) {
+      // 合并并发未命中的批量加载
+      cacheLoader = new BatchingCacheLoader<>(
+          cacheLoader, spec.batchSize(), spec.batchWindowNanos(), TimeUnit.NANOSECONDS);
+    }
+    CacheLoader<K, V> reloader = refreshScheduler.asyncReloading(cacheLoader);
+    LoadingCache<K, V> loadingCache;
+    if (spec.offHeapCapacity() > 0L) {
+      loadingCache = new OffHeapLoadingCache<>(spec, reloader, valueCodec);
+    } else if (spec.policy() == LocalCacheSpec.Policy.TINYLFU || expiry != null) {
+      loadingCache = new TinyLfuLoadingCache<>(spec, reloader, expiry);
+    } else {
+      CacheMetrics metrics = new CacheMetrics();
+      CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.from(spec.toCacheBuilderSpec());
+      RetainedSizeWeigher<K, V> weigher = null;
+      if (spec.maximumBytes() > 0L) {
+        // 内存预算模式：按估算的保留大小加权淘汰
+        weigher = new RetainedSizeWeigher<>();
+        cacheBuilder.maximumWeight(spec.maximumBytes()).weigher(weigher).removalListener(weigher);
+      }
+      loadingCache = cacheBuilder
+          .recordStats()
+          .build(new MeteredCacheLoader<>(reloader, metrics));
+      if (spec.hotKeys() > 0) {
+        loadingCache = new HotKeyLoadingCache<>(loadingCache,
+            new HotKeyTracker(spec.hotKeys(), spec.hotKeyWindowNanos(), Ticker.systemTicker()));
+      }
+      meter(loadingCache, metrics, lifecycle);
+      if (weigher != null) {
+        RETAINED_SIZE_WEIGHERS.put(loadingCache, weigher);
+      }
+    }
+    rankRefreshes(reloader, loadingCache);
+    if (spec.snapshotFile() != null) {
+      snapshot(serviceName, loadingCache, spec,
+          new CacheSnapshotter<>(Paths.get(spec.snapshotFile()), keyCodec, valueCodec), lifecycle);
+    }
+    if (keySource != null) {
+      loadingCache = keyFilter(new FilteredLoadingCache<>(loadingCache, keySource, spec), spec, lifecycle);
+    }
+    monitor(serviceName, spec.toParsableString(), loadingCache, refreshScheduler, cacheLoader, lifecycle);
+    if (warmUpKeys != null) {
+      warmUp(serviceName, loadingCache, warmUpKeys, spec, lifecycle);
+    }
+    return loadingCache;
+  }
+
+  private static <K, V> LoadingCache<K, V> newLoadingCache(
+      String serviceName,
+      CacheBuilder<Object, Object> cacheBuilder,
+      CacheLoader<K, V> syncCacheLoader, RefreshScheduler refreshScheduler) {
+    // 封装成异步reload（合并重复刷新、超出排队上限时跳过刷新），记录缓存性能的累积统计信息
+    CacheMetrics metrics = new CacheMetrics();
+    LoadingCache<K, V> loadingCache = cacheBuilder
         .recordStats()
-        .build(CacheLoader.asyncReloading(syncCacheLoader, executorService));
+        .build(new MeteredCacheLoader<>(refreshScheduler.asyncReloading(syncCacheLoader), metrics));
+    CacheLifecycle lifecycle = new CacheLifecycle(REGISTRY);
+    meter(loadingCache, metrics, lifecycle);
+    return monitor(serviceName, cacheBuilder.toString(), loadingCache, refreshScheduler, syncCacheLoader, lifecycle);
+  }
+
+  /**
+   * 按缓存统计的访问频率排列刷新任务：TinyLFU 引擎使用淘汰策略的频率估算器，其它引擎使用热点键探测器（开启时）。
+   */
+  private static void rankRefreshes(CacheLoader<?, ?> reloader, LoadingCache<?, ?> loadingCache) {
+    if (loadingCache instanceof TinyLfuLoadingCache) {
+      RefreshScheduler.rankBy(reloader, ((TinyLfuLoadingCache<?, ?>) loadingCache)::frequency);
+      return;
+    }
+    HotKeyTracker tracker = hotKeyTracker(loadingCache);
+    if (tracker != null) {
+      RefreshScheduler.rankBy(reloader, tracker::frequency);
+    }
+  }
+
+  /**
+   * 从快照恢复缓存，并在 JVM 关闭时（以及定期地）写入快照。
+   */
+  private static <K, V> void snapshot(
+      final String serviceName,
+      final LoadingCache<K, V> loadingCache, LocalCacheSpec spec, final CacheSnapshotter<K, V> snapshotter,
+      CacheLifecycle lifecycle) {
+    long startTime = System.nanoTime();
+    // 解码和写入缓存是阻塞的工作，使用单独的线程池而不是公共的 ForkJoinPool，恢复完成后关闭
+    ExecutorService restoreExecutor = Executors.newFixedThreadPool(PROCESSORS,
+        new ThreadFactoryBuilder().setNameFormat("local-cache-restore-" + serviceName + "-%d").setDaemon(true).build());
+    try {
+      long count = snapshotter.restore(loadingCache, spec.expireAfterWriteNanos(), restoreExecutor);
+      LOGGER.info("{}'s cache restored {} entries from {} in {} ms", serviceName, count, snapshotter.file(),
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("{}'s cache failed to restore from {}", serviceName, snapshotter.file(), e);
+    } finally {
+      restoreExecutor.shutdown();
+    }
+
+    Runnable saveTask = () -> {
+      try {
+        long count = snapshotter.save(loadingCache);
+        LOGGER.info("{}'s cache saved {} entries to {}", serviceName, count, snapshotter.file());
+      } catch (IOException | RuntimeException e) {
+        LOGGER.warn("{}'s cache failed to save to {}", serviceName, snapshotter.file(), e);
+      }
+    };
+    lifecycle.addShutdownHook(new Thread(saveTask, "local-cache-snapshot-hook"));
+    if (spec.snapshotIntervalNanos() > 0L) {
+      lifecycle.addTask(SNAPSHOT_SCHEDULED_EXECUTOR_SERVICE.scheduleWithFixedDelay(saveTask,
+          spec.snapshotIntervalNanos(), spec.snapshotIntervalNanos(), TimeUnit.NANOSECONDS));
+    }
+  }
+
+  /**
+   * 在后台构建键过滤器，并定期地重建。
+   */
+  private static <K, V> FilteredLoadingCache<K, V> keyFilter(
+      final FilteredLoadingCache<K, V> loadingCache, LocalCacheSpec spec, CacheLifecycle lifecycle) {
+    lifecycle.addTask(KEY_FILTER_SCHEDULED_EXECUTOR_SERVICE.submit(loadingCache::rebuild));
+    if (spec.keyFilterRebuildNanos() > 0L) {
+      lifecycle.addTask(KEY_FILTER_SCHEDULED_EXECUTOR_SERVICE.scheduleWithFixedDelay(loadingCache::rebuild,
+          spec.keyFilterRebuildNanos(), spec.keyFilterRebuildNanos(), TimeUnit.NANOSECONDS));
+    }
+    return loadingCache;
+  }
+
+  /**
+   * 在后台预热缓存，关闭缓存时取消预热。
+   */
+  private static <K> void warmUp(
+      String serviceName, LoadingCache<K, ?> loadingCache, KeySource<? extends K> warmUpKeys,
+      LocalCacheSpec spec, CacheLifecycle lifecycle) {
+    CacheWarmer<K> warmer = new CacheWarmer<>(serviceName, loadingCache, warmUpKeys,
+        (spec.warmUpBatchSize() > 0) ? spec.warmUpBatchSize() : CacheWarmer.DEFAULT_BATCH_SIZE,
+        (spec.warmUpConcurrency() > 0) ? spec.warmUpConcurrency() : CacheWarmer.DEFAULT_CONCURRENCY,
+        spec.warmUpRate());
+    WARMERS.put(loadingCache, warmer);
+    lifecycle.addCloseAction(warmer::close);
+    warmer.start();
+  }
+
+  /**
+   * 定期地把 Guava 缓存累积的统计信息同步到滑动窗口。
+   */
+  private static void meter(Cache<?, ?> cache, final CacheMetrics metrics, CacheLifecycle lifecycle) {
+    GUAVA_CACHE_METRICS.put(cache, metrics);
+    lifecycle.addRegistration(METRICS_SWEEPER.register(cache, c -> metrics.sync(c.stats())));
+  }
+
+  private static <K, V> LoadingCache<K, V> monitor(
+      final String serviceName, final String spec,
+      final LoadingCache<K, V> loadingCache, final RefreshScheduler refreshScheduler,
+      CacheLoader<K, V> cacheLoader, CacheLifecycle lifecycle) {
+    lifecycle.registered(REGISTRY.register(serviceName, spec,
+        name -> new ManagedCache(name, spec, loadingCache, refreshScheduler)).getName());
+    // 巡检操作不能引用缓存（包括可能引用缓存的缓存加载器），只保留需要记录的加载器
+    final CacheLoader<K, V> loggedLoader =
+        (cacheLoader instanceof BatchingCacheLoader || cacheLoader instanceof PartitioningCacheLoader)
+            ? cacheLoader : null;
     // 定期地记录本地缓存的统计信息，每隔5分钟执行1次
-    LOGGER_SCHEDULED_EXECUTOR_SERVICE.scheduleWithFixedDelay(() -> {
-      CacheStats cacheStats = loadingCache.stats();
-      LOGGER.info("{}'s {}", serviceName, cacheStats);
-    }, 5, 5, TimeUnit.MINUTES);
+    lifecycle.addRegistration(STATS_SWEEPER.register(loadingCache, cache -> {
+      CacheStats cacheStats = cache.stats();
+      StringBuilder details = new StringBuilder().append(refreshScheduler);
+      if (loggedLoader != null) {
+        details.append(", ").append(loggedLoader);
+      }
+      if (cache instanceof OffHeapLoadingCache || cache instanceof FilteredLoadingCache) {
+        details.append(", ").append(cache);
+      }
+      RetainedSizeWeigher<?, ?> weigher = RETAINED_SIZE_WEIGHERS.get(unwrap(cache));
+      if (weigher != null) {
+        details.append(", ").append(weigher);
+      }
+      HotKeyTracker hotKeyTracker = hotKeyTracker(cache);
+      if (hotKeyTracker != null) {
+        details.append(", ").append(hotKeyTracker);
+      }
+      CacheMetrics metrics = metrics(cache);
+      if (metrics != null) {
+        details.append(", ").append(metrics);
+      }
+      LOGGER.info("{}'s {}, {}", serviceName, cacheStats, details);
+    }));
+    LIFECYCLES.put(loadingCache, lifecycle);
     return loadingCache;
   }
+
+  /**
+   * 各种缓存按需设置的可选组件，未设置的为 {@code null}。
+   *
+   * @param <K> 键类型
+   * @param <V> 值类型
+   */
+  private static final class CacheOptions<K, V> {
+    /**
+     * 键的编解码器（快照）
+     */
+    private ValueCodec<K> keyCodec;
+    /**
+     * 值的编解码器（堆外内存、快照）
+     */
+    private ValueCodec<V> valueCodec;
+    /**
+     * 按条目过期的存活时间
+     */
+    private Expiry<? super K, ? super V> expiry;
+    /**
+     * 键过滤器的键来源
+     */
+    private KeySource<? extends K> keySource;
+    /**
+     * 预热的键来源
+     */
+    private KeySource<? extends K> warmUpKeys;
+
+    CacheOptions<K, V> keyCodec(ValueCodec<K> keyCodec) {
+      this.keyCodec = keyCodec;
+      return this;
+    }
+
+    CacheOptions<K, V> valueCodec(ValueCodec<V> valueCodec) {
+      this.valueCodec = valueCodec;
+      return this;
+    }
+
+    CacheOptions<K, V> expiry(Expiry<? super K, ? super V> expiry) {
+      this.expiry = expiry;
+      return this;
+    }
+
+    CacheOptions<K, V> keySource(KeySource<? extends K> keySource) {
+      this.keySource = keySource;
+      return this;
+    }
+
+    CacheOptions<K, V> warmUpKeys(KeySource<? extends K> warmUpKeys) {
+      this.warmUpKeys = warmUpKeys;
+      return this;
+    }
+  }
 }
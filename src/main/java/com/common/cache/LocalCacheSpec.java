@@ -0,0 +1,838 @@
+package com.common.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.cache.CacheBuilderSpec;
+
+/**
+ * 本地缓存配置的规格。
+ * <p/>
+ * 兼容 {@link CacheBuilderSpec} 的格式（逗号分隔的 {@code key=value}），并在此基础上支持扩展配置项：
+ * <ul>
+ * <li>{@code policy=lru|tinylfu}：缓存引擎，默认 {@code lru}（Guava 的分段 LRU），
+ * {@code tinylfu} 表示 W-TinyLFU 淘汰策略的缓存引擎</li>
+ * <li>{@code batchSize=64}、{@code batchWindow=2ms}：合并并发未命中的批量加载，
+ * 任意一项设置即开启，另一项取默认值；缓存加载器需要重写 {@code loadAll}</li>
+ * <li>{@code loadAllChunkSize=500}、{@code loadAllParallelism=8}：{@code getAll} 未命中的键按分片并行加载，
+ * 同时加载的分片数不超过并行度（包括调用者线程），任意一项设置即开启，另一项取默认值（256 个键、4 个分片）</li>
+ * <li>{@code maximumBytes=512m}：按内存预算淘汰（支持 k、m、g 单位），自动估算每个条目的键和值的保留大小作为权重，
+ * 只由 {@code policy=lru} 支持，不能与 {@code maximumSize}、{@code maximumWeight}、弱引用和软引用同时设置</li>
+ * <li>{@code offHeapCapacity=512m}：值存放在堆外内存的容量（支持 k、m、g 单位），按容量淘汰，
+ * 需要通过 {@link LocalCacheFactory#newOffHeapLoadingCache} 提供值的编解码器</li>
+ * <li>{@code offHeapStorage=direct|mapped}：堆外内存的存储方式，默认 {@code direct}（直接内存），
+ * {@code mapped} 表示内存映射的临时文件</li>
+ * <li>{@code snapshotFile=/data/cache/xxx.snapshot}：快照文件，创建缓存时从快照恢复，JVM 关闭时写入快照，
+ * 需要通过 {@link LocalCacheFactory#newSnapshotLoadingCache} 提供键和值的编解码器。
+ * 与 {@code expireAfterWrite}、{@code refreshAfterWrite} 同时设置时需要 {@code policy=tinylfu} 或 {@code offHeapCapacity}
+ * （{@code policy=lru} 不保留写入时间，恢复的条目会重新开始计算过期时间）</li>
+ * <li>{@code snapshotInterval=10m}：定期写入快照的周期，默认只在 JVM 关闭时写入</li>
+ * <li>{@code softTtl=30s}、{@code hardTtl=10m}：过期后继续提供旧值（stale-while-revalidate / stale-if-error），
+ * 两项必须同时设置。写入超过软过期时间后，读取立即返回旧值并在后台重新加载一次；
+ * 重新加载失败时继续返回旧值，直到超过硬过期时间才同步加载。
+ * 等价于 {@code refreshAfterWrite} 和 {@code expireAfterWrite}，并使用 {@code policy=tinylfu} 统计提供旧值的次数</li>
+ * <li>{@code earlyRefreshBeta=1.0}：概率性提前刷新（XFetch），越接近过期（或刷新）时间、加载越慢，
+ * 读取时触发异步刷新的概率越高，避免同一批条目同时过期引起回源尖峰；值越大越早刷新，通常取 1.0</li>
+ * <li>{@code expireJitter=0.1}：写入过期时间的随机抖动比例，每个条目的存活时间随机缩短 [0, 10%)，
+ * 需要设置 {@code expireAfterWrite}（或 {@code hardTtl}）</li>
+ * <li>{@code hotKeys=10}、{@code hotKeyWindow=1m}：热点键探测，按窗口（默认 1 分钟）统计读取次数最多的 K 个键，
+ * K 的范围 [1, 1000]</li>
+ * <li>{@code keyFilterFpp=0.01}、{@code keyFilterRebuild=1h}、{@code negativeTtl=30s}、{@code negativeMaximumSize=10000}：
+ * 防止缓存穿透的键过滤器的误判率和重建周期，以及负缓存的存活时间和最大条目数，
+ * 需要通过 {@link LocalCacheFactory#newFilteredLoadingCache} 提供所有存在的键的来源</li>
+ * <li>{@code warmUpBatchSize=100}、{@code warmUpConcurrency=4}、{@code warmUpRate=2000}：启动时预热的每批键数、
+ * 同时加载的批次数和每秒加载的键数上限（默认不限速），
+ * 需要通过 {@link LocalCacheFactory#newWarmedLoadingCache} 提供预热的键的来源</li>
+ * </ul>
+ * {@code softTtl}、{@code hardTtl}、{@code earlyRefreshBeta}、{@code expireJitter} 只由 W-TinyLFU 引擎支持，
+ * 未指定 {@code policy} 时默认使用 {@code policy=tinylfu}。
+ * 扩展配置项会在交给 {@link com.google.common.cache.CacheBuilder} 之前被剔除。
+ *
+ * @see CacheBuilderSpec
+ * @since 2026-10-17
+ */
+public final class LocalCacheSpec {
+  /**
+   * 缓存引擎（淘汰策略）
+   */
+  public enum Policy {
+    /**
+     * Guava 的分段 LRU
+     */
+    LRU,
+    /**
+     * W-TinyLFU
+     */
+    TINYLFU
+  }
+
+  /**
+   * 堆外内存的存储方式
+   */
+  public enum OffHeapStorage {
+    /**
+     * 直接内存
+     */
+    DIRECT,
+    /**
+     * 内存映射的临时文件
+     */
+    MAPPED
+  }
+
+  // Guava CacheBuilderSpec 的配置项
+
+  private static final String INITIAL_CAPACITY = "initialCapacity";
+  private static final String MAXIMUM_SIZE = "maximumSize";
+  private static final String MAXIMUM_WEIGHT = "maximumWeight";
+  private static final String CONCURRENCY_LEVEL = "concurrencyLevel";
+  private static final String WEAK_KEYS = "weakKeys";
+  private static final String SOFT_VALUES = "softValues";
+  private static final String WEAK_VALUES = "weakValues";
+  private static final String RECORD_STATS = "recordStats";
+  private static final String EXPIRE_AFTER_ACCESS = "expireAfterAccess";
+  private static final String EXPIRE_AFTER_WRITE = "expireAfterWrite";
+  private static final String REFRESH_AFTER_WRITE = "refreshAfterWrite";
+  private static final String REFRESH_INTERVAL = "refreshInterval";
+
+  private static final Set<String> GUAVA_KEYS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+      INITIAL_CAPACITY, MAXIMUM_SIZE, MAXIMUM_WEIGHT, CONCURRENCY_LEVEL,
+      WEAK_KEYS, SOFT_VALUES, WEAK_VALUES, RECORD_STATS,
+      EXPIRE_AFTER_ACCESS, EXPIRE_AFTER_WRITE, REFRESH_AFTER_WRITE, REFRESH_INTERVAL)));
+  /**
+   * W-TinyLFU 引擎不支持的 Guava 配置项
+   */
+  private static final Set<String> TINYLFU_UNSUPPORTED_KEYS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+      MAXIMUM_WEIGHT, WEAK_KEYS, SOFT_VALUES, WEAK_VALUES)));
+  /**
+   * 堆外缓存不支持的 Guava 配置项（按容量而不是条目数淘汰）
+   */
+  private static final Set<String> OFF_HEAP_UNSUPPORTED_KEYS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+      MAXIMUM_SIZE, MAXIMUM_WEIGHT, WEAK_KEYS, SOFT_VALUES, WEAK_VALUES)));
+  /**
+   * 内存预算模式不支持的 Guava 配置项（被回收的条目无法扣减估算的字节数）
+   */
+  private static final Set<String> MAXIMUM_BYTES_UNSUPPORTED_KEYS = Collections.unmodifiableSet(new HashSet<>(
+      Arrays.asList(MAXIMUM_SIZE, MAXIMUM_WEIGHT, WEAK_KEYS, SOFT_VALUES, WEAK_VALUES)));
+
+  // 扩展配置项
+
+  private static final String POLICY = "policy";
+  private static final String BATCH_SIZE = "batchSize";
+  private static final String BATCH_WINDOW = "batchWindow";
+  private static final String LOAD_ALL_CHUNK_SIZE = "loadAllChunkSize";
+  private static final String LOAD_ALL_PARALLELISM = "loadAllParallelism";
+  private static final String MAXIMUM_BYTES = "maximumBytes";
+  private static final String OFF_HEAP_CAPACITY = "offHeapCapacity";
+  private static final String OFF_HEAP_STORAGE = "offHeapStorage";
+  private static final String SNAPSHOT_FILE = "snapshotFile";
+  private static final String SNAPSHOT_INTERVAL = "snapshotInterval";
+  private static final String SOFT_TTL = "softTtl";
+  private static final String HARD_TTL = "hardTtl";
+  private static final String EARLY_REFRESH_BETA = "earlyRefreshBeta";
+  private static final String EXPIRE_JITTER = "expireJitter";
+  private static final String HOT_KEYS = "hotKeys";
+  private static final String HOT_KEY_WINDOW = "hotKeyWindow";
+  private static final String KEY_FILTER_FPP = "keyFilterFpp";
+  private static final String KEY_FILTER_REBUILD = "keyFilterRebuild";
+  private static final String NEGATIVE_TTL = "negativeTtl";
+  private static final String NEGATIVE_MAXIMUM_SIZE = "negativeMaximumSize";
+  private static final String WARM_UP_BATCH_SIZE = "warmUpBatchSize";
+  private static final String WARM_UP_CONCURRENCY = "warmUpConcurrency";
+  private static final String WARM_UP_RATE = "warmUpRate";
+
+  /**
+   * 只由 W-TinyLFU 引擎支持的扩展配置项
+   */
+  private static final List<String> TINYLFU_ONLY_KEYS = Collections.unmodifiableList(Arrays.asList(
+      SOFT_TTL, HARD_TTL, EARLY_REFRESH_BETA, EXPIRE_JITTER));
+
+  /**
+   * 批量加载的默认批次大小
+   */
+  private static final int DEFAULT_BATCH_SIZE = 64;
+  /**
+   * 批量加载的默认时间窗口
+   */
+  private static final long DEFAULT_BATCH_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(2L);
+  /**
+   * 分片并行加载的默认分片大小
+   */
+  private static final int DEFAULT_LOAD_ALL_CHUNK_SIZE = 256;
+  /**
+   * 分片并行加载的默认并行度
+   */
+  private static final int DEFAULT_LOAD_ALL_PARALLELISM = 4;
+  /**
+   * 热点键探测的默认窗口
+   */
+  private static final long DEFAULT_HOT_KEY_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1L);
+
+  private static final Splitter KEYS_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+  private static final Splitter KEY_VALUE_SPLITTER = Splitter.on('=').trimResults().limit(2);
+  private static final Joiner KEYS_JOINER = Joiner.on(',');
+
+  private final String specification;
+  private final String cacheBuilderSpecification;
+  private final Set<String> keys;
+
+  private Policy policy = Policy.LRU;
+  private int initialCapacity = -1;
+  private long maximumSize = -1L;
+  private long expireAfterWriteNanos = -1L;
+  private long expireAfterAccessNanos = -1L;
+  private long refreshAfterWriteNanos = -1L;
+  private int batchSize = -1;
+  private long batchWindowNanos = -1L;
+  private int loadAllChunkSize = -1;
+  private int loadAllParallelism = -1;
+  private long maximumBytes = -1L;
+  private long offHeapCapacity = -1L;
+  private OffHeapStorage offHeapStorage = OffHeapStorage.DIRECT;
+  private String snapshotFile;
+  private long snapshotIntervalNanos = -1L;
+  private long softTtlNanos = -1L;
+  private long hardTtlNanos = -1L;
+  private double earlyRefreshBeta = -1d;
+  private double expireJitter = -1d;
+  private int hotKeys = -1;
+  private long hotKeyWindowNanos = -1L;
+  private double keyFilterFpp = -1d;
+  private long keyFilterRebuildNanos = -1L;
+  private long negativeTtlNanos = -1L;
+  private long negativeMaximumSize = -1L;
+  private int warmUpBatchSize = -1;
+  private int warmUpConcurrency = -1;
+  private double warmUpRate = -1d;
+
+  private LocalCacheSpec(String specification) {
+    this.specification = specification;
+    List<String> guavaPairs = new ArrayList<>();
+    Set<String> parsedKeys = new HashSet<>();
+    for (String pair : KEYS_SPLITTER.split(specification)) {
+      List<String> keyAndValue = KEY_VALUE_SPLITTER.splitToList(pair);
+      String key = keyAndValue.get(0);
+      String value = (keyAndValue.size() == 1) ? null : keyAndValue.get(1);
+      if (!parsedKeys.add(key)) {
+        throw new IllegalArgumentException(key + " was already set");
+      }
+      if (GUAVA_KEYS.contains(key)) {
+        guavaPairs.add(pair);
+        parseGuavaKey(key, value);
+      } else {
+        parseExtensionKey(key, value);
+      }
+    }
+    this.keys = Collections.unmodifiableSet(parsedKeys);
+    if (keys.contains(SOFT_TTL) || keys.contains(HARD_TTL)) {
+      parseStaleTtl();
+    }
+    for (String key : TINYLFU_ONLY_KEYS) {
+      if (keys.contains(key)) {
+        if (keys.contains(POLICY) && policy != Policy.TINYLFU) {
+          throw new IllegalArgumentException(key + " is not supported by policy=" + policy.name().toLowerCase());
+        }
+        policy = Policy.TINYLFU;
+      }
+    }
+    if (expireJitter > 0d && expireAfterWriteNanos < 0L) {
+      throw new IllegalArgumentException(EXPIRE_JITTER + " requires " + EXPIRE_AFTER_WRITE);
+    }
+    if (hotKeys > 0) {
+      hotKeyWindowNanos = (hotKeyWindowNanos > 0L) ? hotKeyWindowNanos : DEFAULT_HOT_KEY_WINDOW_NANOS;
+    } else if (keys.contains(HOT_KEY_WINDOW)) {
+      throw new IllegalArgumentException(HOT_KEY_WINDOW + " requires " + HOT_KEYS);
+    }
+    if (batchSize > 0 || batchWindowNanos >= 0L) {
+      batchSize = (batchSize > 0) ? batchSize : DEFAULT_BATCH_SIZE;
+      batchWindowNanos = (batchWindowNanos >= 0L) ? batchWindowNanos : DEFAULT_BATCH_WINDOW_NANOS;
+    }
+    if (loadAllChunkSize > 0 || loadAllParallelism > 0) {
+      loadAllChunkSize = (loadAllChunkSize > 0) ? loadAllChunkSize : DEFAULT_LOAD_ALL_CHUNK_SIZE;
+      loadAllParallelism = (loadAllParallelism > 0) ? loadAllParallelism : DEFAULT_LOAD_ALL_PARALLELISM;
+    }
+    this.cacheBuilderSpecification = KEYS_JOINER.join(guavaPairs);
+    if (policy == Policy.TINYLFU) {
+      for (String key : TINYLFU_UNSUPPORTED_KEYS) {
+        if (keys.contains(key)) {
+          throw new IllegalArgumentException(key + " is not supported by policy=tinylfu");
+        }
+      }
+    }
+    if (maximumBytes > 0L) {
+      if (policy != Policy.LRU) {
+        throw new IllegalArgumentException(
+            MAXIMUM_BYTES + " is not supported by policy=" + policy.name().toLowerCase());
+      }
+      for (String key : MAXIMUM_BYTES_UNSUPPORTED_KEYS) {
+        if (keys.contains(key)) {
+          throw new IllegalArgumentException(key + " can not be set with " + MAXIMUM_BYTES);
+        }
+      }
+      if (offHeapCapacity > 0L) {
+        throw new IllegalArgumentException(OFF_HEAP_CAPACITY + " can not be set with " + MAXIMUM_BYTES);
+      }
+    }
+    if (offHeapCapacity > 0L) {
+      if (policy != Policy.LRU) {
+        throw new IllegalArgumentException(
+            OFF_HEAP_CAPACITY + " is not supported by policy=" + policy.name().toLowerCase());
+      }
+      for (String key : OFF_HEAP_UNSUPPORTED_KEYS) {
+        if (keys.contains(key)) {
+          throw new IllegalArgumentException(key + " is not supported by " + OFF_HEAP_CAPACITY);
+        }
+      }
+    } else if (keys.contains(OFF_HEAP_STORAGE)) {
+      throw new IllegalArgumentException(OFF_HEAP_STORAGE + " requires " + OFF_HEAP_CAPACITY);
+    }
+    if (snapshotFile == null && keys.contains(SNAPSHOT_INTERVAL)) {
+      throw new IllegalArgumentException(SNAPSHOT_INTERVAL + " requires " + SNAPSHOT_FILE);
+    }
+    if (snapshotFile != null && policy == Policy.LRU && offHeapCapacity <= 0L
+        && (expireAfterWriteNanos >= 0L || refreshAfterWriteNanos >= 0L)) {
+      // Guava 的缓存不暴露写入时间，恢复的条目会重新开始计算过期时间，旧数据存活快照的时长加上整个过期时间
+      throw new IllegalArgumentException(SNAPSHOT_FILE + " with " + EXPIRE_AFTER_WRITE + " or " + REFRESH_AFTER_WRITE
+          + " requires policy=tinylfu or " + OFF_HEAP_CAPACITY);
+    }
+  }
+
+  /**
+   * 校验软、硬过期时间，并换算成刷新周期和写入过期时间。
+   */
+  private void parseStaleTtl() {
+    if (softTtlNanos < 0L || hardTtlNanos < 0L) {
+      throw new IllegalArgumentException(SOFT_TTL + " and " + HARD_TTL + " must be set together");
+    }
+    if (softTtlNanos >= hardTtlNanos) {
+      throw new IllegalArgumentException(SOFT_TTL + " must be less than " + HARD_TTL);
+    }
+    for (String key : Arrays.asList(EXPIRE_AFTER_WRITE, REFRESH_AFTER_WRITE, REFRESH_INTERVAL)) {
+      if (keys.contains(key)) {
+        throw new IllegalArgumentException(key + " can not be set with " + SOFT_TTL);
+      }
+    }
+    refreshAfterWriteNanos = softTtlNanos;
+    expireAfterWriteNanos = hardTtlNanos;
+  }
+
+  /**
+   * 解析缓存配置的规格。
+   *
+   * @param specification 缓存配置的规格，例如 {@code "policy=tinylfu,maximumSize=10000,expireAfterWrite=1d"}
+   * @return 缓存配置的规格
+   * @throws IllegalArgumentException 配置项不合法
+   */
+  public static LocalCacheSpec parse(String specification) {
+    if (specification == null) {
+      throw new IllegalArgumentException("specification must be not null");
+    }
+    return new LocalCacheSpec(specification);
+  }
+
+  private void parseGuavaKey(String key, String value) {
+    switch (key) {
+      case INITIAL_CAPACITY:
+        initialCapacity = parseInt(key, value);
+        break;
+      case MAXIMUM_SIZE:
+        maximumSize = parseLong(key, value);
+        break;
+      case EXPIRE_AFTER_WRITE:
+        expireAfterWriteNanos = parseDuration(key, value);
+        break;
+      case EXPIRE_AFTER_ACCESS:
+        expireAfterAccessNanos = parseDuration(key, value);
+        break;
+      case REFRESH_AFTER_WRITE:
+      case REFRESH_INTERVAL:
+        refreshAfterWriteNanos = parseDuration(key, value);
+        break;
+      default:
+        // 其它配置项交由 CacheBuilderSpec 校验
+        break;
+    }
+  }
+
+  private void parseExtensionKey(String key, String value) {
+    switch (key) {
+      case POLICY:
+        policy = parseEnum(Policy.class, key, value);
+        break;
+      case BATCH_SIZE:
+        batchSize = parseInt(key, value);
+        if (batchSize <= 0) {
+          throw new IllegalArgumentException("key " + key + " value set to " + value + ", must be positive");
+        }
+        break;
+      case BATCH_WINDOW:
+        batchWindowNanos = parseDuration(key, value);
+        break;
+      case LOAD_ALL_CHUNK_SIZE:
+        loadAllChunkSize = parseInt(key, value);
+        if (loadAllChunkSize <= 0) {
+          throw new IllegalArgumentException("key " + key + " value set to " + value + ", must be positive");
+        }
+        break;
+      case LOAD_ALL_PARALLELISM:
+        loadAllParallelism = parseInt(key, value);
+        if (loadAllParallelism <= 0) {
+          throw new IllegalArgumentException("key " + key + " value set to " + value + ", must be positive");
+        }
+        break;
+      case MAXIMUM_BYTES:
+        maximumBytes = parseBytes(key, value);
+        if (maximumBytes <= 0L) {
+          throw new IllegalArgumentException("key " + key + " value set to " + value + ", must be positive");
+        }
+        break;
+      case OFF_HEAP_CAPACITY:
+        offHeapCapacity = parseBytes(key, value);
+        if (offHeapCapacity <= 0L) {
+          throw new IllegalArgumentException("key " + key + " value set to " + value + ", must be positive");
+        }
+        break;
+      case OFF_HEAP_STORAGE:
+        offHeapStorage = parseEnum(OffHeapStorage.class, key, value);
+        break;
+      case SNAPSHOT_FILE:
+        snapshotFile = requireValue(key, value);
+        break;
+      case SNAPSHOT_INTERVAL:
+        snapshotIntervalNanos = parseDuration(key, value);
+        if (snapshotIntervalNanos <= 0L) {
+          throw new IllegalArgumentException("key " + key + " value set to " + value + ", must be positive");
+        }
+        break;
+      case SOFT_TTL:
+        softTtlNanos = parseDuration(key, value);
+        break;
+      case HARD_TTL:
+        hardTtlNanos = parseDuration(key, value);
+        break;
+      case EARLY_REFRESH_BETA:
+        earlyRefreshBeta = parseDouble(key, value);
+        if (!(earlyRefreshBeta > 0d)) {
+          throw new IllegalArgumentException("key " + key + " value set to " + value + ", must be positive");
+        }
+        break;
+      case EXPIRE_JITTER:
+        expireJitter = parseDouble(key, value);
+        if (!(expireJitter > 0d && expireJitter < 1d)) {
+          throw new IllegalArgumentException("key " + key + " value set to " + value + ", must be in (0, 1)");
+        }
+        break;
+      case HOT_KEYS:
+        hotKeys = parseInt(key, value);
+        if (hotKeys <= 0 || hotKeys > HotKeyTracker.MAXIMUM_TOP_K) {
+          throw new IllegalArgumentException("key " + key + " value set to " + value
+              + ", must be in [1, " + HotKeyTracker.MAXIMUM_TOP_K + "]");
+        }
+        break;
+      case HOT_KEY_WINDOW:
+        hotKeyWindowNanos = parseDuration(key, value);
+        if (hotKeyWindowNanos <= 0L) {
+          throw new IllegalArgumentException("key " + key + " value set to " + value + ", must be positive");
+        }
+        break;
+      case KEY_FILTER_FPP:
+        keyFilterFpp = parseDouble(key, value);
+        if (!(keyFilterFpp > 0d && keyFilterFpp < 1d)) {
+          throw new IllegalArgumentException("key " + key + " value set to " + value + ", must be in (0, 1)");
+        }
+        break;
+      case KEY_FILTER_REBUILD:
+        keyFilterRebuildNanos = parseDuration(key, value);
+        if (keyFilterRebuildNanos <= 0L) {
+          throw new IllegalArgumentException("key " + key + " value set to " + value + ", must be positive");
+        }
+        break;
+      case NEGATIVE_TTL:
+        negativeTtlNanos = parseDuration(key, value);
+        if (negativeTtlNanos <= 0L) {
+          throw new IllegalArgumentException("key " + key + " value set to " + value + ", must be positive");
+        }
+        break;
+      case NEGATIVE_MAXIMUM_SIZE:
+        negativeMaximumSize = parseLong(key, value);
+        if (negativeMaximumSize <= 0L) {
+          throw new IllegalArgumentException("key " + key + " value set to " + value + ", must be positive");
+        }
+        break;
+      case WARM_UP_BATCH_SIZE:
+        warmUpBatchSize = parseInt(key, value);
+        if (warmUpBatchSize <= 0) {
+          throw new IllegalArgumentException("key " + key + " value set to " + value + ", must be positive");
+        }
+        break;
+      case WARM_UP_CONCURRENCY:
+        warmUpConcurrency = parseInt(key, value);
+        if (warmUpConcurrency <= 0) {
+          throw new IllegalArgumentException("key " + key + " value set to " + value + ", must be positive");
+        }
+        break;
+      case WARM_UP_RATE:
+        warmUpRate = parseDouble(key, value);
+        if (!(warmUpRate > 0d)) {
+          throw new IllegalArgumentException("key " + key + " value set to " + value + ", must be positive");
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("unknown key " + key);
+    }
+  }
+
+  // 解析辅助方法
+
+  static String requireValue(String key, String value) {
+    if (value == null || value.isEmpty()) {
+      throw new IllegalArgumentException("value of key " + key + " omitted");
+    }
+    return value;
+  }
+
+  static int parseInt(String key, String value) {
+    try {
+      return Integer.parseInt(requireValue(key, value));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("key " + key + " value set to " + value + ", must be integer", e);
+    }
+  }
+
+  static long parseLong(String key, String value) {
+    try {
+      return Long.parseLong(requireValue(key, value));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("key " + key + " value set to " + value + ", must be integer", e);
+    }
+  }
+
+  static double parseDouble(String key, String value) {
+    try {
+      return Double.parseDouble(requireValue(key, value));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("key " + key + " value set to " + value + ", must be a number", e);
+    }
+  }
+
+  static <E extends Enum<E>> E parseEnum(Class<E> enumType, String key, String value) {
+    try {
+      return Enum.valueOf(enumType, requireValue(key, value).toUpperCase());
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("key " + key + " value set to " + value
+          + ", must be one of " + Arrays.toString(enumType.getEnumConstants()), e);
+    }
+  }
+
+  /**
+   * 解析时长，格式同 {@link CacheBuilderSpec}：整数 + 单位（d、h、m、s），另外支持毫秒（ms）。
+   *
+   * @return 纳秒数
+   */
+  static long parseDuration(String key, String value) {
+    requireValue(key, value);
+    if (value.endsWith("ms")) {
+      return TimeUnit.MILLISECONDS.toNanos(parseLong(key, value.substring(0, value.length() - 2)));
+    }
+    char lastChar = value.charAt(value.length() - 1);
+    TimeUnit timeUnit;
+    switch (lastChar) {
+      case 'd':
+        timeUnit = TimeUnit.DAYS;
+        break;
+      case 'h':
+        timeUnit = TimeUnit.HOURS;
+        break;
+      case 'm':
+        timeUnit = TimeUnit.MINUTES;
+        break;
+      case 's':
+        timeUnit = TimeUnit.SECONDS;
+        break;
+      default:
+        throw new IllegalArgumentException("key " + key + " value set to " + value
+            + ", must end with one of [dDhHmMsS]");
+    }
+    long duration = parseLong(key, value.substring(0, value.length() - 1));
+    return timeUnit.toNanos(duration);
+  }
+
+  /**
+   * 解析字节数：整数 + 可选的单位（k、m、g，不区分大小写）。
+   *
+   * @return 字节数
+   */
+  static long parseBytes(String key, String value) {
+    requireValue(key, value);
+    char lastChar = Character.toLowerCase(value.charAt(value.length() - 1));
+    int shift;
+    switch (lastChar) {
+      case 'k':
+        shift = 10;
+        break;
+      case 'm':
+        shift = 20;
+        break;
+      case 'g':
+        shift = 30;
+        break;
+      default:
+        return parseLong(key, value);
+    }
+    long size = parseLong(key, value.substring(0, value.length() - 1));
+    if (size > (Long.MAX_VALUE >> shift)) {
+      throw new IllegalArgumentException("key " + key + " value set to " + value + ", is too large");
+    }
+    return size << shift;
+  }
+
+  // 访问方法
+
+  /**
+   * 返回缓存引擎（淘汰策略）。
+   */
+  public Policy policy() {
+    return policy;
+  }
+
+  /**
+   * 返回初始容量，未设置时返回 -1。
+   */
+  public int initialCapacity() {
+    return initialCapacity;
+  }
+
+  /**
+   * 返回最大条目数，未设置时返回 -1。
+   */
+  public long maximumSize() {
+    return maximumSize;
+  }
+
+  /**
+   * 返回写入过期时间（纳秒），未设置时返回 -1。
+   */
+  public long expireAfterWriteNanos() {
+    return expireAfterWriteNanos;
+  }
+
+  /**
+   * 返回访问过期时间（纳秒），未设置时返回 -1。
+   */
+  public long expireAfterAccessNanos() {
+    return expireAfterAccessNanos;
+  }
+
+  /**
+   * 返回刷新周期（纳秒），未设置时返回 -1。
+   */
+  public long refreshAfterWriteNanos() {
+    return refreshAfterWriteNanos;
+  }
+
+  /**
+   * 返回批量加载的批次大小，未开启时返回 -1。
+   */
+  public int batchSize() {
+    return batchSize;
+  }
+
+  /**
+   * 返回批量加载的时间窗口（纳秒），未开启时返回 -1。
+   */
+  public long batchWindowNanos() {
+    return batchWindowNanos;
+  }
+
+  /**
+   * 返回分片并行加载的分片大小，未开启时返回 -1。
+   */
+  public int loadAllChunkSize() {
+    return loadAllChunkSize;
+  }
+
+  /**
+   * 返回分片并行加载的并行度，未开启时返回 -1。
+   */
+  public int loadAllParallelism() {
+    return loadAllParallelism;
+  }
+
+  /**
+   * 返回内存预算（字节），未开启时返回 -1。
+   */
+  public long maximumBytes() {
+    return maximumBytes;
+  }
+
+  /**
+   * 返回堆外内存的容量（字节），未开启时返回 -1。
+   */
+  public long offHeapCapacity() {
+    return offHeapCapacity;
+  }
+
+  /**
+   * 返回堆外内存的存储方式。
+   */
+  public OffHeapStorage offHeapStorage() {
+    return offHeapStorage;
+  }
+
+  /**
+   * 返回快照文件，未开启时返回 {@code null}。
+   */
+  public String snapshotFile() {
+    return snapshotFile;
+  }
+
+  /**
+   * 返回定期写入快照的周期（纳秒），未设置时返回 -1。
+   */
+  public long snapshotIntervalNanos() {
+    return snapshotIntervalNanos;
+  }
+
+  /**
+   * 返回过期后继续提供旧值的软过期时间（纳秒），未开启时返回 -1。
+   */
+  public long softTtlNanos() {
+    return softTtlNanos;
+  }
+
+  /**
+   * 返回过期后继续提供旧值的硬过期时间（纳秒），未开启时返回 -1。
+   */
+  public long hardTtlNanos() {
+    return hardTtlNanos;
+  }
+
+  /**
+   * 返回概率性提前刷新（XFetch）的系数，未开启时返回 -1。
+   */
+  public double earlyRefreshBeta() {
+    return earlyRefreshBeta;
+  }
+
+  /**
+   * 返回写入过期时间的随机抖动比例，未开启时返回 -1。
+   */
+  public double expireJitter() {
+    return expireJitter;
+  }
+
+  /**
+   * 返回热点键探测统计的键数，未开启时返回 -1。
+   */
+  public int hotKeys() {
+    return hotKeys;
+  }
+
+  /**
+   * 返回热点键探测的窗口（纳秒），未开启时返回 -1。
+   */
+  public long hotKeyWindowNanos() {
+    return hotKeyWindowNanos;
+  }
+
+  /**
+   * 返回键过滤器的误判率，未设置时返回 -1。
+   */
+  public double keyFilterFpp() {
+    return keyFilterFpp;
+  }
+
+  /**
+   * 返回键过滤器的重建周期（纳秒），未设置时返回 -1（只在创建时构建一次）。
+   */
+  public long keyFilterRebuildNanos() {
+    return keyFilterRebuildNanos;
+  }
+
+  /**
+   * 返回负缓存的存活时间（纳秒），未设置时返回 -1。
+   */
+  public long negativeTtlNanos() {
+    return negativeTtlNanos;
+  }
+
+  /**
+   * 返回负缓存的最大条目数，未设置时返回 -1。
+   */
+  public long negativeMaximumSize() {
+    return negativeMaximumSize;
+  }
+
+  /**
+   * 返回预热的每批键数，未设置时返回 -1。
+   */
+  public int warmUpBatchSize() {
+    return warmUpBatchSize;
+  }
+
+  /**
+   * 返回预热时同时加载的批次数，未设置时返回 -1。
+   */
+  public int warmUpConcurrency() {
+    return warmUpConcurrency;
+  }
+
+  /**
+   * 返回预热时每秒加载的键数上限，未设置时返回 -1（不限速）。
+   */
+  public double warmUpRate() {
+    return warmUpRate;
+  }
+
+  /**
+   * 返回是否设置了预热的配置项。
+   */
+  boolean hasWarmUpKeys() {
+    return keys.contains(WARM_UP_BATCH_SIZE) || keys.contains(WARM_UP_CONCURRENCY) || keys.contains(WARM_UP_RATE);
+  }
+
+  /**
+   * 返回是否设置了防止缓存穿透的配置项。
+   */
+  boolean hasKeyFilterKeys() {
+    for (String key : Arrays.asList(KEY_FILTER_FPP, KEY_FILTER_REBUILD, NEGATIVE_TTL, NEGATIVE_MAXIMUM_SIZE)) {
+      if (keys.contains(key)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * 返回设置了的配置项。
+   */
+  Set<String> keys() {
+    return keys;
+  }
+
+  /**
+   * 返回剔除扩展配置项后的 {@link CacheBuilderSpec}。
+   */
+  public CacheBuilderSpec toCacheBuilderSpec() {
+    return CacheBuilderSpec.parse(cacheBuilderSpecification);
+  }
+
+  /**
+   * 返回原始的配置规格字符串。
+   */
+  public String toParsableString() {
+    return specification;
+  }
+
+  @Override
+  public String toString() {
+    return "LocalCacheSpec{" + specification + '}';
+  }
+}
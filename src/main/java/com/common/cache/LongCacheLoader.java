@@ -0,0 +1,30 @@
+package com.common.cache;
+
+import com.google.common.cache.CacheLoader;
+
+/**
+ * 键为基本类型 {@code long} 的缓存加载器。
+ * <p/>
+ * {@link LongLoadingCache} 未命中时直接调用 {@link #load(long)}，不会装箱；
+ * 只有重新加载（{@link #reload}）和批量加载（{@link #loadAll}）沿用 {@link CacheLoader} 的装箱键。
+ *
+ * @param <V> 值类型
+ * @see LongLoadingCache
+ * @since 2026-10-17
+ */
+public abstract class LongCacheLoader<V> extends CacheLoader<Long, V> {
+
+  /**
+   * 加载键对应的值。
+   *
+   * @param key 键
+   * @return 值，不能为 {@code null}
+   * @throws Exception 加载失败
+   */
+  public abstract V load(long key) throws Exception;
+
+  @Override
+  public final V load(Long key) throws Exception {
+    return load(key.longValue());
+  }
+}
@@ -0,0 +1,867 @@
+package com.common.cache;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.StampedLock;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheLoader.InvalidCacheLoadException;
+import com.google.common.cache.CacheLoader.UnsupportedLoadingOperationException;
+import com.google.common.cache.CacheStats;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 键为基本类型 {@code long} 的可自动加载缓存。
+ * <p/>
+ * 与 {@code LoadingCache<Long, V>} 的过期、刷新语义和统计信息相同，区别在于存储结构：
+ * <ul>
+ * <li>开放寻址（线性探测）的分段哈希表，键、值、时间戳分别存放在并行的数组中，读写都不会装箱，
+ * 每个条目也没有额外的节点对象</li>
+ * <li>读操作：{@link StampedLock} 乐观读，校验失败才加读锁；写操作：分段的写锁</li>
+ * <li>淘汰策略：达到 maximumSize 时，分段内按 CLOCK 算法淘汰（访问过的条目获得一次“第二次机会”）</li>
+ * <li>删除条目时回移后续条目（backward shift），不留墓碑</li>
+ * </ul>
+ * 只有重新加载（refreshAfterWrite）和批量加载未命中的键时才会装箱。
+ * <p/>
+ * 支持的配置项：initialCapacity、maximumSize、expireAfterWrite、expireAfterAccess、refreshAfterWrite。
+ *
+ * @param <V> 值类型
+ * @see LocalCacheFactory#newLongLoadingCache
+ * @since 2026-10-17
+ */
+public final class LongLoadingCache<V> {
+  private static final Logger LOGGER = LoggerFactory.getLogger("localCache");
+
+  private static final Set<String> SUPPORTED_KEYS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+      "initialCapacity", "maximumSize", "expireAfterWrite", "expireAfterAccess",
+      "refreshAfterWrite", "refreshInterval", "concurrencyLevel", "recordStats")));
+
+  private static final int SEGMENTS =
+      Math.min(64, FrequencySketch.ceilingPowerOfTwo(Math.max(1, Runtime.getRuntime().availableProcessors()) * 4));
+  private static final int SEGMENT_SHIFT = 32 - Integer.numberOfTrailingZeros(SEGMENTS);
+  private static final int MIN_TABLE_SIZE = 16;
+  /**
+   * 负载因子的倒数：表长至少是条目数的 2 倍，保证探测链很短
+   */
+  private static final int TABLE_SIZE_FACTOR = 2;
+
+  private final Segment[] segments;
+  private final LongCacheLoader<V> loader;
+  private final CacheLoader<Long, V> reloader;
+  private final Ticker ticker;
+  private final CacheMetrics statsCounter;
+  private final BulkLookup.Source<Long, V> bulkSource = new BulkSource();
+
+  private final long expireAfterWriteNanos;
+  private final long expireAfterAccessNanos;
+  private final long refreshAfterWriteNanos;
+
+  /**
+   * 创建一个新的键为 {@code long} 的缓存（同步地重新加载）。
+   *
+   * @param spec   缓存配置的规格
+   * @param loader 缓存加载器
+   */
+  public LongLoadingCache(LocalCacheSpec spec, LongCacheLoader<V> loader) {
+    this(spec, loader, loader, Ticker.systemTicker());
+  }
+
+  /**
+   * 创建一个新的键为 {@code long} 的缓存。
+   *
+   * @param spec     缓存配置的规格
+   * @param loader   缓存加载器
+   * @param reloader 重新加载的缓存加载器，如 {@link RefreshScheduler#asyncReloading(CacheLoader)} 包装的加载器
+   */
+  public LongLoadingCache(LocalCacheSpec spec, LongCacheLoader<V> loader, CacheLoader<Long, V> reloader) {
+    this(spec, loader, reloader, Ticker.systemTicker());
+  }
+
+  @SuppressWarnings("unchecked")
+  LongLoadingCache(LocalCacheSpec spec, LongCacheLoader<V> loader, CacheLoader<Long, V> reloader, Ticker ticker) {
+    if (loader == null || reloader == null) {
+      throw new IllegalArgumentException("loader and reloader must be not null");
+    }
+    for (String key : spec.keys()) {
+      if (!SUPPORTED_KEYS.contains(key)) {
+        throw new IllegalArgumentException(key + " is not supported by LongLoadingCache");
+      }
+    }
+    this.loader = loader;
+    this.reloader = reloader;
+    this.ticker = ticker;
+    this.statsCounter = new CacheMetrics(ticker);
+    this.expireAfterWriteNanos = spec.expireAfterWriteNanos();
+    this.expireAfterAccessNanos = spec.expireAfterAccessNanos();
+    this.refreshAfterWriteNanos = spec.refreshAfterWriteNanos();
+
+    long maximumSize = spec.maximumSize();
+    int segmentMaximum = (maximumSize < 0L) ? -1 : (int) Math.min(Integer.MAX_VALUE / TABLE_SIZE_FACTOR,
+        (maximumSize + SEGMENTS - 1) / SEGMENTS);
+    int segmentCapacity = Math.max(spec.initialCapacity(), 0) / SEGMENTS;
+    if (segmentMaximum >= 0) {
+      // 有界的分段一次分配到位，不再扩容
+      segmentCapacity = segmentMaximum;
+    }
+    this.segments = new LongLoadingCache.Segment[SEGMENTS];
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment(segmentCapacity, segmentMaximum);
+    }
+  }
+
+  static int hash(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  private Segment segmentFor(int hash) {
+    return segments[hash >>> SEGMENT_SHIFT];
+  }
+
+  // 读操作
+
+  /**
+   * 返回缓存中的值，不存在或已过期时返回 {@code null}（不加载、不刷新）。
+   */
+  public V getIfPresent(long key) {
+    V value = probe(key);
+    if (value == null) {
+      statsCounter.recordMisses(1);
+      return null;
+    }
+    statsCounter.recordHits(1);
+    return value;
+  }
+
+  /**
+   * 读取未过期的值（不记录命中/未命中统计）。
+   */
+  private V probe(long key) {
+    int hash = hash(key);
+    Object value = segmentFor(hash).read(key, hash, ticker.read(), false);
+    if (value == null || value instanceof Loading) {
+      return null;
+    }
+    @SuppressWarnings("unchecked")
+    V v = (V) value;
+    return v;
+  }
+
+  /**
+   * 返回缓存中的值，未命中时加载（同一个键的并发未命中只加载一次），到达刷新周期时异步地重新加载。
+   *
+   * @throws ExecutionException          加载器抛出受检异常
+   * @throws UncheckedExecutionException 加载器抛出运行时异常
+   * @throws ExecutionError              加载器抛出错误
+   * @throws InvalidCacheLoadException   加载器返回 {@code null}
+   */
+  public V get(long key) throws ExecutionException {
+    int hash = hash(key);
+    Segment segment = segmentFor(hash);
+    Object value = segment.read(key, hash, ticker.read(), true);
+    if (value != null && !(value instanceof Loading)) {
+      statsCounter.recordHits(1);
+      @SuppressWarnings("unchecked")
+      V v = (V) value;
+      return v;
+    }
+    return load(segment, key, hash);
+  }
+
+  /**
+   * 返回多个键的值（顺序与键一致），未命中的键优先批量加载（{@link CacheLoader#loadAll(Iterable)}），
+   * 加载器不支持批量加载时逐个加载。
+   */
+  public List<V> getAll(long[] keys) throws ExecutionException {
+    Map<Long, V> found = BulkLookup.getAll(Longs.asList(keys), bulkSource, statsCounter);
+    @SuppressWarnings("unchecked")
+    V[] values = (V[]) new Object[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      values[i] = found.get(keys[i]);
+    }
+    return Collections.unmodifiableList(Arrays.asList(values));
+  }
+
+  /**
+   * 异步地重新加载键对应的值，不存在时同步加载。
+   */
+  public void refresh(long key) {
+    int hash = hash(key);
+    Segment segment = segmentFor(hash);
+    Object value = segment.read(key, hash, ticker.read(), false);
+    if (value == null || value instanceof Loading) {
+      try {
+        load(segment, key, hash);
+      } catch (ExecutionException | RuntimeException e) {
+        LOGGER.warn("Exception thrown during refresh, key={}", key, e);
+      }
+      return;
+    }
+    @SuppressWarnings("unchecked")
+    V oldValue = (V) value;
+    startRefresh(segment, key, hash, oldValue);
+  }
+
+  // 写操作
+
+  public void put(long key, V value) {
+    if (value == null) {
+      throw new NullPointerException();
+    }
+    int hash = hash(key);
+    segmentFor(hash).put(key, hash, value, ticker.read());
+  }
+
+  public void invalidate(long key) {
+    int hash = hash(key);
+    segmentFor(hash).remove(key, hash);
+  }
+
+  public void invalidateAll() {
+    for (Segment segment : segments) {
+      segment.clear();
+    }
+  }
+
+  /**
+   * 返回条目数（包含已过期但尚未清理的条目）。
+   */
+  public long size() {
+    long size = 0L;
+    for (Segment segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  public CacheStats stats() {
+    return statsCounter.snapshot();
+  }
+
+  /**
+   * 返回滑动窗口的统计指标和加载耗时的分布。
+   */
+  public CacheMetrics metrics() {
+    return statsCounter;
+  }
+
+  /**
+   * 清理已过期的条目。
+   */
+  public void cleanUp() {
+    long now = ticker.read();
+    for (Segment segment : segments) {
+      segment.expireEntries(now);
+    }
+  }
+
+  // 加载
+
+  private V load(Segment segment, long key, int hash) throws ExecutionException {
+    Object claimed = segment.claimLoading(key, hash, ticker.read());
+    if (!(claimed instanceof Loading)) {
+      // 其它线程已加载
+      statsCounter.recordMisses(1);
+      @SuppressWarnings("unchecked")
+      V v = (V) claimed;
+      return v;
+    }
+    @SuppressWarnings("unchecked")
+    Loading<V> loading = (Loading<V>) claimed;
+    if (loading.owner != Thread.currentThread()) {
+      statsCounter.recordMisses(1);
+      return awaitLoading(loading);
+    }
+
+    long startTime = ticker.read();
+    try {
+      V value = loader.load(key);
+      if (value == null) {
+        throw new InvalidCacheLoadException("CacheLoader returned null for key " + key + ".");
+      }
+      statsCounter.recordMisses(1);
+      statsCounter.recordLoadSuccess(ticker.read() - startTime);
+      segment.completeLoading(key, hash, loading, value, ticker.read());
+      loading.future.set(value);
+      return value;
+    } catch (Throwable t) {
+      statsCounter.recordMisses(1);
+      statsCounter.recordLoadException(ticker.read() - startTime);
+      segment.completeLoading(key, hash, loading, null, 0L);
+      loading.future.setException(t);
+      if (t instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      return awaitLoading(loading);
+    }
+  }
+
+  private V awaitLoading(Loading<V> loading) throws ExecutionException {
+    try {
+      return Uninterruptibles.getUninterruptibly(loading.future);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof InvalidCacheLoadException) {
+        throw (InvalidCacheLoadException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw new UncheckedExecutionException(cause);
+      }
+      if (cause instanceof Error) {
+        throw new ExecutionError((Error) cause);
+      }
+      throw e;
+    }
+  }
+
+  private Map<Long, V> loadAll(Set<Long> keys) throws ExecutionException {
+    long startTime = ticker.read();
+    Map<Long, V> loaded;
+    try {
+      loaded = loader.loadAll(keys);
+    } catch (UnsupportedLoadingOperationException e) {
+      throw e;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      statsCounter.recordLoadException(ticker.read() - startTime);
+      throw new ExecutionException(e);
+    } catch (RuntimeException e) {
+      statsCounter.recordLoadException(ticker.read() - startTime);
+      throw new UncheckedExecutionException(e);
+    } catch (Exception e) {
+      statsCounter.recordLoadException(ticker.read() - startTime);
+      throw new ExecutionException(e);
+    } catch (Error e) {
+      statsCounter.recordLoadException(ticker.read() - startTime);
+      throw new ExecutionError(e);
+    }
+    if (loaded == null) {
+      statsCounter.recordLoadException(ticker.read() - startTime);
+      throw new InvalidCacheLoadException(loader + " returned null map from loadAll");
+    }
+    statsCounter.recordLoadSuccess(ticker.read() - startTime);
+    for (Map.Entry<Long, V> entry : loaded.entrySet()) {
+      if (entry.getKey() != null && entry.getValue() != null) {
+        put(entry.getKey(), entry.getValue());
+      }
+    }
+    return loaded;
+  }
+
+  // 刷新
+
+  /**
+   * 异步地重新加载条目。
+   *
+   * @return 重新加载已同步完成时返回新值，否则返回 {@code null}
+   */
+  private V startRefresh(final Segment segment, final long key, final int hash, final V oldValue) {
+    if (!segment.tryStartRefresh(key, hash, oldValue)) {
+      return null;
+    }
+    final long startTime = ticker.read();
+    final ListenableFuture<V> future;
+    try {
+      future = reloader.reload(key, oldValue);
+      if (future == null) {
+        throw new NullPointerException("CacheLoader returned null for reload");
+      }
+    } catch (Throwable t) {
+      segment.endRefresh(key, hash, oldValue);
+      statsCounter.recordRefreshException(ticker.read() - startTime);
+      LOGGER.warn("Exception thrown during refresh, key={}", key, t);
+      if (t instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      return null;
+    }
+    future.addListener(() -> completeRefresh(segment, key, hash, oldValue, future, startTime),
+        MoreExecutors.directExecutor());
+    if (future.isDone()) {
+      try {
+        return Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException e) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  private void completeRefresh(
+      Segment segment, long key, int hash, V oldValue, ListenableFuture<V> future, long startTime) {
+    V newValue = null;
+    try {
+      newValue = Uninterruptibles.getUninterruptibly(future);
+      long loadTime = ticker.read() - startTime;
+      if (newValue == null) {
+        statsCounter.recordRefreshException(loadTime);
+      } else {
+        statsCounter.recordRefreshSuccess(loadTime);
+      }
+    } catch (ExecutionException | RuntimeException e) {
+      if (!RefreshSkippedException.isSkipped(e)) {
+        statsCounter.recordRefreshException(ticker.read() - startTime);
+        LOGGER.warn("Exception thrown during refresh, key={}", key, e);
+      }
+    } finally {
+      // 刷新期间条目被替换或移除，则丢弃刷新结果；没有新值时只清除刷新标记
+      segment.completeRefresh(key, hash, oldValue, newValue, ticker.read());
+    }
+  }
+
+  // 过期
+
+  private boolean isExpired(long writeTime, long accessTime, long now) {
+    return (expireAfterWriteNanos >= 0L && (now - writeTime) >= expireAfterWriteNanos)
+        || (expireAfterAccessNanos >= 0L && (now - accessTime) >= expireAfterAccessNanos);
+  }
+
+  @Override
+  public String toString() {
+    return "LongLoadingCache{size=" + size() + ", segments=" + SEGMENTS + ", " + stats() + '}';
+  }
+
+  /**
+   * 批量查找的数据源，未命中统计由 {@link BulkLookup} 记录。
+   */
+  private final class BulkSource implements BulkLookup.Source<Long, V> {
+
+    @Override
+    public V probe(Long key) {
+      return LongLoadingCache.this.probe(key);
+    }
+
+    @Override
+    public Map<Long, V> loadAll(Set<Long> keys) throws ExecutionException {
+      return LongLoadingCache.this.loadAll(keys);
+    }
+
+    @Override
+    public V get(Long key) throws ExecutionException {
+      return LongLoadingCache.this.get(key);
+    }
+  }
+
+  /**
+   * 加载中的占位值。
+   */
+  private static final class Loading<V> {
+    final SettableFuture<V> future = SettableFuture.create();
+    /**
+     * 负责加载的线程
+     */
+    final Thread owner = Thread.currentThread();
+  }
+
+  /**
+   * 开放寻址的哈希表：键、值和元数据存放在并行的数组中，空槽的值为 {@code null}。
+   * <p/>
+   * 扩容时整体替换，乐观读取者只读取一次表的引用，不会看到长度不一致的数组。
+   */
+  private static final class Table {
+    final long[] keys;
+    final Object[] values;
+    final long[] writeTimes;
+    final long[] accessTimes;
+    /**
+     * CLOCK 的访问位，读取者不加锁地写入（良性竞争）
+     */
+    final byte[] referenced;
+    final boolean[] refreshing;
+    final int mask;
+
+    Table(int tableSize) {
+      keys = new long[tableSize];
+      values = new Object[tableSize];
+      writeTimes = new long[tableSize];
+      accessTimes = new long[tableSize];
+      referenced = new byte[tableSize];
+      refreshing = new boolean[tableSize];
+      mask = tableSize - 1;
+    }
+
+    /**
+     * 返回键所在的槽位，不存在时返回 -1。
+     */
+    int indexOf(long key, int hash) {
+      int index = hash & mask;
+      // 乐观读取时数组可能正在被修改，限制探测次数
+      for (int probes = 0; probes <= mask; probes++) {
+        if (values[index] == null) {
+          return -1;
+        }
+        if (keys[index] == key) {
+          return index;
+        }
+        index = (index + 1) & mask;
+      }
+      return -1;
+    }
+
+    void copy(int from, Table to, int index) {
+      to.keys[index] = keys[from];
+      to.values[index] = values[from];
+      to.writeTimes[index] = writeTimes[from];
+      to.accessTimes[index] = accessTimes[from];
+      to.referenced[index] = referenced[from];
+      to.refreshing[index] = refreshing[from];
+    }
+  }
+
+  /**
+   * 分段：由 {@link StampedLock} 保护的一个哈希表。
+   */
+  private final class Segment {
+    private final StampedLock lock = new StampedLock();
+    /**
+     * 条目数上限，-1 表示无界
+     */
+    private final int maximum;
+
+    private Table table;
+    private int size;
+    private int loadingCount;
+    private int hand;
+
+    Segment(int capacity, int maximum) {
+      this.maximum = maximum;
+      this.table = new Table(
+          FrequencySketch.ceilingPowerOfTwo(Math.max(MIN_TABLE_SIZE, capacity * TABLE_SIZE_FACTOR)));
+    }
+
+    /**
+     * 读取键对应的值或加载中的占位值，不存在或已过期时返回 {@code null}。
+     *
+     * @param refresh 是否在到达刷新周期时重新加载
+     */
+    Object read(long key, int hash, long now, boolean refresh) {
+      long stamp = lock.tryOptimisticRead();
+      Table t = table;
+      int index = t.indexOf(key, hash);
+      Object value = (index < 0) ? null : t.values[index];
+      long writeTime = (index < 0) ? 0L : t.writeTimes[index];
+      long accessTime = (index < 0) ? 0L : t.accessTimes[index];
+      if (!lock.validate(stamp)) {
+        stamp = lock.readLock();
+        try {
+          t = table;
+          index = t.indexOf(key, hash);
+          value = (index < 0) ? null : t.values[index];
+          writeTime = (index < 0) ? 0L : t.writeTimes[index];
+          accessTime = (index < 0) ? 0L : t.accessTimes[index];
+        } finally {
+          lock.unlockRead(stamp);
+        }
+      }
+      if (value == null || value instanceof Loading) {
+        return value;
+      }
+      if (isExpired(writeTime, accessTime, now)) {
+        return null;
+      }
+      // 不加锁地记录访问：条目被并发移动时最多影响另一个条目的淘汰顺序或访问时间
+      t.referenced[index] = 1;
+      if (expireAfterAccessNanos >= 0L) {
+        t.accessTimes[index] = now;
+      }
+      if (refresh && refreshAfterWriteNanos >= 0L && (now - writeTime) >= refreshAfterWriteNanos) {
+        @SuppressWarnings("unchecked")
+        V oldValue = (V) value;
+        V newValue = startRefresh(this, key, hash, oldValue);
+        return (newValue == null) ? oldValue : newValue;
+      }
+      return value;
+    }
+
+    /**
+     * 未命中时占位：返回已有的值、其它线程的占位值，或者当前线程负责加载的新占位值。
+     */
+    Object claimLoading(long key, int hash, long now) {
+      long stamp = lock.writeLock();
+      try {
+        Table t = table;
+        int index = t.indexOf(key, hash);
+        if (index >= 0) {
+          Object value = t.values[index];
+          if (value instanceof Loading || !isExpired(t.writeTimes[index], t.accessTimes[index], now)) {
+            return value;
+          }
+          // 过期的条目原地替换为占位值
+          statsCounter.recordEviction();
+          Loading<V> loading = new Loading<>();
+          setAt(t, index, key, loading, now);
+          loadingCount++;
+          return loading;
+        }
+        Loading<V> loading = new Loading<>();
+        insert(key, hash, loading, now);
+        loadingCount++;
+        return loading;
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+
+    /**
+     * 加载完成：占位值仍在时替换为加载的值，加载失败（{@code value} 为 {@code null}）时移除占位值。
+     */
+    void completeLoading(long key, int hash, Loading<V> loading, V value, long now) {
+      long stamp = lock.writeLock();
+      try {
+        Table t = table;
+        int index = t.indexOf(key, hash);
+        if (index < 0 || t.values[index] != loading) {
+          // 加载期间被写入或移除
+          return;
+        }
+        loadingCount--;
+        if (value == null) {
+          removeAt(t, index);
+        } else {
+          setAt(t, index, key, value, now);
+        }
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+
+    void put(long key, int hash, V value, long now) {
+      long stamp = lock.writeLock();
+      try {
+        Table t = table;
+        int index = t.indexOf(key, hash);
+        if (index >= 0) {
+          if (t.values[index] instanceof Loading) {
+            loadingCount--;
+          }
+          setAt(t, index, key, value, now);
+        } else {
+          insert(key, hash, value, now);
+        }
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+
+    void remove(long key, int hash) {
+      long stamp = lock.writeLock();
+      try {
+        Table t = table;
+        int index = t.indexOf(key, hash);
+        if (index >= 0) {
+          if (t.values[index] instanceof Loading) {
+            loadingCount--;
+          }
+          removeAt(t, index);
+        }
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+
+    void clear() {
+      long stamp = lock.writeLock();
+      try {
+        // 加载中的占位值保留，加载完成后写入
+        Table t = table;
+        Table cleared = new Table(t.values.length);
+        for (int i = 0; i < t.values.length; i++) {
+          if (t.values[i] instanceof Loading) {
+            int index = hash(t.keys[i]) & cleared.mask;
+            while (cleared.values[index] != null) {
+              index = (index + 1) & cleared.mask;
+            }
+            t.copy(i, cleared, index);
+          }
+        }
+        table = cleared;
+        size = loadingCount;
+        hand = 0;
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+
+    int size() {
+      long stamp = lock.readLock();
+      try {
+        return size - loadingCount;
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+
+    void expireEntries(long now) {
+      long stamp = lock.writeLock();
+      try {
+        Table t = table;
+        int i = 0;
+        while (i < t.values.length) {
+          Object value = t.values[i];
+          if (value != null && !(value instanceof Loading) && isExpired(t.writeTimes[i], t.accessTimes[i], now)) {
+            // 回移的条目落在当前槽位，重新检查
+            removeAt(t, i);
+            statsCounter.recordEviction();
+          } else {
+            i++;
+          }
+        }
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+
+    boolean tryStartRefresh(long key, int hash, V oldValue) {
+      long stamp = lock.writeLock();
+      try {
+        Table t = table;
+        int index = t.indexOf(key, hash);
+        if (index < 0 || t.values[index] != oldValue || t.refreshing[index]) {
+          return false;
+        }
+        t.refreshing[index] = true;
+        return true;
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+
+    void endRefresh(long key, int hash, V oldValue) {
+      completeRefresh(key, hash, oldValue, null, 0L);
+    }
+
+    /**
+     * 刷新完成：条目仍是刷新前的值时写入新值，{@code newValue} 为 {@code null} 时只清除刷新标记。
+     */
+    void completeRefresh(long key, int hash, V oldValue, V newValue, long now) {
+      long stamp = lock.writeLock();
+      try {
+        Table t = table;
+        int index = t.indexOf(key, hash);
+        if (index < 0 || t.values[index] != oldValue) {
+          return;
+        }
+        if (newValue == null) {
+          t.refreshing[index] = false;
+        } else {
+          setAt(t, index, key, newValue, now);
+        }
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+
+    // 以下方法持有写锁
+
+    private void setAt(Table t, int index, long key, Object value, long now) {
+      t.keys[index] = key;
+      t.values[index] = value;
+      t.writeTimes[index] = now;
+      t.accessTimes[index] = now;
+      t.referenced[index] = 0;
+      t.refreshing[index] = false;
+    }
+
+    private void insert(long key, int hash, Object value, long now) {
+      if (maximum >= 0) {
+        while (size >= maximum && evictOne(now)) {
+          // 淘汰直到有空位
+        }
+      }
+      // 有界的分段全部是加载中的占位值、无法淘汰时，也需要扩容
+      if ((size + 1) * TABLE_SIZE_FACTOR > table.values.length) {
+        resize(table.values.length * 2);
+      }
+      Table t = table;
+      int index = hash & t.mask;
+      while (t.values[index] != null) {
+        index = (index + 1) & t.mask;
+      }
+      setAt(t, index, key, value, now);
+      size++;
+    }
+
+    private void resize(int tableSize) {
+      Table old = table;
+      Table resized = new Table(tableSize);
+      for (int i = 0; i < old.values.length; i++) {
+        if (old.values[i] == null) {
+          continue;
+        }
+        int index = hash(old.keys[i]) & resized.mask;
+        while (resized.values[index] != null) {
+          index = (index + 1) & resized.mask;
+        }
+        old.copy(i, resized, index);
+      }
+      table = resized;
+      hand = 0;
+    }
+
+    /**
+     * 按 CLOCK 算法淘汰一个条目（已过期的条目不给第二次机会）。
+     *
+     * @return 是否淘汰了条目
+     */
+    private boolean evictOne(long now) {
+      Table t = table;
+      for (int scanned = 0; scanned < t.values.length * 2; scanned++) {
+        int index = hand;
+        hand = (hand + 1) & t.mask;
+        Object value = t.values[index];
+        if (value == null || value instanceof Loading) {
+          continue;
+        }
+        if (t.referenced[index] != 0 && !isExpired(t.writeTimes[index], t.accessTimes[index], now)) {
+          t.referenced[index] = 0;
+          continue;
+        }
+        removeAt(t, index);
+        // 回移后的条目落在当前槽位，下次从这里继续
+        hand = index;
+        statsCounter.recordEviction();
+        return true;
+      }
+      return false;
+    }
+
+    /**
+     * 删除槽位上的条目，并回移同一探测链上的后续条目（不留墓碑）。
+     */
+    private void removeAt(Table t, int index) {
+      int hole = index;
+      int next = index;
+      while (true) {
+        next = (next + 1) & t.mask;
+        if (t.values[next] == null) {
+          break;
+        }
+        int home = hash(t.keys[next]) & t.mask;
+        // 起始槽位不在 (hole, next] 区间内的条目可以回移到空洞
+        boolean movable = (hole <= next) ? (home <= hole || home > next) : (home <= hole && home > next);
+        if (movable) {
+          t.copy(next, t, hole);
+          hole = next;
+        }
+      }
+      t.values[hole] = null;
+      t.referenced[hole] = 0;
+      t.refreshing[hole] = false;
+      size--;
+    }
+  }
+}
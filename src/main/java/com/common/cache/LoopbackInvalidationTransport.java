@@ -0,0 +1,80 @@
+package com.common.cache;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 同一个 JVM 内的失效消息传输通道，用于测试和单机部署。
+ * <p/>
+ * 同一个频道的传输通道互相可见，消息在发送线程中同步地投递给同频道的其它订阅者（不包括自己）。
+ *
+ * @since 2026-10-17
+ */
+public final class LoopbackInvalidationTransport implements InvalidationTransport {
+  private static final int MAX_MESSAGE_BYTES = 64 * 1024;
+
+  private static final ConcurrentMap<String, List<LoopbackInvalidationTransport>> CHANNELS =
+      new ConcurrentHashMap<>();
+
+  private final String channel;
+  private volatile Consumer<byte[]> receiver;
+
+  /**
+   * 创建一个新的加入指定频道的传输通道。
+   *
+   * @param channel 频道名称
+   */
+  public LoopbackInvalidationTransport(String channel) {
+    if (channel == null) {
+      throw new IllegalArgumentException("channel must be not null");
+    }
+    this.channel = channel;
+    CHANNELS.computeIfAbsent(channel, k -> new CopyOnWriteArrayList<>()).add(this);
+  }
+
+  @Override
+  public int maxMessageBytes() {
+    return MAX_MESSAGE_BYTES;
+  }
+
+  @Override
+  public void publish(byte[] message) {
+    List<LoopbackInvalidationTransport> members = CHANNELS.get(channel);
+    if (members == null) {
+      return;
+    }
+    for (LoopbackInvalidationTransport member : members) {
+      Consumer<byte[]> memberReceiver = member.receiver;
+      if (member != this && memberReceiver != null) {
+        memberReceiver.accept(message.clone());
+      }
+    }
+  }
+
+  @Override
+  public void subscribe(Consumer<byte[]> receiver) {
+    if (receiver == null) {
+      throw new IllegalArgumentException("receiver must be not null");
+    }
+    if (this.receiver != null) {
+      throw new IllegalStateException("already subscribed");
+    }
+    this.receiver = receiver;
+  }
+
+  @Override
+  public void close() {
+    List<LoopbackInvalidationTransport> members = CHANNELS.get(channel);
+    if (members != null) {
+      members.remove(this);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "LoopbackInvalidationTransport{channel=" + channel + '}';
+  }
+}
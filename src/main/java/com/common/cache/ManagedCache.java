@@ -0,0 +1,235 @@
+package com.common.cache;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheStats;
+
+/**
+ * 注册到 {@link CacheRegistry} 中的缓存：查看大小、命中率和刷新队列深度，并在运行时调整容量和过期时间。
+ * <p/>
+ * 只有 {@link TinyLfuLoadingCache}（{@code policy=tinylfu}）支持运行时调整（Guava 的缓存创建后容量和过期时间不可变）。
+ * 其它缓存在 JMX 中按只读的 {@link ManagedCacheMXBean} 注册，直接调用调整方法时抛出 {@link UnsupportedOperationException}。
+ * <p/>
+ * 只弱引用缓存，注册表（以及 JMX）不会阻止没有关闭的缓存被回收；缓存被回收后由注册表自动取消注册，
+ * 在此之前查看缓存的方法抛出 {@link IllegalStateException}。
+ *
+ * @see LocalCacheFactory#registry()
+ * @since 2026-10-17
+ */
+public final class ManagedCache implements TunableCacheMXBean {
+  private final String name;
+  private final String spec;
+  /**
+   * 以下两者之一不为 {@code null}
+   */
+  private final WeakReference<Cache<?, ?>> cache;
+  private final WeakReference<LongLoadingCache<?>> longCache;
+  private final RefreshScheduler refreshScheduler;
+
+  ManagedCache(String name, String spec, Cache<?, ?> cache, RefreshScheduler refreshScheduler) {
+    this(name, spec, cache, null, refreshScheduler);
+  }
+
+  ManagedCache(String name, String spec, LongLoadingCache<?> longCache, RefreshScheduler refreshScheduler) {
+    this(name, spec, null, longCache, refreshScheduler);
+  }
+
+  private ManagedCache(String name, String spec, Cache<?, ?> cache, LongLoadingCache<?> longCache,
+                       RefreshScheduler refreshScheduler) {
+    this.name = name;
+    this.spec = spec;
+    this.cache = (cache == null) ? null : new WeakReference<>(cache);
+    this.longCache = (longCache == null) ? null : new WeakReference<>(longCache);
+    this.refreshScheduler = refreshScheduler;
+  }
+
+  /**
+   * 返回缓存实例（{@link com.google.common.cache.LoadingCache} 或 {@link LongLoadingCache}）。
+   *
+   * @return 缓存实例；已被回收时返回 {@code null}
+   */
+  public Object cache() {
+    return (cache != null) ? cache.get() : longCache.get();
+  }
+
+  /**
+   * 返回缓存是否已被回收（没有关闭就不再使用）。
+   */
+  boolean isCollected() {
+    return cache() == null;
+  }
+
+  /**
+   * 返回累积的统计信息。
+   */
+  public CacheStats stats() {
+    Cache<?, ?> guavaCache = guavaCache();
+    return (guavaCache != null) ? guavaCache.stats() : longCache().stats();
+  }
+
+  /**
+   * 返回滑动窗口的统计指标；没有时返回 {@code null}。
+   */
+  public CacheMetrics metrics() {
+    Cache<?, ?> guavaCache = guavaCache();
+    return (guavaCache != null) ? LocalCacheFactory.metrics(guavaCache) : longCache().metrics();
+  }
+
+  /**
+   * 返回异步刷新调度器。
+   */
+  public RefreshScheduler refreshScheduler() {
+    return refreshScheduler;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public String getSpec() {
+    return spec;
+  }
+
+  @Override
+  public long getSize() {
+    Cache<?, ?> guavaCache = guavaCache();
+    return (guavaCache != null) ? guavaCache.size() : longCache().size();
+  }
+
+  @Override
+  public long getWeightedSize() {
+    Cache<?, ?> guavaCache = guavaCache();
+    long bytes = (guavaCache != null) ? LocalCacheFactory.estimatedBytes(guavaCache) : -1L;
+    return (bytes >= 0L) ? bytes : getSize();
+  }
+
+  @Override
+  public List<String> getHotKeys() {
+    Cache<?, ?> guavaCache = guavaCache();
+    HotKeyTracker hotKeyTracker = (guavaCache != null) ? LocalCacheFactory.hotKeyTracker(guavaCache) : null;
+    if (hotKeyTracker == null) {
+      return Collections.emptyList();
+    }
+    List<String> hotKeys = new ArrayList<>();
+    for (HotKeyTracker.HotKey hotKey : hotKeyTracker.topKeys()) {
+      hotKeys.add(hotKey.toString());
+    }
+    return hotKeys;
+  }
+
+  @Override
+  public double getHitRate() {
+    CacheMetrics metrics = metrics();
+    return (metrics == null) ? stats().hitRate() : metrics.hitRate(CacheMetrics.Window.FIVE_MINUTES);
+  }
+
+  @Override
+  public int getRefreshQueueDepth() {
+    return refreshScheduler.queueDepth();
+  }
+
+  @Override
+  public boolean isTunable() {
+    return (cache != null) && LocalCacheFactory.unwrap(cache.get()) instanceof TinyLfuLoadingCache;
+  }
+
+  @Override
+  public long getMaximumSize() {
+    return isTunable() ? tunable().maximumSize() : -1L;
+  }
+
+  @Override
+  public void setMaximumSize(long maximumSize) {
+    tunable().setMaximumSize(maximumSize);
+  }
+
+  @Override
+  public long getExpireAfterWriteSeconds() {
+    return isTunable() ? toSeconds(tunable().expireAfterWriteNanos()) : -1L;
+  }
+
+  @Override
+  public void setExpireAfterWriteSeconds(long seconds) {
+    setExpireAfterWrite(seconds, TimeUnit.SECONDS);
+  }
+
+  /**
+   * 调整写入过期时间。
+   *
+   * @see TinyLfuLoadingCache#setExpireAfterWrite(long, TimeUnit)
+   */
+  public void setExpireAfterWrite(long duration, TimeUnit unit) {
+    tunable().setExpireAfterWrite(duration, unit);
+  }
+
+  @Override
+  public long getRefreshAfterWriteSeconds() {
+    return isTunable() ? toSeconds(tunable().refreshAfterWriteNanos()) : -1L;
+  }
+
+  @Override
+  public void setRefreshAfterWriteSeconds(long seconds) {
+    setRefreshAfterWrite(seconds, TimeUnit.SECONDS);
+  }
+
+  /**
+   * 调整刷新周期。
+   *
+   * @see TinyLfuLoadingCache#setRefreshAfterWrite(long, TimeUnit)
+   */
+  public void setRefreshAfterWrite(long duration, TimeUnit unit) {
+    tunable().setRefreshAfterWrite(duration, unit);
+  }
+
+  @Override
+  public void invalidateAll() {
+    Cache<?, ?> guavaCache = guavaCache();
+    if (guavaCache != null) {
+      guavaCache.invalidateAll();
+    } else {
+      longCache().invalidateAll();
+    }
+  }
+
+  /**
+   * 返回 Guava 接口的缓存；键为基本类型 {@code long} 的缓存返回 {@code null}。
+   */
+  private Cache<?, ?> guavaCache() {
+    return (cache != null) ? live(cache.get()) : null;
+  }
+
+  private LongLoadingCache<?> longCache() {
+    return live(longCache.get());
+  }
+
+  private <C> C live(C target) {
+    if (target == null) {
+      throw new IllegalStateException(name + "'s cache has been garbage collected");
+    }
+    return target;
+  }
+
+  private TinyLfuLoadingCache<?, ?> tunable() {
+    Cache<?, ?> guavaCache = guavaCache();
+    if (!(LocalCacheFactory.unwrap(guavaCache) instanceof TinyLfuLoadingCache)) {
+      throw new UnsupportedOperationException(name + " is not tunable at runtime, use policy=tinylfu");
+    }
+    return (TinyLfuLoadingCache<?, ?>) LocalCacheFactory.unwrap(guavaCache);
+  }
+
+  private static long toSeconds(long nanos) {
+    return (nanos < 0L) ? -1L : TimeUnit.NANOSECONDS.toSeconds(nanos);
+  }
+
+  @Override
+  public String toString() {
+    return "ManagedCache{name=" + name + ", spec=" + spec + '}';
+  }
+}
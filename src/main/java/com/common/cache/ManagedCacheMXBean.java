@@ -0,0 +1,68 @@
+package com.common.cache;
+
+import java.util.List;
+
+/**
+ * 本地缓存的 JMX 管理接口。
+ * <p/>
+ * 对象名称为 {@code com.common.cache:type=LocalCache,name=<注册名称>}。
+ * 时长的属性以秒为单位，-1 表示未设置。
+ * <p/>
+ * 不支持运行时调整的缓存按本接口注册，容量和过期时间的属性是只读的；支持的缓存按 {@link TunableCacheMXBean} 注册。
+ *
+ * @see ManagedCache
+ * @since 2026-10-17
+ */
+public interface ManagedCacheMXBean {
+
+  /**
+   * 返回注册名称（使用方的服务名称，重名时追加序号）。
+   */
+  String getName();
+
+  /**
+   * 返回创建时的缓存配置的规格。
+   */
+  String getSpec();
+
+  /**
+   * 返回条目数。
+   */
+  long getSize();
+
+  /**
+   * 返回加权的大小：堆外缓存为已使用的字节数，内存预算模式（{@code maximumBytes}）为估算的字节数，其它缓存等于条目数。
+   */
+  long getWeightedSize();
+
+  /**
+   * 返回上一个统计窗口的热点键（{@code 键=估算读取次数}），按次数从多到少排列；未开启热点键探测时返回空列表。
+   */
+  List<String> getHotKeys();
+
+  /**
+   * 返回最近 5 分钟的命中率。
+   */
+  double getHitRate();
+
+  /**
+   * 返回异步刷新调度器中排队的刷新任务数。
+   */
+  int getRefreshQueueDepth();
+
+  /**
+   * 返回是否支持在运行时调整最大条目数和过期时间。
+   */
+  boolean isTunable();
+
+  long getMaximumSize();
+
+  long getExpireAfterWriteSeconds();
+
+  long getRefreshAfterWriteSeconds();
+
+  /**
+   * 失效全部条目。
+   */
+  void invalidateAll();
+}
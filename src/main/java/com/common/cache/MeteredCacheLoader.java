@@ -0,0 +1,78 @@
+package com.common.cache;
+
+import java.util.Map;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheLoader.UnsupportedLoadingOperationException;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * 记录加载和重新加载耗时的缓存加载器（用于无法替换统计计数器的 Guava 缓存）。
+ * <p/>
+ * 重新加载的耗时从发起到异步结果完成为止，包含在刷新调度器中排队的时间，
+ * 与 {@link TinyLfuLoadingCache} 等引擎记录的口径一致。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @since 2026-10-17
+ */
+final class MeteredCacheLoader<K, V> extends CacheLoader<K, V> {
+  private final CacheLoader<K, V> delegate;
+  private final CacheMetrics metrics;
+  private final Ticker ticker;
+
+  MeteredCacheLoader(CacheLoader<K, V> delegate, CacheMetrics metrics) {
+    this.delegate = delegate;
+    this.metrics = metrics;
+    this.ticker = Ticker.systemTicker();
+  }
+
+  @Override
+  public V load(K key) throws Exception {
+    long startTime = ticker.read();
+    try {
+      return delegate.load(key);
+    } finally {
+      metrics.recordLoadLatency(ticker.read() - startTime);
+    }
+  }
+
+  @Override
+  public Map<K, V> loadAll(Iterable<? extends K> keys) throws Exception {
+    long startTime = ticker.read();
+    boolean supported = true;
+    try {
+      return delegate.loadAll(keys);
+    } catch (UnsupportedLoadingOperationException e) {
+      // 不支持批量加载，由缓存逐个加载
+      supported = false;
+      throw e;
+    } finally {
+      if (supported) {
+        metrics.recordLoadLatency(ticker.read() - startTime);
+      }
+    }
+  }
+
+  @Override
+  public ListenableFuture<V> reload(K key, V oldValue) throws Exception {
+    final long startTime = ticker.read();
+    ListenableFuture<V> future = delegate.reload(key, oldValue);
+    if (future != null) {
+      future.addListener(() -> {
+        // 没有执行的刷新不计入耗时
+        if (!RefreshSkippedException.isSkipped(future)) {
+          metrics.recordRefreshLatency(ticker.read() - startTime);
+        }
+      }, MoreExecutors.directExecutor());
+    }
+    return future;
+  }
+
+  @Override
+  public String toString() {
+    return delegate.toString();
+  }
+}
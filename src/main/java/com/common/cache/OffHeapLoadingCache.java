@@ -0,0 +1,838 @@
+package com.common.cache;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.common.cache.SlabAllocator.Page;
+import com.common.cache.SlabAllocator.Slot;
+import com.google.common.base.Ticker;
+import com.google.common.cache.AbstractLoadingCache;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheLoader.InvalidCacheLoadException;
+import com.google.common.cache.CacheLoader.UnsupportedLoadingOperationException;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 值存放在堆外内存的可自动加载缓存。
+ * <p/>
+ * 值经 {@link ValueCodec} 编码后存放在 {@link SlabAllocator} 管理的直接内存或内存映射文件中，
+ * 堆内只保留“键 → 块”的索引，从而把大缓存的值移出 GC 的管理范围：
+ * <ul>
+ * <li>读操作：无锁，从堆外复制字节后解码，每次读取都会创建新的值对象</li>
+ * <li>写操作：编码在锁外进行，分配块与淘汰由一把分配锁串行化</li>
+ * <li>淘汰策略：按堆外内存的容量（{@code offHeapCapacity}）淘汰，同一分片等级内按 CLOCK 算法选出淘汰者</li>
+ * </ul>
+ * 编码失败或编码后超过页大小的值不会被缓存，只返回给调用方。
+ * <p/>
+ * 支持的配置项：initialCapacity、expireAfterWrite、expireAfterAccess、refreshAfterWrite、
+ * offHeapCapacity、offHeapStorage。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @see LocalCacheFactory#newOffHeapLoadingCache
+ * @since 2026-10-17
+ */
+public final class OffHeapLoadingCache<K, V> extends AbstractLoadingCache<K, V>
+    implements SnapshotSupport<K, V> {
+  private static final Logger LOGGER = LoggerFactory.getLogger("localCache");
+
+  /**
+   * 写入结果：已写入
+   */
+  private static final int STORED = 0;
+  /**
+   * 写入结果：条件不满足，未写入
+   */
+  private static final int REJECTED = 1;
+  /**
+   * 写入结果：值无法缓存，未写入（旧值已清除）
+   */
+  private static final int UNCACHEABLE = 2;
+
+  private static final AtomicIntegerFieldUpdater<Slot> REFRESHING =
+      AtomicIntegerFieldUpdater.newUpdater(Slot.class, "refreshing");
+
+  private final ConcurrentHashMap<K, Slot> index;
+  /**
+   * 正在加载的键，同一个键的并发未命中只加载一次
+   */
+  private final ConcurrentHashMap<K, SettableFuture<V>> loading = new ConcurrentHashMap<>();
+  private final CacheLoader<? super K, V> loader;
+  private final ValueCodec<V> codec;
+  private final Ticker ticker;
+  private final CacheMetrics statsCounter;
+  private final LongAdder uncacheableCount = new LongAdder();
+  /**
+   * 热点键探测器；未开启时为 {@code null}
+   */
+  private final HotKeyTracker hotKeyTracker;
+  private final BulkLookup.Source<K, V> bulkSource = new BulkSource();
+
+  private final long expireAfterWriteNanos;
+  private final long expireAfterAccessNanos;
+  private final long refreshAfterWriteNanos;
+
+  /**
+   * 分配锁，保护 allocator 与索引的写入
+   */
+  private final ReentrantLock allocationLock = new ReentrantLock();
+  private final SlabAllocator allocator;
+
+  private ConcurrentMap<K, V> asMap;
+
+  /**
+   * 创建一个新的堆外缓存。
+   *
+   * @param spec   缓存配置的规格，必须设置 {@code offHeapCapacity}
+   * @param loader 缓存加载器
+   * @param codec  值的编解码器
+   */
+  public OffHeapLoadingCache(LocalCacheSpec spec, CacheLoader<? super K, V> loader, ValueCodec<V> codec) {
+    this(spec, loader, codec, Ticker.systemTicker());
+  }
+
+  OffHeapLoadingCache(LocalCacheSpec spec, CacheLoader<? super K, V> loader, ValueCodec<V> codec, Ticker ticker) {
+    this(spec, loader, codec, ticker, newAllocator(spec));
+  }
+
+  /**
+   * @param allocator 堆外内存的分配器（测试时可以模拟内存分配失败）
+   */
+  OffHeapLoadingCache(LocalCacheSpec spec, CacheLoader<? super K, V> loader, ValueCodec<V> codec, Ticker ticker,
+                      SlabAllocator allocator) {
+    if (loader == null) {
+      throw new IllegalArgumentException("loader must be not null");
+    }
+    if (codec == null) {
+      throw new IllegalArgumentException("codec must be not null");
+    }
+    this.loader = loader;
+    this.codec = codec;
+    this.ticker = ticker;
+    this.statsCounter = new CacheMetrics(ticker);
+    this.index = new ConcurrentHashMap<>(Math.max(spec.initialCapacity(), 16));
+    this.expireAfterWriteNanos = spec.expireAfterWriteNanos();
+    this.expireAfterAccessNanos = spec.expireAfterAccessNanos();
+    this.refreshAfterWriteNanos = spec.refreshAfterWriteNanos();
+    this.hotKeyTracker = (spec.hotKeys() > 0)
+        ? new HotKeyTracker(spec.hotKeys(), spec.hotKeyWindowNanos(), ticker) : null;
+    this.allocator = allocator;
+  }
+
+  private static SlabAllocator newAllocator(LocalCacheSpec spec) {
+    if (spec.offHeapCapacity() <= 0L) {
+      throw new IllegalArgumentException("offHeapCapacity must be set: " + spec);
+    }
+    return new SlabAllocator(spec.offHeapCapacity(), SlabAllocator.DEFAULT_PAGE_SIZE, spec.offHeapStorage());
+  }
+
+  // 读操作
+
+  @Override
+  public V getIfPresent(Object key) {
+    V value = probe(key);
+    if (value == null) {
+      statsCounter.recordMisses(1);
+      return null;
+    }
+    statsCounter.recordHits(1);
+    return value;
+  }
+
+  /**
+   * 读取未过期的值（不记录命中/未命中统计）。
+   */
+  private V probe(Object key) {
+    long now = ticker.read();
+    Slot slot = index.get(key);
+    if (hotKeyTracker != null) {
+      hotKeyTracker.record(key);
+    }
+    return (slot == null) ? null : read(slot, now);
+  }
+
+  @Override
+  public V get(K key) throws ExecutionException {
+    if (key == null) {
+      throw new NullPointerException("key");
+    }
+    if (hotKeyTracker != null) {
+      hotKeyTracker.record(key);
+    }
+    long now = ticker.read();
+    Slot slot = index.get(key);
+    V value = (slot == null) ? null : read(slot, now);
+    if (value != null) {
+      statsCounter.recordHits(1);
+      return refreshIfNeeded(key, slot, value, now);
+    }
+    return load(key);
+  }
+
+  @Override
+  public ImmutableMap<K, V> getAll(Iterable<? extends K> keys) throws ExecutionException {
+    return BulkLookup.getAll(keys, bulkSource, statsCounter);
+  }
+
+  @Override
+  public void refresh(K key) {
+    Slot slot = index.get(key);
+    V value = (slot == null) ? null : decode(slot);
+    if (value == null) {
+      try {
+        load(key);
+      } catch (ExecutionException | RuntimeException e) {
+        LOGGER.warn("Exception thrown during refresh, key={}", key, e);
+      }
+      return;
+    }
+    startRefresh(key, slot, value);
+  }
+
+  // 写操作
+
+  @Override
+  public void put(K key, V value) {
+    if (key == null || value == null) {
+      throw new NullPointerException();
+    }
+    store(key, value, null, false);
+  }
+
+  @Override
+  public void invalidate(Object key) {
+    Slot slot = index.remove(key);
+    if (slot != null) {
+      release(slot);
+    }
+  }
+
+  @Override
+  public void invalidateAll() {
+    for (K key : index.keySet()) {
+      invalidate(key);
+    }
+  }
+
+  @Override
+  public long size() {
+    return index.size();
+  }
+
+  @Override
+  public CacheStats stats() {
+    return statsCounter.snapshot();
+  }
+
+  /**
+   * 返回滑动窗口的统计指标和加载耗时的分布。
+   */
+  public CacheMetrics metrics() {
+    return statsCounter;
+  }
+
+  /**
+   * 返回热点键探测器；未开启（{@code hotKeys}）时返回 {@code null}。
+   */
+  public HotKeyTracker hotKeyTracker() {
+    return hotKeyTracker;
+  }
+
+  @Override
+  public void cleanUp() {
+    long now = ticker.read();
+    for (Map.Entry<K, Slot> entry : index.entrySet()) {
+      Slot slot = entry.getValue();
+      if (isExpired(slot, now) && index.remove(entry.getKey(), slot)) {
+        statsCounter.recordEviction();
+        release(slot);
+      }
+    }
+  }
+
+  @Override
+  public ConcurrentMap<K, V> asMap() {
+    ConcurrentMap<K, V> map = asMap;
+    return (map == null) ? (asMap = new AsMapView()) : map;
+  }
+
+  /**
+   * 关闭缓存：清空条目并释放内存映射的文件。
+   */
+  public void close() {
+    invalidateAll();
+    allocationLock.lock();
+    try {
+      allocator.close();
+    } finally {
+      allocationLock.unlock();
+    }
+  }
+
+  // 快照
+
+  @Override
+  public void forEachEntry(EntryConsumer<K, V> consumer) {
+    long now = ticker.read();
+    for (Map.Entry<K, Slot> entry : index.entrySet()) {
+      Slot slot = entry.getValue();
+      V value = isExpired(slot, now) ? null : decode(slot);
+      if (value != null) {
+        consumer.accept(entry.getKey(), value, now - slot.writeTime);
+      }
+    }
+  }
+
+  @Override
+  public void restore(K key, V value, long ageNanos) {
+    if (key == null || value == null) {
+      throw new NullPointerException();
+    }
+    if (!index.containsKey(key)) {
+      store(key, value, null, true, ticker.read() - ageNanos);
+    }
+  }
+
+  // 堆外存储
+
+  /**
+   * 读取并解码条目的值，过期或块已失效时返回 {@code null}。
+   */
+  private V read(Slot slot, long now) {
+    if (isExpired(slot, now)) {
+      return null;
+    }
+    V value = decode(slot);
+    if (value != null) {
+      slot.accessTime = now;
+      slot.referenced = true;
+    }
+    return value;
+  }
+
+  private V decode(Slot slot) {
+    byte[] bytes = SlabAllocator.read(slot);
+    return (bytes == null) ? null : codec.decode(bytes);
+  }
+
+  /**
+   * 编码并写入条目。
+   *
+   * @param expected    条件写入时，期望被替换的块（{@code null} 表示期望不存在）
+   * @param conditional 是否条件写入
+   * @return {@link #STORED}、{@link #REJECTED} 或 {@link #UNCACHEABLE}
+   */
+  private int store(K key, V value, Slot expected, boolean conditional) {
+    return store(key, value, expected, conditional, ticker.read());
+  }
+
+  private int store(K key, V value, Slot expected, boolean conditional, long writeTime) {
+    byte[] bytes = codec.encode(value);
+    if (bytes == null || allocator.classIndexOf(bytes.length) < 0) {
+      // 无法缓存的值，同时清除旧值，避免读到过时数据
+      uncacheableCount.increment();
+      if (!conditional) {
+        invalidate(key);
+      } else if (expected != null && index.remove(key, expected)) {
+        release(expected);
+      }
+      return UNCACHEABLE;
+    }
+
+    allocationLock.lock();
+    try {
+      if (conditional && index.get(key) != expected) {
+        return REJECTED;
+      }
+      Slot slot = allocate(key, bytes, writeTime);
+      if (slot == null) {
+        // 与无法编码的值一样清除旧值（分配时可能已被淘汰），避免读到过时数据
+        uncacheableCount.increment();
+        Slot stale = conditional ? ((expected != null && index.remove(key, expected)) ? expected : null)
+            : index.remove(key);
+        if (stale != null) {
+          allocator.release(stale);
+        }
+        return UNCACHEABLE;
+      }
+      Slot replaced = index.put(key, slot);
+      if (replaced != null) {
+        allocator.release(replaced);
+      }
+      return STORED;
+    } finally {
+      allocationLock.unlock();
+    }
+  }
+
+  /**
+   * 分配块，内存不足时淘汰同等级的条目，或回收其它等级的一整页（持有分配锁）。
+   */
+  private Slot allocate(K key, byte[] bytes, long writeTime) {
+    int classIndex = allocator.classIndexOf(bytes.length);
+    Slot slot;
+    while ((slot = allocator.allocate(key, bytes, writeTime)) == null) {
+      Slot victim = allocator.nextVictim(classIndex);
+      if (victim != null) {
+        evict(victim);
+        continue;
+      }
+      Page page = allocator.reclaimablePage(classIndex);
+      if (page == null) {
+        return null;
+      }
+      for (Slot live : page.liveSlots()) {
+        evict(live);
+      }
+      allocator.reassign(page, classIndex);
+    }
+    slot.accessTime = ticker.read();
+    return slot;
+  }
+
+  private void evict(Slot slot) {
+    if (index.remove(slot.key, slot)) {
+      statsCounter.recordEviction();
+    }
+    allocator.release(slot);
+  }
+
+  private void release(Slot slot) {
+    allocationLock.lock();
+    try {
+      allocator.release(slot);
+    } finally {
+      allocationLock.unlock();
+    }
+  }
+
+  // 加载
+
+  private V load(K key) throws ExecutionException {
+    SettableFuture<V> future = SettableFuture.create();
+    SettableFuture<V> existing = loading.putIfAbsent(key, future);
+    if (existing != null) {
+      // 其它线程正在加载
+      statsCounter.recordMisses(1);
+      return awaitLoading(existing);
+    }
+
+    long startTime = ticker.read();
+    try {
+      long now = ticker.read();
+      Slot slot = index.get(key);
+      V value = (slot == null) ? null : read(slot, now);
+      if (value == null) {
+        value = loader.load(key);
+        if (value == null) {
+          throw new InvalidCacheLoadException("CacheLoader returned null for key " + key + ".");
+        }
+        statsCounter.recordLoadSuccess(ticker.read() - startTime);
+        store(key, value, null, false);
+      }
+      statsCounter.recordMisses(1);
+      future.set(value);
+      return value;
+    } catch (Throwable t) {
+      statsCounter.recordMisses(1);
+      statsCounter.recordLoadException(ticker.read() - startTime);
+      future.setException(t);
+      if (t instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      return awaitLoading(future);
+    } finally {
+      loading.remove(key, future);
+    }
+  }
+
+  private V awaitLoading(SettableFuture<V> future) throws ExecutionException {
+    try {
+      return Uninterruptibles.getUninterruptibly(future);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof InvalidCacheLoadException) {
+        throw (InvalidCacheLoadException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw new UncheckedExecutionException(cause);
+      }
+      if (cause instanceof Error) {
+        throw new ExecutionError((Error) cause);
+      }
+      throw e;
+    }
+  }
+
+  private Map<K, V> loadAll(Set<K> keys) throws ExecutionException {
+    long startTime = ticker.read();
+    Map<K, V> loaded;
+    try {
+      @SuppressWarnings("unchecked")
+      Map<K, V> result = (Map<K, V>) loader.loadAll(keys);
+      loaded = result;
+    } catch (UnsupportedLoadingOperationException e) {
+      throw e;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      statsCounter.recordLoadException(ticker.read() - startTime);
+      throw new ExecutionException(e);
+    } catch (RuntimeException e) {
+      statsCounter.recordLoadException(ticker.read() - startTime);
+      throw new UncheckedExecutionException(e);
+    } catch (Exception e) {
+      statsCounter.recordLoadException(ticker.read() - startTime);
+      throw new ExecutionException(e);
+    } catch (Error e) {
+      statsCounter.recordLoadException(ticker.read() - startTime);
+      throw new ExecutionError(e);
+    }
+    if (loaded == null) {
+      statsCounter.recordLoadException(ticker.read() - startTime);
+      throw new InvalidCacheLoadException(loader + " returned null map from loadAll");
+    }
+    statsCounter.recordLoadSuccess(ticker.read() - startTime);
+    for (Map.Entry<K, V> entry : loaded.entrySet()) {
+      if (entry.getKey() != null && entry.getValue() != null) {
+        store(entry.getKey(), entry.getValue(), null, false);
+      }
+    }
+    return loaded;
+  }
+
+  // 刷新
+
+  private V refreshIfNeeded(K key, Slot slot, V value, long now) {
+    if (refreshAfterWriteNanos < 0L || (now - slot.writeTime) < refreshAfterWriteNanos) {
+      return value;
+    }
+    V newValue = startRefresh(key, slot, value);
+    return (newValue == null) ? value : newValue;
+  }
+
+  /**
+   * 异步地重新加载条目。
+   *
+   * @return 重新加载已同步完成时返回新值，否则返回 {@code null}
+   */
+  private V startRefresh(final K key, final Slot slot, final V oldValue) {
+    if (!REFRESHING.compareAndSet(slot, 0, 1)) {
+      return null;
+    }
+    final long startTime = ticker.read();
+    final ListenableFuture<V> future;
+    try {
+      future = loader.reload(key, oldValue);
+      if (future == null) {
+        throw new NullPointerException("CacheLoader returned null for reload");
+      }
+    } catch (Throwable t) {
+      slot.refreshing = 0;
+      statsCounter.recordRefreshException(ticker.read() - startTime);
+      LOGGER.warn("Exception thrown during refresh, key={}", key, t);
+      if (t instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      return null;
+    }
+    future.addListener(() -> completeRefresh(key, slot, future, startTime), MoreExecutors.directExecutor());
+    if (future.isDone()) {
+      try {
+        return Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException e) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  private void completeRefresh(K key, Slot slot, ListenableFuture<V> future, long startTime) {
+    try {
+      V newValue = Uninterruptibles.getUninterruptibly(future);
+      long loadTime = ticker.read() - startTime;
+      if (newValue == null) {
+        statsCounter.recordRefreshException(loadTime);
+        return;
+      }
+      statsCounter.recordRefreshSuccess(loadTime);
+      // 刷新期间条目被替换或移除，则丢弃刷新结果
+      store(key, newValue, slot, true);
+    } catch (ExecutionException | RuntimeException e) {
+      if (RefreshSkippedException.isSkipped(e)) {
+        // 刷新没有执行：保留旧值和原来的写入时间，不记录统计
+        return;
+      }
+      statsCounter.recordRefreshException(ticker.read() - startTime);
+      LOGGER.warn("Exception thrown during refresh, key={}", key, e);
+    } finally {
+      slot.refreshing = 0;
+    }
+  }
+
+  // 过期
+
+  private boolean isExpired(Slot slot, long now) {
+    return (expireAfterWriteNanos >= 0L && (now - slot.writeTime) >= expireAfterWriteNanos)
+        || (expireAfterAccessNanos >= 0L && (now - slot.accessTime) >= expireAfterAccessNanos);
+  }
+
+  // 统计信息
+
+  /**
+   * 返回无法缓存（编码失败、超过页大小或堆外内存不足）的值的个数。
+   */
+  public long uncacheableCount() {
+    return uncacheableCount.sum();
+  }
+
+  /**
+   * 返回在用的堆外内存字节数（按块长计算）。
+   */
+  public long usedBytes() {
+    allocationLock.lock();
+    try {
+      return allocator.usedBytes();
+    } finally {
+      allocationLock.unlock();
+    }
+  }
+
+  /**
+   * 返回已申请的堆外内存字节数。
+   */
+  public long allocatedBytes() {
+    allocationLock.lock();
+    try {
+      return allocator.allocatedBytes();
+    } finally {
+      allocationLock.unlock();
+    }
+  }
+
+  /**
+   * 返回堆外内存的容量（字节）。
+   */
+  public long capacityBytes() {
+    return allocator.capacityBytes();
+  }
+
+  @Override
+  public String toString() {
+    return "OffHeapLoadingCache{size=" + size()
+        + ", usedBytes=" + usedBytes()
+        + ", allocatedBytes=" + allocatedBytes()
+        + ", capacityBytes=" + capacityBytes()
+        + ", uncacheableCount=" + uncacheableCount()
+        + ", codec=" + codec
+        + '}';
+  }
+
+  /**
+   * 批量查找的数据源，未命中统计由 {@link BulkLookup} 记录。
+   */
+  private final class BulkSource implements BulkLookup.Source<K, V> {
+
+    @Override
+    public V probe(K key) {
+      return OffHeapLoadingCache.this.probe(key);
+    }
+
+    @Override
+    public Map<K, V> loadAll(Set<K> keys) throws ExecutionException {
+      return OffHeapLoadingCache.this.loadAll(keys);
+    }
+
+    @Override
+    public V get(K key) throws ExecutionException {
+      return OffHeapLoadingCache.this.get(key);
+    }
+  }
+
+  // asMap() 视图
+
+  private final class AsMapView extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+    @Override
+    public int size() {
+      return index.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      Slot slot = index.get(key);
+      return slot != null && !isExpired(slot, ticker.read());
+    }
+
+    @Override
+    public V get(Object key) {
+      long now = ticker.read();
+      Slot slot = index.get(key);
+      V value = (slot == null) ? null : read(slot, now);
+      if (value == null) {
+        return null;
+      }
+      @SuppressWarnings("unchecked")
+      K k = (K) key;
+      return refreshIfNeeded(k, slot, value, now);
+    }
+
+    @Override
+    public V put(K key, V value) {
+      V oldValue = get(key);
+      OffHeapLoadingCache.this.put(key, value);
+      return oldValue;
+    }
+
+    @Override
+    public V remove(Object key) {
+      Slot slot = index.remove(key);
+      if (slot == null) {
+        return null;
+      }
+      V value = isExpired(slot, ticker.read()) ? null : decode(slot);
+      release(slot);
+      return value;
+    }
+
+    @Override
+    public void clear() {
+      invalidateAll();
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+      if (key == null || value == null) {
+        throw new NullPointerException();
+      }
+      while (true) {
+        long now = ticker.read();
+        Slot slot = index.get(key);
+        V oldValue = (slot == null) ? null : read(slot, now);
+        if (oldValue != null) {
+          return oldValue;
+        }
+        if (store(key, value, slot, true) != REJECTED) {
+          return null;
+        }
+      }
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+      Slot slot = index.get(key);
+      if (slot == null || value == null || !value.equals(decode(slot))) {
+        return false;
+      }
+      if (index.remove(key, slot)) {
+        release(slot);
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+      if (oldValue == null || newValue == null) {
+        throw new NullPointerException();
+      }
+      while (true) {
+        Slot slot = index.get(key);
+        if (slot == null || isExpired(slot, ticker.read()) || !oldValue.equals(decode(slot))) {
+          return false;
+        }
+        if (store(key, newValue, slot, true) != REJECTED) {
+          return true;
+        }
+      }
+    }
+
+    @Override
+    public V replace(K key, V value) {
+      if (value == null) {
+        throw new NullPointerException();
+      }
+      while (true) {
+        Slot slot = index.get(key);
+        V oldValue = (slot == null || isExpired(slot, ticker.read())) ? null : decode(slot);
+        if (oldValue == null) {
+          return null;
+        }
+        if (store(key, value, slot, true) != REJECTED) {
+          return oldValue;
+        }
+      }
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+      return new AbstractSet<Entry<K, V>>() {
+        @Override
+        public int size() {
+          return index.size();
+        }
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+          return new EntryIterator();
+        }
+      };
+    }
+  }
+
+  private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+    private final Iterator<Map.Entry<K, Slot>> iterator = index.entrySet().iterator();
+    private Map.Entry<K, V> next;
+    private Map.Entry<K, V> current;
+
+    @Override
+    public boolean hasNext() {
+      long now = ticker.read();
+      while (next == null && iterator.hasNext()) {
+        Map.Entry<K, Slot> entry = iterator.next();
+        Slot slot = entry.getValue();
+        V value = isExpired(slot, now) ? null : decode(slot);
+        if (value != null) {
+          next = new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), value);
+        }
+      }
+      return next != null;
+    }
+
+    @Override
+    public Map.Entry<K, V> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      current = next;
+      next = null;
+      return current;
+    }
+
+    @Override
+    public void remove() {
+      if (current == null) {
+        throw new IllegalStateException();
+      }
+      asMap().remove(current.getKey(), current.getValue());
+      current = null;
+    }
+  }
+}
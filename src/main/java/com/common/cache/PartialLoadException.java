@@ -0,0 +1,88 @@
+package com.common.cache;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分片批量加载的部分失败：一部分分片加载成功，另一部分分片加载失败。
+ * <p/>
+ * 由 {@link PartitioningCacheLoader#loadAll(Iterable)} 抛出，缓存的 {@code getAll} 把它包装为
+ * {@link java.util.concurrent.ExecutionException}（或 {@link com.google.common.util.concurrent.UncheckedExecutionException}）
+ * 的原因。调用方可以从 {@link #loadedValues()} 取得加载成功的值（这些值不会写入缓存），
+ * 从 {@link #failures()} 取得每个失败分片的键和原因。
+ *
+ * @see PartitioningCacheLoader
+ * @since 2026-10-17
+ */
+public final class PartialLoadException extends Exception {
+  private static final long serialVersionUID = 1L;
+
+  private final transient Map<?, ?> loadedValues;
+  private final transient List<ChunkFailure> failures;
+
+  PartialLoadException(Map<?, ?> loadedValues, List<ChunkFailure> failures) {
+    super(failures.size() + " chunk(s) failed to load, " + loadedValues.size() + " value(s) loaded",
+        failures.get(0).cause());
+    this.loadedValues = Collections.unmodifiableMap(loadedValues);
+    this.failures = Collections.unmodifiableList(failures);
+    for (int i = 1; i < failures.size(); i++) {
+      addSuppressed(failures.get(i).cause());
+    }
+  }
+
+  /**
+   * 返回加载成功的分片的值。
+   */
+  public Map<?, ?> loadedValues() {
+    return loadedValues;
+  }
+
+  /**
+   * 返回加载失败的分片。
+   */
+  public List<ChunkFailure> failures() {
+    return failures;
+  }
+
+  /**
+   * 一个加载失败的分片。
+   */
+  public static final class ChunkFailure {
+    private final int index;
+    private final List<?> keys;
+    private final Throwable cause;
+
+    ChunkFailure(int index, List<?> keys, Throwable cause) {
+      this.index = index;
+      this.keys = Collections.unmodifiableList(keys);
+      this.cause = cause;
+    }
+
+    /**
+     * 返回分片的序号（从 0 开始）。
+     */
+    public int index() {
+      return index;
+    }
+
+    /**
+     * 返回分片的键。
+     */
+    public List<?> keys() {
+      return keys;
+    }
+
+    /**
+     * 返回失败的原因。
+     */
+    public Throwable cause() {
+      return cause;
+    }
+
+    @Override
+    public String toString() {
+      return "ChunkFailure{index=" + index + ", keys=" + keys.size() + ", cause=" + cause + '}';
+    }
+  }
+}
@@ -0,0 +1,201 @@
+package com.common.cache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.cache.CacheLoader;
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * 分片并行的批量缓存加载器。
+ * <p/>
+ * 把一次 {@link #loadAll(Iterable)} 的键（即 {@code getAll} 未命中的键）按固定大小切分成多个分片，
+ * 在线程池中并行地加载各个分片后合并结果，同时执行的分片数不超过并行度。
+ * 调用者线程也参与加载分片，线程池繁忙或拒绝执行时退化为在调用者线程中逐个分片加载，不会死锁。
+ * <p/>
+ * 每个分片调用被包装的加载器的 {@link CacheLoader#loadAll(Iterable)}，不支持批量加载时在分片内逐个加载。
+ * 部分分片失败时抛出 {@link PartialLoadException}，报告每个失败分片的键和原因，以及成功分片的值。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @since 2026-10-17
+ */
+public final class PartitioningCacheLoader<K, V> extends CacheLoader<K, V> {
+  private final CacheLoader<K, V> delegate;
+  private final int chunkSize;
+  private final int parallelism;
+  private final Executor executor;
+
+  private final LongAdder loadAllCount = new LongAdder();
+  private final LongAdder chunkCount = new LongAdder();
+  private final LongAdder chunkFailureCount = new LongAdder();
+  private final LongAdder rejectedCount = new LongAdder();
+
+  /**
+   * 创建一个新的分片并行的批量缓存加载器。
+   *
+   * @param delegate    被包装的缓存加载器
+   * @param chunkSize   每个分片最多的键数
+   * @param parallelism 同时加载的分片数上限（包括调用者线程）
+   * @param executor    加载分片的线程池
+   */
+  public PartitioningCacheLoader(CacheLoader<K, V> delegate, int chunkSize, int parallelism, Executor executor) {
+    if (delegate == null) {
+      throw new IllegalArgumentException("delegate must be not null");
+    }
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+    }
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+    }
+    if (executor == null) {
+      throw new IllegalArgumentException("executor must be not null");
+    }
+    this.delegate = delegate;
+    this.chunkSize = chunkSize;
+    this.parallelism = parallelism;
+    this.executor = executor;
+  }
+
+  @Override
+  public V load(K key) throws Exception {
+    return delegate.load(key);
+  }
+
+  @Override
+  public ListenableFuture<V> reload(K key, V oldValue) throws Exception {
+    return delegate.reload(key, oldValue);
+  }
+
+  @Override
+  public Map<K, V> loadAll(Iterable<? extends K> keys) throws Exception {
+    loadAllCount.increment();
+    List<K> keyList = new ArrayList<>();
+    for (K key : keys) {
+      keyList.add(key);
+    }
+    if (keyList.size() <= chunkSize) {
+      chunkCount.increment();
+      try {
+        return loadChunk(keyList);
+      } catch (Exception | Error e) {
+        chunkFailureCount.increment();
+        throw e;
+      }
+    }
+
+    final List<List<K>> chunks = new ArrayList<>();
+    for (int from = 0; from < keyList.size(); from += chunkSize) {
+      chunks.add(keyList.subList(from, Math.min(from + chunkSize, keyList.size())));
+    }
+    final int numChunks = chunks.size();
+    @SuppressWarnings("unchecked")
+    final Map<K, V>[] values = new Map[numChunks];
+    final Throwable[] failures = new Throwable[numChunks];
+    final AtomicInteger nextChunk = new AtomicInteger();
+    final CountDownLatch done = new CountDownLatch(numChunks);
+    Runnable worker = () -> {
+      for (int i = nextChunk.getAndIncrement(); i < numChunks; i = nextChunk.getAndIncrement()) {
+        try {
+          values[i] = loadChunk(chunks.get(i));
+        } catch (Throwable t) {
+          failures[i] = t;
+        } finally {
+          done.countDown();
+        }
+      }
+    };
+    int helpers = Math.min(parallelism, numChunks) - 1;
+    for (int i = 0; i < helpers; i++) {
+      try {
+        executor.execute(worker);
+      } catch (RejectedExecutionException e) {
+        // 由调用者线程加载剩余的分片
+        rejectedCount.increment();
+        break;
+      }
+    }
+    worker.run();
+    done.await();
+    chunkCount.add(numChunks);
+
+    Map<K, V> result = new LinkedHashMap<>();
+    List<PartialLoadException.ChunkFailure> chunkFailures = new ArrayList<>();
+    for (int i = 0; i < numChunks; i++) {
+      if (failures[i] != null) {
+        chunkFailures.add(new PartialLoadException.ChunkFailure(i, chunks.get(i), failures[i]));
+      } else {
+        result.putAll(values[i]);
+      }
+    }
+    if (!chunkFailures.isEmpty()) {
+      chunkFailureCount.add(chunkFailures.size());
+      throw new PartialLoadException(result, chunkFailures);
+    }
+    return result;
+  }
+
+  /**
+   * 加载一个分片；分片结果中缺失的键由缓存抛出无效缓存加载异常。
+   */
+  private Map<K, V> loadChunk(List<K> keys) throws Exception {
+    try {
+      Map<K, V> result = delegate.loadAll(keys);
+      if (result == null) {
+        throw new InvalidCacheLoadException(delegate + " returned null map from loadAll");
+      }
+      return result;
+    } catch (UnsupportedLoadingOperationException e) {
+      Map<K, V> result = new LinkedHashMap<>();
+      for (K key : keys) {
+        V value = delegate.load(key);
+        if (value != null) {
+          result.put(key, value);
+        }
+      }
+      return result;
+    }
+  }
+
+  // 统计信息
+
+  /**
+   * 返回批量加载的次数。
+   */
+  public long loadAllCount() {
+    return loadAllCount.sum();
+  }
+
+  /**
+   * 返回加载的分片数。
+   */
+  public long chunkCount() {
+    return chunkCount.sum();
+  }
+
+  /**
+   * 返回加载失败的分片数。
+   */
+  public long chunkFailureCount() {
+    return chunkFailureCount.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "PartitioningCacheLoader{chunkSize=" + chunkSize
+        + ", parallelism=" + parallelism
+        + ", loadAllCount=" + loadAllCount()
+        + ", chunkCount=" + chunkCount()
+        + ", chunkFailureCount=" + chunkFailureCount()
+        + ", rejectedCount=" + rejectedCount.sum()
+        + '}';
+  }
+}
@@ -0,0 +1,105 @@
+package com.common.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 无锁的有损读缓冲区。
+ * <p/>
+ * 按线程分条（stripe）的环形缓冲区：多个线程并发地追加元素（CAS），单个线程批量地取出元素。
+ * 缓冲区满时直接丢弃新元素（读操作的顺序信息允许丢失），由调用方借机触发批量处理。
+ *
+ * @param <E> 元素类型
+ * @since 2026-10-17
+ */
+final class ReadBuffer<E> {
+  /**
+   * 追加成功
+   */
+  static final int SUCCESS = 0;
+  /**
+   * 缓冲区已满，元素被丢弃
+   */
+  static final int FULL = 1;
+  /**
+   * CAS 竞争失败，元素被丢弃
+   */
+  static final int FAILED = 2;
+
+  private static final int STRIPES =
+      FrequencySketch.ceilingPowerOfTwo(Math.max(1, Runtime.getRuntime().availableProcessors()) * 4);
+  /**
+   * 每条环形缓冲区的容量
+   */
+  private static final int BUFFER_SIZE = 16;
+  private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+
+  private final Stripe<E>[] stripes;
+
+  @SuppressWarnings("unchecked")
+  ReadBuffer() {
+    stripes = new Stripe[STRIPES];
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe<>();
+    }
+  }
+
+  /**
+   * 追加一个元素。
+   *
+   * @return {@link #SUCCESS}、{@link #FULL} 或 {@link #FAILED}
+   */
+  int offer(E e) {
+    return stripes[stripeIndex()].offer(e);
+  }
+
+  /**
+   * 取出所有元素（只允许单线程调用）。
+   */
+  void drainTo(Consumer<E> consumer) {
+    for (Stripe<E> stripe : stripes) {
+      stripe.drainTo(consumer);
+    }
+  }
+
+  private static int stripeIndex() {
+    long id = Thread.currentThread().getId();
+    return FrequencySketch.spread((int) (id ^ (id >>> 32))) & (STRIPES - 1);
+  }
+
+  private static final class Stripe<E> {
+    private final AtomicLong writeCounter = new AtomicLong();
+    private final AtomicLong readCounter = new AtomicLong();
+    private final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<>(BUFFER_SIZE);
+
+    int offer(E e) {
+      long head = readCounter.get();
+      long tail = writeCounter.get();
+      if (tail - head >= BUFFER_SIZE) {
+        return FULL;
+      }
+      if (writeCounter.compareAndSet(tail, tail + 1)) {
+        buffer.lazySet((int) (tail & BUFFER_MASK), e);
+        return SUCCESS;
+      }
+      return FAILED;
+    }
+
+    void drainTo(Consumer<E> consumer) {
+      long head = readCounter.get();
+      long tail = writeCounter.get();
+      for (; head < tail; head++) {
+        int index = (int) (head & BUFFER_MASK);
+        E e = buffer.get(index);
+        if (e == null) {
+          // 写入者已占位但尚未发布元素
+          break;
+        }
+        buffer.lazySet(index, null);
+        consumer.accept(e);
+      }
+      readCounter.lazySet(head);
+    }
+  }
+}
@@ -0,0 +1,346 @@
+package com.common.cache;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+import com.google.common.cache.CacheLoader;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * 本地缓存的异步刷新调度器。
+ * <p/>
+ * 取代 {@link CacheLoader#asyncReloading(CacheLoader, Executor)} 直接把刷新任务提交给线程池的做法：
+ * <ul>
+ * <li>合并：同一个缓存中同一个键的重复刷新请求，只会执行一次重新加载</li>
+ * <li>优先级：按键的访问频率排序，访问越频繁的键越先刷新（访问频率由缓存引擎提供，
+ * 见 {@link #rankBy(CacheLoader, ToIntFunction)}；没有访问频率时按提交顺序执行）</li>
+ * <li>背压：排队的刷新任务达到上限（或线程池拒绝执行）时不再抛出异常，而是跳过这次刷新（继续提供旧数据），
+ * 异步结果以 {@link RefreshSkippedException} 失败，缓存保留旧值和原来的写入时间，旧值仍按时过期</li>
+ * <li>统计：排队深度、提交、合并、丢弃、失败的次数</li>
+ * </ul>
+ * 刷新失败时，缓存会保留旧值，等待下一次刷新。
+ *
+ * @see CacheLoader#reload(Object, Object)
+ * @since 2026-10-17
+ */
+public final class RefreshScheduler {
+  /**
+   * 访问频率高的任务优先，频率相同时按提交顺序
+   */
+  private static final Comparator<RefreshTask<?, ?>> PRIORITY = (a, b) -> (a.frequency != b.frequency)
+      ? Integer.compare(b.frequency, a.frequency) : Long.compare(a.sequence, b.sequence);
+
+  /**
+   * 执行刷新任务的线程池
+   */
+  private final Executor executor;
+  /**
+   * 排队的刷新任务数上限
+   */
+  private final int maxPendingTasks;
+
+  /**
+   * 排队中（尚未开始执行）的刷新任务；从队列中移除任务的线程（执行或撤销）拥有该任务
+   */
+  private final PriorityBlockingQueue<RefreshTask<?, ?>> queue = new PriorityBlockingQueue<>(16, PRIORITY);
+  /**
+   * 排队中的刷新任务数（含已占用名额、尚未入队的任务）
+   */
+  private final AtomicInteger queueDepth = new AtomicInteger();
+  private final AtomicLong sequence = new AtomicLong();
+
+  private final LongAdder submittedCount = new LongAdder();
+  private final LongAdder coalescedCount = new LongAdder();
+  private final LongAdder droppedCount = new LongAdder();
+  private final LongAdder failedCount = new LongAdder();
+
+  /**
+   * 创建一个新的异步刷新调度器。
+   *
+   * @param executor        执行刷新任务的线程池
+   * @param maxPendingTasks 排队的刷新任务数上限
+   */
+  public RefreshScheduler(Executor executor, int maxPendingTasks) {
+    if (executor == null) {
+      throw new IllegalArgumentException("executor must be not null");
+    }
+    if (maxPendingTasks <= 0) {
+      throw new IllegalArgumentException("maxPendingTasks must be positive: " + maxPendingTasks);
+    }
+    this.executor = executor;
+    this.maxPendingTasks = maxPendingTasks;
+  }
+
+  /**
+   * 包装缓存加载器，使其重新加载（reload）操作通过本调度器异步执行。
+   * <p/>
+   * 同步加载（load/loadAll）仍在调用者线程中执行。
+   *
+   * @param syncCacheLoader 同步执行的缓存加载器
+   * @param <K>             键类型
+   * @param <V>             值类型
+   * @return 由本调度器异步刷新的缓存加载器
+   */
+  public <K, V> CacheLoader<K, V> asyncReloading(CacheLoader<K, V> syncCacheLoader) {
+    if (syncCacheLoader == null) {
+      throw new IllegalArgumentException("syncCacheLoader must be not null");
+    }
+    return new SchedulingCacheLoader<>(this, syncCacheLoader);
+  }
+
+  /**
+   * 按缓存引擎统计的访问频率排列该加载器的刷新任务（在任务提交时取值）。
+   *
+   * @param reloader  {@link #asyncReloading(CacheLoader)} 返回的缓存加载器，其它加载器被忽略
+   * @param frequency 键的访问频率（估算值），可以在锁外近似地读取
+   */
+  static void rankBy(CacheLoader<?, ?> reloader, ToIntFunction<Object> frequency) {
+    if (reloader instanceof SchedulingCacheLoader) {
+      ((SchedulingCacheLoader<?, ?>) reloader).frequency = frequency;
+    }
+  }
+
+  /**
+   * 调度一个键的刷新任务。
+   *
+   * @param pending   该缓存排队或执行中的刷新任务
+   * @param key       键
+   * @param oldValue  旧值
+   * @param loader    同步执行的缓存加载器
+   * @param frequency 键的访问频率；{@code null} 表示按提交顺序执行
+   * @return 新值的异步结果
+   */
+  <K, V> ListenableFuture<V> schedule(ConcurrentMap<K, RefreshTask<K, V>> pending, K key, V oldValue,
+                                      CacheLoader<K, V> loader, ToIntFunction<Object> frequency) {
+    submittedCount.increment();
+    RefreshTask<K, V> task = pending.get(key);
+    if (task != null) {
+      coalescedCount.increment();
+      return task.future;
+    }
+    // 先占用排队名额，保证并发提交时排队数不超过上限
+    int depth;
+    do {
+      depth = queueDepth.get();
+      if (depth >= maxPendingTasks) {
+        // 背压：跳过这次刷新，继续提供旧数据，不抛出拒绝执行异常
+        droppedCount.increment();
+        return RefreshSkippedException.skipped();
+      }
+    } while (!queueDepth.compareAndSet(depth, depth + 1));
+
+    RefreshTask<K, V> newTask = new RefreshTask<>(pending, key, oldValue, loader,
+        (frequency == null) ? 0 : frequency.applyAsInt(key), sequence.getAndIncrement());
+    task = pending.putIfAbsent(key, newTask);
+    if (task != null) {
+      queueDepth.decrementAndGet();
+      coalescedCount.increment();
+      return task.future;
+    }
+    queue.offer(newTask);
+    try {
+      executor.execute(this::runNext);
+    } catch (RejectedExecutionException e) {
+      // 线程池拒绝执行：撤销一个排队中的任务，跳过它的刷新
+      dropOne(newTask);
+    }
+    return newTask.future;
+  }
+
+  /**
+   * 执行下一个排队中的刷新任务（访问频率最高的任务）。
+   * <p/>
+   * 每个成功提交给线程池的 {@code runNext} 对应一个排队中的任务，因此总能认领到一个任务。
+   */
+  private void runNext() {
+    RefreshTask<?, ?> task = queue.poll();
+    if (task != null) {
+      queueDepth.decrementAndGet();
+      if (!task.run()) {
+        failedCount.increment();
+      }
+    }
+  }
+
+  /**
+   * 线程池拒绝执行 {@code runNext} 后，排队的任务比 {@code runNext} 多一个，撤销其中一个任务（跳过它的刷新）。
+   * <p/>
+   * 优先撤销新提交的任务；新任务可能已被其它 {@code runNext} 取走执行，此时撤销优先级最低的排队任务，
+   * 否则该任务永远不会执行，同一个键的刷新请求会一直合并到它上面。
+   */
+  private void dropOne(RefreshTask<?, ?> newTask) {
+    RefreshTask<?, ?> victim = newTask;
+    while (!queue.remove(victim)) {
+      victim = null;
+      for (RefreshTask<?, ?> task : queue) {
+        if (victim == null || PRIORITY.compare(task, victim) > 0) {
+          victim = task;
+        }
+      }
+      if (victim == null) {
+        // 其它线程撤销或执行了剩余的任务
+        return;
+      }
+    }
+    queueDepth.decrementAndGet();
+    droppedCount.increment();
+    victim.cancel();
+  }
+
+  // 统计信息
+
+  /**
+   * 返回执行刷新任务的线程池。
+   */
+  Executor executor() {
+    return executor;
+  }
+
+  /**
+   * 返回排队中（尚未开始执行）的刷新任务数。
+   */
+  public int queueDepth() {
+    return queueDepth.get();
+  }
+
+  /**
+   * 返回提交的刷新请求数。
+   */
+  public long submittedCount() {
+    return submittedCount.sum();
+  }
+
+  /**
+   * 返回被合并到已有任务的重复刷新请求数。
+   */
+  public long coalescedCount() {
+    return coalescedCount.sum();
+  }
+
+  /**
+   * 返回因背压而被丢弃（跳过刷新、继续提供旧值）的刷新请求数。
+   */
+  public long droppedCount() {
+    return droppedCount.sum();
+  }
+
+  /**
+   * 返回执行失败的刷新任务数。
+   */
+  public long failedCount() {
+    return failedCount.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "RefreshScheduler{queueDepth=" + queueDepth()
+        + ", submittedCount=" + submittedCount()
+        + ", coalescedCount=" + coalescedCount()
+        + ", droppedCount=" + droppedCount()
+        + ", failedCount=" + failedCount()
+        + '}';
+  }
+
+  /**
+   * 一个键的刷新任务。
+   */
+  static final class RefreshTask<K, V> {
+    private final Map<K, RefreshTask<K, V>> pending;
+    private final K key;
+    private final V oldValue;
+    private final CacheLoader<K, V> loader;
+    private final SettableFuture<V> future = SettableFuture.create();
+    /**
+     * 提交时键的访问频率
+     */
+    private final int frequency;
+    /**
+     * 提交顺序
+     */
+    private final long sequence;
+
+    RefreshTask(Map<K, RefreshTask<K, V>> pending, K key, V oldValue, CacheLoader<K, V> loader,
+                int frequency, long sequence) {
+      this.pending = pending;
+      this.key = key;
+      this.oldValue = oldValue;
+      this.loader = loader;
+      this.frequency = frequency;
+      this.sequence = sequence;
+    }
+
+    /**
+     * 撤销排队中的任务，跳过这次刷新。
+     */
+    void cancel() {
+      pending.remove(key, this);
+      future.setException(RefreshSkippedException.INSTANCE);
+    }
+
+    /**
+     * 同步执行重新加载。
+     *
+     * @return 是否没有失败（加载器跳过的刷新不算失败）
+     */
+    boolean run() {
+      try {
+        V newValue = loader.reload(key, oldValue).get();
+        pending.remove(key, this);
+        return future.set(newValue);
+      } catch (Throwable t) {
+        pending.remove(key, this);
+        // 异步结果的失败原因原样传给缓存，缓存据此识别跳过的刷新
+        Throwable cause = (t instanceof ExecutionException && t.getCause() != null) ? t.getCause() : t;
+        future.setException(cause);
+        if (t instanceof InterruptedException) {
+          Thread.currentThread().interrupt();
+        }
+        return cause instanceof RefreshSkippedException;
+      }
+    }
+  }
+
+  /**
+   * 通过调度器异步刷新的缓存加载器。
+   */
+  private static final class SchedulingCacheLoader<K, V> extends CacheLoader<K, V> {
+    private final RefreshScheduler scheduler;
+    private final CacheLoader<K, V> syncCacheLoader;
+    private final ConcurrentMap<K, RefreshTask<K, V>> pending = new ConcurrentHashMap<>();
+    /**
+     * 键的访问频率；{@code null} 表示按提交顺序刷新
+     */
+    private volatile ToIntFunction<Object> frequency;
+
+    SchedulingCacheLoader(RefreshScheduler scheduler, CacheLoader<K, V> syncCacheLoader) {
+      this.scheduler = scheduler;
+      this.syncCacheLoader = syncCacheLoader;
+    }
+
+    @Override
+    public V load(K key) throws Exception {
+      return syncCacheLoader.load(key);
+    }
+
+    @Override
+    public Map<K, V> loadAll(Iterable<? extends K> keys) throws Exception {
+      return syncCacheLoader.loadAll(keys);
+    }
+
+    @Override
+    public ListenableFuture<V> reload(K key, V oldValue) {
+      return scheduler.schedule(pending, key, oldValue, syncCacheLoader, frequency);
+    }
+  }
+}
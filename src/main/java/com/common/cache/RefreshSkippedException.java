@@ -0,0 +1,71 @@
+package com.common.cache;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.logging.Filter;
+import java.util.logging.Logger;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * 重新加载没有执行（刷新任务因背压被丢弃、被线程池拒绝，或没有可刷新的值）。
+ * <p/>
+ * 作为重新加载（{@link com.google.common.cache.CacheLoader#reload}）异步结果的失败原因，与“返回旧值”区分开：
+ * 返回旧值会被缓存当作一次成功的刷新，重置条目的写入时间，持续的背压下条目永远不会过期。
+ * 各缓存引擎遇到本异常时保留旧值和原来的写入时间，既不记录刷新成功，也不记录刷新失败。
+ * <p/>
+ * Guava 的缓存把失败的重新加载计入自身统计（{@code CacheStats#loadExceptionCount()}），这一点无法避免；
+ * 它为此打印的 {@code Exception thrown during refresh} 警告日志被过滤掉。
+ *
+ * @since 2026-10-17
+ */
+final class RefreshSkippedException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  static final RefreshSkippedException INSTANCE = new RefreshSkippedException();
+
+  /**
+   * Guava 缓存的日志（java.util.logging），持有引用避免过滤器随日志对象被回收
+   */
+  private static final Logger GUAVA_CACHE_LOGGER = Logger.getLogger("com.google.common.cache.LocalCache");
+
+  static {
+    final Filter filter = GUAVA_CACHE_LOGGER.getFilter();
+    GUAVA_CACHE_LOGGER.setFilter(record -> !(record.getThrown() instanceof RefreshSkippedException)
+        && (filter == null || filter.isLoggable(record)));
+  }
+
+  private RefreshSkippedException() {
+    // 不需要堆栈
+    super("refresh skipped", null, false, false);
+  }
+
+  /**
+   * 返回一个表示重新加载没有执行的异步结果。
+   */
+  static <V> ListenableFuture<V> skipped() {
+    return Futures.immediateFailedFuture(INSTANCE);
+  }
+
+  /**
+   * 返回已完成的异步结果是否表示重新加载没有执行。
+   */
+  static boolean isSkipped(Future<?> future) {
+    try {
+      Uninterruptibles.getUninterruptibly(future);
+      return false;
+    } catch (ExecutionException | CancellationException e) {
+      return isSkipped(e);
+    }
+  }
+
+  /**
+   * 返回异步结果的异常是否表示重新加载没有执行。
+   */
+  static boolean isSkipped(Throwable t) {
+    return t instanceof ExecutionException && t.getCause() instanceof RefreshSkippedException;
+  }
+}
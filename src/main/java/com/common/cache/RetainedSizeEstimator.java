@@ -0,0 +1,434 @@
+package com.common.cache;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+/**
+ * 估算对象图的保留大小（retained size，字节）。
+ * <p/>
+ * 常见的 JDK 类型直接按其公开的状态估算，不反射访问内部字段（JDK 9 及以上的模块系统禁止访问）：
+ * 字符串按长度，装箱类型按基本类型的大小，数组按长度，JDK 的集合和映射按元素个数估算容器本身，
+ * 再通过迭代遍历元素。其他 JDK 类型只计入浅大小。
+ * <p/>
+ * 应用自己的类按字段遍历：每个类的布局（浅大小、引用类型的字段）只在第一次遇到时通过反射计算，
+ * 缓存在 {@link ClassValue} 中，之后的估算只读取引用字段的值。
+ * <p/>
+ * 估算按 HotSpot 的布局规则：对象头 12 字节（压缩指针）或 16 字节，数组头 16 或 24 字节，按 8 字节对齐，
+ * 不考虑字段重排留下的空隙。{@link Class}、枚举常量等共享对象不计入；
+ * 字符串、装箱类型和基本类型数组不分配遍历状态；其他对象图每次最多遍历 {@value #MAX_OBJECTS} 个对象，
+ * 超出的部分不计入（偏小）。
+ *
+ * @see RetainedSizeWeigher
+ * @since 2026-10-17
+ */
+final class RetainedSizeEstimator {
+  /**
+   * 每次估算最多遍历的对象数
+   */
+  static final int MAX_OBJECTS = 256;
+
+  private static final boolean COMPRESSED_OOPS = compressedOops();
+  static final int REFERENCE_BYTES = COMPRESSED_OOPS ? 4 : 8;
+  static final int OBJECT_HEADER_BYTES = COMPRESSED_OOPS ? 12 : 16;
+  static final int ARRAY_HEADER_BYTES = COMPRESSED_OOPS ? 16 : 24;
+
+  /**
+   * 字符串对象本身：值数组的引用、哈希值和编码标记（JDK 9 及以上）
+   */
+  private static final long STRING_BYTES = align(OBJECT_HEADER_BYTES + REFERENCE_BYTES + 8);
+  /**
+   * JDK 9 及以上的字符串按 Latin-1 压缩存储
+   */
+  private static final boolean COMPACT_STRINGS = !System.getProperty("java.specification.version").startsWith("1.");
+
+  /**
+   * 哈希表的节点：哈希值、键、值和下一个节点的引用
+   */
+  private static final long HASH_NODE_BYTES = align(OBJECT_HEADER_BYTES + 4 + 3L * REFERENCE_BYTES);
+  /**
+   * 链式哈希表的节点：额外的前后节点的引用
+   */
+  private static final long LINKED_HASH_NODE_BYTES = align(OBJECT_HEADER_BYTES + 4 + 5L * REFERENCE_BYTES);
+  /**
+   * 红黑树的节点：键、值、左右子节点和父节点的引用，颜色
+   */
+  private static final long TREE_NODE_BYTES = align(OBJECT_HEADER_BYTES + 1 + 5L * REFERENCE_BYTES);
+  /**
+   * 双向链表的节点：元素和前后节点的引用
+   */
+  private static final long LIST_NODE_BYTES = align(OBJECT_HEADER_BYTES + 3L * REFERENCE_BYTES);
+  /**
+   * 集合（如 {@link HashSet}、{@link TreeSet}）内部的映射对象本身（计数、阈值、负载因子和若干引用）
+   */
+  private static final long BACKING_MAP_BYTES = align(OBJECT_HEADER_BYTES + 16 + 4L * REFERENCE_BYTES);
+
+  private static final ClassValue<Layout> LAYOUTS = new ClassValue<Layout>() {
+    @Override
+    protected Layout computeValue(Class<?> type) {
+      return Layout.of(type);
+    }
+  };
+
+  private RetainedSizeEstimator() {
+    throw new AssertionError("no com.common.cache.RetainedSizeEstimator instances");
+  }
+
+  /**
+   * 估算对象图的保留大小。
+   *
+   * @param root 对象
+   * @return 字节数；{@code null} 返回 0
+   */
+  static long retainedSize(Object root) {
+    if (root == null || isShared(root)) {
+      return 0L;
+    }
+    // 快速路径：没有需要遍历的引用的对象
+    long leafSize = leafSize(root);
+    if (leafSize >= 0L) {
+      return leafSize;
+    }
+    Walk walk = new Walk(root);
+    long size = 0L;
+    Object object;
+    while ((object = walk.pending.poll()) != null) {
+      size += shallowSizeAndPushReferences(object, walk);
+    }
+    return size;
+  }
+
+  /**
+   * 返回没有需要遍历的引用的对象的大小；有需要遍历的引用时返回 -1。
+   */
+  private static long leafSize(Object object) {
+    if (object instanceof String) {
+      return stringSize((String) object);
+    }
+    Class<?> type = object.getClass();
+    if (type.isArray()) {
+      return type.getComponentType().isPrimitive() ? arraySize(object, type.getComponentType()) : -1L;
+    }
+    Layout layout = LAYOUTS.get(type);
+    return layout.leaf ? layout.shallowSize : -1L;
+  }
+
+  private static long shallowSizeAndPushReferences(Object object, Walk walk) {
+    long leafSize = leafSize(object);
+    if (leafSize >= 0L) {
+      return leafSize;
+    }
+    Class<?> type = object.getClass();
+    if (type.isArray()) {
+      for (Object element : (Object[]) object) {
+        walk.push(element);
+      }
+      return arraySize(object, type.getComponentType());
+    }
+    Layout layout = LAYOUTS.get(type);
+    if (layout.jdk) {
+      // 只有 JDK 的集合和映射会走到这里（其他 JDK 类型都是叶子）
+      return containerSizeAndPushElements(object, layout, walk);
+    }
+    for (Field field : layout.referenceFields) {
+      try {
+        walk.push(field.get(object));
+      } catch (IllegalAccessException e) {
+        // 无法访问的字段只计入引用本身
+      }
+    }
+    return layout.shallowSize;
+  }
+
+  /**
+   * 按元素个数估算 JDK 的集合或映射本身的大小，并通过迭代遍历元素（不反射访问内部字段）。
+   */
+  private static long containerSizeAndPushElements(Object container, Layout layout, Walk walk) {
+    int size;
+    try {
+      if (container instanceof Map) {
+        Map<?, ?> map = (Map<?, ?>) container;
+        size = map.size();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+          if (walk.isFull()) {
+            break;
+          }
+          walk.push(entry.getKey());
+          walk.push(entry.getValue());
+        }
+      } else {
+        Collection<?> collection = (Collection<?>) container;
+        size = collection.size();
+        for (Object element : collection) {
+          if (walk.isFull()) {
+            break;
+          }
+          walk.push(element);
+        }
+      }
+    } catch (RuntimeException e) {
+      // 遍历时被并发修改：只计入已遍历的元素
+      size = 0;
+    }
+    return containerSize(container, layout, size);
+  }
+
+  private static long containerSize(Object container, Layout layout, int size) {
+    if (container instanceof ArrayList || container instanceof Vector
+        || container instanceof CopyOnWriteArrayList || container instanceof ArrayDeque) {
+      return layout.shallowSize + referenceArraySize(size);
+    }
+    if (container instanceof LinkedList) {
+      return layout.shallowSize + size * LIST_NODE_BYTES;
+    }
+    if (container instanceof LinkedHashMap) {
+      return layout.shallowSize + hashTableSize(size) + size * LINKED_HASH_NODE_BYTES;
+    }
+    if (container instanceof HashMap || container instanceof ConcurrentHashMap || container instanceof Hashtable) {
+      return layout.shallowSize + hashTableSize(size) + size * HASH_NODE_BYTES;
+    }
+    if (container instanceof LinkedHashSet) {
+      return layout.shallowSize + BACKING_MAP_BYTES + hashTableSize(size) + size * LINKED_HASH_NODE_BYTES;
+    }
+    if (container instanceof HashSet) {
+      return layout.shallowSize + BACKING_MAP_BYTES + hashTableSize(size) + size * HASH_NODE_BYTES;
+    }
+    if (container instanceof TreeMap) {
+      return layout.shallowSize + size * TREE_NODE_BYTES;
+    }
+    if (container instanceof TreeSet) {
+      return layout.shallowSize + BACKING_MAP_BYTES + size * TREE_NODE_BYTES;
+    }
+    // 其他集合（如不可变集合、包装视图）：按每个元素一个引用估算
+    return layout.shallowSize + referenceArraySize(size);
+  }
+
+  /**
+   * 哈希表的槽位数组：容量是不小于 {@code size / 0.75} 的 2 的幂。
+   */
+  private static long hashTableSize(int size) {
+    if (size == 0) {
+      return 0L;
+    }
+    int needed = (int) Math.min(1 << 30, (size * 4L + 2) / 3);
+    int capacity = (needed <= 1) ? 1 : Integer.highestOneBit(needed - 1) << 1;
+    return referenceArraySize(capacity);
+  }
+
+  private static long referenceArraySize(int length) {
+    return align((long) ARRAY_HEADER_BYTES + (long) length * REFERENCE_BYTES);
+  }
+
+  private static long stringSize(String s) {
+    int length = s.length();
+    long valueBytes = length * 2L;
+    if (COMPACT_STRINGS) {
+      valueBytes = length;
+      for (int i = 0; i < length; i++) {
+        if (s.charAt(i) > 0xFF) {
+          valueBytes = length * 2L;
+          break;
+        }
+      }
+    }
+    return STRING_BYTES + align(ARRAY_HEADER_BYTES + valueBytes);
+  }
+
+  private static boolean isShared(Object object) {
+    return object instanceof Class || object instanceof Enum;
+  }
+
+  private static long arraySize(Object array, Class<?> componentType) {
+    int length = Array.getLength(array);
+    int elementBytes = componentType.isPrimitive() ? primitiveBytes(componentType) : REFERENCE_BYTES;
+    return align((long) ARRAY_HEADER_BYTES + (long) length * elementBytes);
+  }
+
+  static long align(long size) {
+    return (size + 7L) & ~7L;
+  }
+
+  private static int primitiveBytes(Class<?> type) {
+    if (type == long.class || type == double.class) {
+      return 8;
+    }
+    if (type == int.class || type == float.class) {
+      return 4;
+    }
+    if (type == short.class || type == char.class) {
+      return 2;
+    }
+    return 1;
+  }
+
+  /**
+   * 返回是否是 JDK 的类（模块系统禁止反射访问其内部字段）。
+   */
+  private static boolean isJdkClass(Class<?> type) {
+    String name = type.getName();
+    return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("sun.")
+        || name.startsWith("com.sun.") || name.startsWith("jdk.");
+  }
+
+  private static boolean compressedOops() {
+    try {
+      HotSpotDiagnosticMXBean bean = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+      return Boolean.parseBoolean(bean.getVMOption("UseCompressedOops").getValue());
+    } catch (RuntimeException | LinkageError e) {
+      // 非 HotSpot 虚拟机：小于 32GB 的堆默认开启压缩指针
+      return Runtime.getRuntime().maxMemory() < (32L << 30);
+    }
+  }
+
+  /**
+   * 一次估算的遍历状态：已访问的对象（按引用相等）和待遍历的对象。
+   */
+  private static final class Walk {
+    final Map<Object, Boolean> visited = new IdentityHashMap<>();
+    final Deque<Object> pending = new ArrayDeque<>();
+
+    Walk(Object root) {
+      visited.put(root, Boolean.TRUE);
+      pending.push(root);
+    }
+
+    boolean isFull() {
+      return visited.size() >= MAX_OBJECTS;
+    }
+
+    void push(Object object) {
+      if (object == null || isShared(object) || isFull()) {
+        return;
+      }
+      if (visited.put(object, Boolean.TRUE) == null) {
+        pending.push(object);
+      }
+    }
+  }
+
+  /**
+   * 类的布局：浅大小和需要遍历的引用类型实例字段（包括父类的字段）。
+   * <p/>
+   * JDK 的类不反射访问字段：装箱类型等只计入浅大小，集合和映射通过迭代遍历元素。
+   */
+  private static final class Layout {
+    final long shallowSize;
+    final Field[] referenceFields;
+    /**
+     * 是否是 JDK 的类
+     */
+    final boolean jdk;
+    /**
+     * 是否没有需要遍历的引用
+     */
+    final boolean leaf;
+
+    private Layout(long shallowSize, Field[] referenceFields, boolean jdk, boolean leaf) {
+      this.shallowSize = shallowSize;
+      this.referenceFields = referenceFields;
+      this.jdk = jdk;
+      this.leaf = leaf;
+    }
+
+    static Layout of(Class<?> type) {
+      if (isJdkClass(type)) {
+        boolean container = Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type);
+        return new Layout(jdkShallowSize(type), new Field[0], true, !container);
+      }
+      long size = OBJECT_HEADER_BYTES;
+      List<Field> references = new ArrayList<>();
+      for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+        for (Field field : c.getDeclaredFields()) {
+          if (Modifier.isStatic(field.getModifiers())) {
+            continue;
+          }
+          Class<?> fieldType = field.getType();
+          if (fieldType.isPrimitive()) {
+            size += primitiveBytes(fieldType);
+            continue;
+          }
+          size += REFERENCE_BYTES;
+          if (isJdkClass(c)) {
+            // 继承自 JDK 的类：父类的字段只计入引用本身
+            continue;
+          }
+          try {
+            field.setAccessible(true);
+            references.add(field);
+          } catch (RuntimeException e) {
+            // 模块系统禁止访问的字段，只计入引用本身
+          }
+        }
+      }
+      return new Layout(align(size), references.toArray(new Field[0]), false, references.isEmpty());
+    }
+
+    /**
+     * JDK 的类的浅大小：装箱类型按基本类型的大小，其他类型按字段声明（只读取字段的类型，不访问字段）。
+     */
+    private static long jdkShallowSize(Class<?> type) {
+      Class<?> primitive = unbox(type);
+      if (primitive != null) {
+        return align(OBJECT_HEADER_BYTES + primitiveBytes(primitive));
+      }
+      long size = OBJECT_HEADER_BYTES;
+      for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+        for (Field field : c.getDeclaredFields()) {
+          if (!Modifier.isStatic(field.getModifiers())) {
+            size += field.getType().isPrimitive() ? primitiveBytes(field.getType()) : REFERENCE_BYTES;
+          }
+        }
+      }
+      return align(size);
+    }
+
+    private static Class<?> unbox(Class<?> type) {
+      if (type == Long.class) {
+        return long.class;
+      }
+      if (type == Integer.class) {
+        return int.class;
+      }
+      if (type == Double.class) {
+        return double.class;
+      }
+      if (type == Float.class) {
+        return float.class;
+      }
+      if (type == Short.class) {
+        return short.class;
+      }
+      if (type == Character.class) {
+        return char.class;
+      }
+      if (type == Byte.class) {
+        return byte.class;
+      }
+      if (type == Boolean.class) {
+        return boolean.class;
+      }
+      return null;
+    }
+  }
+}
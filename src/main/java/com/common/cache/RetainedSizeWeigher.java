@@ -0,0 +1,61 @@
+package com.common.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+
+/**
+ * 按保留大小（字节）计算条目权重的 {@link Weigher}，用于 {@code maximumBytes} 的内存预算模式。
+ * <p/>
+ * 条目的权重 = 键和值的保留大小 + 每个条目固定的额外开销（{@value #ENTRY_OVERHEAD_BYTES} 字节），
+ * 同时作为 {@link RemovalListener} 在条目移除（包括被替换）时扣减，从而维护缓存占用的总字节数（估算值）。
+ * 移除时重新估算值的大小，因此值在放入缓存后不应再被修改。
+ *
+ * @see RetainedSizeEstimator
+ * @see LocalCacheFactory#estimatedBytes(com.google.common.cache.Cache)
+ * @since 2026-10-17
+ */
+final class RetainedSizeWeigher<K, V> implements Weigher<K, V>, RemovalListener<K, V> {
+  /**
+   * Guava 缓存中每个条目的额外开销：条目对象（键、哈希值、链表和访问队列的引用，访问和写入时间）、
+   * 值的引用对象和哈希表的槽位
+   */
+  static final int ENTRY_OVERHEAD_BYTES = 80;
+
+  private final LongAdder totalBytes = new LongAdder();
+
+  @Override
+  public int weigh(K key, V value) {
+    long bytes = estimate(key, value);
+    totalBytes.add(bytes);
+    return (int) Math.min(bytes, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public void onRemoval(RemovalNotification<K, V> notification) {
+    K key = notification.getKey();
+    V value = notification.getValue();
+    if (key != null && value != null) {
+      totalBytes.add(-estimate(key, value));
+    }
+  }
+
+  private static long estimate(Object key, Object value) {
+    return RetainedSizeEstimator.retainedSize(key) + RetainedSizeEstimator.retainedSize(value)
+        + ENTRY_OVERHEAD_BYTES;
+  }
+
+  /**
+   * 返回缓存占用的总字节数（估算值）。
+   */
+  long estimatedBytes() {
+    return Math.max(0L, totalBytes.sum());
+  }
+
+  @Override
+  public String toString() {
+    return "RetainedSizeWeigher{estimatedBytes=" + estimatedBytes() + '}';
+  }
+}
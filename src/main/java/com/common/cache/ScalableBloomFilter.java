@@ -0,0 +1,198 @@
+package com.common.cache;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 可扩容的布隆过滤器（Scalable Bloom Filter），线程安全且无锁（扩容时除外）。
+ * <p/>
+ * 由一组容量逐个翻倍的布隆过滤器（分片）组成：当前分片插入的键数达到容量后追加一个新的分片，
+ * 新分片的误判率是上一个分片的一半，因此总的误判率不超过创建时指定的误判率，而不需要预先知道键的总数。
+ * <p/>
+ * 按键的 {@link Object#hashCode()} 计算位置（不分配对象），哈希值相同的不同键无法区分。
+ *
+ * @see <a href="https://gsd.di.uminho.pt/members/cbm/ps/dbloom.pdf">Scalable Bloom Filters</a>
+ * @since 2026-10-17
+ */
+public final class ScalableBloomFilter {
+  /**
+   * 每个新分片的误判率相对上一个分片的比例
+   */
+  private static final double TIGHTENING_RATIO = 0.5d;
+  private static final int GROWTH_FACTOR = 2;
+  private static final long MIN_CAPACITY = 64L;
+
+  private final double fpp;
+  private volatile Slice[] slices;
+
+  /**
+   * 创建一个新的可扩容的布隆过滤器。
+   *
+   * @param initialCapacity 第一个分片的容量（预计插入的键数）
+   * @param fpp             总的误判率，范围 (0, 1)
+   */
+  public ScalableBloomFilter(long initialCapacity, double fpp) {
+    if (initialCapacity <= 0L) {
+      throw new IllegalArgumentException("initialCapacity must be positive: " + initialCapacity);
+    }
+    if (!(fpp > 0d && fpp < 1d)) {
+      throw new IllegalArgumentException("fpp must be in (0, 1): " + fpp);
+    }
+    this.fpp = fpp;
+    // 各分片的误判率 fpp * (1 - r) * r^i 之和不超过 fpp
+    this.slices = new Slice[]{new Slice(Math.max(initialCapacity, MIN_CAPACITY), fpp * (1d - TIGHTENING_RATIO))};
+  }
+
+  /**
+   * 返回键是否可能存在；返回 {@code false} 时键一定没有插入过。
+   */
+  public boolean mightContain(Object key) {
+    long hash = hash(key);
+    for (Slice slice : slices) {
+      if (slice.mightContain(hash)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * 插入键。
+   *
+   * @return 键是否是新插入的（可能存在时返回 {@code false}）
+   */
+  public boolean put(Object key) {
+    long hash = hash(key);
+    Slice[] current = slices;
+    for (Slice slice : current) {
+      if (slice.mightContain(hash)) {
+        return false;
+      }
+    }
+    Slice last = current[current.length - 1];
+    last.put(hash);
+    if (last.count.incrementAndGet() == last.capacity) {
+      grow(last);
+    }
+    return true;
+  }
+
+  private synchronized void grow(Slice full) {
+    Slice[] current = slices;
+    if (current[current.length - 1] != full) {
+      return;
+    }
+    Slice[] grown = Arrays.copyOf(current, current.length + 1);
+    grown[current.length] = new Slice(full.capacity * GROWTH_FACTOR, full.fpp * TIGHTENING_RATIO);
+    slices = grown;
+  }
+
+  /**
+   * 返回插入的键数（估算值，可能存在而未插入的键不计入）。
+   */
+  public long approximateCount() {
+    long count = 0L;
+    for (Slice slice : slices) {
+      count += slice.count.get();
+    }
+    return count;
+  }
+
+  /**
+   * 返回占用的位数。
+   */
+  public long bitSize() {
+    long bits = 0L;
+    for (Slice slice : slices) {
+      bits += slice.numBits;
+    }
+    return bits;
+  }
+
+  /**
+   * 返回创建时指定的总误判率。
+   */
+  public double fpp() {
+    return fpp;
+  }
+
+  /**
+   * 把 32 位的哈希值扩展为 64 位（SplitMix64），作为双重散列的第一个哈希函数。
+   */
+  private static long hash(Object key) {
+    return mix(key.hashCode() * 0x9e3779b97f4a7c15L);
+  }
+
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  @Override
+  public String toString() {
+    return "ScalableBloomFilter{approximateCount=" + approximateCount() + ", slices=" + slices.length
+        + ", bitSize=" + bitSize() + ", fpp=" + fpp + '}';
+  }
+
+  /**
+   * 固定容量的布隆过滤器分片。
+   */
+  private static final class Slice {
+    final long capacity;
+    final double fpp;
+    final long numBits;
+    final int numHashes;
+    final AtomicLongArray bits;
+    final AtomicLong count = new AtomicLong();
+
+    Slice(long capacity, double fpp) {
+      this.capacity = capacity;
+      this.fpp = fpp;
+      // m = -n * ln(p) / (ln2)^2，k = m / n * ln2
+      long words = (long) Math.ceil(-capacity * Math.log(fpp) / (Math.log(2) * Math.log(2)) / Long.SIZE);
+      if (words > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("capacity is too large: " + capacity);
+      }
+      this.bits = new AtomicLongArray((int) Math.max(words, 1L));
+      this.numBits = (long) bits.length() * Long.SIZE;
+      this.numHashes = Math.max(1, (int) Math.round((double) numBits / capacity * Math.log(2)));
+    }
+
+    boolean mightContain(long hash) {
+      long hash2 = secondHash(hash);
+      for (int i = 1; i <= numHashes; i++) {
+        long index = bitIndex(hash, hash2, i);
+        if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0L) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    void put(long hash) {
+      long hash2 = secondHash(hash);
+      for (int i = 1; i <= numHashes; i++) {
+        long index = bitIndex(hash, hash2, i);
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long value;
+        do {
+          value = bits.get(word);
+        } while ((value & mask) == 0L && !bits.compareAndSet(word, value, value | mask));
+      }
+    }
+
+    /**
+     * 双重散列的第二个哈希函数（取奇数，避免步长为 0）。
+     */
+    private static long secondHash(long hash) {
+      return mix(hash ^ 0x632be59bd9b4e019L) | 1L;
+    }
+
+    private long bitIndex(long hash1, long hash2, int i) {
+      return ((hash1 + i * hash2) & Long.MAX_VALUE) % numBits;
+    }
+  }
+}
@@ -0,0 +1,433 @@
+package com.common.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 堆外内存的分片（slab）分配器。
+ * <p/>
+ * 与 memcached 的分配方式相同：堆外内存按固定大小的页（page）申请，每页切分成等长的块（chunk），
+ * 块长按 {@link #GROWTH_FACTOR} 递增地划分成若干分片等级（slab class），值存放在能容纳它的最小等级的块中。
+ * <ul>
+ * <li>每个等级维护空闲块栈和 CLOCK 淘汰队列（访问过的块获得一次“第二次机会”）</li>
+ * <li>内存用尽且本等级没有可淘汰的块时，从页数最多的等级回收一整页，重新切分给本等级</li>
+ * <li>页的内容由 {@link StampedLock} 保护：写入独占，读取乐观（失败才加读锁）</li>
+ * </ul>
+ * 除读取外的所有方法都不是线程安全的，由调用方加锁。
+ * <p/>
+ * 不是 {@code final} 的，测试可以覆盖分配和淘汰的方法来模拟内存分配失败。
+ *
+ * @since 2026-10-17
+ */
+class SlabAllocator {
+  /**
+   * 最小的块长（字节）
+   */
+  static final int MIN_CHUNK_SIZE = 64;
+  /**
+   * 相邻分片等级的块长增长因子
+   */
+  static final double GROWTH_FACTOR = 1.25d;
+  /**
+   * 默认的页大小（字节）
+   */
+  static final int DEFAULT_PAGE_SIZE = 1 << 20;
+
+  private final LocalCacheSpec.OffHeapStorage storage;
+  private final int pageSize;
+  private final int maxPages;
+  private final int[] chunkSizes;
+  private final SlabClass[] classes;
+  private final List<Page> pages = new ArrayList<>();
+  private FileChannel channel;
+  private long usedBytes;
+
+  /**
+   * @param capacityBytes 堆外内存的容量（字节）
+   * @param pageSize      页大小（字节），容量不足一页时取容量
+   * @param storage       存储方式
+   */
+  SlabAllocator(long capacityBytes, int pageSize, LocalCacheSpec.OffHeapStorage storage) {
+    if (capacityBytes < MIN_CHUNK_SIZE) {
+      throw new IllegalArgumentException("capacityBytes must be at least " + MIN_CHUNK_SIZE + ": " + capacityBytes);
+    }
+    this.storage = storage;
+    this.pageSize = (int) Math.max(MIN_CHUNK_SIZE, Math.min(pageSize, capacityBytes));
+    this.maxPages = (int) Math.min(Integer.MAX_VALUE, capacityBytes / this.pageSize);
+    this.chunkSizes = chunkSizes(this.pageSize);
+    this.classes = new SlabClass[chunkSizes.length];
+    for (int i = 0; i < chunkSizes.length; i++) {
+      classes[i] = new SlabClass(chunkSizes[i]);
+    }
+  }
+
+  private static int[] chunkSizes(int pageSize) {
+    int[] sizes = new int[64];
+    int count = 0;
+    int size = MIN_CHUNK_SIZE;
+    while (size < pageSize / 2) {
+      sizes[count++] = size;
+      // 8 字节对齐
+      size = (int) Math.min(pageSize, ((long) (size * GROWTH_FACTOR) + 7) & ~7L);
+    }
+    sizes[count++] = pageSize;
+    return Arrays.copyOf(sizes, count);
+  }
+
+  /**
+   * 返回能容纳指定长度的最小分片等级，超过页大小时返回 -1。
+   */
+  int classIndexOf(int length) {
+    if (length > pageSize) {
+      return -1;
+    }
+    int index = Arrays.binarySearch(chunkSizes, length);
+    return (index >= 0) ? index : -(index + 1);
+  }
+
+  /**
+   * 分配一个块并写入值。
+   *
+   * @return 块；本等级没有空闲块且内存已用尽时返回 {@code null}
+   */
+  Slot allocate(Object key, byte[] bytes, long now) {
+    int classIndex = classIndexOf(bytes.length);
+    SlabClass slabClass = classes[classIndex];
+    if (slabClass.freeChunks.isEmpty() && !grow(slabClass)) {
+      return null;
+    }
+    long address = slabClass.freeChunks.pop();
+    Page page = pages.get((int) (address >>> 32));
+    int chunk = (int) address;
+
+    Slot slot;
+    long stamp = page.lock.writeLock();
+    try {
+      ByteBuffer buffer = page.buffer.duplicate();
+      buffer.position(chunk * page.chunkSize);
+      buffer.put(bytes);
+      // 代号在页内单调递增，页被重新切分后旧块也不会误读
+      int generation = ++page.allocations;
+      page.generations[chunk] = generation;
+      slot = new Slot(key, page, chunk, generation, bytes.length, now);
+      page.owners[chunk] = slot;
+    } finally {
+      page.lock.unlockWrite(stamp);
+    }
+    slabClass.clock.addLast(slot);
+    usedBytes += page.chunkSize;
+    return slot;
+  }
+
+  /**
+   * 申请新页给指定的分片等级。
+   */
+  private boolean grow(SlabClass slabClass) {
+    if (pages.size() >= maxPages) {
+      return false;
+    }
+    Page page = new Page(pages.size(), newBuffer(pages.size()));
+    pages.add(page);
+    assign(page, slabClass);
+    return true;
+  }
+
+  private ByteBuffer newBuffer(int pageId) {
+    if (storage == LocalCacheSpec.OffHeapStorage.DIRECT) {
+      return ByteBuffer.allocateDirect(pageSize);
+    }
+    try {
+      if (channel == null) {
+        File file = File.createTempFile("local-cache-", ".slab");
+        file.deleteOnExit();
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+      }
+      return channel.map(FileChannel.MapMode.READ_WRITE, (long) pageId * pageSize, pageSize);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to map slab page " + pageId, e);
+    }
+  }
+
+  private void assign(Page page, SlabClass slabClass) {
+    int chunks = pageSize / slabClass.chunkSize;
+    long stamp = page.lock.writeLock();
+    try {
+      page.slabClass = slabClass;
+      page.chunkSize = slabClass.chunkSize;
+      page.generations = new int[chunks];
+      page.owners = new Slot[chunks];
+    } finally {
+      page.lock.unlockWrite(stamp);
+    }
+    slabClass.pages.add(page);
+    // 倒序入栈，从页首开始分配
+    for (int chunk = chunks - 1; chunk >= 0; chunk--) {
+      slabClass.freeChunks.push(((long) page.id << 32) | chunk);
+    }
+  }
+
+  /**
+   * 释放一个块（重复释放无副作用）。
+   */
+  void release(Slot slot) {
+    if (slot.released) {
+      return;
+    }
+    slot.released = true;
+    Page page = slot.page;
+    if (page.owners[slot.chunk] != slot) {
+      // 所在的页已被回收
+      return;
+    }
+    page.owners[slot.chunk] = null;
+    page.slabClass.freeChunks.push(((long) page.id << 32) | slot.chunk);
+    usedBytes -= page.chunkSize;
+  }
+
+  /**
+   * 按 CLOCK 算法选出指定等级中的淘汰者（不释放）。
+   *
+   * @return 淘汰者；本等级没有在用的块时返回 {@code null}
+   */
+  Slot nextVictim(int classIndex) {
+    ArrayDeque<Slot> clock = classes[classIndex].clock;
+    // 每个块最多获得一次“第二次机会”
+    for (int i = clock.size() * 2; i > 0; i--) {
+      Slot slot = clock.pollFirst();
+      if (slot == null) {
+        return null;
+      }
+      if (slot.released) {
+        continue;
+      }
+      if (slot.referenced) {
+        slot.referenced = false;
+        clock.addLast(slot);
+        continue;
+      }
+      return slot;
+    }
+    return null;
+  }
+
+  /**
+   * 选出可回收的页：页数最多的其它等级的第一页。
+   *
+   * @return 可回收的页；没有时返回 {@code null}
+   */
+  Page reclaimablePage(int classIndex) {
+    SlabClass richest = null;
+    for (int i = 0; i < classes.length; i++) {
+      SlabClass slabClass = classes[i];
+      if (i != classIndex && !slabClass.pages.isEmpty()
+          && (richest == null || slabClass.pages.size() > richest.pages.size())) {
+        richest = slabClass;
+      }
+    }
+    return (richest == null) ? null : richest.pages.get(0);
+  }
+
+  /**
+   * 把一页重新切分给指定的分片等级，页上的块必须已全部释放。
+   */
+  void reassign(Page page, int classIndex) {
+    SlabClass oldClass = page.slabClass;
+    oldClass.pages.remove(page);
+    oldClass.freeChunks.removePage(page.id);
+    assign(page, classes[classIndex]);
+  }
+
+  /**
+   * 读取一个块中的值。
+   *
+   * @return 值的字节数组；块已被重新分配时返回 {@code null}
+   */
+  static byte[] read(Slot slot) {
+    Page page = slot.page;
+    long stamp = page.lock.tryOptimisticRead();
+    byte[] bytes = copy(slot, page);
+    if (!page.lock.validate(stamp)) {
+      stamp = page.lock.readLock();
+      try {
+        bytes = copy(slot, page);
+      } finally {
+        page.lock.unlockRead(stamp);
+      }
+    }
+    return bytes;
+  }
+
+  private static byte[] copy(Slot slot, Page page) {
+    // 乐观读取期间页可能被重新切分，越界时视为块已失效
+    int[] generations = page.generations;
+    int chunkSize = page.chunkSize;
+    long offset = (long) slot.chunk * chunkSize;
+    if (slot.chunk >= generations.length || generations[slot.chunk] != slot.generation
+        || chunkSize < slot.length || offset + slot.length > page.buffer.capacity()) {
+      return null;
+    }
+    byte[] bytes = new byte[slot.length];
+    ByteBuffer buffer = page.buffer.duplicate();
+    buffer.position((int) offset);
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * 返回在用的字节数（按块长计算）。
+   */
+  long usedBytes() {
+    return usedBytes;
+  }
+
+  /**
+   * 返回已申请的字节数。
+   */
+  long allocatedBytes() {
+    return (long) pages.size() * pageSize;
+  }
+
+  /**
+   * 返回容量（字节）。
+   */
+  long capacityBytes() {
+    return (long) maxPages * pageSize;
+  }
+
+  int pageSize() {
+    return pageSize;
+  }
+
+  /**
+   * 关闭内存映射的文件（直接内存由 GC 回收）。
+   */
+  void close() {
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * 块：值在堆外的位置，同时也是堆内索引的值。
+   */
+  static final class Slot {
+    final Object key;
+    final Page page;
+    final int chunk;
+    final int generation;
+    final int length;
+    final long writeTime;
+    volatile long accessTime;
+    /**
+     * CLOCK 的访问位
+     */
+    volatile boolean referenced;
+    /**
+     * 由分配器的调用方锁保护
+     */
+    boolean released;
+    volatile int refreshing;
+
+    Slot(Object key, Page page, int chunk, int generation, int length, long now) {
+      this.key = key;
+      this.page = page;
+      this.chunk = chunk;
+      this.generation = generation;
+      this.length = length;
+      this.writeTime = now;
+      this.accessTime = now;
+    }
+  }
+
+  /**
+   * 页：一块连续的堆外内存。
+   */
+  static final class Page {
+    final int id;
+    final ByteBuffer buffer;
+    final StampedLock lock = new StampedLock();
+    SlabClass slabClass;
+    volatile int chunkSize;
+    volatile int[] generations;
+    Slot[] owners;
+    int allocations;
+
+    Page(int id, ByteBuffer buffer) {
+      this.id = id;
+      this.buffer = buffer;
+    }
+
+    /**
+     * 返回页上的在用块（回收页时逐个淘汰）。
+     */
+    List<Slot> liveSlots() {
+      List<Slot> slots = new ArrayList<>();
+      for (Slot slot : owners) {
+        if (slot != null) {
+          slots.add(slot);
+        }
+      }
+      return slots;
+    }
+  }
+
+  /**
+   * 分片等级。
+   */
+  static final class SlabClass {
+    final int chunkSize;
+    final List<Page> pages = new ArrayList<>();
+    final ChunkStack freeChunks = new ChunkStack();
+    final ArrayDeque<Slot> clock = new ArrayDeque<>();
+
+    SlabClass(int chunkSize) {
+      this.chunkSize = chunkSize;
+    }
+  }
+
+  /**
+   * 空闲块的地址栈（页号 << 32 | 块号），避免装箱。
+   */
+  static final class ChunkStack {
+    private long[] addresses = new long[16];
+    private int size;
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    void push(long address) {
+      if (size == addresses.length) {
+        addresses = Arrays.copyOf(addresses, size * 2);
+      }
+      addresses[size++] = address;
+    }
+
+    long pop() {
+      return addresses[--size];
+    }
+
+    void removePage(int pageId) {
+      int kept = 0;
+      for (int i = 0; i < size; i++) {
+        if ((int) (addresses[i] >>> 32) != pageId) {
+          addresses[kept++] = addresses[i];
+        }
+      }
+      size = kept;
+    }
+  }
+}
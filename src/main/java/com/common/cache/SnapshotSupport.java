@@ -0,0 +1,36 @@
+package com.common.cache;
+
+/**
+ * 能够导出和恢复条目写入时间的缓存，用于快照时保留条目的剩余存活时间。
+ * <p/>
+ * Guava 的缓存不暴露写入时间，快照时以快照时间作为写入时间，恢复时重新开始计算过期时间。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @see CacheSnapshotter
+ * @since 2026-10-17
+ */
+interface SnapshotSupport<K, V> {
+
+  /**
+   * 遍历所有未过期的条目（弱一致性，不影响统计信息和淘汰顺序）。
+   */
+  void forEachEntry(EntryConsumer<K, V> consumer);
+
+  /**
+   * 恢复一个条目，已存在的条目不会被覆盖。
+   *
+   * @param ageNanos 条目已写入的时长（纳秒）
+   */
+  void restore(K key, V value, long ageNanos);
+
+  /**
+   * 条目的消费者。
+   */
+  interface EntryConsumer<K, V> {
+    /**
+     * @param ageNanos 条目已写入的时长（纳秒）
+     */
+    void accept(K key, V value, long ageNanos);
+  }
+}
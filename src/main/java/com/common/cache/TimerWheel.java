@@ -0,0 +1,146 @@
+package com.common.cache;
+
+import java.util.function.Predicate;
+
+import com.common.cache.TinyLfuLoadingCache.Node;
+
+/**
+ * 分层时间轮：按条目各自的过期时间（{@link Node#variableTime}）调度过期。
+ * <p/>
+ * 共 5 层，每层的桶覆盖的时长依次约为 1 秒、1 分钟、1 小时、1 天和 6 天（都取 2 的幂次纳秒，用移位计算桶号）。
+ * 调度和取消都是 O(1) 的链表操作；时间前进时只处理经过的桶，桶中尚未过期的条目降级到更精细的层。
+ * <p/>
+ * 非线程安全，由 {@link TinyLfuLoadingCache} 的维护锁保护。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @since 2026-10-17
+ */
+final class TimerWheel<K, V> {
+  private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+  private static final long[] SPANS = {
+      1L << 30, // 1.07 秒
+      1L << 36, // 1.14 分钟
+      1L << 42, // 1.22 小时
+      1L << 46, // 0.81 天
+      1L << 49, // 6.5 天
+      1L << 49, // 6.5 天（最后一层只有一个桶，超出时长的条目每轮重新调度）
+  };
+  private static final long[] SHIFT = {
+      Long.numberOfTrailingZeros(SPANS[0]),
+      Long.numberOfTrailingZeros(SPANS[1]),
+      Long.numberOfTrailingZeros(SPANS[2]),
+      Long.numberOfTrailingZeros(SPANS[3]),
+      Long.numberOfTrailingZeros(SPANS[4]),
+  };
+
+  private final Node<K, V>[][] wheel;
+  private long nanos;
+
+  @SuppressWarnings("unchecked")
+  TimerWheel(long now) {
+    this.nanos = now;
+    this.wheel = new Node[BUCKETS.length][];
+    for (int i = 0; i < BUCKETS.length; i++) {
+      wheel[i] = new Node[BUCKETS[i]];
+      for (int j = 0; j < BUCKETS[i]; j++) {
+        Node<K, V> sentinel = new Node<>(null, null, 0L);
+        sentinel.prevTimer = sentinel;
+        sentinel.nextTimer = sentinel;
+        wheel[i][j] = sentinel;
+      }
+    }
+  }
+
+  /**
+   * 调度条目（条目不能已在时间轮中）。
+   */
+  void schedule(Node<K, V> node) {
+    Node<K, V> sentinel = findBucket(node.variableTime);
+    Node<K, V> last = sentinel.prevTimer;
+    node.prevTimer = last;
+    node.nextTimer = sentinel;
+    last.nextTimer = node;
+    sentinel.prevTimer = node;
+  }
+
+  /**
+   * 过期时间改变后重新调度条目。
+   */
+  void reschedule(Node<K, V> node) {
+    deschedule(node);
+    schedule(node);
+  }
+
+  /**
+   * 取消条目的调度（条目不在时间轮中时无操作）。
+   */
+  void deschedule(Node<K, V> node) {
+    if (node.nextTimer == null) {
+      return;
+    }
+    node.nextTimer.prevTimer = node.prevTimer;
+    node.prevTimer.nextTimer = node.nextTimer;
+    node.nextTimer = null;
+    node.prevTimer = null;
+  }
+
+  /**
+   * 时间前进到 {@code now}，过期经过的桶中已到期的条目。
+   *
+   * @param now     当前时间（纳秒）
+   * @param evictor 移除过期的条目，返回 {@code false} 表示条目未被移除（需要重新调度）
+   */
+  void advance(long now, Predicate<Node<K, V>> evictor) {
+    long previous = nanos;
+    nanos = now;
+    for (int i = 0; i < SHIFT.length; i++) {
+      long previousTicks = previous >>> SHIFT[i];
+      long currentTicks = now >>> SHIFT[i];
+      if (currentTicks - previousTicks <= 0L) {
+        break;
+      }
+      expire(i, previousTicks, currentTicks - previousTicks, evictor);
+    }
+  }
+
+  private void expire(int index, long previousTicks, long delta, Predicate<Node<K, V>> evictor) {
+    Node<K, V>[] buckets = wheel[index];
+    int mask = buckets.length - 1;
+    int steps = (int) Math.min(1L + delta, buckets.length);
+    int start = (int) (previousTicks & mask);
+    int end = start + steps;
+    for (int i = start; i < end; i++) {
+      Node<K, V> sentinel = buckets[i & mask];
+      Node<K, V> node = sentinel.nextTimer;
+      sentinel.prevTimer = sentinel;
+      sentinel.nextTimer = sentinel;
+      while (node != sentinel) {
+        Node<K, V> next = node.nextTimer;
+        node.prevTimer = null;
+        node.nextTimer = null;
+        if ((node.variableTime - nanos) > 0L || !evictor.test(node)) {
+          schedule(node);
+        }
+        node = next;
+      }
+    }
+  }
+
+  /**
+   * 返回过期时间所在的桶：离现在越远，所在的层越粗。
+   */
+  private Node<K, V> findBucket(long time) {
+    long duration = time - nanos;
+    int length = wheel.length - 1;
+    for (int i = 0; i < length; i++) {
+      if (duration < SPANS[i + 1]) {
+        // 已到期的条目放在当前的桶，下次时间前进时过期
+        long ticks = ((duration < 0L) ? nanos : time) >>> SHIFT[i];
+        int index = (int) (ticks & (wheel[i].length - 1));
+        return wheel[i][index];
+      }
+    }
+    return wheel[length][0];
+  }
+}
@@ -0,0 +1,1385 @@
+package com.common.cache;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.AbstractLoadingCache;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheLoader.InvalidCacheLoadException;
+import com.google.common.cache.CacheLoader.UnsupportedLoadingOperationException;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 基于 W-TinyLFU 淘汰策略的可自动加载缓存。
+ * <p/>
+ * 与 {@link com.google.common.cache.CacheBuilder} 构建的缓存遵守同样的 {@link com.google.common.cache.LoadingCache} 契约，
+ * 区别在于淘汰策略与并发设计：
+ * <ul>
+ * <li>淘汰策略：新条目先进入窗口区（1% 容量的 LRU），被挤出窗口的候选者与主区（分段 LRU，保护区占 80%）
+ * 的淘汰者比较 {@link FrequencySketch} 估算的访问频率，频率高者留下，抵御扫描型流量</li>
+ * <li>读操作：无锁，只把条目追加到有损的 {@link ReadBuffer} 中</li>
+ * <li>维护操作：读缓冲区满或写操作后，由抢到维护锁（tryLock）的线程批量地重放读写事件、过期和淘汰条目</li>
+ * </ul>
+ * 支持的配置项：initialCapacity、maximumSize、expireAfterWrite、expireAfterAccess、refreshAfterWrite
+ * （以及与后两者等价的 softTtl、hardTtl）。
+ * 超过刷新周期的条目先返回旧值再在后台重新加载，重新加载失败时继续返回旧值直到过期，
+ * 两种情况都记录到 {@link CacheMetrics#recordStaleHit()} 和 {@link CacheMetrics#recordStaleIfError()}。
+ * 可选地按 XFetch 算法概率性地提前刷新（{@code earlyRefreshBeta}），以及随机缩短写入过期时间（{@code expireJitter}），
+ * 避免同一批加载的条目同时过期。
+ * 另外可以指定按条目计算存活时间的 {@link Expiry}，由分层的 {@link TimerWheel} 调度过期。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @see LocalCacheSpec.Policy#TINYLFU
+ * @since 2026-10-17
+ */
+public final class TinyLfuLoadingCache<K, V> extends AbstractLoadingCache<K, V>
+    implements SnapshotSupport<K, V> {
+  private static final Logger LOGGER = LoggerFactory.getLogger("localCache");
+
+  /**
+   * 窗口区占总容量的比例
+   */
+  private static final double WINDOW_PERCENTAGE = 0.01d;
+  /**
+   * 保护区占主区容量的比例
+   */
+  private static final double PROTECTED_PERCENTAGE = 0.80d;
+  /**
+   * 候选者频率不超过该值时，不随机接纳（防止哈希碰撞攻击）
+   */
+  private static final int ADMIT_HASHDOS_THRESHOLD = 5;
+  /**
+   * 按条目计算的最长存活时间（Long.MAX_VALUE / 2 纳秒，约 146 年）
+   */
+  private static final long MAXIMUM_EXPIRY = Long.MAX_VALUE >> 1;
+  /**
+   * 提前刷新的随机因子 -ln(U) 的上限估计（超过的概率约 e^-40），距离截止时间更远的条目不必生成随机数
+   */
+  private static final double EARLY_REFRESH_MAX_FACTOR = 40d;
+
+  private final ConcurrentHashMap<K, Node<K, V>> data;
+  private final CacheLoader<? super K, V> loader;
+  private final Ticker ticker;
+  private final CacheMetrics statsCounter;
+
+  /**
+   * 最大条目数、写入过期时间和刷新周期可以在运行时调整（{@link #setMaximumSize(long)} 等）
+   */
+  private volatile long maximumSize;
+  private volatile long expireAfterWriteNanos;
+  private final long expireAfterAccessNanos;
+  private volatile long refreshAfterWriteNanos;
+  /**
+   * 按条目计算的过期策略，{@code null} 表示不使用
+   */
+  private final Expiry<? super K, ? super V> expiry;
+  /**
+   * 写入过期时间的随机抖动比例，不大于 0 表示不抖动
+   */
+  private final double expireJitter;
+  /**
+   * 概率性提前刷新（XFetch）的系数，不大于 0 表示不提前刷新
+   */
+  private final double earlyRefreshBeta;
+  /**
+   * 加载耗时（纳秒）的指数加权移动平均，作为提前刷新的加载代价
+   */
+  private volatile long averageLoadNanos;
+  /**
+   * 热点键探测器；未开启时为 {@code null}
+   */
+  private final HotKeyTracker hotKeyTracker;
+  private final BulkLookup.Source<K, V> bulkSource = new BulkSource();
+
+  private final ReadBuffer<Node<K, V>> readBuffer = new ReadBuffer<>();
+  private final Queue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+  private final ReentrantLock evictionLock = new ReentrantLock();
+
+  // 以下字段由 evictionLock 保护
+
+  private FrequencySketch sketch;
+  private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+  private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<>();
+  private final AccessOrderDeque<K, V> protectedDeque = new AccessOrderDeque<>();
+  private final WriteOrderDeque<K, V> writeOrder = new WriteOrderDeque<>();
+  private final TimerWheel<K, V> timerWheel;
+  private long windowMaximum;
+  private long protectedMaximum;
+  private long windowSize;
+  private long protectedSize;
+  private long linkedSize;
+
+  private ConcurrentMap<K, V> asMap;
+
+  /**
+   * 创建一个新的 W-TinyLFU 缓存。
+   *
+   * @param spec   缓存配置的规格
+   * @param loader 缓存加载器
+   */
+  public TinyLfuLoadingCache(LocalCacheSpec spec, CacheLoader<? super K, V> loader) {
+    this(spec, loader, Ticker.systemTicker());
+  }
+
+  /**
+   * 创建一个新的按条目过期的 W-TinyLFU 缓存。
+   *
+   * @param spec   缓存配置的规格
+   * @param loader 缓存加载器
+   * @param expiry 按条目计算的过期策略
+   */
+  public TinyLfuLoadingCache(
+      LocalCacheSpec spec, CacheLoader<? super K, V> loader, Expiry<? super K, ? super V> expiry) {
+    this(spec, loader, expiry, Ticker.systemTicker());
+  }
+
+  TinyLfuLoadingCache(LocalCacheSpec spec, CacheLoader<? super K, V> loader, Ticker ticker) {
+    this(spec, loader, null, ticker);
+  }
+
+  TinyLfuLoadingCache(
+      LocalCacheSpec spec, CacheLoader<? super K, V> loader, Expiry<? super K, ? super V> expiry, Ticker ticker) {
+    if (loader == null) {
+      throw new IllegalArgumentException("loader must be not null");
+    }
+    this.expiry = expiry;
+    this.expireJitter = spec.expireJitter();
+    this.earlyRefreshBeta = spec.earlyRefreshBeta();
+    // 按条目计算的过期时间（包括抖动后的写入过期时间）由时间轮调度
+    this.timerWheel = (expiry == null && expireJitter <= 0d) ? null : new TimerWheel<>(ticker.read());
+    this.loader = loader;
+    this.ticker = ticker;
+    this.statsCounter = new CacheMetrics(ticker);
+    this.data = new ConcurrentHashMap<>(Math.max(spec.initialCapacity(), 16));
+    this.maximumSize = spec.maximumSize();
+    this.expireAfterWriteNanos = spec.expireAfterWriteNanos();
+    this.expireAfterAccessNanos = spec.expireAfterAccessNanos();
+    this.refreshAfterWriteNanos = spec.refreshAfterWriteNanos();
+    this.sketch = evicts() ? new FrequencySketch(maximumSize) : null;
+    this.hotKeyTracker = (spec.hotKeys() > 0)
+        ? new HotKeyTracker(spec.hotKeys(), spec.hotKeyWindowNanos(), ticker) : null;
+    resizeRegions();
+  }
+
+  /**
+   * 按最大条目数计算窗口区和保护区的容量。
+   */
+  private void resizeRegions() {
+    long windowMax = evicts() ? Math.max(1L, (long) (maximumSize * WINDOW_PERCENTAGE)) : 0L;
+    this.windowMaximum = Math.min(windowMax, Math.max(maximumSize, 0L));
+    this.protectedMaximum = (long) ((maximumSize - windowMaximum) * PROTECTED_PERCENTAGE);
+  }
+
+  private boolean evicts() {
+    return maximumSize >= 0L;
+  }
+
+  // 读操作
+
+  @Override
+  public V getIfPresent(Object key) {
+    V value = probe(key);
+    if (value == null) {
+      statsCounter.recordMisses(1);
+      return null;
+    }
+    statsCounter.recordHits(1);
+    return value;
+  }
+
+  /**
+   * 读取未过期的值（不记录命中/未命中统计）。
+   */
+  private V probe(Object key) {
+    Node<K, V> node = data.get(key);
+    if (hotKeyTracker != null) {
+      hotKeyTracker.record(key);
+    }
+    long now = ticker.read();
+    if (node == null || isExpired(node, now)) {
+      return null;
+    }
+    afterRead(node, now);
+    return node.value;
+  }
+
+  @Override
+  public V get(K key) throws ExecutionException {
+    if (key == null) {
+      throw new NullPointerException("key");
+    }
+    if (hotKeyTracker != null) {
+      hotKeyTracker.record(key);
+    }
+    long now = ticker.read();
+    Node<K, V> node = data.get(key);
+    if (node != null && !isExpired(node, now)) {
+      statsCounter.recordHits(1);
+      afterRead(node, now);
+      return refreshIfNeeded(node, now);
+    }
+    return load(key);
+  }
+
+  @Override
+  public ImmutableMap<K, V> getAll(Iterable<? extends K> keys) throws ExecutionException {
+    return BulkLookup.getAll(keys, bulkSource, statsCounter);
+  }
+
+  @Override
+  public void refresh(K key) {
+    Node<K, V> node = data.get(key);
+    if (node == null) {
+      try {
+        load(key);
+      } catch (ExecutionException | RuntimeException e) {
+        LOGGER.warn("Exception thrown during refresh, key={}", key, e);
+      }
+      return;
+    }
+    startRefresh(node);
+  }
+
+  // 写操作
+
+  @Override
+  public void put(K key, V value) {
+    if (key == null || value == null) {
+      throw new NullPointerException();
+    }
+    long now = ticker.read();
+    @SuppressWarnings("unchecked")
+    final Node<K, V>[] replaced = new Node[1];
+    final boolean[] added = new boolean[1];
+    Node<K, V> node = data.compute(key, (k, existing) -> {
+      if (existing == null || isExpired(existing, now)) {
+        replaced[0] = existing;
+        added[0] = true;
+        return newNode(k, value, now);
+      }
+      update(existing, value, now);
+      return existing;
+    });
+    if (replaced[0] != null) {
+      afterRemoval(replaced[0], true);
+    }
+    afterWrite(node, added[0] ? null : node);
+  }
+
+  @Override
+  public void invalidate(Object key) {
+    Node<K, V> node = data.remove(key);
+    if (node != null) {
+      afterRemoval(node, false);
+    }
+  }
+
+  @Override
+  public void invalidateAll() {
+    for (K key : data.keySet()) {
+      invalidate(key);
+    }
+  }
+
+  @Override
+  public long size() {
+    return data.size();
+  }
+
+  @Override
+  public CacheStats stats() {
+    return statsCounter.snapshot();
+  }
+
+  /**
+   * 返回滑动窗口的统计指标和加载耗时的分布。
+   */
+  public CacheMetrics metrics() {
+    return statsCounter;
+  }
+
+  /**
+   * 返回热点键探测器；未开启（{@code hotKeys}）时返回 {@code null}。
+   */
+  public HotKeyTracker hotKeyTracker() {
+    return hotKeyTracker;
+  }
+
+  // 运行时调整
+
+  /**
+   * 返回最大条目数，不限制时返回 -1。
+   */
+  public long maximumSize() {
+    return maximumSize;
+  }
+
+  /**
+   * 返回键的估算访问频率：优先使用淘汰策略的频率估算器，没有时使用热点键探测器（不加锁，是近似值）。
+   */
+  int frequency(Object key) {
+    FrequencySketch frequencySketch = sketch;
+    if (frequencySketch != null) {
+      return frequencySketch.frequency(key);
+    }
+    return (hotKeyTracker == null) ? 0 : hotKeyTracker.frequency(key);
+  }
+
+  /**
+   * 调整最大条目数，超出的条目立即按淘汰策略淘汰。
+   * <p/>
+   * 扩容时按新的容量重建频率估算器，已积累的访问频率会丢失。
+   *
+   * @param maximumSize 新的最大条目数
+   */
+  public void setMaximumSize(long maximumSize) {
+    if (maximumSize < 0L) {
+      throw new IllegalArgumentException("maximumSize must be not negative: " + maximumSize);
+    }
+    evictionLock.lock();
+    try {
+      if (sketch == null || maximumSize > this.maximumSize) {
+        sketch = new FrequencySketch(maximumSize);
+      }
+      this.maximumSize = maximumSize;
+      resizeRegions();
+      demoteFromProtected();
+      maintenance();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * 返回写入过期时间（纳秒），未设置时返回 -1。
+   */
+  public long expireAfterWriteNanos() {
+    return expireAfterWriteNanos;
+  }
+
+  /**
+   * 调整写入过期时间，对已有的条目同样生效（按原来的写入时间计算）。
+   * 设置了抖动比例时，已有条目抖动后的过期时间按原来的写入过期时间计算，直到下次写入。
+   *
+   * @param duration 写入过期时间
+   * @param unit     时间单位
+   */
+  public void setExpireAfterWrite(long duration, TimeUnit unit) {
+    this.expireAfterWriteNanos = requireDuration(duration, unit);
+    cleanUp();
+  }
+
+  /**
+   * 返回刷新周期（纳秒），未设置时返回 -1。
+   */
+  public long refreshAfterWriteNanos() {
+    return refreshAfterWriteNanos;
+  }
+
+  /**
+   * 调整刷新周期，对已有的条目同样生效。
+   *
+   * @param duration 刷新周期
+   * @param unit     时间单位
+   */
+  public void setRefreshAfterWrite(long duration, TimeUnit unit) {
+    this.refreshAfterWriteNanos = requireDuration(duration, unit);
+  }
+
+  private static long requireDuration(long duration, TimeUnit unit) {
+    if (duration < 0L) {
+      throw new IllegalArgumentException("duration must be not negative: " + duration);
+    }
+    if (unit == null) {
+      throw new IllegalArgumentException("unit must be not null");
+    }
+    return unit.toNanos(duration);
+  }
+
+  @Override
+  public void cleanUp() {
+    evictionLock.lock();
+    try {
+      maintenance();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public ConcurrentMap<K, V> asMap() {
+    ConcurrentMap<K, V> map = asMap;
+    return (map == null) ? (asMap = new AsMapView()) : map;
+  }
+
+  // 快照
+
+  @Override
+  public void forEachEntry(EntryConsumer<K, V> consumer) {
+    long now = ticker.read();
+    for (Node<K, V> node : data.values()) {
+      if (!isExpired(node, now)) {
+        consumer.accept(node.key, node.value, now - node.writeTime);
+      }
+    }
+  }
+
+  @Override
+  public void restore(K key, V value, long ageNanos) {
+    if (key == null || value == null) {
+      throw new NullPointerException();
+    }
+    long now = ticker.read();
+    final boolean[] added = new boolean[1];
+    Node<K, V> node = data.computeIfAbsent(key, k -> {
+      added[0] = true;
+      Node<K, V> restored = newNode(k, value, now - ageNanos);
+      restored.accessTime = now;
+      return restored;
+    });
+    if (added[0]) {
+      afterWrite(node, null);
+    }
+  }
+
+  // 加载
+
+  private V load(K key) throws ExecutionException {
+    long startTime = ticker.read();
+    @SuppressWarnings("unchecked")
+    final Node<K, V>[] replaced = new Node[1];
+    final boolean[] loaded = new boolean[1];
+    Node<K, V> node;
+    try {
+      node = data.compute(key, (k, existing) -> {
+        if (existing != null && !isExpired(existing, ticker.read())) {
+          return existing;
+        }
+        replaced[0] = existing;
+        loaded[0] = true;
+        V value;
+        try {
+          value = loader.load(k);
+        } catch (RuntimeException | Error e) {
+          throw e;
+        } catch (Exception e) {
+          throw new LoadException(e);
+        }
+        if (value == null) {
+          throw new InvalidCacheLoadException("CacheLoader returned null for key " + k + ".");
+        }
+        return newNode(k, value, ticker.read());
+      });
+    } catch (LoadException e) {
+      recordLoadFailure(startTime, replaced[0]);
+      throw new ExecutionException(e.getCause());
+    } catch (InvalidCacheLoadException e) {
+      recordLoadFailure(startTime, replaced[0]);
+      throw e;
+    } catch (RuntimeException e) {
+      recordLoadFailure(startTime, replaced[0]);
+      throw new UncheckedExecutionException(e);
+    } catch (Error e) {
+      recordLoadFailure(startTime, replaced[0]);
+      throw new ExecutionError(e);
+    }
+
+    statsCounter.recordMisses(1);
+    if (!loaded[0]) {
+      // 其它线程已加载
+      return node.value;
+    }
+    long loadTime = ticker.read() - startTime;
+    statsCounter.recordLoadSuccess(loadTime);
+    recordLoadCost(loadTime);
+    if (replaced[0] != null) {
+      afterRemoval(replaced[0], true);
+    }
+    afterWrite(node, null);
+    return node.value;
+  }
+
+  private void recordLoadFailure(long startTime, Node<K, V> expired) {
+    statsCounter.recordMisses(1);
+    statsCounter.recordLoadException(ticker.read() - startTime);
+    if (expired != null) {
+      // compute 抛出异常时不会修改映射，过期条目在维护时清理
+      scheduleDrain();
+    }
+  }
+
+  private Map<K, V> loadAll(Set<K> keys) throws ExecutionException {
+    long startTime = ticker.read();
+    Map<K, V> loaded;
+    try {
+      @SuppressWarnings("unchecked")
+      Map<K, V> result = (Map<K, V>) loader.loadAll(keys);
+      loaded = result;
+    } catch (UnsupportedLoadingOperationException e) {
+      throw e;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      statsCounter.recordLoadException(ticker.read() - startTime);
+      throw new ExecutionException(e);
+    } catch (RuntimeException e) {
+      statsCounter.recordLoadException(ticker.read() - startTime);
+      throw new UncheckedExecutionException(e);
+    } catch (Exception e) {
+      statsCounter.recordLoadException(ticker.read() - startTime);
+      throw new ExecutionException(e);
+    } catch (Error e) {
+      statsCounter.recordLoadException(ticker.read() - startTime);
+      throw new ExecutionError(e);
+    }
+    if (loaded == null) {
+      statsCounter.recordLoadException(ticker.read() - startTime);
+      throw new InvalidCacheLoadException(loader + " returned null map from loadAll");
+    }
+    statsCounter.recordLoadSuccess(ticker.read() - startTime);
+    for (Map.Entry<K, V> entry : loaded.entrySet()) {
+      if (entry.getKey() != null && entry.getValue() != null) {
+        put(entry.getKey(), entry.getValue());
+      }
+    }
+    return loaded;
+  }
+
+  // 刷新
+
+  private V refreshIfNeeded(Node<K, V> node, long now) {
+    long refreshAfterWrite = refreshAfterWriteNanos;
+    if (refreshAfterWrite < 0L || (now - node.writeTime) < refreshAfterWrite) {
+      if (earlyRefreshBeta > 0d && shouldRefreshEarly(node, now)) {
+        statsCounter.recordEarlyRefresh();
+        V newValue = startRefresh(node);
+        return (newValue == null) ? node.value : newValue;
+      }
+      return node.value;
+    }
+    statsCounter.recordStaleHit();
+    if (node.refreshFailed) {
+      statsCounter.recordStaleIfError();
+    }
+    V newValue = startRefresh(node);
+    return (newValue == null) ? node.value : newValue;
+  }
+
+  /**
+   * 概率性提前刷新（XFetch）：距离截止时间（刷新或过期时间中最早者）为 {@code remaining}，
+   * 以 {@code remaining <= averageLoadNanos * beta * -ln(U)} 的概率提前刷新，U 为 (0, 1] 的均匀随机数。
+   * 越接近截止时间、加载越慢，提前刷新的概率越高。
+   *
+   * @see <a href="https://cseweb.ucsd.edu/~avattani/papers/cache_stampede.pdf">Optimal Probabilistic Cache Stampede Prevention</a>
+   */
+  private boolean shouldRefreshEarly(Node<K, V> node, long now) {
+    long deadline = Long.MAX_VALUE;
+    long writeTime = node.writeTime;
+    if (refreshAfterWriteNanos >= 0L) {
+      deadline = Math.min(deadline, writeTime + refreshAfterWriteNanos);
+    }
+    if (expireAfterWriteNanos >= 0L) {
+      deadline = Math.min(deadline, writeTime + expireAfterWriteNanos);
+    }
+    if (timerWheel != null) {
+      deadline = Math.min(deadline, node.variableTime);
+    }
+    if (deadline == Long.MAX_VALUE) {
+      return false;
+    }
+    double gap = averageLoadNanos * earlyRefreshBeta;
+    long remaining = deadline - now;
+    if (remaining > gap * EARLY_REFRESH_MAX_FACTOR) {
+      return false;
+    }
+    return remaining <= gap * -Math.log(1d - ThreadLocalRandom.current().nextDouble());
+  }
+
+  /**
+   * 记录加载耗时的指数加权移动平均（权重 1/8，并发更新时允许丢失个别样本）。
+   */
+  private void recordLoadCost(long loadTime) {
+    long average = averageLoadNanos;
+    averageLoadNanos = (average == 0L) ? loadTime : average + ((loadTime - average) >> 3);
+  }
+
+  /**
+   * 异步地重新加载条目。
+   *
+   * @return 重新加载已同步完成时返回新值，否则返回 {@code null}
+   */
+  private V startRefresh(final Node<K, V> node) {
+    if (!node.tryStartRefresh()) {
+      return null;
+    }
+    final K key = node.key;
+    final V oldValue = node.value;
+    final long startTime = ticker.read();
+    final ListenableFuture<V> future;
+    try {
+      future = loader.reload(key, oldValue);
+      if (future == null) {
+        throw new NullPointerException("CacheLoader returned null for reload");
+      }
+    } catch (Throwable t) {
+      node.refreshFailed = true;
+      node.endRefresh();
+      statsCounter.recordRefreshException(ticker.read() - startTime);
+      LOGGER.warn("Exception thrown during refresh, key={}", key, t);
+      if (t instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      return null;
+    }
+    future.addListener(() -> completeRefresh(node, oldValue, future, startTime), MoreExecutors.directExecutor());
+    if (future.isDone()) {
+      try {
+        return Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException e) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  private void completeRefresh(Node<K, V> node, V oldValue, ListenableFuture<V> future, long startTime) {
+    try {
+      final V newValue = Uninterruptibles.getUninterruptibly(future);
+      long loadTime = ticker.read() - startTime;
+      if (newValue == null) {
+        node.refreshFailed = true;
+        statsCounter.recordRefreshException(loadTime);
+        return;
+      }
+      statsCounter.recordRefreshSuccess(loadTime);
+      recordLoadCost(loadTime);
+      final boolean[] updated = new boolean[1];
+      data.computeIfPresent(node.key, (k, existing) -> {
+        // 刷新期间条目被替换或修改，则丢弃刷新结果
+        if (existing == node && existing.value == oldValue) {
+          update(existing, newValue, ticker.read());
+          updated[0] = true;
+        }
+        return existing;
+      });
+      if (updated[0]) {
+        afterWrite(node, node);
+      }
+    } catch (ExecutionException | RuntimeException e) {
+      if (RefreshSkippedException.isSkipped(e)) {
+        // 刷新没有执行：保留旧值和原来的写入时间，不记录统计
+        return;
+      }
+      // 保留旧值直到过期（stale-if-error）
+      node.refreshFailed = true;
+      statsCounter.recordRefreshException(ticker.read() - startTime);
+      LOGGER.warn("Exception thrown during refresh, key={}", node.key, e);
+    } finally {
+      node.endRefresh();
+    }
+  }
+
+  // 过期
+
+  private boolean isExpired(Node<K, V> node, long now) {
+    return (expireAfterWriteNanos >= 0L && (now - node.writeTime) >= expireAfterWriteNanos)
+        || (expireAfterAccessNanos >= 0L && (now - node.accessTime) >= expireAfterAccessNanos)
+        || (timerWheel != null && (now - node.variableTime) >= 0L);
+  }
+
+  private Node<K, V> newNode(K key, V value, long now) {
+    Node<K, V> node = new Node<>(key, value, now);
+    if (timerWheel != null) {
+      node.variableTime = expiresAt(key, value, now);
+    }
+    return node;
+  }
+
+  private void update(Node<K, V> node, V value, long now) {
+    if (timerWheel != null) {
+      // 先于值发布，读取者不会看到新值搭配旧的过期时间
+      node.variableTime = expiresAt(node.key, value, now);
+    }
+    node.update(value, now);
+  }
+
+  /**
+   * 返回条目的过期时间（存活时间超过约 146 年时按不过期处理，避免溢出）。
+   * <p/>
+   * 存活时间由 {@link Expiry} 计算，未指定时取写入过期时间；设置了抖动比例时随机缩短。
+   */
+  private long expiresAt(K key, V value, long now) {
+    long duration = Math.min(Math.max(
+        (expiry == null) ? expireAfterWriteNanos : expiry.expireAfterWrite(key, value), 0L), MAXIMUM_EXPIRY);
+    if (expireJitter > 0d) {
+      duration -= (long) (duration * expireJitter * ThreadLocalRandom.current().nextDouble());
+    }
+    return now + duration;
+  }
+
+  // 读写事件与维护
+
+  private void afterRead(Node<K, V> node, long now) {
+    if (expireAfterAccessNanos >= 0L) {
+      node.accessTime = now;
+    }
+    if (readBuffer.offer(node) == ReadBuffer.FULL) {
+      scheduleDrain();
+    }
+  }
+
+  /**
+   * 新增或更新条目后，记录写事件。
+   *
+   * @param node    条目
+   * @param updated 更新的条目；新增时为 {@code null}
+   */
+  private void afterWrite(Node<K, V> node, Node<K, V> updated) {
+    if (updated == null) {
+      writeBuffer.offer(() -> onAdd(node));
+    } else {
+      writeBuffer.offer(() -> onUpdate(updated));
+    }
+    scheduleDrain();
+  }
+
+  /**
+   * 条目从映射中移除后，记录写事件。
+   *
+   * @param node    被移除的条目
+   * @param expired 是否因过期而移除
+   */
+  private void afterRemoval(Node<K, V> node, boolean expired) {
+    node.retire();
+    if (expired) {
+      statsCounter.recordEviction();
+    }
+    writeBuffer.offer(() -> unlink(node));
+    scheduleDrain();
+  }
+
+  private void scheduleDrain() {
+    do {
+      if (!evictionLock.tryLock()) {
+        // 其它线程正在维护，释放锁后会再检查写缓冲区
+        return;
+      }
+      try {
+        maintenance();
+      } finally {
+        evictionLock.unlock();
+      }
+    } while (!writeBuffer.isEmpty());
+  }
+
+  /**
+   * 批量维护：重放读写事件、过期和淘汰条目。
+   */
+  private void maintenance() {
+    readBuffer.drainTo(this::onAccess);
+    Runnable task;
+    while ((task = writeBuffer.poll()) != null) {
+      task.run();
+    }
+    expireEntries();
+    evictEntries();
+  }
+
+  private void onAccess(Node<K, V> node) {
+    if (node.queueType == Node.UNLINKED) {
+      return;
+    }
+    if (evicts()) {
+      sketch.increment(node.key);
+    }
+    switch (node.queueType) {
+      case Node.WINDOW:
+        window.moveToBack(node);
+        break;
+      case Node.PROBATION:
+        // 试用区命中，晋升到保护区
+        probation.remove(node);
+        node.queueType = Node.PROTECTED;
+        protectedDeque.addLast(node);
+        protectedSize++;
+        demoteFromProtected();
+        break;
+      case Node.PROTECTED:
+        protectedDeque.moveToBack(node);
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void demoteFromProtected() {
+    while (protectedSize > protectedMaximum) {
+      Node<K, V> demoted = protectedDeque.pollFirst();
+      if (demoted == null) {
+        break;
+      }
+      protectedSize--;
+      demoted.queueType = Node.PROBATION;
+      probation.addLast(demoted);
+    }
+  }
+
+  private void onAdd(Node<K, V> node) {
+    if (node.isRetired() || node.queueType != Node.UNLINKED) {
+      return;
+    }
+    writeOrder.addLast(node);
+    if (timerWheel != null) {
+      timerWheel.schedule(node);
+    }
+    node.queueType = Node.WINDOW;
+    window.addLast(node);
+    windowSize++;
+    linkedSize++;
+    if (evicts()) {
+      sketch.increment(node.key);
+    }
+  }
+
+  private void onUpdate(Node<K, V> node) {
+    if (node.queueType == Node.UNLINKED) {
+      onAdd(node);
+      return;
+    }
+    writeOrder.moveToBack(node);
+    if (timerWheel != null) {
+      timerWheel.reschedule(node);
+    }
+    onAccess(node);
+  }
+
+  private void unlink(Node<K, V> node) {
+    switch (node.queueType) {
+      case Node.WINDOW:
+        window.remove(node);
+        windowSize--;
+        break;
+      case Node.PROBATION:
+        probation.remove(node);
+        break;
+      case Node.PROTECTED:
+        protectedDeque.remove(node);
+        protectedSize--;
+        break;
+      default:
+        return;
+    }
+    writeOrder.remove(node);
+    if (timerWheel != null) {
+      timerWheel.deschedule(node);
+    }
+    node.queueType = Node.UNLINKED;
+    linkedSize--;
+  }
+
+  private void expireEntries() {
+    if (expireAfterWriteNanos < 0L && expireAfterAccessNanos < 0L && timerWheel == null) {
+      return;
+    }
+    long now = ticker.read();
+    if (timerWheel != null) {
+      timerWheel.advance(now, node -> {
+        removeLinked(node);
+        return true;
+      });
+    }
+    if (expireAfterWriteNanos >= 0L) {
+      expireHeads(writeOrder, now);
+    }
+    if (expireAfterAccessNanos >= 0L) {
+      expireHeads(window, now);
+      expireHeads(probation, now);
+      expireHeads(protectedDeque, now);
+    }
+  }
+
+  private void expireHeads(LinkedDeque<K, V> deque, long now) {
+    Node<K, V> node;
+    while ((node = deque.peekFirst()) != null && isExpired(node, now)) {
+      removeLinked(node);
+    }
+  }
+
+  private void evictEntries() {
+    if (!evicts()) {
+      return;
+    }
+    // 被挤出窗口区的条目进入试用区尾部，作为候选者
+    Node<K, V> candidate = null;
+    while (windowSize > windowMaximum) {
+      Node<K, V> node = window.pollFirst();
+      windowSize--;
+      node.queueType = Node.PROBATION;
+      probation.addLast(node);
+      if (candidate == null) {
+        candidate = node;
+      }
+    }
+
+    while (linkedSize > maximumSize) {
+      Node<K, V> victim = probation.peekFirst();
+      if (victim == null) {
+        victim = protectedDeque.peekFirst();
+      }
+      if (victim == null) {
+        victim = window.peekFirst();
+      }
+      if (candidate == null || candidate == victim) {
+        // 没有可比较的候选者，直接淘汰
+        if (victim == candidate) {
+          candidate = candidate.nextAccess;
+        }
+        removeLinked(victim);
+        continue;
+      }
+      if (admit(candidate.key, victim.key)) {
+        removeLinked(victim);
+      } else {
+        Node<K, V> next = candidate.nextAccess;
+        removeLinked(candidate);
+        candidate = next;
+      }
+    }
+  }
+
+  /**
+   * 决定是否接纳候选者（淘汰受害者）。
+   */
+  private boolean admit(K candidateKey, K victimKey) {
+    int victimFreq = sketch.frequency(victimKey);
+    int candidateFreq = sketch.frequency(candidateKey);
+    if (candidateFreq > victimFreq) {
+      return true;
+    } else if (candidateFreq <= ADMIT_HASHDOS_THRESHOLD) {
+      return false;
+    }
+    // 频率相近的热点候选者随机接纳，避免被长期驻留的受害者挡住
+    return (ThreadLocalRandom.current().nextInt() & 127) == 0;
+  }
+
+  /**
+   * 移除已链接的条目（维护锁内调用），过期和按容量淘汰都记为一次淘汰，与 Guava 的统计一致。
+   */
+  private void removeLinked(Node<K, V> node) {
+    unlink(node);
+    if (data.remove(node.key, node)) {
+      node.retire();
+      statsCounter.recordEviction();
+    }
+  }
+
+  // 条目
+
+  /**
+   * 缓存条目。
+   * <p/>
+   * 值与时间戳通过 volatile 发布；链表指针与队列类型由 evictionLock 保护。
+   */
+  static final class Node<K, V> {
+    static final int UNLINKED = 0;
+    static final int WINDOW = 1;
+    static final int PROBATION = 2;
+    static final int PROTECTED = 3;
+
+    private static final AtomicIntegerFieldUpdater<Node> REFRESHING =
+        AtomicIntegerFieldUpdater.newUpdater(Node.class, "refreshing");
+
+    final K key;
+    volatile V value;
+    volatile long writeTime;
+    volatile long accessTime;
+    /**
+     * 按条目计算的过期时间，由时间轮使用：指定了 {@link Expiry} 时是它计算的过期时间，
+     * 设置了 {@code expireJitter} 时是随机缩短后的写入过期时间
+     */
+    volatile long variableTime;
+    volatile int refreshing;
+    /**
+     * 上次重新加载是否失败（写入新值时清除）
+     */
+    volatile boolean refreshFailed;
+    volatile boolean retired;
+
+    int queueType = UNLINKED;
+    Node<K, V> prevAccess;
+    Node<K, V> nextAccess;
+    Node<K, V> prevWrite;
+    Node<K, V> nextWrite;
+    Node<K, V> prevTimer;
+    Node<K, V> nextTimer;
+
+    Node(K key, V value, long now) {
+      this.key = key;
+      this.value = value;
+      this.writeTime = now;
+      this.accessTime = now;
+    }
+
+    void update(V value, long now) {
+      this.value = value;
+      this.writeTime = now;
+      this.accessTime = now;
+      this.refreshFailed = false;
+    }
+
+    boolean tryStartRefresh() {
+      return REFRESHING.compareAndSet(this, 0, 1);
+    }
+
+    void endRefresh() {
+      refreshing = 0;
+    }
+
+    void retire() {
+      retired = true;
+    }
+
+    boolean isRetired() {
+      return retired;
+    }
+  }
+
+  /**
+   * 侵入式双向链表。
+   */
+  abstract static class LinkedDeque<K, V> {
+    private Node<K, V> first;
+    private Node<K, V> last;
+
+    abstract Node<K, V> getPrevious(Node<K, V> node);
+
+    abstract void setPrevious(Node<K, V> node, Node<K, V> prev);
+
+    abstract Node<K, V> getNext(Node<K, V> node);
+
+    abstract void setNext(Node<K, V> node, Node<K, V> next);
+
+    Node<K, V> peekFirst() {
+      return first;
+    }
+
+    void addLast(Node<K, V> node) {
+      setPrevious(node, last);
+      setNext(node, null);
+      if (last == null) {
+        first = node;
+      } else {
+        setNext(last, node);
+      }
+      last = node;
+    }
+
+    Node<K, V> pollFirst() {
+      Node<K, V> node = first;
+      if (node != null) {
+        remove(node);
+      }
+      return node;
+    }
+
+    void remove(Node<K, V> node) {
+      Node<K, V> prev = getPrevious(node);
+      Node<K, V> next = getNext(node);
+      if (prev == null) {
+        if (first != node) {
+          // 不在链表中
+          return;
+        }
+        first = next;
+      } else {
+        setNext(prev, next);
+      }
+      if (next == null) {
+        last = prev;
+      } else {
+        setPrevious(next, prev);
+      }
+      setPrevious(node, null);
+      setNext(node, null);
+    }
+
+    void moveToBack(Node<K, V> node) {
+      if (node != last) {
+        remove(node);
+        addLast(node);
+      }
+    }
+  }
+
+  static final class AccessOrderDeque<K, V> extends LinkedDeque<K, V> {
+    @Override
+    Node<K, V> getPrevious(Node<K, V> node) {
+      return node.prevAccess;
+    }
+
+    @Override
+    void setPrevious(Node<K, V> node, Node<K, V> prev) {
+      node.prevAccess = prev;
+    }
+
+    @Override
+    Node<K, V> getNext(Node<K, V> node) {
+      return node.nextAccess;
+    }
+
+    @Override
+    void setNext(Node<K, V> node, Node<K, V> next) {
+      node.nextAccess = next;
+    }
+  }
+
+  static final class WriteOrderDeque<K, V> extends LinkedDeque<K, V> {
+    @Override
+    Node<K, V> getPrevious(Node<K, V> node) {
+      return node.prevWrite;
+    }
+
+    @Override
+    void setPrevious(Node<K, V> node, Node<K, V> prev) {
+      node.prevWrite = prev;
+    }
+
+    @Override
+    Node<K, V> getNext(Node<K, V> node) {
+      return node.nextWrite;
+    }
+
+    @Override
+    void setNext(Node<K, V> node, Node<K, V> next) {
+      node.nextWrite = next;
+    }
+  }
+
+  /**
+   * 批量查找的数据源，未命中统计由 {@link BulkLookup} 记录。
+   */
+  private final class BulkSource implements BulkLookup.Source<K, V> {
+
+    @Override
+    public V probe(K key) {
+      return TinyLfuLoadingCache.this.probe(key);
+    }
+
+    @Override
+    public Map<K, V> loadAll(Set<K> keys) throws ExecutionException {
+      return TinyLfuLoadingCache.this.loadAll(keys);
+    }
+
+    @Override
+    public V get(K key) throws ExecutionException {
+      return TinyLfuLoadingCache.this.get(key);
+    }
+  }
+
+  /**
+   * 加载器抛出的受检异常（穿透 {@link ConcurrentHashMap#compute}）。
+   */
+  private static final class LoadException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    LoadException(Exception cause) {
+      super(cause);
+    }
+  }
+
+  // asMap() 视图
+
+  private final class AsMapView extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+    @Override
+    public int size() {
+      return data.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      Node<K, V> node = data.get(key);
+      return node != null && !isExpired(node, ticker.read());
+    }
+
+    @Override
+    public V get(Object key) {
+      Node<K, V> node = data.get(key);
+      long now = ticker.read();
+      if (node == null || isExpired(node, now)) {
+        return null;
+      }
+      afterRead(node, now);
+      return refreshIfNeeded(node, now);
+    }
+
+    @Override
+    public V put(K key, V value) {
+      V oldValue = get(key);
+      TinyLfuLoadingCache.this.put(key, value);
+      return oldValue;
+    }
+
+    @Override
+    public V remove(Object key) {
+      Node<K, V> node = data.remove(key);
+      if (node == null) {
+        return null;
+      }
+      afterRemoval(node, false);
+      return isExpired(node, ticker.read()) ? null : node.value;
+    }
+
+    @Override
+    public void clear() {
+      invalidateAll();
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+      while (true) {
+        V oldValue = get(key);
+        if (oldValue != null) {
+          return oldValue;
+        }
+        long now = ticker.read();
+        Node<K, V> node = newNode(key, value, now);
+        Node<K, V> existing = data.putIfAbsent(key, node);
+        if (existing == null) {
+          afterWrite(node, null);
+          return null;
+        }
+        if (isExpired(existing, now) && data.remove(key, existing)) {
+          afterRemoval(existing, true);
+        }
+      }
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+      Node<K, V> node = data.get(key);
+      if (node == null || value == null || !value.equals(node.value)) {
+        return false;
+      }
+      if (data.remove(key, node)) {
+        afterRemoval(node, false);
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+      if (oldValue == null || newValue == null) {
+        throw new NullPointerException();
+      }
+      long now = ticker.read();
+      final boolean[] replaced = new boolean[1];
+      Node<K, V> node = data.computeIfPresent(key, (k, existing) -> {
+        if (!isExpired(existing, now) && oldValue.equals(existing.value)) {
+          update(existing, newValue, now);
+          replaced[0] = true;
+        }
+        return existing;
+      });
+      if (replaced[0]) {
+        afterWrite(node, node);
+      }
+      return replaced[0];
+    }
+
+    @Override
+    public V replace(K key, V value) {
+      if (value == null) {
+        throw new NullPointerException();
+      }
+      long now = ticker.read();
+      @SuppressWarnings("unchecked")
+      final V[] oldValue = (V[]) new Object[1];
+      Node<K, V> node = data.computeIfPresent(key, (k, existing) -> {
+        if (!isExpired(existing, now)) {
+          oldValue[0] = existing.value;
+          update(existing, value, now);
+        }
+        return existing;
+      });
+      if (oldValue[0] != null) {
+        afterWrite(node, node);
+      }
+      return oldValue[0];
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+      return new AbstractSet<Entry<K, V>>() {
+        @Override
+        public int size() {
+          return data.size();
+        }
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+          return new EntryIterator();
+        }
+      };
+    }
+  }
+
+  private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+    private final Iterator<Node<K, V>> iterator = data.values().iterator();
+    private Node<K, V> next;
+    private Node<K, V> current;
+
+    @Override
+    public boolean hasNext() {
+      long now = ticker.read();
+      while (next == null && iterator.hasNext()) {
+        Node<K, V> node = iterator.next();
+        if (!isExpired(node, now)) {
+          next = node;
+        }
+      }
+      return next != null;
+    }
+
+    @Override
+    public Map.Entry<K, V> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      current = next;
+      next = null;
+      return new AbstractMap.SimpleImmutableEntry<>(current.key, current.value);
+    }
+
+    @Override
+    public void remove() {
+      if (current == null) {
+        throw new IllegalStateException();
+      }
+      asMap().remove(current.key, current.value);
+      current = null;
+    }
+  }
+}
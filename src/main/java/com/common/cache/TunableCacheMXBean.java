@@ -0,0 +1,16 @@
+package com.common.cache;
+
+/**
+ * 支持在运行时调整容量和过期时间的本地缓存的 JMX 管理接口（{@code policy=tinylfu}）。
+ *
+ * @see ManagedCache
+ * @since 2026-10-17
+ */
+public interface TunableCacheMXBean extends ManagedCacheMXBean {
+
+  void setMaximumSize(long maximumSize);
+
+  void setExpireAfterWriteSeconds(long seconds);
+
+  void setRefreshAfterWriteSeconds(long seconds);
+}
@@ -0,0 +1,160 @@
+package com.common.cache;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 基于 UDP 单播的失效消息传输通道：每条消息逐个发送给已知的对端实例。
+ * <p/>
+ * 消息不重传、不保证顺序；一条消息放在一个数据报中，大小不超过 {@value #MAX_MESSAGE_BYTES} 字节
+ * （低于常见的以太网 MTU，避免 IP 分片后整条丢失）。接收在一个守护线程中进行。
+ *
+ * @since 2026-10-17
+ */
+public final class UdpInvalidationTransport implements InvalidationTransport {
+  private static final Logger LOGGER = LoggerFactory.getLogger("localCache");
+
+  /**
+   * 单条消息的最大字节数
+   */
+  static final int MAX_MESSAGE_BYTES = 1400;
+
+  private final DatagramSocket socket;
+  private final List<SocketAddress> peers = new CopyOnWriteArrayList<>();
+  private volatile Thread receiverThread;
+
+  private final LongAdder sentCount = new LongAdder();
+  private final LongAdder receivedCount = new LongAdder();
+  private final LongAdder failedCount = new LongAdder();
+
+  /**
+   * 创建一个新的 UDP 传输通道。
+   *
+   * @param bindAddress 本实例接收消息的地址（端口为 0 时随机选择）
+   * @param peers       其它实例接收消息的地址
+   * @throws SocketException 无法绑定地址
+   */
+  public UdpInvalidationTransport(InetSocketAddress bindAddress, Collection<InetSocketAddress> peers)
+      throws SocketException {
+    if (bindAddress == null) {
+      throw new IllegalArgumentException("bindAddress must be not null");
+    }
+    if (peers == null) {
+      throw new IllegalArgumentException("peers must be not null");
+    }
+    this.socket = new DatagramSocket(bindAddress);
+    this.peers.addAll(peers);
+  }
+
+  /**
+   * 返回本实例实际绑定的地址。
+   */
+  public InetSocketAddress localAddress() {
+    return (InetSocketAddress) socket.getLocalSocketAddress();
+  }
+
+  /**
+   * 添加一个对端实例。
+   */
+  public void addPeer(InetSocketAddress peer) {
+    if (peer == null) {
+      throw new IllegalArgumentException("peer must be not null");
+    }
+    peers.add(peer);
+  }
+
+  /**
+   * 移除一个对端实例。
+   */
+  public void removePeer(InetSocketAddress peer) {
+    peers.remove(peer);
+  }
+
+  @Override
+  public int maxMessageBytes() {
+    return MAX_MESSAGE_BYTES;
+  }
+
+  @Override
+  public void publish(byte[] message) throws IOException {
+    if (message.length > MAX_MESSAGE_BYTES) {
+      throw new IllegalArgumentException("message is too large: " + message.length);
+    }
+    IOException failure = null;
+    for (SocketAddress peer : peers) {
+      try {
+        socket.send(new DatagramPacket(message, message.length, peer));
+        sentCount.increment();
+      } catch (IOException e) {
+        // 继续发送给其它实例
+        failedCount.increment();
+        failure = e;
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  @Override
+  public synchronized void subscribe(final Consumer<byte[]> receiver) {
+    if (receiver == null) {
+      throw new IllegalArgumentException("receiver must be not null");
+    }
+    if (receiverThread != null) {
+      throw new IllegalStateException("already subscribed");
+    }
+    Thread thread = new Thread(() -> receive(receiver), "local-cache-invalidation-udp-" + localAddress().getPort());
+    thread.setDaemon(true);
+    thread.start();
+    receiverThread = thread;
+  }
+
+  private void receive(Consumer<byte[]> receiver) {
+    byte[] buffer = new byte[MAX_MESSAGE_BYTES];
+    DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+    while (!socket.isClosed()) {
+      try {
+        packet.setLength(buffer.length);
+        socket.receive(packet);
+        receivedCount.increment();
+        receiver.accept(Arrays.copyOfRange(buffer, packet.getOffset(), packet.getOffset() + packet.getLength()));
+      } catch (IOException e) {
+        if (!socket.isClosed()) {
+          LOGGER.warn("Exception thrown during receiving invalidations on {}", localAddress(), e);
+        }
+      } catch (RuntimeException e) {
+        LOGGER.warn("Exception thrown during applying invalidations", e);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    socket.close();
+  }
+
+  @Override
+  public String toString() {
+    return "UdpInvalidationTransport{"
+        + "localAddress=" + socket.getLocalSocketAddress()
+        + ", peers=" + peers
+        + ", sentCount=" + sentCount.sum()
+        + ", receivedCount=" + receivedCount.sum()
+        + ", failedCount=" + failedCount.sum()
+        + '}';
+  }
+}
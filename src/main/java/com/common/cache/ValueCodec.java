@@ -0,0 +1,27 @@
+package com.common.cache;
+
+/**
+ * 缓存值的编解码器，用于把值存放到堆外内存或文件中。
+ *
+ * @param <V> 值类型
+ * @see JacksonValueCodec
+ * @since 2026-10-17
+ */
+public interface ValueCodec<V> {
+
+  /**
+   * 编码缓存值。
+   *
+   * @param value 缓存值
+   * @return 编码后的字节数组；无法编码时返回 {@code null}（该值不会被缓存）
+   */
+  byte[] encode(V value);
+
+  /**
+   * 解码缓存值。
+   *
+   * @param bytes 编码后的字节数组
+   * @return 缓存值；无法解码时返回 {@code null}（视为未命中）
+   */
+  V decode(byte[] bytes);
+}
@@ -0,0 +1,42 @@
+package com.common.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 累计计数器，由分条（striped）的 {@link LongAdder} 实现：记录操作无锁、不分配内存，随核数线性扩展。
+ *
+ * @see MetricsRegistry#counter
+ * @since 2026-10-17
+ */
+public final class Counter {
+    private final MetricKey key;
+    private final LongAdder count = new LongAdder();
+
+    Counter(MetricKey key) {
+        this.key = key;
+    }
+
+    public MetricKey key() {
+        return key;
+    }
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void add(long x) {
+        count.add(x);
+    }
+
+    /**
+     * 返回累计值。
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    @Override
+    public String toString() {
+        return key + "=" + count();
+    }
+}
@@ -0,0 +1,252 @@
+package com.common.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 固定内存的对数线性（log-linear）直方图，用于记录耗时等非负整数值的分布。
+ * <p/>
+ * 每个 2 的幂次区间等分成 {@code 2^precision} 个桶，相对误差不超过 {@code 2^-precision}
+ * （默认精度 3，即 12.5%）；小于 {@code 2^precision} 的值精确记录。
+ * <p/>
+ * 记录操作无锁、不分配内存：按线程分条（stripe）的 {@link AtomicLongArray} 计数，读取时合并成快照。
+ * 除了累积的快照（{@link #snapshot()}），还支持区间快照（{@link #intervalSnapshot()}）：
+ * 只包含上一次区间快照之后记录的值，读取即重置，不影响累积的快照，也不阻塞记录。
+ *
+ * @since 2026-10-17
+ */
+public final class LatencyHistogram {
+    /**
+     * 默认精度（每个 2 的幂次区间等分成 8 个桶）
+     */
+    public static final int DEFAULT_PRECISION = 3;
+
+    static final int MAX_PRECISION = 10;
+    private static final int STRIPES =
+            Integer.highestOneBit(Math.min(8, Math.max(1, Runtime.getRuntime().availableProcessors())));
+
+    private final int precision;
+    private final int subBucketCount;
+    private final AtomicLongArray[] stripes;
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+    private final LongAccumulator intervalMax = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * 上一次区间快照时的累积计数和累积值，只由读取区间快照的线程访问
+     */
+    private long[] intervalStartCounts;
+    private long intervalStartSum;
+
+    /**
+     * 创建一个默认精度的直方图。
+     */
+    public LatencyHistogram() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * 创建一个直方图。
+     *
+     * @param precision 精度（1~10），相对误差不超过 {@code 2^-precision}
+     */
+    public LatencyHistogram(int precision) {
+        if (precision < 1 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("precision must be between 1 and " + MAX_PRECISION + ": " + precision);
+        }
+        this.precision = precision;
+        this.subBucketCount = 1 << precision;
+        int bucketCount = (64 - precision) * subBucketCount;
+        this.stripes = new AtomicLongArray[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new AtomicLongArray(bucketCount);
+        }
+    }
+
+    /**
+     * 记录一个值（负值按 0 记录）。
+     */
+    public void record(long value) {
+        long v = Math.max(0L, value);
+        stripes[stripeIndex()].incrementAndGet(bucketIndex(v));
+        sum.add(v);
+        max.accumulate(v);
+        intervalMax.accumulate(v);
+    }
+
+    /**
+     * 记录一个值出现了多次（负值按 0 记录），用于按采样间隔加权记录被采样的值。
+     *
+     * @param value 值
+     * @param count 次数
+     */
+    public void record(long value, long count) {
+        if (count <= 0L) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+        long v = Math.max(0L, value);
+        stripes[stripeIndex()].addAndGet(bucketIndex(v), count);
+        sum.add(v * count);
+        max.accumulate(v);
+        intervalMax.accumulate(v);
+    }
+
+    /**
+     * 返回累积的快照。
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this, cumulativeCounts(), sum.sum(), max.get());
+    }
+
+    /**
+     * 返回上一次区间快照（或创建直方图）之后的区间快照，并开始新的区间（读取即重置）。
+     * <p/>
+     * 区间的计数由累积计数相减得到，不会丢失或重复计数；与记录并发时，
+     * 区间的最大值和累积值可能计入相邻的区间。
+     */
+    public synchronized Snapshot intervalSnapshot() {
+        long[] counts = cumulativeCounts();
+        long cumulativeSum = sum.sum();
+        long intervalMaxValue = intervalMax.getThenReset();
+        long[] intervalCounts = counts.clone();
+        if (intervalStartCounts != null) {
+            for (int i = 0; i < intervalCounts.length; i++) {
+                intervalCounts[i] -= intervalStartCounts[i];
+            }
+        }
+        long intervalSum = cumulativeSum - intervalStartSum;
+        intervalStartCounts = counts;
+        intervalStartSum = cumulativeSum;
+        return new Snapshot(this, intervalCounts, intervalSum, intervalMaxValue);
+    }
+
+    private long[] cumulativeCounts() {
+        long[] counts = new long[stripes[0].length()];
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += stripe.get(i);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 返回精度。
+     */
+    public int precision() {
+        return precision;
+    }
+
+    /**
+     * 返回累积记录的值之和。
+     */
+    public long sum() {
+        return sum.sum();
+    }
+
+    /**
+     * 返回累积记录的最大值。
+     */
+    public long max() {
+        return max.get();
+    }
+
+    int bucketIndex(long value) {
+        if (value < subBucketCount) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int block = exponent - precision + 1;
+        return block * subBucketCount + (int) (value >>> (exponent - precision)) - subBucketCount;
+    }
+
+    /**
+     * 返回桶内的最大值。
+     */
+    long highestValueOf(int bucketIndex) {
+        if (bucketIndex < subBucketCount) {
+            return bucketIndex;
+        }
+        int block = bucketIndex / subBucketCount;
+        long lowest = (long) (subBucketCount + bucketIndex % subBucketCount) << (block - 1);
+        return lowest + (1L << (block - 1)) - 1L;
+    }
+
+    private static int stripeIndex() {
+        long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32));
+        h ^= h >>> 16;
+        return h & (STRIPES - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram{" + snapshot() + '}';
+    }
+
+    /**
+     * 直方图的不可变快照。
+     */
+    public static final class Snapshot {
+        private final LatencyHistogram histogram;
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(LatencyHistogram histogram, long[] counts, long sum, long max) {
+            this.histogram = histogram;
+            this.counts = counts;
+            long total = 0L;
+            for (long c : counts) {
+                total += c;
+            }
+            this.count = total;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long max() {
+            return max;
+        }
+
+        public long sum() {
+            return sum;
+        }
+
+        public double mean() {
+            return (count == 0L) ? 0.0 : (double) sum / count;
+        }
+
+        /**
+         * 返回百分位数（不超过最大值的桶上界），没有记录时返回 0。
+         *
+         * @param percentile 百分位（0~100），如 99.9
+         */
+        public long percentile(double percentile) {
+            if (count == 0L) {
+                return 0L;
+            }
+            long rank = Math.max(1L, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * count));
+            long seen = 0L;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(histogram.highestValueOf(i), max);
+                }
+            }
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + ", p50=" + percentile(50.0) + ", p90=" + percentile(90.0)
+                    + ", p99=" + percentile(99.0) + ", p999=" + percentile(99.9) + ", max=" + max;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.common.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.Ticker;
+
+/**
+ * 速率计：累计次数，并按滑动窗口计算每秒的速率（如 QPS）。
+ * <p/>
+ * 由按秒分桶的 {@link RollingCounter}（最近一分钟）和累计的 {@link LongAdder} 组成：
+ * 记录操作无锁、不分配内存、没有后台线程，桶在创建时分配并循环使用；读取时只累加已结束的桶，最多滞后一秒。
+ * <ul>
+ * <li>{@link #instantRate()}：上一秒的次数</li>
+ * <li>{@link #oneMinuteRate()}：最近一分钟的平均每秒次数</li>
+ * <li>{@link #peakRate()}：最近一分钟内次数最多的一秒的次数</li>
+ * </ul>
+ *
+ * @see MetricsRegistry#meter
+ * @since 2026-10-17
+ */
+public final class Meter {
+    /**
+     * 滑动窗口的秒数
+     */
+    static final int WINDOW_SECONDS = 60;
+
+    private final MetricKey key;
+    private final LongAdder count = new LongAdder();
+    private final RollingCounter perSecond;
+
+    Meter(MetricKey key, Ticker ticker) {
+        this.key = key;
+        this.perSecond = new RollingCounter(1L, TimeUnit.SECONDS, WINDOW_SECONDS, ticker);
+    }
+
+    public MetricKey key() {
+        return key;
+    }
+
+    public void mark() {
+        mark(1L);
+    }
+
+    public void mark(long n) {
+        count.add(n);
+        perSecond.add(n);
+    }
+
+    /**
+     * 返回累计的次数。
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * 返回瞬时速率：上一秒的次数。
+     */
+    public long instantRate() {
+        return perSecond.sum(1);
+    }
+
+    /**
+     * 返回最近一分钟的平均每秒次数。
+     */
+    public double oneMinuteRate() {
+        return (double) perSecond.sum(WINDOW_SECONDS) / WINDOW_SECONDS;
+    }
+
+    /**
+     * 返回峰值速率：最近一分钟内次数最多的一秒的次数。
+     */
+    public long peakRate() {
+        return perSecond.max(WINDOW_SECONDS);
+    }
+
+    /**
+     * 返回当前（尚未结束的）一秒内的次数，可用于并发限流等需要实时数据的场景。
+     */
+    public long currentSecondCount() {
+        return perSecond.current();
+    }
+
+    @Override
+    public String toString() {
+        return key + "{count=" + count()
+                + ", instantRate=" + instantRate()
+                + ", oneMinuteRate=" + oneMinuteRate()
+                + ", peakRate=" + peakRate()
+                + '}';
+    }
+}
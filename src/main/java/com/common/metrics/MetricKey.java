@@ -0,0 +1,118 @@
+package com.common.metrics;
+
+import java.util.Arrays;
+
+/**
+ * 指标的键：指标名称和按维度的键排序的维度列表（{@literal <key, value>}），不可变。
+ * <p/>
+ * 维度的顺序不影响相等性；哈希值在创建时计算，作为 {@link MetricsRegistry} 的映射键时查找不分配对象。
+ *
+ * @since 2026-10-17
+ */
+public final class MetricKey {
+    private static final String[] NO_TAGS = new String[0];
+
+    private final String name;
+    /**
+     * 维度的键和值交替排列，按键排序
+     */
+    private final String[] tags;
+    private final int hashCode;
+
+    private MetricKey(String name, String[] tags) {
+        this.name = name;
+        this.tags = tags;
+        this.hashCode = 31 * name.hashCode() + Arrays.hashCode(tags);
+    }
+
+    /**
+     * 返回指标的键。
+     *
+     * @param name      指标名称
+     * @param keyValues 维度的键和值交替排列，如 {@code "method", "get", "status", "ok"}
+     * @throws IllegalArgumentException 名称或维度的键、值为 {@code null}，维度的个数为奇数，或维度的键重复
+     */
+    public static MetricKey of(String name, String... keyValues) {
+        if (name == null) {
+            throw new IllegalArgumentException("name must be not null");
+        }
+        if (keyValues == null || keyValues.length == 0) {
+            return new MetricKey(name, NO_TAGS);
+        }
+        if (keyValues.length % 2 != 0) {
+            throw new IllegalArgumentException("keyValues must be key-value pairs: " + Arrays.toString(keyValues));
+        }
+        int size = keyValues.length / 2;
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            if (keyValues[2 * i] == null || keyValues[2 * i + 1] == null) {
+                throw new IllegalArgumentException("tag must be not null: " + Arrays.toString(keyValues));
+            }
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> keyValues[2 * a].compareTo(keyValues[2 * b]));
+        String[] tags = new String[keyValues.length];
+        for (int i = 0; i < size; i++) {
+            tags[2 * i] = keyValues[2 * order[i]];
+            tags[2 * i + 1] = keyValues[2 * order[i] + 1];
+            if (i > 0 && tags[2 * i].equals(tags[2 * i - 2])) {
+                throw new IllegalArgumentException("duplicate tag key: " + tags[2 * i]);
+            }
+        }
+        return new MetricKey(name, tags);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * 返回维度的个数。
+     */
+    public int tagCount() {
+        return tags.length / 2;
+    }
+
+    /**
+     * 返回第 {@code index} 个维度（按键排序）的键。
+     */
+    public String tagKey(int index) {
+        return tags[2 * index];
+    }
+
+    /**
+     * 返回第 {@code index} 个维度（按键排序）的值。
+     */
+    public String tagValue(int index) {
+        return tags[2 * index + 1];
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof MetricKey)) {
+            return false;
+        }
+        MetricKey that = (MetricKey) obj;
+        return hashCode == that.hashCode && name.equals(that.name) && Arrays.equals(tags, that.tags);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(name).append('{');
+        for (int i = 0; i < tags.length; i += 2) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(tags[i]).append('=').append(tags[i + 1]);
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,167 @@
+package com.common.metrics;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.base.Ticker;
+
+/**
+ * 进程内的指标注册表：按 {@link MetricKey}（指标名称和维度列表）保存计数器、速率计和响应时间聚合器。
+ * <p/>
+ * 查找已注册的指标只读 {@link ConcurrentHashMap}，不加锁；首次注册时才创建指标。
+ * 记录到指标（{@link Counter#increment()}、{@link Meter#mark()}、{@link Timer#record(long)}）无锁、
+ * 不分配内存（速率计的桶在创建时分配并循环使用），
+ * 热点路径上应当查找一次并持有指标的引用，而不是每次记录时都创建键并查找。
+ *
+ * @since 2026-10-17
+ */
+public final class MetricsRegistry {
+    private static final MetricsRegistry DEFAULT_REGISTRY = new MetricsRegistry();
+
+    private final int histogramPrecision;
+    private final Ticker ticker;
+    private final ConcurrentMap<MetricKey, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<MetricKey, Meter> meters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<MetricKey, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * 创建一个注册表，响应时间聚合器的直方图使用默认精度。
+     */
+    public MetricsRegistry() {
+        this(LatencyHistogram.DEFAULT_PRECISION);
+    }
+
+    /**
+     * 创建一个注册表。
+     *
+     * @param histogramPrecision 响应时间聚合器的直方图精度（1~10），相对误差不超过 {@code 2^-precision}；
+     *                           每个聚合器的内存随精度翻倍
+     */
+    public MetricsRegistry(int histogramPrecision) {
+        this(histogramPrecision, Ticker.systemTicker());
+    }
+
+    MetricsRegistry(int histogramPrecision, Ticker ticker) {
+        if (histogramPrecision < 1 || histogramPrecision > LatencyHistogram.MAX_PRECISION) {
+            throw new IllegalArgumentException("histogramPrecision must be between 1 and "
+                    + LatencyHistogram.MAX_PRECISION + ": " + histogramPrecision);
+        }
+        this.histogramPrecision = histogramPrecision;
+        this.ticker = ticker;
+    }
+
+    /**
+     * 返回进程内共享的默认注册表。
+     */
+    public static MetricsRegistry defaultRegistry() {
+        return DEFAULT_REGISTRY;
+    }
+
+    /**
+     * 返回计数器，不存在时注册一个新的计数器。
+     */
+    public Counter counter(MetricKey key) {
+        if (key == null) {
+            throw new IllegalArgumentException("key must be not null");
+        }
+        // 先查找，避免 computeIfAbsent 在已存在时锁住桶
+        Counter counter = counters.get(key);
+        return (counter != null) ? counter : counters.computeIfAbsent(key, Counter::new);
+    }
+
+    /**
+     * 返回计数器，不存在时注册一个新的计数器。
+     *
+     * @param name      指标名称
+     * @param keyValues 维度的键和值交替排列
+     */
+    public Counter counter(String name, String... keyValues) {
+        return counter(MetricKey.of(name, keyValues));
+    }
+
+    /**
+     * 返回速率计，不存在时注册一个新的速率计。
+     */
+    public Meter meter(MetricKey key) {
+        if (key == null) {
+            throw new IllegalArgumentException("key must be not null");
+        }
+        Meter meter = meters.get(key);
+        return (meter != null) ? meter : meters.computeIfAbsent(key, k -> new Meter(k, ticker));
+    }
+
+    /**
+     * 返回速率计，不存在时注册一个新的速率计。
+     *
+     * @param name      指标名称
+     * @param keyValues 维度的键和值交替排列
+     */
+    public Meter meter(String name, String... keyValues) {
+        return meter(MetricKey.of(name, keyValues));
+    }
+
+    /**
+     * 返回响应时间聚合器，不存在时注册一个新的聚合器。
+     */
+    public Timer timer(MetricKey key) {
+        if (key == null) {
+            throw new IllegalArgumentException("key must be not null");
+        }
+        Timer timer = timers.get(key);
+        return (timer != null) ? timer : timers.computeIfAbsent(key, k -> new Timer(k, histogramPrecision));
+    }
+
+    /**
+     * 返回响应时间聚合器，不存在时注册一个新的聚合器。
+     *
+     * @param name      指标名称
+     * @param keyValues 维度的键和值交替排列
+     */
+    public Timer timer(String name, String... keyValues) {
+        return timer(MetricKey.of(name, keyValues));
+    }
+
+    /**
+     * 返回所有计数器（只读视图）。
+     */
+    public Collection<Counter> counters() {
+        return Collections.unmodifiableCollection(counters.values());
+    }
+
+    /**
+     * 返回所有速率计（只读视图）。
+     */
+    public Collection<Meter> meters() {
+        return Collections.unmodifiableCollection(meters.values());
+    }
+
+    /**
+     * 返回所有响应时间聚合器（只读视图）。
+     */
+    public Collection<Timer> timers() {
+        return Collections.unmodifiableCollection(timers.values());
+    }
+
+    /**
+     * 移除所有指标；已持有的指标引用仍可记录，但不再出现在注册表中。
+     */
+    public void clear() {
+        counters.clear();
+        meters.clear();
+        timers.clear();
+    }
+
+    /**
+     * 返回响应时间聚合器的直方图精度。
+     */
+    public int histogramPrecision() {
+        return histogramPrecision;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsRegistry{counters=" + counters.size() + ", meters=" + meters.size() + ", timers=" + timers.size() + '}';
+    }
+}
@@ -0,0 +1,168 @@
+package com.common.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.Ticker;
+
+/**
+ * 滑动窗口计数器：按固定时长分桶的环形缓冲区，每个桶是一个分条（striped）的 {@link LongAdder}。
+ * <p/>
+ * 所有的桶在创建时分配，之后循环使用，记录操作无锁、不等待、没有后台线程。桶的计数器从不清零：
+ * 写入者发现桶已过期时，记下计数器当前的累计值作为新周期的基数，用 CAS 认领后发布基数和新的周期；
+ * 其它写入者在此期间直接累加，读取时减去基数。
+ * 读取时只累加已结束的桶，因此窗口的统计值是精确的，但最多滞后一个桶的时长。
+ *
+ * @since 2026-10-17
+ */
+public final class RollingCounter {
+    /**
+     * 桶正在切换周期，写入者直接累加，读取者视为空桶
+     */
+    private static final long RESETTING = Long.MIN_VALUE;
+    /**
+     * 桶还没有写入过
+     */
+    private static final long UNUSED = Long.MIN_VALUE + 1L;
+
+    private final Ticker ticker;
+    private final long bucketNanos;
+    /**
+     * 每个桶当前所属的周期
+     */
+    private final AtomicLongArray epochs;
+    /**
+     * 每个桶在当前周期开始时的累计值
+     */
+    private final AtomicLongArray bases;
+    private final LongAdder[] adders;
+
+    /**
+     * 创建一个滑动窗口计数器。
+     *
+     * @param bucketDuration 每个桶的时长
+     * @param unit           时长的单位
+     * @param windowBuckets  最大窗口包含的桶数
+     */
+    public RollingCounter(long bucketDuration, TimeUnit unit, int windowBuckets) {
+        this(bucketDuration, unit, windowBuckets, Ticker.systemTicker());
+    }
+
+    /**
+     * 创建一个滑动窗口计数器。
+     *
+     * @param bucketDuration 每个桶的时长
+     * @param unit           时长的单位
+     * @param windowBuckets  最大窗口包含的桶数
+     * @param ticker         时间源
+     */
+    public RollingCounter(long bucketDuration, TimeUnit unit, int windowBuckets, Ticker ticker) {
+        if (bucketDuration <= 0L || windowBuckets <= 0) {
+            throw new IllegalArgumentException("bucketDuration and windowBuckets must be positive");
+        }
+        if (unit == null || ticker == null) {
+            throw new IllegalArgumentException("unit and ticker must be not null");
+        }
+        this.ticker = ticker;
+        this.bucketNanos = unit.toNanos(bucketDuration);
+        // 额外一个桶用于当前正在写入的周期
+        this.epochs = new AtomicLongArray(windowBuckets + 1);
+        this.bases = new AtomicLongArray(windowBuckets + 1);
+        this.adders = new LongAdder[windowBuckets + 1];
+        for (int i = 0; i < adders.length; i++) {
+            epochs.set(i, UNUSED);
+            adders[i] = new LongAdder();
+        }
+    }
+
+    public void increment() {
+        add(1L);
+    }
+
+    public void add(long x) {
+        long epoch = Math.floorDiv(ticker.read(), bucketNanos);
+        int index = index(epoch);
+        while (true) {
+            long bucketEpoch = epochs.get(index);
+            if (bucketEpoch == RESETTING || bucketEpoch >= epoch) {
+                // 切换中的桶和落后的写入者（极少见）计入较新的周期
+                adders[index].add(x);
+                return;
+            }
+            // 先记下基数再认领，认领之后的写入都计入新的周期
+            long base = adders[index].sum();
+            if (epochs.compareAndSet(index, bucketEpoch, RESETTING)) {
+                bases.set(index, base);
+                epochs.set(index, epoch);
+                adders[index].add(x);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 返回最近若干个已结束的桶的累计值。
+     *
+     * @param windowBuckets 桶数，不能超过创建时的最大窗口
+     */
+    public long sum(int windowBuckets) {
+        if (windowBuckets <= 0 || windowBuckets >= adders.length) {
+            throw new IllegalArgumentException("windowBuckets must be between 1 and " + (adders.length - 1));
+        }
+        long current = Math.floorDiv(ticker.read(), bucketNanos);
+        long sum = 0L;
+        for (long epoch = current - windowBuckets; epoch < current; epoch++) {
+            sum += sum(epoch);
+        }
+        return sum;
+    }
+
+    /**
+     * 返回最近若干个已结束的桶中单个桶的最大值。
+     *
+     * @param windowBuckets 桶数，不能超过创建时的最大窗口
+     */
+    public long max(int windowBuckets) {
+        if (windowBuckets <= 0 || windowBuckets >= adders.length) {
+            throw new IllegalArgumentException("windowBuckets must be between 1 and " + (adders.length - 1));
+        }
+        long current = Math.floorDiv(ticker.read(), bucketNanos);
+        long max = 0L;
+        for (long epoch = current - windowBuckets; epoch < current; epoch++) {
+            max = Math.max(max, sum(epoch));
+        }
+        return max;
+    }
+
+    /**
+     * 返回当前（尚未结束的）桶的累计值。
+     */
+    public long current() {
+        return sum(Math.floorDiv(ticker.read(), bucketNanos));
+    }
+
+    /**
+     * 返回每个桶的时长（纳秒）。
+     */
+    public long bucketNanos() {
+        return bucketNanos;
+    }
+
+    /**
+     * 返回指定周期的桶的累计值，桶已被其它周期占用或正在切换周期时返回 0。
+     */
+    private long sum(long epoch) {
+        int index = index(epoch);
+        if (epochs.get(index) != epoch) {
+            return 0L;
+        }
+        // 基数在周期之前发布；读取期间桶被切换到新的周期时丢弃读到的值
+        long value = adders[index].sum() - bases.get(index);
+        return (epochs.get(index) == epoch) ? value : 0L;
+    }
+
+    private int index(long epoch) {
+        return (int) Math.floorMod(epoch, (long) adders.length);
+    }
+}
@@ -0,0 +1,112 @@
+package com.common.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 响应时间（RT）的聚合器：把每次耗时记录到固定内存的对数线性直方图，报告次数、平均值、百分位数和最大值。
+ * <p/>
+ * 平均值掩盖了尾部延迟，因此除了累积的快照（{@link #snapshot()}），还提供读取即重置的区间快照
+ * （{@link #intervalSnapshot()}），用于按周期上报 p50/p90/p99/p999/max。
+ * 记录操作无锁、不分配内存，随核数线性扩展。
+ *
+ * @see MetricsRegistry#timer
+ * @see LatencyHistogram
+ * @since 2026-10-17
+ */
+public final class Timer {
+    private final MetricKey key;
+    private final LatencyHistogram histogram;
+
+    Timer(MetricKey key, int precision) {
+        this.key = key;
+        this.histogram = new LatencyHistogram(precision);
+    }
+
+    public MetricKey key() {
+        return key;
+    }
+
+    /**
+     * 记录一次耗时（负值按 0 记录）。
+     *
+     * @param nanos 耗时（纳秒）
+     */
+    public void record(long nanos) {
+        histogram.record(nanos);
+    }
+
+    /**
+     * 记录一次被采样的耗时，按采样间隔加权（负值按 0 记录）。
+     *
+     * @param nanos  耗时（纳秒）
+     * @param weight 采样间隔，即这次耗时代表的调用次数
+     */
+    public void record(long nanos, long weight) {
+        histogram.record(nanos, weight);
+    }
+
+    /**
+     * 返回累积的快照（耗时的单位为纳秒）。
+     */
+    public LatencyHistogram.Snapshot snapshot() {
+        return histogram.snapshot();
+    }
+
+    /**
+     * 返回上一次区间快照之后的区间快照（耗时的单位为纳秒），并开始新的区间。
+     *
+     * @see LatencyHistogram#intervalSnapshot()
+     */
+    public LatencyHistogram.Snapshot intervalSnapshot() {
+        return histogram.intervalSnapshot();
+    }
+
+    /**
+     * 返回累积记录的次数。
+     */
+    public long count() {
+        return histogram.snapshot().count();
+    }
+
+    /**
+     * 返回累积的总耗时（纳秒）。
+     */
+    public long totalNanos() {
+        return histogram.sum();
+    }
+
+    /**
+     * 返回最大耗时（纳秒）。
+     */
+    public long maxNanos() {
+        return histogram.max();
+    }
+
+    /**
+     * 返回平均耗时（纳秒），没有记录时返回 0。
+     */
+    public double meanNanos() {
+        return histogram.snapshot().mean();
+    }
+
+    /**
+     * 返回直方图的精度。
+     */
+    public int precision() {
+        return histogram.precision();
+    }
+
+    @Override
+    public String toString() {
+        LatencyHistogram.Snapshot snapshot = snapshot();
+        long millis = TimeUnit.MILLISECONDS.toNanos(1L);
+        return key + "{count=" + snapshot.count()
+                + ", meanMillis=" + snapshot.mean() / millis
+                + ", p50Millis=" + (double) snapshot.percentile(50.0) / millis
+                + ", p90Millis=" + (double) snapshot.percentile(90.0) / millis
+                + ", p99Millis=" + (double) snapshot.percentile(99.0) / millis
+                + ", p999Millis=" + (double) snapshot.percentile(99.9) / millis
+                + ", maxMillis=" + (double) snapshot.max() / millis
+                + '}';
+    }
+}
@@ -0,0 +1,141 @@
+package com.common.aspect;
+
+import java.lang.reflect.Method;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.aspectj.lang.reflect.SourceLocation;
+import org.aspectj.runtime.internal.AroundClosure;
+
+/**
+ * 测试用的方法执行连接点：{@link #proceed()} 执行给定的目标方法体，同时作为自己的方法签名。
+ *
+ * @since 2026-10-17
+ */
+final class MethodJoinPoint implements ProceedingJoinPoint, MethodSignature {
+    private final Method method;
+    private final Body body;
+
+    MethodJoinPoint(Method method, Body body) {
+        this.method = method;
+        this.body = body;
+    }
+
+    @Override
+    public Object proceed() throws Throwable {
+        return body.proceed();
+    }
+
+    @Override
+    public Object proceed(Object[] args) throws Throwable {
+        return body.proceed();
+    }
+
+    @Override
+    public void set$AroundClosure(AroundClosure arc) {
+    }
+
+    @Override
+    public Signature getSignature() {
+        return this;
+    }
+
+    @Override
+    public Method getMethod() {
+        return method;
+    }
+
+    @Override
+    public Class getReturnType() {
+        return method.getReturnType();
+    }
+
+    @Override
+    public Class[] getParameterTypes() {
+        return method.getParameterTypes();
+    }
+
+    @Override
+    public String[] getParameterNames() {
+        return new String[0];
+    }
+
+    @Override
+    public Class[] getExceptionTypes() {
+        return method.getExceptionTypes();
+    }
+
+    @Override
+    public String getName() {
+        return method.getName();
+    }
+
+    @Override
+    public int getModifiers() {
+        return method.getModifiers();
+    }
+
+    @Override
+    public Class getDeclaringType() {
+        return method.getDeclaringClass();
+    }
+
+    @Override
+    public String getDeclaringTypeName() {
+        return method.getDeclaringClass().getName();
+    }
+
+    @Override
+    public String toShortString() {
+        return method.getName();
+    }
+
+    @Override
+    public String toLongString() {
+        return method.toString();
+    }
+
+    @Override
+    public Object getThis() {
+        return null;
+    }
+
+    @Override
+    public Object getTarget() {
+        return null;
+    }
+
+    @Override
+    public Object[] getArgs() {
+        return new Object[0];
+    }
+
+    @Override
+    public SourceLocation getSourceLocation() {
+        return null;
+    }
+
+    @Override
+    public String getKind() {
+        return JoinPoint.METHOD_EXECUTION;
+    }
+
+    @Override
+    public JoinPoint.StaticPart getStaticPart() {
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return method.toString();
+    }
+
+    /**
+     * 目标方法体。
+     */
+    interface Body {
+        Object proceed() throws Throwable;
+    }
+}
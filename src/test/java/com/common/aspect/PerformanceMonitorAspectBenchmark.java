@@ -0,0 +1,147 @@
+package com.common.aspect;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import com.common.annotation.FailQpsRtStats;
+import com.common.annotation.QpsRtStats;
+import com.common.metrics.MetricsRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * {@link PerformanceMonitorAspect} 每次调用的开销在不同采样间隔下的基准测试。
+ * <p/>
+ * {@code baseline} 直接调用目标方法，{@code statsQpsRt}、{@code statsFailQpsRt} 经过切面调用，两者之差即切面的开销。
+ * 不在默认的构建中编译，运行方式：
+ * <pre>
+ * mvn -P jmh clean test-compile exec:exec
+ * </pre>
+ * 参考结果（JDK 1.8.0_392，4 个线程跑在 1 个 vCPU 上，线程争用放大了绝对值，只适合横向比较；ns/op，越小越好）：
+ * <pre>
+ * Benchmark       (samplingInterval)  Cnt    Score     Error
+ * baseline                       N/A    5   19.632 ±  12.472
+ * statsQpsRt                       1    5  880.913 ± 123.902
+ * statsQpsRt                      16    5  414.861 ±  64.460
+ * statsQpsRt                      64    5  372.693 ±  28.482
+ * statsFailQpsRt                   1    5  730.135 ± 200.219
+ * statsFailQpsRt                  16    5  409.376 ± 170.504
+ * statsFailQpsRt                  64    5  422.863 ± 155.777
+ * </pre>
+ *
+ * @since 2026-10-17
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class PerformanceMonitorAspectBenchmark {
+
+    /**
+     * 不分配对象的目标方法体
+     */
+    private static final MethodJoinPoint.Body RESULT = () -> "ok";
+
+    @Benchmark
+    public Object baseline(BaselineState state) throws Throwable {
+        return state.joinPoint.proceed();
+    }
+
+    @Benchmark
+    public Object statsQpsRt(AspectState state) throws Throwable {
+        return state.aspect.statsQpsRtAdvice(state.qpsRtJoinPoint, state.qpsRtStats);
+    }
+
+    @Benchmark
+    public Object statsFailQpsRt(AspectState state) throws Throwable {
+        return state.aspect.statsFailQpsRtAdvice(state.failQpsRtJoinPoint, state.failQpsRtStats);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PerformanceMonitorAspectBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * 直接调用目标方法，与采样间隔无关。
+     */
+    @State(Scope.Benchmark)
+    public static class BaselineState {
+        MethodJoinPoint joinPoint;
+
+        @Setup
+        public void setUp() throws NoSuchMethodException {
+            joinPoint = new MethodJoinPoint(MonitoredService.class.getDeclaredMethod("qpsRtEvery1"), RESULT);
+        }
+    }
+
+    /**
+     * 经过切面调用，按采样间隔选择被监控的方法。
+     */
+    @State(Scope.Benchmark)
+    public static class AspectState {
+        @Param({"1", "16", "64"})
+        int samplingInterval;
+
+        PerformanceMonitorAspect aspect;
+        MethodJoinPoint qpsRtJoinPoint;
+        QpsRtStats qpsRtStats;
+        MethodJoinPoint failQpsRtJoinPoint;
+        FailQpsRtStats failQpsRtStats;
+
+        @Setup
+        public void setUp() throws NoSuchMethodException {
+            aspect = new PerformanceMonitorAspect();
+            aspect.setMetricsRegistry(new MetricsRegistry());
+            Method qpsRt = MonitoredService.class.getDeclaredMethod("qpsRtEvery" + samplingInterval);
+            qpsRtJoinPoint = new MethodJoinPoint(qpsRt, RESULT);
+            qpsRtStats = qpsRt.getAnnotation(QpsRtStats.class);
+            Method failQpsRt = MonitoredService.class.getDeclaredMethod("failQpsRtEvery" + samplingInterval);
+            failQpsRtJoinPoint = new MethodJoinPoint(failQpsRt, RESULT);
+            failQpsRtStats = failQpsRt.getAnnotation(FailQpsRtStats.class);
+        }
+    }
+
+    static final class MonitoredService {
+
+        @QpsRtStats(metric = "bench.qpsRt1")
+        void qpsRtEvery1() {
+        }
+
+        @QpsRtStats(metric = "bench.qpsRt16", samplingInterval = 16)
+        void qpsRtEvery16() {
+        }
+
+        @QpsRtStats(metric = "bench.qpsRt64", samplingInterval = 64)
+        void qpsRtEvery64() {
+        }
+
+        @FailQpsRtStats(metric = "bench.failQpsRt1", expectedReturnValue = "null")
+        void failQpsRtEvery1() {
+        }
+
+        @FailQpsRtStats(metric = "bench.failQpsRt16", expectedReturnValue = "null", samplingInterval = 16)
+        void failQpsRtEvery16() {
+        }
+
+        @FailQpsRtStats(metric = "bench.failQpsRt64", expectedReturnValue = "null", samplingInterval = 64)
+        void failQpsRtEvery64() {
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.common.aspect;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import com.common.annotation.FailQpsRtStats;
+import com.common.annotation.FailStats;
+import com.common.annotation.KVPair;
+import com.common.annotation.QpsRtStats;
+import com.common.metrics.MetricsRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link PerformanceMonitorAspect}.
+ *
+ * @since 2026-10-17
+ */
+public class PerformanceMonitorAspectTest {
+
+    @Test(description = "记录调用次数和响应时间，抛出异常时也记录")
+    public void statsQpsRt() throws Throwable {
+        MetricsRegistry registry = new MetricsRegistry();
+        PerformanceMonitorAspect aspect = new PerformanceMonitorAspect();
+        aspect.setMetricsRegistry(registry);
+        QpsRtStats stats = annotation("query", QpsRtStats.class);
+
+        final int[] calls = new int[1];
+        ProceedingJoinPoint pjp = joinPoint("query", () -> {
+            if (calls[0]++ == 0) {
+                return "ok";
+            }
+            throw new IllegalStateException("boom");
+        });
+        assertThat(aspect.statsQpsRtAdvice(pjp, stats)).isEqualTo("ok");
+        try {
+            aspect.statsQpsRtAdvice(pjp, stats);
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            // 异常原样抛出
+        }
+
+        assertThat(registry.meter("demo.query.qps", "api", "query").count()).isEqualTo(2L);
+        assertThat(registry.timer("demo.query.rt", "api", "query", "unit", "ns").count()).isEqualTo(2L);
+        assertThat(registry.meters()).hasSize(1);
+        assertThat(registry.counters()).isEmpty();
+    }
+
+    @Test(description = "返回期望的失败值时记录失败次数")
+    public void statsFail() throws Throwable {
+        MetricsRegistry registry = new MetricsRegistry();
+        PerformanceMonitorAspect aspect = new PerformanceMonitorAspect();
+        aspect.setMetricsRegistry(registry);
+        FailStats stats = annotation("update", FailStats.class);
+
+        ProceedingJoinPoint pjp = joinPoint("update", true, false, false);
+        for (int i = 0; i < 3; i++) {
+            aspect.statsFailAdvice(pjp, stats);
+        }
+        assertThat(registry.counter("demo.update.fail").count()).isEqualTo(2L);
+    }
+
+    @Test(description = "调用次数和失败次数分别记录，关闭监控时不记录")
+    public void statsFailQpsRt() throws Throwable {
+        MetricsRegistry registry = new MetricsRegistry();
+        PerformanceMonitorAspect aspect = new PerformanceMonitorAspect();
+        aspect.setMetricsRegistry(registry);
+
+        ProceedingJoinPoint pjp = joinPoint("delete", null, "ok", null);
+        FailQpsRtStats stats = annotation("delete", FailQpsRtStats.class);
+        for (int i = 0; i < 3; i++) {
+            aspect.statsFailQpsRtAdvice(pjp, stats);
+        }
+        assertThat(registry.meter("demo.delete.qps").count()).isEqualTo(3L);
+        assertThat(registry.counter("demo.delete.fail").count()).isEqualTo(2L);
+        assertThat(registry.timer("demo.delete.rt").count()).isEqualTo(3L);
+
+        aspect.statsFailQpsRtAdvice(joinPoint("disabled", (Object) null), annotation("disabled", FailQpsRtStats.class));
+        assertThat(registry.meters()).hasSize(1);
+        assertThat(registry.counters()).hasSize(1);
+        assertThat(registry.timers()).hasSize(1);
+    }
+
+    @Test(description = "指标度量没有定义时依次取方法签名、类名和方法名；每个方法只预编译一次")
+    public void metricNameFallback() throws Throwable {
+        MetricsRegistry registry = new MetricsRegistry();
+        PerformanceMonitorAspect aspect = new PerformanceMonitorAspect();
+        aspect.setMetricsRegistry(registry);
+
+        aspect.statsQpsRtAdvice(joinPoint("signed", (Object) null), annotation("signed", QpsRtStats.class));
+        aspect.statsQpsRtAdvice(joinPoint("unnamed", (Object) null), annotation("unnamed", QpsRtStats.class));
+        assertThat(registry.meter("MonitoredService.signed().qps").count()).isEqualTo(1L);
+        assertThat(registry.meter("MonitoredService.unnamed.qps").count()).isEqualTo(1L);
+
+        // 预编译之后不再读取注解
+        QpsRtStats stats = (QpsRtStats) Proxy.newProxyInstance(QpsRtStats.class.getClassLoader(),
+                new Class<?>[]{QpsRtStats.class}, (proxy, method, args) -> {
+                    throw new AssertionError("annotation read: " + method.getName());
+                });
+        aspect.statsQpsRtAdvice(joinPoint("unnamed", (Object) null), stats);
+        assertThat(registry.meter("MonitoredService.unnamed.qps").count()).isEqualTo(2L);
+    }
+
+    @Test(description = "设置指标注册表之后，新的调用记录到新的注册表")
+    public void switchRegistry() throws Throwable {
+        MetricsRegistry oldRegistry = new MetricsRegistry();
+        MetricsRegistry newRegistry = new MetricsRegistry();
+        PerformanceMonitorAspect aspect = new PerformanceMonitorAspect();
+        aspect.setMetricsRegistry(oldRegistry);
+
+        ProceedingJoinPoint pjp = joinPoint("delete", null, "ok", null);
+        FailQpsRtStats stats = annotation("delete", FailQpsRtStats.class);
+        aspect.statsFailQpsRtAdvice(pjp, stats);
+        aspect.setMetricsRegistry(newRegistry);
+        assertThat(aspect.getMetricsRegistry()).isSameAs(newRegistry);
+        aspect.statsFailQpsRtAdvice(pjp, stats);
+        aspect.statsFailQpsRtAdvice(pjp, stats);
+
+        assertThat(oldRegistry.meter("demo.delete.qps").count()).isEqualTo(1L);
+        assertThat(oldRegistry.counter("demo.delete.fail").count()).isEqualTo(1L);
+        assertThat(newRegistry.meter("demo.delete.qps").count()).isEqualTo(2L);
+        assertThat(newRegistry.counter("demo.delete.fail").count()).isEqualTo(1L);
+    }
+
+    @Test(description = "采样时调用次数和失败次数精确统计，响应时间按采样间隔加权")
+    public void sampling() throws Throwable {
+        MetricsRegistry registry = new MetricsRegistry();
+        PerformanceMonitorAspect aspect = new PerformanceMonitorAspect();
+        aspect.setMetricsRegistry(registry);
+
+        ProceedingJoinPoint sampled = joinPoint("sampled", (Object) null);
+        QpsRtStats qpsRtStats = annotation("sampled", QpsRtStats.class);
+        for (int i = 0; i < 10; i++) {
+            aspect.statsQpsRtAdvice(sampled, qpsRtStats);
+        }
+        assertThat(registry.meter("demo.sampled.qps").count()).isEqualTo(10L);
+        // 第 0、4、8 次调用被采样，每次代表 4 次调用
+        assertThat(registry.timer("demo.sampled.rt").count()).isEqualTo(12L);
+
+        // 失败的调用没有落在采样点上，也全部记录
+        ProceedingJoinPoint failed = joinPoint("sampledFail", "ok", false, false, false, "ok", false, "ok", false);
+        FailQpsRtStats failStats = annotation("sampledFail", FailQpsRtStats.class);
+        for (int i = 0; i < 8; i++) {
+            aspect.statsFailQpsRtAdvice(failed, failStats);
+        }
+        assertThat(registry.meter("demo.sampledFail.qps").count()).isEqualTo(8L);
+        assertThat(registry.counter("demo.sampledFail.fail").count()).isEqualTo(5L);
+        assertThat(registry.timer("demo.sampledFail.rt").count()).isEqualTo(8L);
+    }
+
+    @Test(description = "采样间隔向上取整为 2 的幂")
+    public void roundSamplingInterval() {
+        assertThat(MethodMonitorDescriptor.roundSamplingInterval(-1)).isEqualTo(1);
+        assertThat(MethodMonitorDescriptor.roundSamplingInterval(1)).isEqualTo(1);
+        assertThat(MethodMonitorDescriptor.roundSamplingInterval(3)).isEqualTo(4);
+        assertThat(MethodMonitorDescriptor.roundSamplingInterval(64)).isEqualTo(64);
+        assertThat(MethodMonitorDescriptor.roundSamplingInterval(65)).isEqualTo(128);
+        assertThat(MethodMonitorDescriptor.roundSamplingInterval(Integer.MAX_VALUE)).isEqualTo(1 << 30);
+    }
+
+    private static ProceedingJoinPoint joinPoint(String method, MethodJoinPoint.Body body)
+            throws NoSuchMethodException {
+        return new MethodJoinPoint(MonitoredService.class.getDeclaredMethod(method), body);
+    }
+
+    /**
+     * 依次返回给定的返回值，最后一个返回值之后重复返回最后一个。
+     */
+    private static ProceedingJoinPoint joinPoint(String method, Object... returnValues)
+            throws NoSuchMethodException {
+        final Iterator<Object> iterator = Arrays.asList(returnValues).iterator();
+        final Object[] last = new Object[1];
+        return joinPoint(method, () -> {
+            if (iterator.hasNext()) {
+                last[0] = iterator.next();
+            }
+            return last[0];
+        });
+    }
+
+    private static <A extends java.lang.annotation.Annotation> A annotation(String method, Class<A> type)
+            throws NoSuchMethodException {
+        Method m = MonitoredService.class.getDeclaredMethod(method);
+        return m.getAnnotation(type);
+    }
+
+    static final class MonitoredService {
+
+        @QpsRtStats(metric = "demo.query",
+                qpsTags = @KVPair(key = "api", value = "query"),
+                rtTags = {@KVPair(key = "unit", value = "ns"), @KVPair(key = "api", value = "query")})
+        void query() {
+        }
+
+        @QpsRtStats(methodSignature = "MonitoredService.signed()")
+        void signed() {
+        }
+
+        @QpsRtStats
+        void unnamed() {
+        }
+
+        @QpsRtStats(metric = "demo.sampled", samplingInterval = 4)
+        void sampled() {
+        }
+
+        @FailQpsRtStats(metric = "demo.sampledFail", expectedReturnValue = "false", samplingInterval = 3)
+        void sampledFail() {
+        }
+
+        @FailStats(metric = "demo.update", expectedReturnValue = "false")
+        void update() {
+        }
+
+        @FailQpsRtStats(metric = "demo.delete", expectedReturnValue = "null")
+        void delete() {
+        }
+
+        @FailQpsRtStats(metric = "demo.disabled", expectedReturnValue = "null", isMonitorEnable = false)
+        void disabled() {
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.cache.CacheLoader.InvalidCacheLoadException;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link AsyncLoadingCache}.
+ *
+ * @since 2026-10-17
+ */
+public class AsyncLoadingCacheTest {
+
+  @Test(description = "同一个键的并发请求共享同一个进行中的加载，且不阻塞调用线程")
+  public void deduplicate() {
+    AtomicInteger loadCount = new AtomicInteger();
+    Map<Integer, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+    AsyncLoadingCache<Integer, String> cache = LocalCacheFactory.newAsyncLoadingCache(
+        "asyncService", "maximumSize=100", key -> {
+          loadCount.incrementAndGet();
+          return pending.computeIfAbsent(key, k -> new CompletableFuture<>());
+        });
+    CompletableFuture<String> first = cache.get(1);
+    CompletableFuture<String> second = cache.get(1);
+    assertThat(first.isDone()).isFalse();
+    assertThat(second).isSameAs(first);
+    assertThat(cache.getIfPresent(1)).isSameAs(first);
+    assertThat(loadCount.get()).isEqualTo(1);
+
+    pending.get(1).complete("value-1");
+    assertThat(first.join()).isEqualTo("value-1");
+    assertThat(cache.get(1).join()).isEqualTo("value-1");
+    assertThat(loadCount.get()).isEqualTo(1);
+  }
+
+  @Test(description = "加载失败的结果不被缓存，下一次请求重新加载")
+  public void failure() {
+    AtomicInteger loadCount = new AtomicInteger();
+    AsyncLoadingCache<Integer, String> cache = LocalCacheFactory.newAsyncLoadingCache(
+        "asyncService", "policy=tinylfu,maximumSize=100", key -> {
+          CompletableFuture<String> future = new CompletableFuture<>();
+          if (loadCount.incrementAndGet() == 1) {
+            future.completeExceptionally(new IllegalStateException("remote unavailable"));
+          } else {
+            future.complete("value-" + key);
+          }
+          return future;
+        });
+    assertFailure(cache.get(1), IllegalStateException.class);
+    assertThat(cache.getIfPresent(1)).isNull();
+    assertThat(cache.get(1).join()).isEqualTo("value-1");
+    assertThat(loadCount.get()).isEqualTo(2);
+  }
+
+  @Test(description = "异步失败在完成时移除，发起加载失败时返回失败的结果")
+  public void asyncFailure() {
+    AtomicInteger loadCount = new AtomicInteger();
+    CompletableFuture<String> pending = new CompletableFuture<>();
+    AsyncLoadingCache<Integer, String> cache = LocalCacheFactory.newAsyncLoadingCache(
+        "asyncService", "maximumSize=100", key -> {
+          if (key < 0) {
+            throw new IllegalArgumentException("negative key");
+          }
+          loadCount.incrementAndGet();
+          return pending;
+        });
+    CompletableFuture<String> future = cache.get(1);
+    pending.completeExceptionally(new IllegalStateException("timeout"));
+    assertFailure(future, IllegalStateException.class);
+    assertThat(cache.getIfPresent(1)).isNull();
+
+    assertFailure(cache.get(-1), IllegalArgumentException.class);
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test(description = "值为 null 时以 InvalidCacheLoadException 完成，且不被缓存")
+  public void absent() {
+    AsyncLoadingCache<Integer, String> cache = LocalCacheFactory.newAsyncLoadingCache(
+        "asyncService", "maximumSize=100", key -> CompletableFuture.completedFuture(null));
+    assertFailure(cache.get(1), InvalidCacheLoadException.class);
+    assertThat(cache.getIfPresent(1)).isNull();
+  }
+
+  @Test(description = "批量获取合并每个键的结果")
+  public void getAll() {
+    AsyncLoadingCache<Integer, String> cache = LocalCacheFactory.newAsyncLoadingCache(
+        "asyncService", "maximumSize=100", key -> CompletableFuture.supplyAsync(() -> "value-" + key));
+    cache.put(2, "cached");
+    Map<Integer, String> values = cache.getAll(Arrays.asList(1, 2, 3)).join();
+    assertThat(values.keySet()).containsExactly(1, 2, 3);
+    assertThat(values.values()).containsExactly("value-1", "cached", "value-3");
+    assertThat(cache.getIfPresent(2).join()).isEqualTo("cached");
+    assertThat(cache.size()).isEqualTo(3L);
+  }
+
+  @Test(description = "刷新期间继续提供旧值，完成后替换为新值")
+  public void refresh() throws InterruptedException {
+    AtomicInteger version = new AtomicInteger();
+    AsyncLoadingCache<Integer, String> cache = LocalCacheFactory.newAsyncLoadingCache(
+        "asyncService", "maximumSize=100", new AsyncCacheLoader<Integer, String>() {
+          @Override
+          public CompletableFuture<String> asyncLoad(Integer key) {
+            return CompletableFuture.completedFuture("v" + version.incrementAndGet());
+          }
+
+          @Override
+          public CompletableFuture<String> asyncReload(Integer key, String oldValue) {
+            return CompletableFuture.supplyAsync(() -> oldValue + "->v" + version.incrementAndGet());
+          }
+        });
+    assertThat(cache.get(1).join()).isEqualTo("v1");
+    cache.synchronous().refresh(1);
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+    while (!"v1->v2".equals(cache.get(1).join()) && System.nanoTime() < deadline) {
+      TimeUnit.MILLISECONDS.sleep(10L);
+    }
+    assertThat(cache.get(1).join()).isEqualTo("v1->v2");
+    assertThat(cache.stats().loadSuccessCount()).isEqualTo(2L);
+  }
+
+  @Test(description = "加载中的结果不刷新、不重置写入时间，一直没有完成时按时过期并重新加载")
+  public void pendingExpires() {
+    AtomicInteger loadCount = new AtomicInteger();
+    AsyncLoadingCache.FutureLoader<Integer, String> futureLoader = new AsyncLoadingCache.FutureLoader<>(key -> {
+      loadCount.incrementAndGet();
+      // 永远不会完成
+      return new CompletableFuture<>();
+    });
+    RefreshScheduler scheduler = new RefreshScheduler(Runnable::run, 16);
+    TinyLfuLoadingCacheTest.FakeTicker ticker = new TinyLfuLoadingCacheTest.FakeTicker();
+    AsyncLoadingCache<Integer, String> cache = new AsyncLoadingCache<>(new TinyLfuLoadingCache<>(
+        LocalCacheSpec.parse("policy=tinylfu,maximumSize=100,refreshAfterWrite=1s,expireAfterWrite=3s"),
+        scheduler.asyncReloading(futureLoader), ticker), futureLoader);
+
+    CompletableFuture<String> first = cache.get(1);
+    ticker.advance(2L, TimeUnit.SECONDS);
+    assertThat(cache.get(1)).isSameAs(first);
+    assertThat(scheduler.submittedCount()).isEqualTo(1L);
+    assertThat(scheduler.failedCount()).isEqualTo(0L);
+    assertThat(cache.stats().loadSuccessCount()).isEqualTo(1L);
+    assertThat(cache.stats().loadExceptionCount()).isEqualTo(0L);
+
+    ticker.advance(2L, TimeUnit.SECONDS);
+    assertThat(cache.get(1)).isNotSameAs(first);
+    assertThat(loadCount.get()).isEqualTo(2);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void batchNotSupported() {
+    LocalCacheFactory.newAsyncLoadingCache(
+        "asyncService", "maximumSize=100,batchSize=10", key -> CompletableFuture.completedFuture(key));
+  }
+
+  private static void assertFailure(CompletableFuture<?> future, Class<? extends Throwable> causeType) {
+    try {
+      future.join();
+      fail("expected " + causeType.getSimpleName());
+    } catch (CompletionException e) {
+      assertThat(e.getCause()).isInstanceOf(causeType);
+    }
+  }
+}
@@ -0,0 +1,158 @@
+package com.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.cache.CacheLoader;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link BatchingCacheLoader}.
+ *
+ * @since 2026-10-17
+ */
+public class BatchingCacheLoaderTest {
+
+  @Test(description = "时间窗口内的并发未命中合并成一次批量加载")
+  public void coalesce() throws Exception {
+    BulkLoader bulkLoader = new BulkLoader();
+    BatchingCacheLoader<Integer, String> loader =
+        new BatchingCacheLoader<>(bulkLoader, 64, 200L, TimeUnit.MILLISECONDS);
+
+    List<Future<String>> futures = loadConcurrently(loader, 16);
+    for (int i = 0; i < futures.size(); i++) {
+      assertThat(futures.get(i).get()).isEqualTo("v" + i);
+    }
+    assertThat(bulkLoader.loadAllCount.get()).isEqualTo(1);
+    assertThat(bulkLoader.loadCount.get()).isEqualTo(0);
+    assertThat(loader.batchCount()).isEqualTo(1L);
+    assertThat(loader.averageBatchSize()).isEqualTo(16.0d);
+    assertThat(loader.maxBatchSize()).isEqualTo(16L);
+  }
+
+  @Test(description = "收集满一批键后立即加载，不等待时间窗口结束")
+  public void batchSize() throws Exception {
+    BulkLoader bulkLoader = new BulkLoader();
+    BatchingCacheLoader<Integer, String> loader =
+        new BatchingCacheLoader<>(bulkLoader, 4, 10L, TimeUnit.SECONDS);
+
+    long startTime = System.nanoTime();
+    List<Future<String>> futures = loadConcurrently(loader, 8);
+    for (Future<String> future : futures) {
+      future.get();
+    }
+    assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime)).isLessThan(10L);
+    assertThat(bulkLoader.loadAllCount.get()).isEqualTo(2);
+    assertThat(bulkLoader.loadCount.get()).isEqualTo(0);
+    assertThat(loader.maxBatchSize()).isEqualTo(4L);
+  }
+
+  @Test(description = "批量加载失败时，等待中的调用者都收到异常",
+      expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = "backend down")
+  public void failure() throws Exception {
+    BatchingCacheLoader<Integer, String> loader = new BatchingCacheLoader<>(new CacheLoader<Integer, String>() {
+      @Override
+      public String load(Integer key) {
+        throw new IllegalStateException("backend down");
+      }
+
+      @Override
+      public Map<Integer, String> loadAll(Iterable<? extends Integer> keys) {
+        throw new IllegalStateException("backend down");
+      }
+    }, 64, 0L, TimeUnit.MILLISECONDS);
+    try {
+      loader.load(1);
+    } finally {
+      assertThat(loader.batchFailureCount()).isEqualTo(1L);
+    }
+  }
+
+  @Test(description = "没有重写批量加载时不合并，直接加载且不等待时间窗口")
+  public void unsupportedLoadAll() throws Exception {
+    BatchingCacheLoader<Integer, String> loader = new BatchingCacheLoader<>(new CacheLoader<Integer, String>() {
+      @Override
+      public String load(Integer key) {
+        return "v" + key;
+      }
+    }, 64, 10L, TimeUnit.SECONDS);
+    long startTime = System.nanoTime();
+    assertThat(loader.load(7)).isEqualTo("v7");
+    assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime)).isLessThan(10L);
+    assertThat(loader.batchCount()).isEqualTo(0L);
+  }
+
+  @Test(description = "批量加载抛出不支持的异常后，各调用者在自己的线程中并行加载，之后不再合并")
+  public void unsupportedAtRuntime() throws Exception {
+    final AtomicInteger loadAllCount = new AtomicInteger();
+    final AtomicInteger concurrency = new AtomicInteger();
+    final AtomicInteger maxConcurrency = new AtomicInteger();
+    BatchingCacheLoader<Integer, String> loader = new BatchingCacheLoader<>(new CacheLoader<Integer, String>() {
+      @Override
+      public String load(Integer key) throws InterruptedException {
+        maxConcurrency.accumulateAndGet(concurrency.incrementAndGet(), Math::max);
+        try {
+          Thread.sleep(50L);
+          return "v" + key;
+        } finally {
+          concurrency.decrementAndGet();
+        }
+      }
+
+      @Override
+      public Map<Integer, String> loadAll(Iterable<? extends Integer> keys) throws Exception {
+        // 重写了但不支持批量加载（如包装其它加载器），默认实现抛出不支持的异常
+        loadAllCount.incrementAndGet();
+        return super.loadAll(keys);
+      }
+    }, 4, 10L, TimeUnit.SECONDS);
+
+    List<Future<String>> futures = loadConcurrently(loader, 4);
+    for (int i = 0; i < futures.size(); i++) {
+      assertThat(futures.get(i).get()).isEqualTo("v" + i);
+    }
+    assertThat(maxConcurrency.get()).isGreaterThan(1);
+    assertThat(loader.load(9)).isEqualTo("v9");
+    assertThat(loadAllCount.get()).isEqualTo(1);
+    assertThat(loader.batchFailureCount()).isEqualTo(0L);
+  }
+
+  @Test(description = "由缓存规格开启时，缓存加载器必须支持批量加载",
+      expectedExceptions = IllegalArgumentException.class,
+      expectedExceptionsMessageRegExp = "batchSize requires a CacheLoader that overrides loadAll.*")
+  public void batchSizeRequiresLoadAll() {
+    LocalCacheFactory.newLoadingCache("batchingService", "maximumSize=100,batchSize=16",
+        new CacheLoader<Integer, String>() {
+          @Override
+          public String load(Integer key) {
+            return "v" + key;
+          }
+        });
+  }
+
+  private static List<Future<String>> loadConcurrently(
+      final BatchingCacheLoader<Integer, String> loader, int threads) {
+    ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Future<String>> futures = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      final int key = i;
+      futures.add(executorService.submit(() -> {
+        start.await();
+        return loader.load(key);
+      }));
+    }
+    start.countDown();
+    executorService.shutdown();
+    return futures;
+  }
+}
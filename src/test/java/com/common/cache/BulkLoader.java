@@ -0,0 +1,73 @@
+package com.common.cache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.cache.CacheLoader;
+
+/**
+ * 测试用的批量加载器：值为“v”加上键，记录批量加载的次数、每批的键数、执行线程和并发度，
+ * 包含失败键的批次抛出 {@link IllegalStateException}。
+ *
+ * @since 2026-10-17
+ */
+final class BulkLoader extends CacheLoader<Integer, String> {
+  final AtomicInteger loadCount = new AtomicInteger();
+  final AtomicInteger loadAllCount = new AtomicInteger();
+  final List<Integer> chunkSizes = new ArrayList<>();
+  final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+  final AtomicInteger maxConcurrency = new AtomicInteger();
+  private final AtomicInteger concurrency = new AtomicInteger();
+  private final Integer failingKey;
+  private final long delayMillis;
+
+  BulkLoader() {
+    this(null, 0L);
+  }
+
+  /**
+   * @param failingKey  失败的键；{@code null} 表示不失败
+   * @param delayMillis 每次批量加载的耗时（毫秒），模拟远程调用，使并发的批次相互重叠
+   */
+  BulkLoader(Integer failingKey, long delayMillis) {
+    this.failingKey = failingKey;
+    this.delayMillis = delayMillis;
+  }
+
+  @Override
+  public String load(Integer key) {
+    loadCount.incrementAndGet();
+    return "v" + key;
+  }
+
+  @Override
+  public Map<Integer, String> loadAll(Iterable<? extends Integer> keys) throws InterruptedException {
+    loadAllCount.incrementAndGet();
+    maxConcurrency.accumulateAndGet(concurrency.incrementAndGet(), Math::max);
+    threads.add(Thread.currentThread());
+    try {
+      if (delayMillis > 0L) {
+        TimeUnit.MILLISECONDS.sleep(delayMillis);
+      }
+      Map<Integer, String> result = new LinkedHashMap<>();
+      for (Integer key : keys) {
+        if (key.equals(failingKey)) {
+          throw new IllegalStateException("backend failed for " + key);
+        }
+        result.put(key, "v" + key);
+      }
+      synchronized (chunkSizes) {
+        chunkSizes.add(result.size());
+      }
+      return result;
+    } finally {
+      concurrency.decrementAndGet();
+    }
+  }
+}
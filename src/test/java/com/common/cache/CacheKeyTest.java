@@ -0,0 +1,100 @@
+package com.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link CacheKey}.
+ *
+ * @since 2026-10-17
+ */
+public class CacheKeyTest {
+
+  @Test(dataProvider = "equalKeys", description = "整数类型按数值比较，与组成部分的保存方式无关")
+  public void equality(CacheKey a, CacheKey b) {
+    assertThat(a).isEqualTo(b);
+    assertThat(a.hashCode()).isEqualTo(b.hashCode());
+    assertThat(a.toString()).isEqualTo(b.toString());
+  }
+
+  @DataProvider(name = "equalKeys")
+  private static Object[][] equalKeys() {
+    return new Object[][]{
+        {CacheKey.of("user", 24), CacheKey.of("user", Long.valueOf(24L))},
+        {CacheKey.of("user", 24L), CacheKey.of(new Object[]{"user", Integer.valueOf(24)})},
+        {CacheKey.of(1L, 2L), CacheKey.of((Object) Short.valueOf((short) 1), (Object) Byte.valueOf((byte) 2))},
+        {CacheKey.of("tweet", 83723L, "comment-to"), CacheKey.of("tweet", Long.valueOf(83723L), "comment-to")},
+        {CacheKey.of("a", 1, 2, 3L), CacheKey.of("a", 1L, 2L, Integer.valueOf(3))},
+        {CacheKey.of((Object) null), CacheKey.of(new Object[]{null})},
+    };
+  }
+
+  @Test(description = "不同的组成部分不相等")
+  public void notEqual() {
+    assertThat(CacheKey.of("user", 24)).isNotEqualTo(CacheKey.of("user", 25));
+    assertThat(CacheKey.of("user", 24)).isNotEqualTo(CacheKey.of("user", "24"));
+    assertThat(CacheKey.of("user", 24)).isNotEqualTo(CacheKey.of("user", 24, 0));
+    assertThat(CacheKey.of(1L, 2L)).isNotEqualTo(CacheKey.of(2L, 1L));
+    assertThat(CacheKey.of("a", "b", "c", "d")).isNotEqualTo(CacheKey.of("a", "b", "c", "e"));
+    assertThat(CacheKey.of("user")).isNotEqualTo("user");
+  }
+
+  @Test(description = "字符串形式与 CacheUtils.toCacheKey 相同，只生成一次")
+  public void string() {
+    CacheKey cacheKey = CacheKey.of("tweet", 83723L, "comment-to");
+    String string = cacheKey.toString();
+    assertThat(string).isEqualTo(CacheUtils.toCacheKey("tweet", 83723L, "comment-to"));
+    assertThat(cacheKey.toString()).isSameAs(string);
+    assertThat(CacheKey.of("a", null, 1, 2.5).toString()).isEqualTo(CacheUtils.toCacheKey("a", null, 1, 2.5));
+  }
+
+  @Test(description = "按下标读取组成部分")
+  public void components() {
+    CacheKey cacheKey = CacheKey.of("user", 24);
+    assertThat(cacheKey.size()).isEqualTo(2);
+    assertThat(cacheKey.get(0)).isEqualTo("user");
+    assertThat(cacheKey.get(1)).isEqualTo(24L);
+    assertThat(cacheKey.getLong(1)).isEqualTo(24L);
+
+    CacheKey longKey = CacheKey.of("a", "b", 3, Integer.valueOf(4));
+    assertThat(longKey.size()).isEqualTo(4);
+    assertThat(longKey.get(3)).isEqualTo(4L);
+    assertThat(longKey.getLong(2)).isEqualTo(3L);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void notIntegral() {
+    CacheKey.of("user", 24).getLong(0);
+  }
+
+  @Test(expectedExceptions = IndexOutOfBoundsException.class)
+  public void outOfBounds() {
+    CacheKey.of("user", 24).get(2);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class,
+      expectedExceptionsMessageRegExp = "elements must be not empty")
+  public void empty() {
+    CacheKey.of(new Object[0]);
+  }
+
+  @Test(description = "作为工厂创建的缓存的键")
+  public void loadingCache() throws ExecutionException {
+    LoadingCache<CacheKey, String> cache = LocalCacheFactory.newLoadingCache(
+        "cacheKeyService", "policy=tinylfu,maximumSize=100", new CacheLoader<CacheKey, String>() {
+          @Override
+          public String load(CacheKey key) {
+            return key.get(0) + "#" + key.getLong(1);
+          }
+        });
+    assertThat(cache.get(CacheKey.of("user", 24))).isEqualTo("user#24");
+    assertThat(cache.getIfPresent(CacheKey.of("user", Long.valueOf(24L)))).isEqualTo("user#24");
+    assertThat(cache.size()).isEqualTo(1L);
+  }
+}
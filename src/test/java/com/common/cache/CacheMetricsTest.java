@@ -0,0 +1,105 @@
+package com.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.common.cache.CacheMetrics.Window;
+import com.common.cache.TinyLfuLoadingCacheTest.CountingLoader;
+import com.common.cache.TinyLfuLoadingCacheTest.FakeTicker;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link CacheMetrics}.
+ *
+ * @since 2026-10-17
+ */
+public class CacheMetricsTest {
+
+  @Test(description = "滑动窗口的命中率和淘汰速率")
+  public void windows() {
+    FakeTicker ticker = new FakeTicker();
+    CacheMetrics metrics = new CacheMetrics(ticker);
+    metrics.recordHits(9);
+    metrics.recordMisses(1);
+    for (int i = 0; i < 60; i++) {
+      metrics.recordEviction();
+    }
+    // 当前的桶尚未结束
+    assertThat(metrics.hitRate(Window.ONE_MINUTE)).isEqualTo(1.0);
+    assertThat(metrics.requestCount(Window.ONE_MINUTE)).isEqualTo(0L);
+
+    ticker.advance(CacheMetrics.BUCKET_SECONDS, TimeUnit.SECONDS);
+    assertThat(metrics.hitRate(Window.ONE_MINUTE)).isEqualTo(0.9);
+    assertThat(metrics.missRate(Window.FIFTEEN_MINUTES)).isEqualTo(0.1);
+    assertThat(metrics.evictionRate(Window.ONE_MINUTE)).isEqualTo(1.0);
+
+    // 1 分钟后只剩下 5、15 分钟的窗口
+    ticker.advance(1, TimeUnit.MINUTES);
+    metrics.recordMisses(10);
+    ticker.advance(CacheMetrics.BUCKET_SECONDS, TimeUnit.SECONDS);
+    assertThat(metrics.hitRate(Window.ONE_MINUTE)).isEqualTo(0.0);
+    assertThat(metrics.hitRate(Window.FIVE_MINUTES)).isEqualTo(0.45);
+    assertThat(metrics.requestCount(Window.FIFTEEN_MINUTES)).isEqualTo(20L);
+
+    // 累积的统计信息不受窗口影响
+    CacheStats stats = metrics.snapshot();
+    assertThat(stats.hitCount()).isEqualTo(9L);
+    assertThat(stats.missCount()).isEqualTo(11L);
+    assertThat(stats.evictionCount()).isEqualTo(60L);
+  }
+
+  @Test(description = "加载和重新加载的耗时分别记录")
+  public void latency() {
+    CacheMetrics metrics = new CacheMetrics(new FakeTicker());
+    for (int i = 1; i <= 1000; i++) {
+      metrics.recordLoadSuccess(TimeUnit.MILLISECONDS.toNanos(i));
+    }
+    metrics.recordRefreshException(TimeUnit.SECONDS.toNanos(3));
+
+    assertThat(metrics.loadLatency().count()).isEqualTo(1000L);
+    assertThat(metrics.loadLatency().percentile(50.0))
+        .isBetween(TimeUnit.MILLISECONDS.toNanos(500), TimeUnit.MILLISECONDS.toNanos(563));
+    assertThat(metrics.refreshLatency().max()).isEqualTo(TimeUnit.SECONDS.toNanos(3));
+    assertThat(metrics.snapshot().loadCount()).isEqualTo(1001L);
+    assertThat(metrics.snapshot().loadExceptionCount()).isEqualTo(1L);
+    assertThat(metrics.toString()).contains("hitRate=[1m=", "loadLatency=[count=1000");
+  }
+
+  @Test(description = "引擎直接记录到统计指标")
+  public void engine() throws ExecutionException {
+    FakeTicker ticker = new FakeTicker();
+    TinyLfuLoadingCache<Integer, String> cache = new TinyLfuLoadingCache<>(
+        LocalCacheSpec.parse("policy=tinylfu,maximumSize=100,refreshAfterWrite=1m"), new CountingLoader(), ticker);
+    cache.get(1);
+    cache.get(1);
+    ticker.advance(2, TimeUnit.MINUTES);
+    cache.get(1);
+    ticker.advance(CacheMetrics.BUCKET_SECONDS, TimeUnit.SECONDS);
+
+    CacheMetrics metrics = cache.metrics();
+    assertThat(metrics.hitRate(Window.FIVE_MINUTES)).isEqualTo(2.0 / 3);
+    assertThat(metrics.loadLatency().count()).isEqualTo(1L);
+    assertThat(metrics.refreshLatency().count()).isEqualTo(1L);
+    assertThat(cache.stats().loadSuccessCount()).isEqualTo(2L);
+  }
+
+  @Test(description = "工厂为 Guava 缓存同步统计信息并记录加载耗时")
+  public void guava() throws ExecutionException {
+    LoadingCache<Integer, String> cache =
+        LocalCacheFactory.newLoadingCache("metricsService", "maximumSize=100", new CountingLoader());
+    cache.get(1);
+    cache.get(2);
+    CacheMetrics metrics = LocalCacheFactory.metrics(cache);
+    assertThat(metrics).isNotNull();
+    assertThat(metrics.loadLatency().count()).isEqualTo(2L);
+
+    metrics.sync(cache.stats());
+    assertThat(metrics.snapshot().missCount()).isEqualTo(2L);
+    metrics.sync(cache.stats());
+    assertThat(metrics.snapshot().missCount()).isEqualTo(2L);
+  }
+}
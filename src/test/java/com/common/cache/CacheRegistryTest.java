@@ -0,0 +1,179 @@
+package com.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.Attribute;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.common.cache.TinyLfuLoadingCacheTest.CountingLoader;
+import com.google.common.cache.LoadingCache;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link CacheRegistry}.
+ *
+ * @since 2026-10-17
+ */
+public class CacheRegistryTest {
+
+  @Test(description = "工厂创建的缓存按服务名称注册，重名时追加序号")
+  public void register() throws ExecutionException {
+    LoadingCache<Integer, String> first =
+        LocalCacheFactory.newLoadingCache("registryService", "maximumSize=100", new CountingLoader());
+    LoadingCache<Integer, String> second =
+        LocalCacheFactory.newLoadingCache("registryService", "policy=tinylfu,maximumSize=100", new CountingLoader());
+    CacheRegistry registry = LocalCacheFactory.registry();
+    assertThat(registry.names()).contains("registryService", "registryService#2");
+
+    ManagedCache managedCache = registry.get("registryService");
+    assertThat(managedCache.cache()).isSameAs(first);
+    assertThat(managedCache.getSpec()).isEqualTo("maximumSize=100");
+    assertThat(managedCache.isTunable()).isFalse();
+    assertThat(managedCache.getMaximumSize()).isEqualTo(-1L);
+    assertThat(registry.get("registryService#2").cache()).isSameAs(second);
+
+    first.get(1);
+    assertThat(managedCache.getSize()).isEqualTo(1L);
+    assertThat(managedCache.getWeightedSize()).isEqualTo(1L);
+    assertThat(managedCache.getRefreshQueueDepth()).isEqualTo(0);
+  }
+
+  @Test(description = "只有 W-TinyLFU 缓存支持运行时调整", expectedExceptions = UnsupportedOperationException.class)
+  public void notTunable() {
+    LocalCacheFactory.newLoadingCache("untunableService", "maximumSize=100", new CountingLoader());
+    LocalCacheFactory.registry().get("untunableService").setMaximumSize(10L);
+  }
+
+  @Test(description = "不支持运行时调整的缓存在 JMX 中的容量和过期时间属性是只读的")
+  public void jmxReadOnly() throws Exception {
+    LocalCacheFactory.newLoadingCache("readOnlyService", "maximumSize=100", new CountingLoader());
+    LocalCacheFactory.newLoadingCache("tunableService", "policy=tinylfu,maximumSize=100", new CountingLoader());
+    MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    assertThat(writableAttributes(mBeanServer, "readOnlyService")).isEmpty();
+    assertThat(writableAttributes(mBeanServer, "tunableService"))
+        .containsOnly("MaximumSize", "ExpireAfterWriteSeconds", "RefreshAfterWriteSeconds");
+  }
+
+  @Test(description = "通过 JMX 查看并调整缓存")
+  public void jmx() throws Exception {
+    LoadingCache<Integer, String> cache = LocalCacheFactory.newLoadingCache(
+        "jmxService", "policy=tinylfu,maximumSize=1000,expireAfterWrite=10m", new CountingLoader());
+    for (int i = 0; i < 100; i++) {
+      cache.get(i);
+    }
+    MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    ObjectName objectName = CacheRegistry.objectName("jmxService");
+    assertThat(mBeanServer.getAttribute(objectName, "Size")).isEqualTo(100L);
+    assertThat(mBeanServer.getAttribute(objectName, "Tunable")).isEqualTo(true);
+    assertThat(mBeanServer.getAttribute(objectName, "ExpireAfterWriteSeconds")).isEqualTo(600L);
+
+    mBeanServer.setAttribute(objectName, new Attribute("MaximumSize", 10L));
+    assertThat(cache.size()).isEqualTo(10L);
+    mBeanServer.setAttribute(objectName, new Attribute("RefreshAfterWriteSeconds", 60L));
+
+    ManagedCache managedCache = LocalCacheFactory.registry().get("jmxService");
+    managedCache.setExpireAfterWrite(1, TimeUnit.HOURS);
+    assertThat(managedCache.getExpireAfterWriteSeconds()).isEqualTo(3600L);
+    assertThat(managedCache.getRefreshAfterWriteSeconds()).isEqualTo(60L);
+
+    mBeanServer.invoke(objectName, "invalidateAll", null, null);
+    assertThat(cache.size()).isEqualTo(0L);
+
+    LocalCacheFactory.registry().unregister("jmxService");
+    assertThat(mBeanServer.isRegistered(objectName)).isFalse();
+  }
+
+  private static List<String> writableAttributes(MBeanServer mBeanServer, String name) throws Exception {
+    List<String> writable = new ArrayList<>();
+    for (MBeanAttributeInfo attribute : mBeanServer.getMBeanInfo(CacheRegistry.objectName(name)).getAttributes()) {
+      if (attribute.isWritable()) {
+        writable.add(attribute.getName());
+      }
+    }
+    return writable;
+  }
+
+  @Test(description = "关闭缓存时从注册表和 JMX 中取消注册，并清空条目；重复关闭没有影响")
+  public void close() throws Exception {
+    LoadingCache<Integer, String> cache =
+        LocalCacheFactory.newLoadingCache("closedService", "maximumSize=100", new CountingLoader());
+    LongLoadingCache<String> longCache =
+        LocalCacheFactory.newLongLoadingCache("closedLongService", "maximumSize=100", new LongCacheLoader<String>() {
+          @Override
+          public String load(long key) {
+            return "v" + key;
+          }
+        });
+    cache.get(1);
+    longCache.get(1L);
+    MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    assertThat(mBeanServer.isRegistered(CacheRegistry.objectName("closedService"))).isTrue();
+
+    LocalCacheFactory.close(cache);
+    LocalCacheFactory.close(longCache);
+    assertThat(LocalCacheFactory.registry().names()).doesNotContain("closedService", "closedLongService");
+    assertThat(mBeanServer.isRegistered(CacheRegistry.objectName("closedService"))).isFalse();
+    assertThat(cache.size()).isEqualTo(0L);
+    assertThat(longCache.size()).isEqualTo(0L);
+    assertThat(LocalCacheFactory.metrics(cache)).isNull();
+
+    LocalCacheFactory.close(cache);
+    LocalCacheFactory.close(LocalCacheFactory.newAsyncLoadingCache(
+        "closedAsyncService", "maximumSize=100", key -> null).synchronous());
+    assertThat(LocalCacheFactory.registry().names()).doesNotContain("closedAsyncService");
+  }
+
+  @Test(description = "没有关闭就不再使用的缓存可以被回收，被回收后自动从注册表和 JMX 中取消注册")
+  public void collected() throws Exception {
+    List<WeakReference<Object>> references = new ArrayList<>();
+    references.add(newAndForget("collectedGuavaService", "maximumSize=100"));
+    references.add(newAndForget("collectedTinyLfuService", "policy=tinylfu,maximumSize=100"));
+    references.add(new WeakReference<>(LocalCacheFactory.newOffHeapLoadingCache(
+        "collectedOffHeapService", "offHeapCapacity=1m", new CountingLoader(), JacksonValueCodec.of(String.class))));
+    references.add(new WeakReference<>(LocalCacheFactory.newLongLoadingCache(
+        "collectedLongService", "maximumSize=100", new LongCacheLoader<String>() {
+          @Override
+          public String load(long key) {
+            return "v" + key;
+          }
+        })));
+    MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    assertThat(mBeanServer.isRegistered(CacheRegistry.objectName("collectedGuavaService"))).isTrue();
+
+    for (int i = 0; i < 50 && !allCleared(references); i++) {
+      System.gc();
+      Thread.sleep(10L);
+    }
+    assertThat(allCleared(references)).isTrue();
+
+    assertThat(LocalCacheFactory.registry().get("collectedGuavaService")).isNull();
+    assertThat(LocalCacheFactory.registry().names()).doesNotContain(
+        "collectedGuavaService", "collectedTinyLfuService", "collectedOffHeapService", "collectedLongService");
+    assertThat(mBeanServer.isRegistered(CacheRegistry.objectName("collectedGuavaService"))).isFalse();
+    assertThat(mBeanServer.isRegistered(CacheRegistry.objectName("collectedLongService"))).isFalse();
+  }
+
+  private static WeakReference<Object> newAndForget(String serviceName, String spec) throws ExecutionException {
+    LoadingCache<Integer, String> cache = LocalCacheFactory.newLoadingCache(serviceName, spec, new CountingLoader());
+    cache.get(1);
+    return new WeakReference<>(cache);
+  }
+
+  private static boolean allCleared(List<WeakReference<Object>> references) {
+    for (WeakReference<Object> reference : references) {
+      if (reference.get() != null) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
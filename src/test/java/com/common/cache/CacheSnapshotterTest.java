@@ -0,0 +1,116 @@
+package com.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import com.common.cache.TinyLfuLoadingCacheTest.CountingLoader;
+import com.common.cache.TinyLfuLoadingCacheTest.FakeTicker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.LoadingCache;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link CacheSnapshotter}.
+ *
+ * @since 2026-10-17
+ */
+public class CacheSnapshotterTest {
+
+  @Test(description = "写入快照后恢复到新的缓存（跨多个数据块）")
+  public void saveAndRestore() throws IOException {
+    Path file = newSnapshotFile();
+    CacheSnapshotter<Integer, String> snapshotter = newSnapshotter(file);
+    Cache<Integer, String> cache = CacheBuilder.newBuilder().build();
+    for (int i = 0; i < 200_000; i++) {
+      cache.put(i, "value-" + i);
+    }
+    assertThat(snapshotter.save(cache)).isEqualTo(200_000L);
+    assertThat(Files.size(file)).isGreaterThan(4L << 20);
+
+    Cache<Integer, String> restored = CacheBuilder.newBuilder().build();
+    restored.put(0, "loaded");
+    assertThat(snapshotter.restore(restored, -1L, ForkJoinPool.commonPool())).isEqualTo(200_000L);
+    assertThat(restored.size()).isEqualTo(200_000L);
+    // 已存在的条目不会被覆盖
+    assertThat(restored.getIfPresent(0)).isEqualTo("loaded");
+    assertThat(restored.getIfPresent(199_999)).isEqualTo("value-199999");
+  }
+
+  @Test(description = "恢复时按剩余的存活时间过期")
+  public void remainingTtl() throws IOException, ExecutionException {
+    Path file = newSnapshotFile();
+    CacheSnapshotter<Integer, String> snapshotter = newSnapshotter(file);
+    FakeTicker ticker = new FakeTicker();
+    TinyLfuLoadingCache<Integer, String> cache = newTinyLfuCache(ticker);
+    cache.get(1);
+    ticker.advance(5, TimeUnit.SECONDS);
+    cache.get(2);
+    assertThat(snapshotter.save(cache)).isEqualTo(2L);
+
+    // 已写入 5 秒的条目超过了 4 秒的写入过期时间
+    Cache<Integer, String> guavaCache = CacheBuilder.newBuilder().build();
+    assertThat(snapshotter.restore(guavaCache, TimeUnit.SECONDS.toNanos(4L), ForkJoinPool.commonPool()))
+        .isEqualTo(1L);
+    assertThat(guavaCache.asMap()).containsOnlyKeys(2);
+
+    FakeTicker newTicker = new FakeTicker();
+    TinyLfuLoadingCache<Integer, String> restored = newTinyLfuCache(newTicker);
+    assertThat(snapshotter.restore(restored, -1L, ForkJoinPool.commonPool())).isEqualTo(2L);
+    assertThat(restored.getIfPresent(1)).isEqualTo("1");
+    newTicker.advance(6, TimeUnit.SECONDS);
+    assertThat(restored.getIfPresent(1)).isNull();
+    assertThat(restored.getIfPresent(2)).isEqualTo("2");
+  }
+
+  @Test(description = "快照文件损坏时抛出 IOException", expectedExceptions = IOException.class)
+  public void corrupt() throws IOException {
+    Path file = newSnapshotFile();
+    Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17});
+    newSnapshotter(file).restore(CacheBuilder.newBuilder().<Integer, String>build(), -1L, ForkJoinPool.commonPool());
+  }
+
+  @Test(description = "快照文件不存在时不恢复")
+  public void missing() throws IOException {
+    Path file = newSnapshotFile();
+    Files.delete(file);
+    assertThat(newSnapshotter(file).restore(
+        CacheBuilder.newBuilder().<Integer, String>build(), -1L, ForkJoinPool.commonPool())).isEqualTo(0L);
+  }
+
+  @Test(description = "工厂创建缓存时从快照恢复")
+  public void factory() throws IOException, ExecutionException {
+    Path file = newSnapshotFile();
+    Cache<Integer, String> cache = CacheBuilder.newBuilder().build();
+    cache.put(1, "snapshot");
+    newSnapshotter(file).save(cache);
+
+    CountingLoader loader = new CountingLoader();
+    LoadingCache<Integer, String> loadingCache = LocalCacheFactory.newSnapshotLoadingCache(
+        "snapshotService", "policy=tinylfu,maximumSize=100,expireAfterWrite=1h,snapshotFile=" + file, loader,
+        JacksonValueCodec.of(Integer.class), JacksonValueCodec.of(String.class));
+    assertThat(loadingCache.get(1)).isEqualTo("snapshot");
+    assertThat(loader.loadCount.get()).isEqualTo(0);
+  }
+
+  private static Path newSnapshotFile() throws IOException {
+    Path file = Files.createTempFile("cache-snapshot-test-", ".snapshot");
+    file.toFile().deleteOnExit();
+    return file;
+  }
+
+  private static CacheSnapshotter<Integer, String> newSnapshotter(Path file) {
+    return new CacheSnapshotter<>(file, JacksonValueCodec.of(Integer.class), JacksonValueCodec.of(String.class));
+  }
+
+  private static TinyLfuLoadingCache<Integer, String> newTinyLfuCache(FakeTicker ticker) {
+    return new TinyLfuLoadingCache<>(
+        LocalCacheSpec.parse("policy=tinylfu,maximumSize=100,expireAfterWrite=10s"), new CountingLoader(), ticker);
+  }
+}
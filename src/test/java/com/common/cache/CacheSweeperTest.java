@@ -0,0 +1,58 @@
+package com.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link CacheSweeper}.
+ *
+ * @since 2026-10-17
+ */
+public class CacheSweeperTest {
+
+  @Test(description = "弱引用登记的缓存，已被回收的缓存在巡检时移除")
+  public void weak() throws InterruptedException {
+    CacheSweeper sweeper = new CacheSweeper("testSweeper");
+    AtomicInteger sweepCount = new AtomicInteger();
+    Object live = new Object();
+    sweeper.register(live, cache -> sweepCount.incrementAndGet());
+    Object garbage = new Object();
+    WeakReference<Object> reference = new WeakReference<>(garbage);
+    sweeper.register(garbage, cache -> sweepCount.incrementAndGet());
+    garbage = null;
+    for (int i = 0; i < 50 && reference.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10L);
+    }
+    assertThat(reference.get()).isNull();
+
+    sweeper.sweep();
+    assertThat(sweepCount.get()).isEqualTo(1);
+    assertThat(sweeper.size()).isEqualTo(1);
+    assertThat(live).isNotNull();
+  }
+
+  @Test(description = "一个缓存的操作失败不影响其它缓存；取消登记后不再执行")
+  public void failureAndCancel() {
+    CacheSweeper sweeper = new CacheSweeper("testSweeper");
+    List<String> swept = new ArrayList<>();
+    sweeper.register("failing", cache -> {
+      throw new IllegalStateException("broken");
+    });
+    CacheSweeper.Registration<String> registration = sweeper.register("healthy", swept::add);
+    sweeper.sweep();
+    assertThat(swept).containsExactly("healthy");
+    assertThat(sweeper.size()).isEqualTo(2);
+
+    registration.cancel();
+    sweeper.sweep();
+    assertThat(swept).containsExactly("healthy");
+    assertThat(sweeper.size()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,157 @@
+package com.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.ForwardingLoadingCache;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link CacheWarmer}.
+ *
+ * @since 2026-10-17
+ */
+public class CacheWarmerTest {
+
+  @Test(description = "按批次并行地预热，同时加载的批次数不超过并发度，结束后就绪")
+  public void warmUp() throws InterruptedException {
+    BulkLoader loader = new BulkLoader(null, 5L);
+    LoadingCache<Integer, String> cache = LocalCacheFactory.newWarmedLoadingCache(
+        "warmedService", "maximumSize=10000,warmUpBatchSize=50,warmUpConcurrency=3", loader, range(1000));
+    CacheWarmer<?> warmer = LocalCacheFactory.warmer(cache);
+    assertThat(warmer).isNotNull();
+    assertThat(warmer.awaitReady(10L, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(warmer.isReady()).isTrue();
+    assertThat(warmer.failure()).isNull();
+    assertThat(warmer.submittedKeyCount()).isEqualTo(1000L);
+    assertThat(warmer.loadedKeyCount()).isEqualTo(1000L);
+    assertThat(cache.size()).isEqualTo(1000L);
+    assertThat(cache.getIfPresent(999)).isEqualTo("v999");
+    assertThat(loader.loadAllCount.get()).isEqualTo(20);
+    assertThat(loader.maxConcurrency.get()).isBetween(1, 3);
+  }
+
+  @Test(description = "限制每秒加载的键数")
+  public void rateLimit() throws InterruptedException {
+    LoadingCache<Integer, String> cache = LocalCacheFactory.newWarmedLoadingCache(
+        "rateLimitedService", "maximumSize=10000,warmUpBatchSize=10,warmUpRate=200", new BulkLoader(null, 5L), range(100));
+    CacheWarmer<?> warmer = LocalCacheFactory.warmer(cache);
+    assertThat(warmer.awaitReady(10L, TimeUnit.SECONDS)).isTrue();
+    // 令牌桶在预热开始时才创建，首批立即放行，其余 90 个键至少需要 0.45 秒（与线程调度无关）
+    assertThat(TimeUnit.NANOSECONDS.toMillis(warmer.elapsedNanos())).isGreaterThanOrEqualTo(440L);
+    assertThat(cache.size()).isEqualTo(100L);
+  }
+
+  @Test(description = "限速等待时可以取消")
+  public void closeWhileRateLimited() throws InterruptedException {
+    BulkLoader loader = new BulkLoader(null, 5L);
+    CacheWarmer<Integer> warmer = new CacheWarmer<>("slowService",
+        LocalCacheFactory.newLoadingCache("slowService", "maximumSize=10000", loader), range(1000), 100, 1, 1d);
+    warmer.start();
+    // 首批立即放行，第二批需要等待 100 秒
+    for (int i = 0; i < 1000 && warmer.loadedKeyCount() < 100L; i++) {
+      Thread.sleep(10L);
+    }
+    assertThat(warmer.loadedKeyCount()).isEqualTo(100L);
+    warmer.close();
+    assertThat(warmer.awaitReady(5L, TimeUnit.SECONDS)).isTrue();
+    assertThat(warmer.isCancelled()).isTrue();
+    assertThat(warmer.submittedKeyCount()).isEqualTo(100L);
+  }
+
+  @Test(description = "部分批次加载失败或遍历键失败时继续就绪，并报告失败")
+  public void failure() throws InterruptedException {
+    CacheWarmer<Integer> warmer = new CacheWarmer<>("failingService",
+        LocalCacheFactory.newLoadingCache("failingService", "maximumSize=10000", new BulkLoader(150, 5L)),
+        consumer -> {
+          for (int i = 0; i < 300; i++) {
+            consumer.accept(i);
+          }
+          throw new IllegalStateException("cursor closed");
+        }, 100, 2, -1d);
+    warmer.start();
+    assertThat(warmer.awaitReady(10L, TimeUnit.SECONDS)).isTrue();
+    assertThat(warmer.failure()).isInstanceOf(IllegalStateException.class);
+    assertThat(warmer.loadedKeyCount()).isEqualTo(200L);
+    assertThat(warmer.failedKeyCount()).isEqualTo(100L);
+  }
+
+  @Test(description = "缓存的 getAll 直接抛出运行时异常时，整批计为失败，继续预热")
+  public void runtimeException() throws InterruptedException {
+    LoadingCache<Integer, String> delegate =
+        LocalCacheFactory.newLoadingCache("throwingService", "maximumSize=10000", new BulkLoader(null, 5L));
+    LoadingCache<Integer, String> cache = new ForwardingLoadingCache.SimpleForwardingLoadingCache<Integer, String>(
+        delegate) {
+      @Override
+      public ImmutableMap<Integer, String> getAll(Iterable<? extends Integer> keys) throws ExecutionException {
+        if (keys.iterator().next() == 100) {
+          throw new IllegalStateException("cache closed");
+        }
+        return super.getAll(keys);
+      }
+    };
+    CacheWarmer<Integer> warmer = new CacheWarmer<>("throwingService", cache, range(300), 100, 1, -1d);
+    warmer.start();
+    assertThat(warmer.awaitReady(10L, TimeUnit.SECONDS)).isTrue();
+    assertThat(warmer.failure()).isNull();
+    assertThat(warmer.loadedKeyCount()).isEqualTo(200L);
+    assertThat(warmer.failedKeyCount()).isEqualTo(100L);
+  }
+
+  @Test(description = "预热结束后预热器不再引用缓存，没有关闭的预热缓存可以被回收")
+  public void collected() throws InterruptedException {
+    LoadingCache<Integer, String> cache = LocalCacheFactory.newWarmedLoadingCache(
+        "collectedWarmedService", "maximumSize=10000", new BulkLoader(null, 5L), range(100));
+    CacheWarmer<?> warmer = LocalCacheFactory.warmer(cache);
+    assertThat(warmer.awaitReady(10L, TimeUnit.SECONDS)).isTrue();
+    WeakReference<Object> reference = new WeakReference<>(cache);
+    cache = null;
+    for (int i = 0; i < 50 && reference.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10L);
+    }
+    assertThat(reference.get()).isNull();
+    assertThat(warmer.loadedKeyCount()).isEqualTo(100L);
+  }
+
+  @Test(description = "关闭缓存时取消预热，随后就绪")
+  public void close() throws InterruptedException {
+    CountDownLatch blocked = new CountDownLatch(1);
+    LoadingCache<Integer, String> cache = LocalCacheFactory.newWarmedLoadingCache(
+        "cancelledService", "maximumSize=10000,warmUpBatchSize=10", new BulkLoader(null, 5L), consumer -> {
+          for (int i = 0; ; i++) {
+            consumer.accept(i);
+            if (i == 100) {
+              blocked.countDown();
+            }
+          }
+        });
+    CacheWarmer<?> warmer = LocalCacheFactory.warmer(cache);
+    assertThat(blocked.await(10L, TimeUnit.SECONDS)).isTrue();
+    LocalCacheFactory.close(cache);
+    assertThat(warmer.awaitReady(10L, TimeUnit.SECONDS)).isTrue();
+    assertThat(warmer.isCancelled()).isTrue();
+    assertThat(LocalCacheFactory.warmer(cache)).isNull();
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class,
+      expectedExceptionsMessageRegExp = "warmUp requires a KeySource.*")
+  public void keySourceRequired() {
+    LocalCacheFactory.newLoadingCache("warmedService", "maximumSize=100,warmUpRate=100", new BulkLoader(null, 5L));
+  }
+
+  private static KeySource<Integer> range(int count) {
+    return consumer -> {
+      for (int i = 0; i < count; i++) {
+        consumer.accept(i);
+      }
+    };
+  }
+}
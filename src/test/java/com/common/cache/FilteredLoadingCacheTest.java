@@ -0,0 +1,124 @@
+package com.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheLoader.InvalidCacheLoadException;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link FilteredLoadingCache}.
+ *
+ * @since 2026-10-17
+ */
+public class FilteredLoadingCacheTest {
+
+  @Test(description = "键过滤器拦截不存在的键，误判的键记入负缓存")
+  public void filter() throws Exception {
+    AtomicInteger absentLoadCount = new AtomicInteger();
+    AtomicBoolean failing = new AtomicBoolean();
+    FilteredLoadingCache<Integer, String> cache = LocalCacheFactory.newFilteredLoadingCache(
+        "filteredService", "maximumSize=10000,negativeTtl=1m,negativeMaximumSize=5000",
+        new CacheLoader<Integer, String>() {
+          @Override
+          public String load(Integer key) {
+            if (key < 1000) {
+              return "value-" + key;
+            }
+            absentLoadCount.incrementAndGet();
+            return null;
+          }
+        },
+        consumer -> {
+          if (failing.get()) {
+            throw new IllegalStateException("database unavailable");
+          }
+          for (int i = 0; i < 1000; i++) {
+            consumer.accept(i);
+          }
+        });
+    awaitKeyFilter(cache);
+    assertThat(cache.get(1)).isEqualTo("value-1");
+
+    for (int i = 1000; i < 2000; i++) {
+      assertAbsent(cache, i);
+    }
+    long falsePositiveCount = cache.falsePositiveCount();
+    assertThat(cache.shortCircuitCount() + falsePositiveCount).isEqualTo(1000L);
+    assertThat(falsePositiveCount).isEqualTo(absentLoadCount.get()).isLessThan(100L);
+    assertThat(cache.negativeSize()).isEqualTo(falsePositiveCount);
+
+    // 第二次请求误判的键由负缓存拦截，不再加载
+    for (int i = 1000; i < 2000; i++) {
+      assertAbsent(cache, i);
+    }
+    assertThat(cache.negativeHitCount()).isEqualTo(falsePositiveCount);
+    assertThat(absentLoadCount.get()).isEqualTo((int) falsePositiveCount);
+
+    // 新增的键不再被拦截
+    cache.put(5000, "value-5000");
+    assertThat(cache.get(5000)).isEqualTo("value-5000");
+
+    // 重建失败时继续使用原来的过滤器
+    failing.set(true);
+    assertThat(cache.rebuild()).isFalse();
+    assertThat(cache.isKeyFilterReady()).isTrue();
+    assertThat(cache.toString()).contains("rebuildFailureCount=1");
+    assertThat(LocalCacheFactory.registry().get("filteredService").getSize()).isEqualTo(cache.size());
+  }
+
+  @Test(description = "键过滤器构建完成之前不拦截任何键", expectedExceptions = InvalidCacheLoadException.class)
+  public void notReady() throws ExecutionException {
+    FilteredLoadingCache<Integer, String> cache = new FilteredLoadingCache<>(
+        LocalCacheFactory.newLoadingCache("notReadyService", "maximumSize=100", new CacheLoader<Integer, String>() {
+          @Override
+          public String load(Integer key) {
+            return null;
+          }
+        }),
+        consumer -> consumer.accept(1), LocalCacheSpec.parse(""));
+    assertThat(cache.isKeyFilterReady()).isFalse();
+    try {
+      cache.get(2);
+    } finally {
+      assertThat(cache.shortCircuitCount()).isEqualTo(0L);
+      assertThat(cache.falsePositiveCount()).isEqualTo(0L);
+      assertThat(cache.negativeSize()).isEqualTo(1L);
+    }
+  }
+
+  @Test(description = "防止缓存穿透的配置项需要提供键的来源", expectedExceptions = IllegalArgumentException.class)
+  public void requireKeySource() {
+    LocalCacheFactory.newLoadingCache("noKeySourceService", "maximumSize=100,negativeTtl=10s",
+        new TinyLfuLoadingCacheTest.CountingLoader());
+  }
+
+  @Test(description = "堆外缓存不支持防止缓存穿透", expectedExceptions = IllegalArgumentException.class,
+      expectedExceptionsMessageRegExp = "offHeapCapacity is not supported by keyFilter.*")
+  public void offHeapUnsupported() {
+    LocalCacheFactory.newFilteredLoadingCache("offHeapFilteredService", "offHeapCapacity=1m,negativeTtl=10s",
+        new TinyLfuLoadingCacheTest.CountingLoader(), consumer -> { });
+  }
+
+  private static void awaitKeyFilter(FilteredLoadingCache<?, ?> cache) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+    while (!cache.isKeyFilterReady() && System.nanoTime() < deadline) {
+      Thread.sleep(10L);
+    }
+    assertThat(cache.isKeyFilterReady()).isTrue();
+  }
+
+  private static void assertAbsent(FilteredLoadingCache<Integer, String> cache, int key) throws ExecutionException {
+    try {
+      cache.get(key);
+      throw new AssertionError("absent key " + key + " was loaded");
+    } catch (InvalidCacheLoadException e) {
+      // 预期的结果
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package com.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.common.cache.TinyLfuLoadingCacheTest.CountingLoader;
+import com.common.cache.TinyLfuLoadingCacheTest.FakeTicker;
+import com.google.common.cache.LoadingCache;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link HotKeyTracker}.
+ *
+ * @since 2026-10-17
+ */
+public class HotKeyTrackerTest {
+
+  @Test(description = "窗口结束时按估算次数从多到少报告热点键")
+  public void topKeys() {
+    FakeTicker ticker = new FakeTicker();
+    HotKeyTracker tracker = new HotKeyTracker(3, TimeUnit.MINUTES.toNanos(1L), ticker);
+    List<String> reads = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      reads.add("hot");
+      reads.add("key-" + i);
+    }
+    for (int i = 0; i < 500; i++) {
+      reads.add("warm");
+    }
+    for (int i = 0; i < 200; i++) {
+      reads.add("cool");
+    }
+    Collections.shuffle(reads);
+    for (String key : reads) {
+      tracker.record(key);
+    }
+    assertThat(tracker.topKeys()).isEmpty();
+
+    ticker.advance(1L, TimeUnit.MINUTES);
+    List<HotKeyTracker.HotKey> topKeys = tracker.topKeys();
+    assertThat(topKeys).extracting("key").containsExactly("hot", "warm", "cool");
+    assertThat(topKeys.get(0).count()).isBetween(900L, 1100L);
+    assertThat(topKeys.get(1).count()).isBetween(450L, 550L);
+
+    // 下一个窗口重新统计
+    for (int i = 0; i < 100; i++) {
+      tracker.record("next");
+    }
+    assertThat(tracker.topKeys()).extracting("key").containsExactly("hot", "warm", "cool");
+    ticker.advance(1L, TimeUnit.MINUTES);
+    assertThat(tracker.topKeys()).extracting("key").containsExactly("next");
+  }
+
+  @Test(description = "W-TinyLFU 缓存在读路径上记录热点键")
+  public void tinyLfu() throws ExecutionException {
+    FakeTicker ticker = new FakeTicker();
+    TinyLfuLoadingCache<Integer, String> cache = new TinyLfuLoadingCache<>(
+        LocalCacheSpec.parse("maximumSize=100,hotKeys=1,hotKeyWindow=10s"), new CountingLoader(), ticker);
+    for (int i = 0; i < 100; i++) {
+      cache.get(i % 10 == 0 ? 0 : i);
+      cache.getIfPresent(7);
+    }
+    ticker.advance(10L, TimeUnit.SECONDS);
+    assertThat(cache.hotKeyTracker().topKeys()).extracting("key").containsExactly(7);
+  }
+
+  @Test(description = "工厂创建的 Guava 缓存开启热点键探测")
+  public void factory() throws ExecutionException {
+    LoadingCache<Integer, String> cache = LocalCacheFactory.newLoadingCache(
+        "hotKeyService", "maximumSize=100,hotKeys=5", new CountingLoader());
+    cache.get(1);
+    HotKeyTracker tracker = LocalCacheFactory.hotKeyTracker(cache);
+    assertThat(tracker).isNotNull();
+    assertThat(tracker.topK()).isEqualTo(5);
+    assertThat(tracker.windowNanos()).isEqualTo(TimeUnit.MINUTES.toNanos(1L));
+    assertThat(LocalCacheFactory.metrics(cache)).isNotNull();
+    assertThat(LocalCacheFactory.registry().get("hotKeyService").getHotKeys()).isEmpty();
+
+    LoadingCache<Integer, String> plain = LocalCacheFactory.newLoadingCache(
+        "noHotKeyService", "maximumSize=100", new CountingLoader());
+    assertThat(LocalCacheFactory.hotKeyTracker(plain)).isNull();
+  }
+}
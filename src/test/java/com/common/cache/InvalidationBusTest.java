@@ -0,0 +1,152 @@
+package com.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link InvalidationBus}.
+ *
+ * @since 2026-10-17
+ */
+public class InvalidationBusTest {
+
+  @Test(description = "失效本地缓存，并批量地通知同频道的其它实例")
+  public void loopback() throws IOException {
+    List<byte[]> messages = Collections.synchronizedList(new ArrayList<>());
+    LoopbackInvalidationTransport observer = new LoopbackInvalidationTransport("loopback");
+    observer.subscribe(messages::add);
+    Cache<String, String> cacheA = newCache();
+    Cache<String, String> cacheB = newCache();
+    try (InvalidationBus busA = newBus("loopback", "item", cacheA);
+         InvalidationBus busB = newBus("loopback", "item", cacheB)) {
+      for (int i = 0; i < 100; i++) {
+        String key = CacheUtils.toCacheKey("item", i);
+        cacheA.put(key, "a");
+        cacheB.put(key, "b");
+      }
+      busA.invalidate("item", CacheUtils.toCacheKey("item", 1));
+      busA.invalidateAll("item", Arrays.asList(CacheUtils.toCacheKey("item", 2), "missing"));
+      assertThat(cacheA.size()).isEqualTo(98L);
+      assertThat(cacheB.size()).isEqualTo(100L);
+
+      busA.flush();
+      assertThat(messages).hasSize(1);
+      assertThat(cacheB.size()).isEqualTo(98L);
+      assertThat(cacheB.getIfPresent(CacheUtils.toCacheKey("item", 1))).isNull();
+      assertThat(cacheB.getIfPresent(CacheUtils.toCacheKey("item", 3))).isEqualTo("b");
+
+      busB.invalidateAll("item");
+      busB.flush();
+      assertThat(cacheA.size()).isEqualTo(0L);
+      assertThat(busA.toString()).contains("publishedKeyCount=3", "receivedMessageCount=1");
+      assertThat(busB.toString()).contains("appliedKeyCount=3");
+    } finally {
+      observer.close();
+    }
+  }
+
+  @Test(description = "超出单条消息大小的批次拆分成多条消息")
+  public void split() throws IOException {
+    List<byte[]> messages = Collections.synchronizedList(new ArrayList<>());
+    LoopbackInvalidationTransport observer = new LoopbackInvalidationTransport("split");
+    observer.subscribe(messages::add);
+    Cache<String, String> cacheB = newCache();
+    try (InvalidationBus busA = new InvalidationBus(new SmallTransport("split"), 1L, TimeUnit.MINUTES);
+         InvalidationBus busB = newBus("split", "item", cacheB)) {
+      for (int i = 0; i < 1000; i++) {
+        String key = CacheUtils.toCacheKey("item", i);
+        cacheB.put(key, "b");
+        busA.invalidate("item", key);
+      }
+      busA.flush();
+      assertThat(messages.size()).isGreaterThan(1);
+      for (byte[] message : messages) {
+        assertThat(message.length).isLessThanOrEqualTo(UdpInvalidationTransport.MAX_MESSAGE_BYTES);
+      }
+      assertThat(cacheB.size()).isEqualTo(0L);
+    } finally {
+      observer.close();
+    }
+  }
+
+  @Test(description = "经 UDP 回环地址通知其它实例")
+  public void udp() throws Exception {
+    InetAddress loopback = InetAddress.getLoopbackAddress();
+    UdpInvalidationTransport transportA =
+        new UdpInvalidationTransport(new InetSocketAddress(loopback, 0), Collections.emptyList());
+    UdpInvalidationTransport transportB =
+        new UdpInvalidationTransport(new InetSocketAddress(loopback, 0), Collections.emptyList());
+    transportA.addPeer(transportB.localAddress());
+    transportB.addPeer(transportA.localAddress());
+
+    Cache<String, String> cacheB = newCache();
+    try (InvalidationBus busA = new InvalidationBus(transportA, 10L, TimeUnit.MILLISECONDS);
+         InvalidationBus busB = new InvalidationBus(transportB, 10L, TimeUnit.MILLISECONDS)) {
+      busB.register("item", cacheB);
+      cacheB.put("item:1", "b");
+      cacheB.put("item:2", "b");
+      busA.invalidate("item", "item:1");
+
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (cacheB.size() > 1L && System.nanoTime() < deadline) {
+        Thread.sleep(10L);
+      }
+      assertThat(cacheB.asMap()).containsOnlyKeys("item:2");
+    }
+  }
+
+  private static Cache<String, String> newCache() {
+    return CacheBuilder.newBuilder().build();
+  }
+
+  private static InvalidationBus newBus(String channel, String cacheName, Cache<String, ?> cache) {
+    // 时间窗口足够长，由测试显式地发送
+    InvalidationBus bus = new InvalidationBus(new LoopbackInvalidationTransport(channel), 1L, TimeUnit.MINUTES);
+    bus.register(cacheName, cache);
+    return bus;
+  }
+
+  /**
+   * 单条消息的大小与 UDP 传输通道相同的回环传输通道。
+   */
+  private static final class SmallTransport implements InvalidationTransport {
+    private final LoopbackInvalidationTransport delegate;
+
+    SmallTransport(String channel) {
+      this.delegate = new LoopbackInvalidationTransport(channel);
+    }
+
+    @Override
+    public int maxMessageBytes() {
+      return UdpInvalidationTransport.MAX_MESSAGE_BYTES;
+    }
+
+    @Override
+    public void publish(byte[] message) {
+      delegate.publish(message);
+    }
+
+    @Override
+    public void subscribe(Consumer<byte[]> receiver) {
+      delegate.subscribe(receiver);
+    }
+
+    @Override
+    public void close() {
+      delegate.close();
+    }
+  }
+}
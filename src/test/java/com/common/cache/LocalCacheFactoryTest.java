@@ -262,6 +262,22 @@ public class LocalCacheFactoryTest {
   }
 
 
+  @Test(description = "W-TinyLFU 缓存引擎：定期异步刷新则调用 reload，过期失效而重新加载则调用 load")
+  public void newLoadingCache_TinyLfu() throws ExecutionException {
+    String spec = Joiner.on(',').join(Arrays.asList(
+        "policy=tinylfu", // W-TinyLFU 缓存引擎
+        "maximumSize=256", // 容量最大大小
+        "initialCapacity=16", // 初始容量
+        "refreshAfterWrite=3s", // 测试专用
+        "expireAfterWrite=4s" // 测试专用
+    ));
+    LoadingCache<String, Object> loadingCache = LocalCacheFactory
+        .newLoadingCache("newLoadingCache_TinyLfu", spec, syncCacheLoader);
+    assertThat(loadingCache).isInstanceOf(TinyLfuLoadingCache.class);
+    internalTest(loadingCache);
+  }
+
+
   private void internalTest(final LoadingCache<String, ?> loadingCache)
       throws ExecutionException {
     for (int i = 0; i < 3; i++) {
@@ -282,7 +298,7 @@ public class LocalCacheFactoryTest {
     } catch (InterruptedException e) {
       logger.warn("Thread.sleep() has interrupted", e);
     }
-    assertThat(loadingCache.get("refreshKey")).isEqualTo("reload"); // 异步刷新
+    assertThat(awaitRefresh(loadingCache, "refreshKey")).isEqualTo("reload"); // 异步刷新
     stats = loadingCache.stats();
     assertThat(stats.hitCount()).isEqualTo(2L); // 刷新操作算命中
     assertThat(stats.missCount()).isEqualTo(2L);
@@ -302,4 +318,23 @@ public class LocalCacheFactoryTest {
     assertThat(stats.loadSuccessCount()).isEqualTo(4L); // 重新加载
     assertThat(stats.evictionCount()).isEqualTo(1L); // 1个条目过期
   }
+
+  /**
+   * 读取并等待异步刷新完成。
+   * <p/>
+   * 触发刷新的读请求可能先返回旧值，随后通过不影响统计信息的 asMap() 视图等待新值。
+   */
+  private Object awaitRefresh(LoadingCache<String, ?> loadingCache, String key)
+      throws ExecutionException {
+    Object value = loadingCache.get(key);
+    for (int i = 0; i < 100 && "load".equals(value); i++) {
+      try {
+        TimeUnit.MILLISECONDS.sleep(10L);
+      } catch (InterruptedException e) {
+        logger.warn("Thread.sleep() has interrupted", e);
+      }
+      value = loadingCache.asMap().get(key);
+    }
+    return value;
+  }
 }
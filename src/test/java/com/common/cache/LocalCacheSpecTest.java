@@ -0,0 +1,191 @@
+package com.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link LocalCacheSpec}.
+ *
+ * @since 2026-10-17
+ */
+public class LocalCacheSpecTest {
+
+  @Test
+  public void parse() {
+    LocalCacheSpec spec = LocalCacheSpec.parse(
+        "policy=tinylfu, maximumSize=256,initialCapacity=16,refreshAfterWrite=1m,expireAfterWrite=1d,expireAfterAccess=2h");
+    assertThat(spec.policy()).isEqualTo(LocalCacheSpec.Policy.TINYLFU);
+    assertThat(spec.maximumSize()).isEqualTo(256L);
+    assertThat(spec.initialCapacity()).isEqualTo(16);
+    assertThat(spec.refreshAfterWriteNanos()).isEqualTo(TimeUnit.MINUTES.toNanos(1L));
+    assertThat(spec.expireAfterWriteNanos()).isEqualTo(TimeUnit.DAYS.toNanos(1L));
+    assertThat(spec.expireAfterAccessNanos()).isEqualTo(TimeUnit.HOURS.toNanos(2L));
+    // 扩展配置项被剔除
+    assertThat(spec.toCacheBuilderSpec().toParsableString())
+        .isEqualTo("maximumSize=256,initialCapacity=16,refreshAfterWrite=1m,expireAfterWrite=1d,expireAfterAccess=2h");
+  }
+
+  @Test
+  public void batch() {
+    LocalCacheSpec spec = LocalCacheSpec.parse("maximumSize=256,batchWindow=5ms");
+    assertThat(spec.batchSize()).isEqualTo(64);
+    assertThat(spec.batchWindowNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(5L));
+    assertThat(spec.toCacheBuilderSpec().toParsableString()).isEqualTo("maximumSize=256");
+
+    spec = LocalCacheSpec.parse("batchSize=32");
+    assertThat(spec.batchSize()).isEqualTo(32);
+    assertThat(spec.batchWindowNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(2L));
+  }
+
+  @Test
+  public void loadAll() {
+    LocalCacheSpec spec = LocalCacheSpec.parse("maximumSize=256,loadAllChunkSize=500");
+    assertThat(spec.loadAllChunkSize()).isEqualTo(500);
+    assertThat(spec.loadAllParallelism()).isEqualTo(4);
+    assertThat(spec.toCacheBuilderSpec().toParsableString()).isEqualTo("maximumSize=256");
+
+    spec = LocalCacheSpec.parse("loadAllParallelism=8");
+    assertThat(spec.loadAllChunkSize()).isEqualTo(256);
+    assertThat(spec.loadAllParallelism()).isEqualTo(8);
+  }
+
+  @Test
+  public void offHeap() {
+    LocalCacheSpec spec = LocalCacheSpec.parse("offHeapCapacity=512m,offHeapStorage=mapped,expireAfterWrite=1h");
+    assertThat(spec.offHeapCapacity()).isEqualTo(512L << 20);
+    assertThat(spec.offHeapStorage()).isEqualTo(LocalCacheSpec.OffHeapStorage.MAPPED);
+    assertThat(spec.toCacheBuilderSpec().toParsableString()).isEqualTo("expireAfterWrite=1h");
+
+    assertThat(LocalCacheSpec.parse("offHeapCapacity=2G").offHeapCapacity()).isEqualTo(2L << 30);
+    assertThat(LocalCacheSpec.parse("offHeapCapacity=4096").offHeapStorage())
+        .isEqualTo(LocalCacheSpec.OffHeapStorage.DIRECT);
+  }
+
+  @Test
+  public void maximumBytes() {
+    LocalCacheSpec spec = LocalCacheSpec.parse("maximumBytes=512m,expireAfterWrite=1h");
+    assertThat(spec.policy()).isEqualTo(LocalCacheSpec.Policy.LRU);
+    assertThat(spec.maximumBytes()).isEqualTo(512L << 20);
+    assertThat(spec.maximumSize()).isEqualTo(-1L);
+    assertThat(spec.toCacheBuilderSpec().toParsableString()).isEqualTo("expireAfterWrite=1h");
+  }
+
+  @Test
+  public void hotKeys() {
+    LocalCacheSpec spec = LocalCacheSpec.parse("maximumSize=256,hotKeys=10");
+    assertThat(spec.hotKeys()).isEqualTo(10);
+    assertThat(spec.hotKeyWindowNanos()).isEqualTo(TimeUnit.MINUTES.toNanos(1L));
+    assertThat(spec.toCacheBuilderSpec().toParsableString()).isEqualTo("maximumSize=256");
+    assertThat(LocalCacheSpec.parse("hotKeys=3,hotKeyWindow=10s").hotKeyWindowNanos())
+        .isEqualTo(TimeUnit.SECONDS.toNanos(10L));
+    assertThat(LocalCacheSpec.parse("").hotKeys()).isEqualTo(-1);
+  }
+
+  @Test
+  public void keyFilter() {
+    LocalCacheSpec spec = LocalCacheSpec.parse(
+        "maximumSize=256,keyFilterFpp=0.001,keyFilterRebuild=1h,negativeTtl=30s,negativeMaximumSize=1000");
+    assertThat(spec.keyFilterFpp()).isEqualTo(0.001);
+    assertThat(spec.keyFilterRebuildNanos()).isEqualTo(TimeUnit.HOURS.toNanos(1L));
+    assertThat(spec.negativeTtlNanos()).isEqualTo(TimeUnit.SECONDS.toNanos(30L));
+    assertThat(spec.negativeMaximumSize()).isEqualTo(1000L);
+    assertThat(spec.hasKeyFilterKeys()).isTrue();
+    assertThat(spec.toCacheBuilderSpec().toParsableString()).isEqualTo("maximumSize=256");
+    assertThat(LocalCacheSpec.parse("maximumSize=256").hasKeyFilterKeys()).isFalse();
+  }
+
+  @Test
+  public void snapshot() {
+    LocalCacheSpec spec = LocalCacheSpec.parse(
+        "maximumSize=256,snapshotFile=/data/cache/item.snapshot,snapshotInterval=10m");
+    assertThat(spec.snapshotFile()).isEqualTo("/data/cache/item.snapshot");
+    assertThat(spec.snapshotIntervalNanos()).isEqualTo(TimeUnit.MINUTES.toNanos(10L));
+    assertThat(spec.toCacheBuilderSpec().toParsableString()).isEqualTo("maximumSize=256");
+  }
+
+  @Test
+  public void staleTtl() {
+    LocalCacheSpec spec = LocalCacheSpec.parse("maximumSize=256,softTtl=30s,hardTtl=10m");
+    assertThat(spec.policy()).isEqualTo(LocalCacheSpec.Policy.TINYLFU);
+    assertThat(spec.softTtlNanos()).isEqualTo(TimeUnit.SECONDS.toNanos(30L));
+    assertThat(spec.hardTtlNanos()).isEqualTo(TimeUnit.MINUTES.toNanos(10L));
+    assertThat(spec.refreshAfterWriteNanos()).isEqualTo(spec.softTtlNanos());
+    assertThat(spec.expireAfterWriteNanos()).isEqualTo(spec.hardTtlNanos());
+  }
+
+  @Test
+  public void earlyRefresh() {
+    LocalCacheSpec spec = LocalCacheSpec.parse("expireAfterWrite=10m,earlyRefreshBeta=1.5,expireJitter=0.1");
+    assertThat(spec.policy()).isEqualTo(LocalCacheSpec.Policy.TINYLFU);
+    assertThat(spec.earlyRefreshBeta()).isEqualTo(1.5);
+    assertThat(spec.expireJitter()).isEqualTo(0.1);
+    assertThat(spec.toCacheBuilderSpec().toParsableString()).isEqualTo("expireAfterWrite=10m");
+  }
+
+  @Test
+  public void defaults() {
+    LocalCacheSpec spec = LocalCacheSpec.parse("");
+    assertThat(spec.policy()).isEqualTo(LocalCacheSpec.Policy.LRU);
+    assertThat(spec.maximumSize()).isEqualTo(-1L);
+    assertThat(spec.expireAfterWriteNanos()).isEqualTo(-1L);
+    assertThat(spec.batchSize()).isEqualTo(-1);
+    assertThat(spec.toCacheBuilderSpec().toParsableString()).isEmpty();
+  }
+
+  @Test(dataProvider = "illegalSpecs", expectedExceptions = IllegalArgumentException.class)
+  public void illegal(String specification) {
+    LocalCacheSpec.parse(specification);
+  }
+
+  @DataProvider(name = "illegalSpecs")
+  private static Object[][] illegalSpecs() {
+    return new Object[][]{
+        {"unknownKey=1"},
+        {"policy=mru"},
+        {"policy"},
+        {"maximumSize=1,maximumSize=2"},
+        {"expireAfterWrite=1x"},
+        {"policy=tinylfu,weakKeys"},
+        {"batchSize=0"},
+        {"loadAllChunkSize=0"},
+        {"loadAllParallelism=-1"},
+        {"warmUpBatchSize=0"},
+        {"warmUpConcurrency=0"},
+        {"warmUpRate=0"},
+        {"offHeapCapacity=0"},
+        {"offHeapCapacity=1t"},
+        {"offHeapCapacity=1g,maximumSize=100"},
+        {"offHeapCapacity=1g,policy=tinylfu"},
+        {"offHeapStorage=mapped"},
+        {"maximumBytes=0"},
+        {"hotKeys=0"},
+        {"keyFilterFpp=1"},
+        {"negativeTtl=0s"},
+        {"negativeMaximumSize=0"},
+        {"hotKeys=1001"},
+        {"hotKeyWindow=1m"},
+        {"hotKeys=10,hotKeyWindow=0s"},
+        {"maximumBytes=512m,maximumSize=100"},
+        {"maximumBytes=512m,softValues"},
+        {"maximumBytes=512m,policy=tinylfu"},
+        {"maximumBytes=512m,offHeapCapacity=1g"},
+        {"snapshotFile"},
+        {"snapshotInterval=10m"},
+        {"snapshotFile=/data/cache/item.snapshot,expireAfterWrite=10m"},
+        {"snapshotFile=/data/cache/item.snapshot,refreshAfterWrite=1m,policy=lru"},
+        {"softTtl=1m"},
+        {"softTtl=10m,hardTtl=1m"},
+        {"softTtl=1m,hardTtl=10m,expireAfterWrite=1h"},
+        {"softTtl=1m,hardTtl=10m,policy=lru"},
+        {"earlyRefreshBeta=0"},
+        {"earlyRefreshBeta=fast"},
+        {"expireJitter=1.0"},
+        {"expireJitter=0.1"},
+        {"expireAfterWrite=1m,expireJitter=0.1,policy=lru"},
+    };
+  }
+}
@@ -0,0 +1,212 @@
+package com.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.common.cache.TinyLfuLoadingCacheTest.FakeTicker;
+import com.google.common.cache.CacheLoader.InvalidCacheLoadException;
+import com.google.common.cache.CacheStats;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link LongLoadingCache}.
+ *
+ * @since 2026-10-17
+ */
+public class LongLoadingCacheTest {
+
+  @Test(description = "未命中则加载，命中则直接返回")
+  public void getAndStats() throws ExecutionException {
+    CountingLoader loader = new CountingLoader();
+    LongLoadingCache<String> cache = newCache("maximumSize=100", loader, new FakeTicker());
+
+    assertThat(cache.get(1L)).isEqualTo("1");
+    assertThat(cache.get(1L)).isEqualTo("1");
+    assertThat(cache.getIfPresent(2L)).isNull();
+    assertThat(loader.loadCount.get()).isEqualTo(1);
+    assertThat(cache.size()).isEqualTo(1L);
+
+    CacheStats stats = cache.stats();
+    assertThat(stats.hitCount()).isEqualTo(1L);
+    assertThat(stats.missCount()).isEqualTo(2L);
+    assertThat(stats.loadSuccessCount()).isEqualTo(1L);
+
+    cache.invalidate(1L);
+    assertThat(cache.getIfPresent(1L)).isNull();
+    assertThat(cache.size()).isEqualTo(0L);
+  }
+
+  @Test(description = "加载器返回 null 时抛出无效缓存加载异常",
+      expectedExceptions = InvalidCacheLoadException.class)
+  public void loadNull() throws ExecutionException {
+    LongLoadingCache<String> cache = newCache("maximumSize=100", new LongCacheLoader<String>() {
+      @Override
+      public String load(long key) {
+        return null;
+      }
+    }, new FakeTicker());
+    cache.get(1L);
+  }
+
+  @Test(description = "条目数不超过 maximumSize，删除后仍能找到探测链上的其它条目")
+  public void maximumSize() throws ExecutionException {
+    LongLoadingCache<String> cache = newCache("maximumSize=1000", new CountingLoader(), new FakeTicker());
+    for (long i = 0; i < 10_000; i++) {
+      assertThat(cache.get(i * 1024)).isNotNull();
+    }
+    assertThat(cache.size()).isLessThanOrEqualTo(1000L + 64L);
+    assertThat(cache.stats().evictionCount()).isEqualTo(10_000L - cache.size());
+
+    long present = 0L;
+    for (long i = 0; i < 10_000; i++) {
+      if (cache.getIfPresent(i * 1024) != null) {
+        present++;
+      }
+    }
+    assertThat(present).isEqualTo(cache.size());
+  }
+
+  @Test(description = "无界时自动扩容")
+  public void unbounded() throws ExecutionException {
+    LongLoadingCache<String> cache = newCache("initialCapacity=16", new CountingLoader(), new FakeTicker());
+    for (long i = -50_000; i < 50_000; i++) {
+      cache.put(i, String.valueOf(i));
+    }
+    assertThat(cache.size()).isEqualTo(100_000L);
+    for (long i = -50_000; i < 50_000; i += 7) {
+      assertThat(cache.get(i)).isEqualTo(String.valueOf(i));
+    }
+    cache.invalidateAll();
+    assertThat(cache.size()).isEqualTo(0L);
+  }
+
+  @Test(description = "写入过期、访问过期和刷新周期")
+  public void expireAndRefresh() throws ExecutionException {
+    FakeTicker ticker = new FakeTicker();
+    CountingLoader loader = new CountingLoader();
+    LongLoadingCache<String> cache = newCache("refreshAfterWrite=1m,expireAfterWrite=10m", loader, ticker);
+
+    assertThat(cache.get(1L)).isEqualTo("1");
+    ticker.advance(2, TimeUnit.MINUTES);
+    // 同步完成的重新加载直接返回新值
+    assertThat(cache.get(1L)).isEqualTo("2");
+    assertThat(cache.get(1L)).isEqualTo("2");
+
+    ticker.advance(11, TimeUnit.MINUTES);
+    assertThat(cache.getIfPresent(1L)).isNull();
+    cache.cleanUp();
+    assertThat(cache.size()).isEqualTo(0L);
+
+    LongLoadingCache<String> accessCache = newCache("expireAfterAccess=1m", loader, ticker);
+    accessCache.get(2L);
+    ticker.advance(50, TimeUnit.SECONDS);
+    assertThat(accessCache.getIfPresent(2L)).isNotNull();
+    ticker.advance(50, TimeUnit.SECONDS);
+    assertThat(accessCache.getIfPresent(2L)).isNotNull();
+    ticker.advance(61, TimeUnit.SECONDS);
+    assertThat(accessCache.getIfPresent(2L)).isNull();
+  }
+
+  @Test(description = "批量获取：未命中的键批量加载，结果与键的顺序一致")
+  public void getAll() throws ExecutionException {
+    final AtomicInteger loadAllCount = new AtomicInteger();
+    LongLoadingCache<String> cache = newCache("maximumSize=100", new LongCacheLoader<String>() {
+      @Override
+      public String load(long key) {
+        return "one:" + key;
+      }
+
+      @Override
+      public Map<Long, String> loadAll(Iterable<? extends Long> keys) {
+        loadAllCount.incrementAndGet();
+        Map<Long, String> values = new HashMap<>();
+        for (Long key : keys) {
+          values.put(key, "all:" + key);
+        }
+        return values;
+      }
+    }, new FakeTicker());
+
+    cache.put(2L, "put:2");
+    assertThat(cache.getAll(new long[]{3L, 2L, 1L})).containsExactly("all:3", "put:2", "all:1");
+    assertThat(cache.getAll(new long[]{1L, 3L})).containsExactly("all:1", "all:3");
+    assertThat(loadAllCount.get()).isEqualTo(1);
+    // 每个未缓存的键只计一次未命中
+    assertThat(cache.stats().hitCount()).isEqualTo(3L);
+    assertThat(cache.stats().missCount()).isEqualTo(2L);
+
+    // 不支持批量加载时逐个加载
+    LongLoadingCache<String> singleCache = newCache("maximumSize=100", new CountingLoader(), new FakeTicker());
+    assertThat(singleCache.getAll(new long[]{7L, 8L, 7L})).containsExactly("1", "2", "1");
+    assertThat(singleCache.stats().missCount()).isEqualTo(2L);
+  }
+
+  @Test(description = "同一个键的并发未命中只加载一次")
+  public void concurrentLoad() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final AtomicInteger loadCount = new AtomicInteger();
+    final LongLoadingCache<String> cache = newCache("maximumSize=100", new LongCacheLoader<String>() {
+      @Override
+      public String load(long key) throws InterruptedException {
+        loadCount.incrementAndGet();
+        started.await();
+        return "v" + key;
+      }
+    }, new FakeTicker());
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<String>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(executor.submit(() -> cache.get(42L)));
+      }
+      TimeUnit.MILLISECONDS.sleep(100L);
+      started.countDown();
+      for (Future<String> future : futures) {
+        assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo("v42");
+      }
+      assertThat(loadCount.get()).isEqualTo(1);
+      assertThat(cache.size()).isEqualTo(1L);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(description = "不支持的配置项", expectedExceptions = IllegalArgumentException.class)
+  public void unsupported() {
+    newCache("maximumSize=100,weakValues", new CountingLoader(), new FakeTicker());
+  }
+
+  @Test(description = "工厂创建缓存")
+  public void factory() throws ExecutionException {
+    LongLoadingCache<String> cache = LocalCacheFactory.newLongLoadingCache(
+        "longService", "maximumSize=100,refreshAfterWrite=1m", new CountingLoader());
+    assertThat(cache.get(1L)).isEqualTo("1");
+    assertThat(cache.get(1L)).isEqualTo("1");
+  }
+
+  private static LongLoadingCache<String> newCache(String spec, LongCacheLoader<String> loader, FakeTicker ticker) {
+    return new LongLoadingCache<>(LocalCacheSpec.parse(spec), loader, loader, ticker);
+  }
+
+  static final class CountingLoader extends LongCacheLoader<String> {
+    final AtomicInteger loadCount = new AtomicInteger();
+
+    @Override
+    public String load(long key) {
+      // 值为第几次加载
+      return String.valueOf(loadCount.incrementAndGet());
+    }
+  }
+}
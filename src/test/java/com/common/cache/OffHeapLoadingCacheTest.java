@@ -0,0 +1,241 @@
+package com.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.common.cache.TinyLfuLoadingCacheTest.CountingLoader;
+import com.common.cache.TinyLfuLoadingCacheTest.FakeTicker;
+import com.google.common.base.Strings;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link OffHeapLoadingCache}.
+ *
+ * @since 2026-10-17
+ */
+public class OffHeapLoadingCacheTest {
+
+  @Test(description = "未命中则加载，命中则从堆外解码")
+  public void getAndStats() throws ExecutionException {
+    CountingLoader loader = new CountingLoader();
+    OffHeapLoadingCache<Integer, String> cache = newCache("offHeapCapacity=1m", loader, new FakeTicker());
+
+    assertThat(cache.get(1)).isEqualTo("1");
+    assertThat(cache.get(1)).isEqualTo("1");
+    assertThat(cache.getIfPresent(2)).isNull();
+    assertThat(loader.loadCount.get()).isEqualTo(1);
+    assertThat(cache.usedBytes()).isEqualTo(SlabAllocator.MIN_CHUNK_SIZE);
+
+    CacheStats stats = cache.stats();
+    assertThat(stats.hitCount()).isEqualTo(1L);
+    assertThat(stats.missCount()).isEqualTo(2L);
+    assertThat(stats.loadSuccessCount()).isEqualTo(1L);
+
+    cache.invalidate(1);
+    assertThat(cache.usedBytes()).isEqualTo(0L);
+    assertThat(cache.size()).isEqualTo(0L);
+  }
+
+  @Test(description = "批量获取：每个未缓存的键只计一次未命中")
+  public void getAllStats() throws ExecutionException {
+    OffHeapLoadingCache<Integer, String> cache = newCache("offHeapCapacity=1m", new CacheLoader<Integer, String>() {
+      @Override
+      public String load(Integer key) {
+        return "one:" + key;
+      }
+
+      @Override
+      public Map<Integer, String> loadAll(Iterable<? extends Integer> keys) {
+        Map<Integer, String> values = new HashMap<>();
+        for (Integer key : keys) {
+          values.put(key, "all:" + key);
+        }
+        return values;
+      }
+    }, new FakeTicker());
+    cache.put(1, "put:1");
+
+    assertThat(cache.getAll(Arrays.asList(4, 1, 2, 3, 2)))
+        .containsExactly(entry(4, "all:4"), entry(1, "put:1"), entry(2, "all:2"), entry(3, "all:3"));
+    assertThat(cache.getIfPresent(3)).isEqualTo("all:3");
+    CacheStats stats = cache.stats();
+    assertThat(stats.hitCount()).isEqualTo(2L);
+    assertThat(stats.missCount()).isEqualTo(3L);
+
+    // 不支持批量加载时逐个加载，同样每个键只计一次
+    OffHeapLoadingCache<Integer, String> singleCache =
+        newCache("offHeapCapacity=1m", new CountingLoader(), new FakeTicker());
+    assertThat(singleCache.getAll(Arrays.asList(1, 2, 3))).hasSize(3);
+    assertThat(singleCache.stats().missCount()).isEqualTo(3L);
+    assertThat(singleCache.stats().loadSuccessCount()).isEqualTo(3L);
+  }
+
+  @Test(description = "按堆外内存的容量淘汰")
+  public void capacity() throws ExecutionException {
+    OffHeapLoadingCache<Integer, String> cache =
+        newCache("offHeapCapacity=64k", new PaddingLoader(500), new FakeTicker());
+    for (int i = 0; i < 1000; i++) {
+      assertThat(cache.get(i)).startsWith(i + ":");
+    }
+    assertThat(cache.usedBytes()).isLessThanOrEqualTo(cache.capacityBytes());
+    assertThat(cache.size()).isGreaterThan(0L).isLessThan(1000L);
+    assertThat(cache.stats().evictionCount()).isEqualTo(1000L - cache.size());
+    // 最近写入的条目仍在缓存中
+    assertThat(cache.getIfPresent(999)).startsWith("999:");
+  }
+
+  @Test(description = "内存用尽时，从其它分片等级回收整页")
+  public void reassignPage() throws ExecutionException {
+    OffHeapLoadingCache<Integer, String> cache =
+        newCache("offHeapCapacity=64k", new PaddingLoader(100), new FakeTicker());
+    for (int i = 0; i < 1000; i++) {
+      cache.get(i);
+    }
+    long smallEntries = cache.size();
+
+    for (int i = 0; i < 20; i++) {
+      cache.put(-i - 1, Strings.repeat("x", 2000));
+    }
+    assertThat(cache.getIfPresent(-20)).hasSize(2000);
+    assertThat(cache.size()).isLessThan(smallEntries + 20);
+    assertThat(cache.usedBytes()).isLessThanOrEqualTo(cache.capacityBytes());
+  }
+
+  @Test(description = "超过页大小的值不缓存")
+  public void uncacheable() throws ExecutionException {
+    OffHeapLoadingCache<Integer, String> cache =
+        newCache("offHeapCapacity=4k", new PaddingLoader(8192), new FakeTicker());
+    assertThat(cache.get(1)).hasSize(8192 + 2);
+    assertThat(cache.size()).isEqualTo(0L);
+    assertThat(cache.uncacheableCount()).isEqualTo(1L);
+  }
+
+  @Test(description = "覆盖写入时内存分配失败，清除并释放旧值，避免读到过时数据")
+  public void allocationFailsOnOverwrite() {
+    ExhaustibleAllocator allocator = new ExhaustibleAllocator();
+    OffHeapLoadingCache<Integer, String> cache = new OffHeapLoadingCache<>(LocalCacheSpec.parse("offHeapCapacity=1m"),
+        new CountingLoader(), JacksonValueCodec.of(String.class), new FakeTicker(), allocator);
+    cache.put(1, "old");
+    assertThat(cache.usedBytes()).isGreaterThan(0L);
+
+    allocator.exhausted = true;
+    cache.put(1, "new");
+    assertThat(cache.getIfPresent(1)).isNull();
+    assertThat(cache.size()).isEqualTo(0L);
+    assertThat(cache.usedBytes()).isEqualTo(0L);
+    assertThat(cache.uncacheableCount()).isEqualTo(1L);
+  }
+
+  @Test(description = "内存映射文件的存储方式")
+  public void mapped() throws ExecutionException {
+    OffHeapLoadingCache<Integer, String> cache =
+        newCache("offHeapCapacity=256k,offHeapStorage=mapped", new PaddingLoader(300), new FakeTicker());
+    try {
+      for (int i = 0; i < 100; i++) {
+        cache.get(i);
+      }
+      for (int i = 0; i < 100; i++) {
+        assertThat(cache.getIfPresent(i)).startsWith(i + ":");
+      }
+      assertThat(cache.allocatedBytes()).isGreaterThan(0L);
+    } finally {
+      cache.close();
+    }
+  }
+
+  @Test(description = "写入过期和刷新周期")
+  public void expireAndRefresh() throws ExecutionException {
+    FakeTicker ticker = new FakeTicker();
+    CountingLoader loader = new CountingLoader();
+    OffHeapLoadingCache<Integer, String> cache =
+        newCache("offHeapCapacity=1m,refreshAfterWrite=1m,expireAfterWrite=10m", loader, ticker);
+
+    assertThat(cache.get(1)).isEqualTo("1");
+    ticker.advance(2, TimeUnit.MINUTES);
+    // 同步完成的重新加载直接返回新值
+    assertThat(cache.get(1)).isEqualTo("2");
+    assertThat(cache.get(1)).isEqualTo("2");
+
+    ticker.advance(11, TimeUnit.MINUTES);
+    assertThat(cache.getIfPresent(1)).isNull();
+    cache.cleanUp();
+    assertThat(cache.size()).isEqualTo(0L);
+    assertThat(cache.usedBytes()).isEqualTo(0L);
+  }
+
+  @Test(description = "asMap() 视图的并发映射操作")
+  public void asMap() {
+    OffHeapLoadingCache<Integer, String> cache =
+        newCache("offHeapCapacity=1m", new CountingLoader(), new FakeTicker());
+    assertThat(cache.asMap().putIfAbsent(1, "a")).isNull();
+    assertThat(cache.asMap().putIfAbsent(1, "b")).isEqualTo("a");
+    assertThat(cache.asMap().replace(1, "a", "c")).isTrue();
+    assertThat(cache.asMap().replace(1, "d")).isEqualTo("c");
+    assertThat(cache.asMap().remove(1, "c")).isFalse();
+    assertThat(cache.asMap().remove(1, "d")).isTrue();
+    assertThat(cache.asMap()).isEmpty();
+
+    cache.put(2, "x");
+    cache.put(3, "y");
+    assertThat(cache.asMap()).hasSize(2).containsEntry(2, "x").containsEntry(3, "y");
+    cache.invalidateAll();
+    assertThat(cache.size()).isEqualTo(0L);
+    assertThat(cache.usedBytes()).isEqualTo(0L);
+  }
+
+  private static OffHeapLoadingCache<Integer, String> newCache(
+      String spec, CacheLoader<Integer, String> loader, Ticker ticker) {
+    return new OffHeapLoadingCache<>(LocalCacheSpec.parse(spec), loader, JacksonValueCodec.of(String.class), ticker);
+  }
+
+  /**
+   * 可以模拟内存用尽（没有可分配、可淘汰和可回收的块）的分配器。
+   */
+  private static final class ExhaustibleAllocator extends SlabAllocator {
+    volatile boolean exhausted;
+
+    ExhaustibleAllocator() {
+      super(1L << 20, DEFAULT_PAGE_SIZE, LocalCacheSpec.OffHeapStorage.DIRECT);
+    }
+
+    @Override
+    Slot allocate(Object key, byte[] bytes, long now) {
+      return exhausted ? null : super.allocate(key, bytes, now);
+    }
+
+    @Override
+    Slot nextVictim(int classIndex) {
+      return exhausted ? null : super.nextVictim(classIndex);
+    }
+
+    @Override
+    Page reclaimablePage(int classIndex) {
+      return exhausted ? null : super.reclaimablePage(classIndex);
+    }
+  }
+
+  /**
+   * 值为“键:”加上指定长度的填充。
+   */
+  private static final class PaddingLoader extends CacheLoader<Integer, String> {
+    private final String padding;
+
+    PaddingLoader(int length) {
+      this.padding = Strings.repeat("p", length);
+    }
+
+    @Override
+    public String load(Integer key) {
+      return key + ":" + padding;
+    }
+  }
+}
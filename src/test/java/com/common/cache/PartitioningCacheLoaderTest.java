@@ -0,0 +1,122 @@
+package com.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link PartitioningCacheLoader}.
+ *
+ * @since 2026-10-17
+ */
+public class PartitioningCacheLoaderTest {
+
+  @Test(description = "未命中的键按分片并行加载，同时加载的分片数不超过并行度")
+  public void parallel() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      BulkLoader bulkLoader = new BulkLoader(null, 20L);
+      PartitioningCacheLoader<Integer, String> loader = new PartitioningCacheLoader<>(bulkLoader, 100, 4, executor);
+
+      Map<Integer, String> result = loader.loadAll(range(0, 1000));
+      assertThat(result).hasSize(1000);
+      assertThat(result.get(999)).isEqualTo("v999");
+      assertThat(bulkLoader.chunkSizes).hasSize(10).containsOnly(100);
+      assertThat(bulkLoader.maxConcurrency.get()).isBetween(2, 4);
+      assertThat(bulkLoader.threads.size()).isGreaterThan(1);
+      assertThat(loader.chunkCount()).isEqualTo(10L);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(description = "部分分片失败时报告每个失败分片的键和原因，以及成功分片的值")
+  public void partialFailure() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      PartitioningCacheLoader<Integer, String> loader =
+          new PartitioningCacheLoader<>(new BulkLoader(250, 20L), 100, 4, executor);
+      try {
+        loader.loadAll(range(0, 500));
+        fail("expected PartialLoadException");
+      } catch (PartialLoadException e) {
+        assertThat(e.failures()).hasSize(1);
+        PartialLoadException.ChunkFailure failure = e.failures().get(0);
+        assertThat(failure.index()).isEqualTo(2);
+        assertThat(failure.keys()).hasSize(100).contains(200, 250, 299);
+        assertThat(failure.cause()).isInstanceOf(IllegalStateException.class);
+        assertThat(e.loadedValues()).hasSize(400);
+        assertThat(e.loadedValues().containsKey(250)).isFalse();
+      }
+      assertThat(loader.chunkFailureCount()).isEqualTo(1L);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(description = "线程池拒绝执行时由调用者线程加载所有分片")
+  public void rejected() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    executor.shutdown();
+    BulkLoader bulkLoader = new BulkLoader(null, 20L);
+    PartitioningCacheLoader<Integer, String> loader = new PartitioningCacheLoader<>(bulkLoader, 10, 4, executor);
+    assertThat(loader.loadAll(range(0, 95))).hasSize(95);
+    assertThat(bulkLoader.threads).containsOnly(Thread.currentThread());
+  }
+
+  @Test(description = "不支持批量加载时在分片内逐个加载")
+  public void singleLoad() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      AtomicInteger loadCount = new AtomicInteger();
+      PartitioningCacheLoader<Integer, String> loader = new PartitioningCacheLoader<>(
+          new CacheLoader<Integer, String>() {
+            @Override
+            public String load(Integer key) {
+              loadCount.incrementAndGet();
+              return (key % 2 == 0) ? "v" + key : null;
+            }
+          }, 8, 2, executor);
+      Map<Integer, String> result = loader.loadAll(range(0, 40));
+      assertThat(result).hasSize(20).containsEntry(38, "v38");
+      assertThat(loadCount.get()).isEqualTo(40);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(description = "由缓存规格开启，getAll 的部分失败包装为 ExecutionException")
+  public void loadingCache() throws Exception {
+    BulkLoader bulkLoader = new BulkLoader(42, 20L);
+    LoadingCache<Integer, String> cache = LocalCacheFactory.newLoadingCache(
+        "partitionedService", "maximumSize=10000,loadAllChunkSize=50,loadAllParallelism=4", bulkLoader);
+    assertThat(cache.getAll(range(100, 300))).hasSize(200);
+    assertThat(bulkLoader.chunkSizes).hasSize(4);
+    try {
+      cache.getAll(range(0, 200));
+      fail("expected ExecutionException");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isInstanceOf(PartialLoadException.class);
+      assertThat(((PartialLoadException) e.getCause()).loadedValues()).hasSize(50);
+    }
+  }
+
+  private static List<Integer> range(int from, int to) {
+    List<Integer> keys = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      keys.add(i);
+    }
+    return keys;
+  }
+}
@@ -0,0 +1,257 @@
+package com.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link RefreshScheduler}.
+ *
+ * @since 2026-10-17
+ */
+public class RefreshSchedulerTest {
+
+  @Test(description = "同一个键的重复刷新请求只执行一次重新加载")
+  public void coalesce() throws Exception {
+    ManualExecutor executor = new ManualExecutor();
+    RefreshScheduler scheduler = new RefreshScheduler(executor, 16);
+    CountingLoader countingLoader = new CountingLoader();
+    CacheLoader<String, String> loader = scheduler.asyncReloading(countingLoader);
+
+    ListenableFuture<String> first = loader.reload("key", "old");
+    ListenableFuture<String> second = loader.reload("key", "old");
+    assertThat(second).isSameAs(first);
+    assertThat(scheduler.queueDepth()).isEqualTo(1);
+    assertThat(scheduler.coalescedCount()).isEqualTo(1L);
+
+    executor.runAll();
+    assertThat(first.get()).isEqualTo("key-1");
+    assertThat(countingLoader.loadCount.get()).isEqualTo(1);
+    assertThat(scheduler.queueDepth()).isEqualTo(0);
+
+    // 执行完成后，新的刷新请求会再次加载
+    ListenableFuture<String> third = loader.reload("key", "key-1");
+    executor.runAll();
+    assertThat(third.get()).isEqualTo("key-2");
+  }
+
+  @Test(description = "排队数达到上限时跳过刷新（缓存继续提供旧值），而不是拒绝执行")
+  public void backpressure() throws Exception {
+    ManualExecutor executor = new ManualExecutor();
+    RefreshScheduler scheduler = new RefreshScheduler(executor, 2);
+    CacheLoader<String, String> loader = scheduler.asyncReloading(new CountingLoader());
+
+    loader.reload("a", "oldA");
+    loader.reload("b", "oldB");
+    ListenableFuture<String> dropped = loader.reload("c", "oldC");
+    assertThat(dropped.isDone()).isTrue();
+    assertThat(RefreshSkippedException.isSkipped(dropped)).isTrue();
+    assertThat(scheduler.queueDepth()).isEqualTo(2);
+    assertThat(scheduler.droppedCount()).isEqualTo(1L);
+    assertThat(scheduler.submittedCount()).isEqualTo(3L);
+  }
+
+  @Test(description = "线程池拒绝执行时跳过刷新")
+  public void rejected() throws Exception {
+    Executor rejecting = command -> {
+      throw new RejectedExecutionException("full");
+    };
+    RefreshScheduler scheduler = new RefreshScheduler(rejecting, 16);
+    CacheLoader<String, String> loader = scheduler.asyncReloading(new CountingLoader());
+
+    ListenableFuture<String> future = loader.reload("key", "old");
+    assertThat(RefreshSkippedException.isSkipped(future)).isTrue();
+    assertThat(scheduler.queueDepth()).isEqualTo(0);
+    assertThat(scheduler.droppedCount()).isEqualTo(1L);
+  }
+
+  @Test(description = "并发提交时排队数不超过上限")
+  public void backpressureConcurrent() throws Exception {
+    // 接受但不执行，任务一直排队
+    RefreshScheduler scheduler = new RefreshScheduler(command -> {
+    }, 10);
+    CacheLoader<String, String> loader = scheduler.asyncReloading(new CountingLoader());
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      final int thread = t;
+      threads.add(new Thread(() -> {
+        Uninterruptibles.awaitUninterruptibly(start);
+        try {
+          for (int i = 0; i < 100; i++) {
+            loader.reload(thread + "-" + i, "old");
+          }
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertThat(scheduler.queueDepth()).isEqualTo(10);
+    assertThat(scheduler.droppedCount()).isEqualTo(790L);
+  }
+
+  @Test(description = "访问频率高的键优先刷新，频率相同时按提交顺序")
+  public void frequencyFirst() throws Exception {
+    ManualExecutor executor = new ManualExecutor();
+    RefreshScheduler scheduler = new RefreshScheduler(executor, 16);
+    CacheLoader<String, String> loader = scheduler.asyncReloading(new CountingLoader());
+    Map<String, Integer> frequencies = ImmutableMap.of("b", 5, "c", 3, "d", 3);
+    RefreshScheduler.rankBy(loader, key -> frequencies.getOrDefault(key, 0));
+
+    ListenableFuture<String> a = loader.reload("a", "old");
+    ListenableFuture<String> b = loader.reload("b", "old");
+    ListenableFuture<String> c = loader.reload("c", "old");
+    ListenableFuture<String> d = loader.reload("d", "old");
+    executor.runAll();
+    assertThat(b.get()).isEqualTo("b-1");
+    assertThat(c.get()).isEqualTo("c-2");
+    assertThat(d.get()).isEqualTo("d-3");
+    assertThat(a.get()).isEqualTo("a-4");
+  }
+
+  @Test(description = "线程池拒绝执行时新任务已被其它线程取走，撤销另一个排队中的任务，不遗留永远不执行的任务")
+  public void rejectedAfterTaken() throws Exception {
+    ManualExecutor pool = new ManualExecutor();
+    AtomicBoolean rejecting = new AtomicBoolean();
+    RefreshScheduler scheduler = new RefreshScheduler(command -> {
+      if (rejecting.get()) {
+        // 已提交的 runNext 先取走了优先级更高的新任务
+        pool.runAll();
+        throw new RejectedExecutionException("full");
+      }
+      pool.execute(command);
+    }, 16);
+    CacheLoader<String, String> loader = scheduler.asyncReloading(new CountingLoader());
+    RefreshScheduler.rankBy(loader, key -> "hot".equals(key) ? 10 : 0);
+
+    ListenableFuture<String> cold = loader.reload("cold", "oldCold");
+    rejecting.set(true);
+    ListenableFuture<String> hot = loader.reload("hot", "oldHot");
+    assertThat(hot.get()).isEqualTo("hot-1");
+    assertThat(RefreshSkippedException.isSkipped(cold)).isTrue();
+    assertThat(scheduler.queueDepth()).isEqualTo(0);
+    assertThat(scheduler.droppedCount()).isEqualTo(1L);
+
+    // 被撤销的键可以再次刷新
+    rejecting.set(false);
+    ListenableFuture<String> again = loader.reload("cold", "oldCold");
+    assertThat(again).isNotSameAs(cold);
+    pool.runAll();
+    assertThat(again.get()).isEqualTo("cold-2");
+  }
+
+  @Test(description = "重新加载失败时返回异常结果（缓存保留旧值）")
+  public void failed() throws Exception {
+    ManualExecutor executor = new ManualExecutor();
+    RefreshScheduler scheduler = new RefreshScheduler(executor, 16);
+    CacheLoader<String, String> loader = scheduler.asyncReloading(new CacheLoader<String, String>() {
+      @Override
+      public String load(String key) {
+        throw new IllegalStateException("backend down");
+      }
+    });
+
+    ListenableFuture<String> future = loader.reload("key", "old");
+    executor.runAll();
+    assertThat(future.isDone()).isTrue();
+    assertThat(scheduler.failedCount()).isEqualTo(1L);
+  }
+
+  @Test(description = "持续背压时跳过的刷新不重置写入时间，条目按 hardTtl 过期后同步加载")
+  public void backpressureKeepsHardTtl() throws Exception {
+    // 接受但不执行，占满唯一的排队名额
+    RefreshScheduler scheduler = new RefreshScheduler(command -> {
+    }, 1);
+    TinyLfuLoadingCacheTest.CountingLoader loader = new TinyLfuLoadingCacheTest.CountingLoader();
+    TinyLfuLoadingCacheTest.FakeTicker ticker = new TinyLfuLoadingCacheTest.FakeTicker();
+    TinyLfuLoadingCache<Integer, String> cache = new TinyLfuLoadingCache<>(
+        LocalCacheSpec.parse("policy=tinylfu,maximumSize=100,softTtl=1s,hardTtl=3s"),
+        scheduler.asyncReloading(loader), ticker);
+    assertExpiresUnderBackpressure(cache, scheduler, ticker::advance);
+    assertThat(cache.stats().loadSuccessCount()).isEqualTo(3L);
+    assertThat(cache.stats().loadExceptionCount()).isEqualTo(0L);
+  }
+
+  @Test(description = "Guava 缓存在持续背压时跳过的刷新不重置写入时间，条目按 expireAfterWrite 过期后同步加载")
+  public void backpressureKeepsExpireAfterWriteOnGuava() throws Exception {
+    RefreshScheduler scheduler = new RefreshScheduler(command -> {
+    }, 1);
+    TinyLfuLoadingCacheTest.FakeTicker ticker = new TinyLfuLoadingCacheTest.FakeTicker();
+    LoadingCache<Integer, String> cache = CacheBuilder.newBuilder()
+        .ticker(ticker)
+        .refreshAfterWrite(1L, TimeUnit.SECONDS)
+        .expireAfterWrite(3L, TimeUnit.SECONDS)
+        .build(scheduler.asyncReloading(new TinyLfuLoadingCacheTest.CountingLoader()));
+    assertExpiresUnderBackpressure(cache, scheduler, ticker::advance);
+  }
+
+  /**
+   * 键 2 的刷新因排队名额被键 1 占满而被跳过，写入 3 秒后按时过期。
+   */
+  private static void assertExpiresUnderBackpressure(
+      LoadingCache<Integer, String> cache, RefreshScheduler scheduler, Clock clock) throws Exception {
+    assertThat(cache.get(1)).isEqualTo("1");
+    assertThat(cache.get(2)).isEqualTo("2");
+    clock.advance(2L, TimeUnit.SECONDS);
+    assertThat(cache.get(1)).isEqualTo("1");
+    assertThat(cache.get(2)).isEqualTo("2");
+    assertThat(scheduler.queueDepth()).isEqualTo(1);
+    assertThat(scheduler.droppedCount()).isEqualTo(1L);
+
+    clock.advance(2L, TimeUnit.SECONDS);
+    assertThat(cache.get(2)).isEqualTo("3");
+  }
+
+  private interface Clock {
+    void advance(long time, TimeUnit unit);
+  }
+
+  private static final class CountingLoader extends CacheLoader<String, String> {
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    @Override
+    public String load(String key) {
+      return key + '-' + loadCount.incrementAndGet();
+    }
+  }
+
+  private static final class ManualExecutor implements Executor {
+    private final List<Runnable> commands = new ArrayList<>();
+
+    @Override
+    public void execute(Runnable command) {
+      commands.add(command);
+    }
+
+    void runOne() {
+      commands.remove(0).run();
+    }
+
+    void runAll() {
+      while (!commands.isEmpty()) {
+        runOne();
+      }
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package com.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link RetainedSizeWeigher} and {@link RetainedSizeEstimator}.
+ *
+ * @since 2026-10-17
+ */
+public class RetainedSizeWeigherTest {
+
+  @Test(description = "按对象头、字段和数组长度估算保留大小，并按 8 字节对齐")
+  public void estimate() {
+    assertThat(RetainedSizeEstimator.retainedSize(null)).isEqualTo(0L);
+    assertThat(RetainedSizeEstimator.retainedSize(1L))
+        .isEqualTo(RetainedSizeEstimator.align(RetainedSizeEstimator.OBJECT_HEADER_BYTES + 8));
+    assertThat(RetainedSizeEstimator.retainedSize(new byte[100]))
+        .isEqualTo(RetainedSizeEstimator.align(RetainedSizeEstimator.ARRAY_HEADER_BYTES + 100));
+    assertThat(RetainedSizeEstimator.retainedSize(TimeUnit.SECONDS)).isEqualTo(0L);
+
+    // 引用的对象计入，共享的对象只计入一次
+    byte[] bytes = new byte[1024];
+    List<byte[]> shared = new ArrayList<>();
+    shared.add(bytes);
+    shared.add(bytes);
+    List<byte[]> distinct = new ArrayList<>();
+    distinct.add(bytes);
+    distinct.add(new byte[1024]);
+    assertThat(RetainedSizeEstimator.retainedSize(shared)).isGreaterThan(1024L);
+    assertThat(RetainedSizeEstimator.retainedSize(distinct) - RetainedSizeEstimator.retainedSize(shared))
+        .isEqualTo(RetainedSizeEstimator.retainedSize(bytes));
+
+    // JDK 的类型不反射访问内部字段，按公开的状态估算
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      text.append('a');
+    }
+    assertThat(RetainedSizeEstimator.retainedSize(text.toString())).isGreaterThan(2000L);
+    assertThat(RetainedSizeEstimator.retainedSize(text.toString().replace('a', '\u4e2d'))).isGreaterThan(4000L);
+    Map<Integer, String> map = new HashMap<>();
+    for (int i = 0; i < 100; i++) {
+      map.put(i + 1000, "value" + i);
+    }
+    assertThat(RetainedSizeEstimator.retainedSize(map))
+        .isGreaterThan(100L * (RetainedSizeEstimator.retainedSize(1000) + RetainedSizeEstimator.retainedSize("value0")));
+
+    // 应用的类按字段遍历
+    assertThat(RetainedSizeEstimator.retainedSize(new Holder(bytes)))
+        .isGreaterThan(RetainedSizeEstimator.retainedSize(bytes));
+
+    // 循环引用
+    List<Object> cycle = new ArrayList<>();
+    cycle.add(cycle);
+    assertThat(RetainedSizeEstimator.retainedSize(cycle)).isPositive();
+  }
+
+  static final class Holder {
+    final byte[] payload;
+
+    Holder(byte[] payload) {
+      this.payload = payload;
+    }
+  }
+
+  @Test(description = "内存预算模式按估算的字节数淘汰，并维护缓存占用的总字节数")
+  public void maximumBytes() throws ExecutionException {
+    LoadingCache<Integer, byte[]> cache = LocalCacheFactory.newLoadingCache(
+        "retainedSizeService", "maximumBytes=64k", new CacheLoader<Integer, byte[]>() {
+          @Override
+          public byte[] load(Integer key) {
+            return new byte[1024];
+          }
+        });
+    assertThat(LocalCacheFactory.estimatedBytes(cache)).isEqualTo(0L);
+
+    cache.get(0);
+    long entryBytes = RetainedSizeEstimator.retainedSize(0) + RetainedSizeEstimator.retainedSize(new byte[1024])
+        + RetainedSizeWeigher.ENTRY_OVERHEAD_BYTES;
+    assertThat(LocalCacheFactory.estimatedBytes(cache)).isEqualTo(entryBytes);
+
+    for (int i = 1; i < 1000; i++) {
+      cache.get(i);
+    }
+    assertThat(cache.size()).isBetween(1L, 64L * 1024 / entryBytes);
+    assertThat(LocalCacheFactory.estimatedBytes(cache))
+        .isEqualTo(cache.size() * entryBytes)
+        .isLessThanOrEqualTo(64L * 1024);
+    assertThat(LocalCacheFactory.registry().get("retainedSizeService").getWeightedSize())
+        .isEqualTo(LocalCacheFactory.estimatedBytes(cache));
+
+    cache.put(1, new byte[10]);
+    cache.invalidateAll();
+    assertThat(LocalCacheFactory.estimatedBytes(cache)).isEqualTo(0L);
+  }
+
+  @Test(description = "不是按字节数淘汰的缓存返回 -1")
+  public void notMemoryBounded() {
+    LoadingCache<Integer, String> cache = LocalCacheFactory.newLoadingCache(
+        "notMemoryBoundedService", "maximumSize=100", new TinyLfuLoadingCacheTest.CountingLoader());
+    assertThat(LocalCacheFactory.estimatedBytes(cache)).isEqualTo(-1L);
+  }
+}
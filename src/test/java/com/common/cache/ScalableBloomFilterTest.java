@@ -0,0 +1,45 @@
+package com.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link ScalableBloomFilter}.
+ *
+ * @since 2026-10-17
+ */
+public class ScalableBloomFilterTest {
+
+  @Test(description = "插入的键一定可能存在，超出初始容量后扩容且误判率不超过指定值")
+  public void mightContain() {
+    ScalableBloomFilter filter = new ScalableBloomFilter(1000L, 0.01d);
+    long initialBits = filter.bitSize();
+    long inserted = 0L;
+    for (long i = 0; i < 100_000L; i++) {
+      if (filter.put("key-" + i)) {
+        inserted++;
+      }
+    }
+    for (long i = 0; i < 100_000L; i++) {
+      assertThat(filter.mightContain("key-" + i)).isTrue();
+    }
+    assertThat(filter.put("key-0")).isFalse();
+    // 已经可能存在的键（误判）不重复插入
+    assertThat(filter.approximateCount()).isEqualTo(inserted).isGreaterThan(99_000L);
+    assertThat(filter.bitSize()).isGreaterThan(initialBits * 64);
+
+    int falsePositives = 0;
+    for (long i = 0; i < 100_000L; i++) {
+      if (filter.mightContain("absent-" + i)) {
+        falsePositives++;
+      }
+    }
+    assertThat(falsePositives).isLessThan(1000);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void illegalFpp() {
+    new ScalableBloomFilter(1000L, 1d);
+  }
+}
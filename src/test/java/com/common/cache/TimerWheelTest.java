@@ -0,0 +1,130 @@
+package com.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.common.cache.TinyLfuLoadingCache.Node;
+import com.common.cache.TinyLfuLoadingCacheTest.FakeTicker;
+import com.google.common.cache.LoadingCache;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link TimerWheel} and per-entry {@link Expiry}.
+ *
+ * @since 2026-10-17
+ */
+public class TimerWheelTest {
+
+  @Test(description = "时间前进时只过期已到期的条目，跨层的条目逐层降级")
+  public void advance() {
+    TimerWheel<Long, Long> timerWheel = new TimerWheel<>(0L);
+    List<Node<Long, Long>> nodes = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      long expiresAt = ThreadLocalRandom.current().nextLong(TimeUnit.DAYS.toNanos(30));
+      Node<Long, Long> node = new Node<>(expiresAt, expiresAt, 0L);
+      node.variableTime = expiresAt;
+      timerWheel.schedule(node);
+      nodes.add(node);
+    }
+
+    List<Long> expired = new ArrayList<>();
+    long now = 0L;
+    while (now < TimeUnit.DAYS.toNanos(40)) {
+      now += ThreadLocalRandom.current().nextLong(TimeUnit.HOURS.toNanos(2));
+      final long time = now;
+      timerWheel.advance(now, node -> {
+        assertThat(node.variableTime).isLessThanOrEqualTo(time);
+        expired.add(node.key);
+        return true;
+      });
+      // 已到期的条目最迟在所在桶的时长（最粗一层约 6.5 天）内过期；每次前进后核对尚未过期的条目
+      for (Node<Long, Long> node : nodes) {
+        if (node.nextTimer != null) {
+          assertThat(node.variableTime).isGreaterThan(time - TimeUnit.DAYS.toNanos(7));
+        }
+      }
+    }
+    assertThat(expired).hasSize(nodes.size());
+  }
+
+  @Test(description = "取消调度的条目不会过期")
+  public void deschedule() {
+    TimerWheel<Long, Long> timerWheel = new TimerWheel<>(0L);
+    Node<Long, Long> node = new Node<>(1L, 1L, 0L);
+    node.variableTime = TimeUnit.SECONDS.toNanos(5);
+    timerWheel.schedule(node);
+    timerWheel.deschedule(node);
+    timerWheel.deschedule(node);
+    timerWheel.advance(TimeUnit.MINUTES.toNanos(1), n -> {
+      throw new AssertionError("descheduled node expired: " + n.key);
+    });
+  }
+
+  @Test(description = "每个条目按加载器给出的存活时间过期")
+  public void variableExpiry() throws ExecutionException {
+    FakeTicker ticker = new FakeTicker();
+    TinyLfuLoadingCache<Integer, String> cache = new TinyLfuLoadingCache<>(
+        LocalCacheSpec.parse("policy=tinylfu,maximumSize=1000"), new TtlLoader(), new TtlLoader(), ticker);
+    for (int i = 1; i <= 100; i++) {
+      cache.get(i);
+    }
+    // 键 i 的存活时间为 i 秒
+    ticker.advance(10, TimeUnit.SECONDS);
+    assertThat(cache.getIfPresent(10)).isNull();
+    assertThat(cache.getIfPresent(11)).isEqualTo("11");
+    cache.cleanUp();
+    assertThat(cache.size()).isEqualTo(90L);
+
+    ticker.advance(1, TimeUnit.HOURS);
+    cache.cleanUp();
+    assertThat(cache.size()).isEqualTo(0L);
+    assertThat(cache.stats().evictionCount()).isEqualTo(100L);
+  }
+
+  @Test(description = "写入新值时按新值重新计算存活时间")
+  public void update() throws ExecutionException {
+    FakeTicker ticker = new FakeTicker();
+    TinyLfuLoadingCache<Integer, String> cache = new TinyLfuLoadingCache<>(
+        LocalCacheSpec.parse("policy=tinylfu"), new TtlLoader(), new TtlLoader(), ticker);
+    cache.get(5);
+    cache.put(5, "negative");
+    ticker.advance(2, TimeUnit.SECONDS);
+    assertThat(cache.getIfPresent(5)).isNull();
+    cache.cleanUp();
+    assertThat(cache.size()).isEqualTo(0L);
+  }
+
+  @Test(description = "工厂创建按条目过期的缓存")
+  public void factory() throws ExecutionException {
+    LoadingCache<Integer, String> cache =
+        LocalCacheFactory.newExpiringLoadingCache("expiringService", "maximumSize=100", new TtlLoader());
+    assertThat(cache).isInstanceOf(TinyLfuLoadingCache.class);
+    assertThat(cache.get(3)).isEqualTo("3");
+  }
+
+  @Test(description = "堆外缓存不支持按条目过期", expectedExceptions = IllegalArgumentException.class,
+      expectedExceptionsMessageRegExp = "offHeapCapacity is not supported by per-entry expiry.*")
+  public void offHeapUnsupported() {
+    LocalCacheFactory.newExpiringLoadingCache("expiringService", "offHeapCapacity=1m", new TtlLoader());
+  }
+
+  /**
+   * 键 i 的存活时间为 i 秒；值 "negative" 只存活 1 秒。
+   */
+  private static final class TtlLoader extends ExpiringCacheLoader<Integer, String> {
+    @Override
+    public String load(Integer key) {
+      return String.valueOf(key);
+    }
+
+    @Override
+    public long expireAfterWrite(Integer key, String value) {
+      return "negative".equals(value) ? TimeUnit.SECONDS.toNanos(1) : TimeUnit.SECONDS.toNanos(key);
+    }
+  }
+}
@@ -0,0 +1,325 @@
+package com.common.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheLoader.InvalidCacheLoadException;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link TinyLfuLoadingCache}.
+ *
+ * @since 2026-10-17
+ */
+public class TinyLfuLoadingCacheTest {
+
+  @Test(description = "未命中则加载，命中则直接返回")
+  public void getAndStats() throws ExecutionException {
+    CountingLoader loader = new CountingLoader();
+    TinyLfuLoadingCache<Integer, String> cache = newCache("maximumSize=100", loader, new FakeTicker());
+
+    assertThat(cache.get(1)).isEqualTo("1");
+    assertThat(cache.get(1)).isEqualTo("1");
+    assertThat(cache.getIfPresent(2)).isNull();
+    assertThat(loader.loadCount.get()).isEqualTo(1);
+
+    CacheStats stats = cache.stats();
+    assertThat(stats.hitCount()).isEqualTo(1L);
+    assertThat(stats.missCount()).isEqualTo(2L);
+    assertThat(stats.loadSuccessCount()).isEqualTo(1L);
+  }
+
+  @Test(description = "批量获取：每个未缓存的键只计一次未命中")
+  public void getAllStats() throws ExecutionException {
+    TinyLfuLoadingCache<Integer, String> cache = newCache("maximumSize=100", new CacheLoader<Integer, String>() {
+      @Override
+      public String load(Integer key) {
+        return "one:" + key;
+      }
+
+      @Override
+      public Map<Integer, String> loadAll(Iterable<? extends Integer> keys) {
+        Map<Integer, String> values = new HashMap<>();
+        for (Integer key : keys) {
+          values.put(key, "all:" + key);
+        }
+        return values;
+      }
+    }, new FakeTicker());
+    cache.put(1, "put:1");
+
+    assertThat(cache.getAll(Arrays.asList(4, 1, 2, 3, 2)))
+        .containsExactly(entry(4, "all:4"), entry(1, "put:1"), entry(2, "all:2"), entry(3, "all:3"));
+    CacheStats stats = cache.stats();
+    assertThat(stats.hitCount()).isEqualTo(1L);
+    assertThat(stats.missCount()).isEqualTo(3L);
+    assertThat(stats.loadSuccessCount()).isEqualTo(1L);
+
+    // 不支持批量加载时逐个加载，同样每个键只计一次
+    TinyLfuLoadingCache<Integer, String> singleCache = newCache("maximumSize=100", new CountingLoader(), new FakeTicker());
+    assertThat(singleCache.getAll(Arrays.asList(1, 2, 3))).hasSize(3);
+    assertThat(singleCache.stats().missCount()).isEqualTo(3L);
+    assertThat(singleCache.stats().loadSuccessCount()).isEqualTo(3L);
+  }
+
+  @Test(description = "加载器返回 null 时抛出无效缓存加载异常",
+      expectedExceptions = InvalidCacheLoadException.class)
+  public void loadNull() throws ExecutionException {
+    TinyLfuLoadingCache<Integer, String> cache = newCache("maximumSize=100", new CacheLoader<Integer, String>() {
+      @Override
+      public String load(Integer key) {
+        return null;
+      }
+    }, new FakeTicker());
+    cache.get(1);
+  }
+
+  @Test(description = "条目数不超过 maximumSize")
+  public void maximumSize() throws ExecutionException {
+    TinyLfuLoadingCache<Integer, String> cache = newCache("maximumSize=100", new CountingLoader(), new FakeTicker());
+    for (int i = 0; i < 1000; i++) {
+      cache.get(i);
+    }
+    cache.cleanUp();
+    assertThat(cache.size()).isEqualTo(100L);
+    assertThat(cache.stats().evictionCount()).isEqualTo(900L);
+  }
+
+  @Test(description = "热点键不会被一次性的扫描流量挤出缓存")
+  public void scanResistance() throws ExecutionException {
+    TinyLfuLoadingCache<Integer, String> cache = newCache("maximumSize=100", new CountingLoader(), new FakeTicker());
+    for (int round = 0; round < 10; round++) {
+      for (int i = 0; i < 50; i++) {
+        cache.get(i);
+      }
+      cache.cleanUp();
+    }
+    // 扫描
+    for (int i = 1000; i < 3000; i++) {
+      cache.get(i);
+    }
+    cache.cleanUp();
+
+    int hotKeys = 0;
+    for (int i = 0; i < 50; i++) {
+      if (cache.asMap().containsKey(i)) {
+        hotKeys++;
+      }
+    }
+    assertThat(hotKeys).isGreaterThanOrEqualTo(45);
+  }
+
+  @Test(description = "写入过期和访问过期")
+  public void expire() throws ExecutionException {
+    FakeTicker ticker = new FakeTicker();
+    CountingLoader loader = new CountingLoader();
+    TinyLfuLoadingCache<Integer, String> cache =
+        newCache("maximumSize=100,expireAfterWrite=10s,expireAfterAccess=4s", loader, ticker);
+
+    cache.get(1);
+    ticker.advance(3, TimeUnit.SECONDS);
+    cache.get(1);
+    ticker.advance(3, TimeUnit.SECONDS);
+    assertThat(cache.getIfPresent(1)).isEqualTo("1");
+    ticker.advance(5, TimeUnit.SECONDS);
+    assertThat(cache.getIfPresent(1)).isNull();
+    cache.cleanUp();
+    assertThat(cache.size()).isEqualTo(0L);
+    assertThat(cache.stats().evictionCount()).isEqualTo(1L);
+
+    cache.get(2);
+    ticker.advance(5, TimeUnit.SECONDS);
+    assertThat(cache.asMap().containsKey(2)).isFalse();
+    assertThat(cache.get(2)).isEqualTo("3");
+  }
+
+  @Test(description = "刷新周期到达后重新加载")
+  public void refreshAfterWrite() throws ExecutionException {
+    FakeTicker ticker = new FakeTicker();
+    CountingLoader loader = new CountingLoader();
+    TinyLfuLoadingCache<Integer, String> cache =
+        newCache("maximumSize=100,refreshAfterWrite=1m", loader, ticker);
+
+    assertThat(cache.get(1)).isEqualTo("1");
+    ticker.advance(2, TimeUnit.MINUTES);
+    // 同步完成的重新加载直接返回新值
+    assertThat(cache.get(1)).isEqualTo("2");
+    assertThat(cache.get(1)).isEqualTo("2");
+    assertThat(cache.stats().loadSuccessCount()).isEqualTo(2L);
+  }
+
+  @Test(description = "软过期后返回旧值并在后台重新加载，重新加载失败时继续返回旧值直到硬过期")
+  public void staleWhileRevalidate() throws ExecutionException {
+    FakeTicker ticker = new FakeTicker();
+    final AtomicBoolean failing = new AtomicBoolean();
+    final AtomicInteger loadCount = new AtomicInteger();
+    CacheLoader<Integer, String> loader = new CacheLoader<Integer, String>() {
+      @Override
+      public String load(Integer key) {
+        if (failing.get()) {
+          throw new IllegalStateException("backend unavailable");
+        }
+        return String.valueOf(loadCount.incrementAndGet());
+      }
+    };
+    TinyLfuLoadingCache<Integer, String> cache = newCache("maximumSize=100,softTtl=1m,hardTtl=10m", loader, ticker);
+
+    assertThat(cache.get(1)).isEqualTo("1");
+    ticker.advance(2, TimeUnit.MINUTES);
+    failing.set(true);
+    // 重新加载失败，继续返回旧值
+    assertThat(cache.get(1)).isEqualTo("1");
+    assertThat(cache.get(1)).isEqualTo("1");
+    assertThat(cache.metrics().staleHitCount()).isEqualTo(2L);
+    assertThat(cache.metrics().staleIfErrorCount()).isEqualTo(1L);
+
+    failing.set(false);
+    assertThat(cache.get(1)).isEqualTo("2");
+    assertThat(cache.get(1)).isEqualTo("2");
+    assertThat(cache.metrics().staleHitCount()).isEqualTo(3L);
+    assertThat(cache.metrics().staleIfErrorCount()).isEqualTo(2L);
+
+    // 超过硬过期时间后同步加载
+    failing.set(true);
+    ticker.advance(11, TimeUnit.MINUTES);
+    try {
+      cache.get(1);
+      fail("expected a load failure after hardTtl");
+    } catch (UncheckedExecutionException expected) {
+      assertThat(expected).hasCauseInstanceOf(IllegalStateException.class);
+    }
+  }
+
+  @Test(description = "越接近过期时间越可能提前刷新（XFetch）")
+  public void earlyRefresh() throws ExecutionException {
+    final FakeTicker ticker = new FakeTicker();
+    final AtomicInteger loadCount = new AtomicInteger();
+    CacheLoader<Integer, String> loader = new CacheLoader<Integer, String>() {
+      @Override
+      public String load(Integer key) {
+        // 每次加载耗时 1 秒
+        ticker.advance(1, TimeUnit.SECONDS);
+        return String.valueOf(loadCount.incrementAndGet());
+      }
+    };
+    TinyLfuLoadingCache<Integer, String> cache =
+        newCache("maximumSize=100,expireAfterWrite=1m,earlyRefreshBeta=1.0", loader, ticker);
+    assertThat(cache.get(1)).isEqualTo("1");
+
+    // 距离过期 50 秒，远大于加载耗时，不会提前刷新
+    ticker.advance(10, TimeUnit.SECONDS);
+    for (int i = 0; i < 1000; i++) {
+      assertThat(cache.get(1)).isEqualTo("1");
+    }
+    assertThat(cache.metrics().earlyRefreshCount()).isEqualTo(0L);
+
+    // 距离过期 0.5 秒，每次读取以约 60% 的概率提前刷新
+    ticker.advance(49500, TimeUnit.MILLISECONDS);
+    String value = "1";
+    for (int i = 0; i < 100 && "1".equals(value); i++) {
+      value = cache.get(1);
+    }
+    assertThat(value).isEqualTo("2");
+    assertThat(cache.metrics().earlyRefreshCount()).isEqualTo(1L);
+    assertThat(cache.stats().missCount()).isEqualTo(1L);
+  }
+
+  @Test(description = "写入过期时间随机抖动，同一批条目分散过期")
+  public void expireJitter() throws ExecutionException {
+    FakeTicker ticker = new FakeTicker();
+    TinyLfuLoadingCache<Integer, String> cache =
+        newCache("expireAfterWrite=100s,expireJitter=0.5", new CountingLoader(), ticker);
+    for (int i = 0; i < 1000; i++) {
+      cache.get(i);
+    }
+    ticker.advance(75, TimeUnit.SECONDS);
+    cache.cleanUp();
+    // 存活时间均匀分布在 [50, 100) 秒
+    assertThat(cache.size()).isBetween(350L, 650L);
+    ticker.advance(25, TimeUnit.SECONDS);
+    cache.cleanUp();
+    assertThat(cache.size()).isEqualTo(0L);
+  }
+
+  @Test(description = "运行时调整容量和过期时间")
+  public void tune() throws ExecutionException {
+    FakeTicker ticker = new FakeTicker();
+    TinyLfuLoadingCache<Integer, String> cache = newCache("maximumSize=1000", new CountingLoader(), ticker);
+    for (int i = 0; i < 1000; i++) {
+      cache.get(i);
+    }
+    cache.setMaximumSize(100L);
+    assertThat(cache.size()).isEqualTo(100L);
+    cache.setMaximumSize(2000L);
+    for (int i = 1000; i < 2000; i++) {
+      cache.get(i);
+    }
+    cache.cleanUp();
+    assertThat(cache.size()).isEqualTo(1100L);
+
+    ticker.advance(2, TimeUnit.MINUTES);
+    cache.setExpireAfterWrite(1, TimeUnit.MINUTES);
+    assertThat(cache.size()).isEqualTo(0L);
+    assertThat(cache.expireAfterWriteNanos()).isEqualTo(TimeUnit.MINUTES.toNanos(1));
+  }
+
+  @Test(description = "asMap() 视图的并发映射操作")
+  public void asMap() {
+    TinyLfuLoadingCache<Integer, String> cache = newCache("maximumSize=100", new CountingLoader(), new FakeTicker());
+    assertThat(cache.asMap().putIfAbsent(1, "a")).isNull();
+    assertThat(cache.asMap().putIfAbsent(1, "b")).isEqualTo("a");
+    assertThat(cache.asMap().replace(1, "a", "c")).isTrue();
+    assertThat(cache.asMap().replace(1, "d")).isEqualTo("c");
+    assertThat(cache.asMap().remove(1, "c")).isFalse();
+    assertThat(cache.asMap().remove(1, "d")).isTrue();
+    assertThat(cache.asMap()).isEmpty();
+
+    cache.put(2, "x");
+    cache.put(3, "y");
+    assertThat(cache.asMap()).hasSize(2).containsEntry(2, "x").containsEntry(3, "y");
+    cache.invalidateAll();
+    assertThat(cache.size()).isEqualTo(0L);
+  }
+
+  private static <V> TinyLfuLoadingCache<Integer, V> newCache(
+      String spec, CacheLoader<Integer, V> loader, Ticker ticker) {
+    return new TinyLfuLoadingCache<>(LocalCacheSpec.parse("policy=tinylfu," + spec), loader, ticker);
+  }
+
+  static final class CountingLoader extends CacheLoader<Integer, String> {
+    final AtomicInteger loadCount = new AtomicInteger();
+
+    @Override
+    public String load(Integer key) {
+      // 值为第几次加载
+      return String.valueOf(loadCount.incrementAndGet());
+    }
+  }
+
+  static final class FakeTicker extends Ticker {
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Override
+    public long read() {
+      return nanos.get();
+    }
+
+    void advance(long time, TimeUnit timeUnit) {
+      nanos.addAndGet(timeUnit.toNanos(time));
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package com.common.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link LatencyHistogram}.
+ *
+ * @since 2026-10-17
+ */
+public class LatencyHistogramTest {
+
+    @Test(description = "百分位数的相对误差不超过精度")
+    public void percentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100_000; i++) {
+            histogram.record(i * 1000L);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.count()).isEqualTo(100_000L);
+        assertThat(snapshot.max()).isEqualTo(100_000_000L);
+        assertThat(snapshot.mean()).isCloseTo(50_000_500.0, within(1.0));
+        assertThat((double) snapshot.percentile(50.0)).isCloseTo(50_000_000.0, within(50_000_000.0 / 8));
+        assertThat((double) snapshot.percentile(99.0)).isCloseTo(99_000_000.0, within(99_000_000.0 / 8));
+        assertThat((double) snapshot.percentile(99.9)).isCloseTo(99_900_000.0, within(99_900_000.0 / 8));
+        assertThat(snapshot.percentile(100.0)).isEqualTo(100_000_000L);
+    }
+
+    @Test(description = "小值精确记录，负值按 0 记录，空直方图返回 0")
+    public void smallValues() {
+        LatencyHistogram histogram = new LatencyHistogram(3);
+        assertThat(histogram.snapshot().percentile(99.0)).isEqualTo(0L);
+        histogram.record(-5L);
+        histogram.record(3L);
+        histogram.record(7L);
+        assertThat(histogram.snapshot().percentile(0.0)).isEqualTo(0L);
+        assertThat(histogram.snapshot().percentile(50.0)).isEqualTo(3L);
+        assertThat(histogram.snapshot().percentile(100.0)).isEqualTo(7L);
+    }
+
+    @Test(description = "按次数加权记录")
+    public void weightedRecord() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100L, 64L);
+        histogram.record(1000L);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.count()).isEqualTo(65L);
+        assertThat(snapshot.sum()).isEqualTo(7400L);
+        assertThat(snapshot.max()).isEqualTo(1000L);
+        assertThat((double) snapshot.percentile(50.0)).isCloseTo(100.0, within(100.0 / 8));
+    }
+
+    @Test(description = "区间快照读取即重置，不影响累积的快照")
+    public void intervalSnapshot() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100; i++) {
+            histogram.record(i * 1000L);
+        }
+        LatencyHistogram.Snapshot first = histogram.intervalSnapshot();
+        assertThat(first.count()).isEqualTo(100L);
+        assertThat(first.max()).isEqualTo(100_000L);
+        assertThat(first.sum()).isEqualTo(5_050_000L);
+
+        assertThat(histogram.intervalSnapshot().count()).isEqualTo(0L);
+        assertThat(histogram.intervalSnapshot().percentile(99.0)).isEqualTo(0L);
+
+        histogram.record(10L);
+        histogram.record(20L);
+        LatencyHistogram.Snapshot second = histogram.intervalSnapshot();
+        assertThat(second.count()).isEqualTo(2L);
+        assertThat(second.max()).isEqualTo(20L);
+        assertThat(second.mean()).isEqualTo(15.0);
+        assertThat((double) second.percentile(99.9)).isCloseTo(20.0, within(20.0 / 8));
+
+        LatencyHistogram.Snapshot cumulative = histogram.snapshot();
+        assertThat(cumulative.count()).isEqualTo(102L);
+        assertThat(cumulative.max()).isEqualTo(100_000L);
+    }
+
+    @Test(description = "并发记录时区间快照之和等于累积计数")
+    public void concurrentIntervalSnapshot() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            writers[t].start();
+        }
+        long total = 0L;
+        for (Thread writer : writers) {
+            while (writer.isAlive()) {
+                total += histogram.intervalSnapshot().count();
+            }
+            writer.join();
+        }
+        total += histogram.intervalSnapshot().count();
+        assertThat(total).isEqualTo(200_000L);
+        assertThat(histogram.snapshot().count()).isEqualTo(200_000L);
+    }
+
+    @Test(description = "桶的上界覆盖桶内所有值")
+    public void bucketBounds() {
+        LatencyHistogram histogram = new LatencyHistogram(2);
+        for (long value : new long[]{0L, 1L, 4L, 5L, 7L, 8L, 1023L, 1L << 40, Long.MAX_VALUE}) {
+            int index = histogram.bucketIndex(value);
+            assertThat(histogram.highestValueOf(index)).isGreaterThanOrEqualTo(value);
+            assertThat(histogram.highestValueOf(index) - value).isLessThanOrEqualTo(Math.max(0L, value / 4));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.common.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link MetricsRegistry}.
+ *
+ * @since 2026-10-17
+ */
+public class MetricsRegistryTest {
+
+    @Test(description = "维度的顺序不影响指标的键")
+    public void metricKey() {
+        MetricKey key = MetricKey.of("rpc", "method", "get", "app", "demo");
+        assertThat(key).isEqualTo(MetricKey.of("rpc", "app", "demo", "method", "get"));
+        assertThat(key.hashCode()).isEqualTo(MetricKey.of("rpc", "app", "demo", "method", "get").hashCode());
+        assertThat(key).isNotEqualTo(MetricKey.of("rpc", "app", "demo"));
+        assertThat(key.tagCount()).isEqualTo(2);
+        assertThat(key.tagKey(0)).isEqualTo("app");
+        assertThat(key.tagValue(1)).isEqualTo("get");
+        assertThat(key.toString()).isEqualTo("rpc{app=demo,method=get}");
+        assertThat(MetricKey.of("rpc")).isEqualTo(MetricKey.of("rpc", new String[0]));
+    }
+
+    @Test(description = "维度必须成对且键不能重复",
+            expectedExceptions = IllegalArgumentException.class)
+    public void metricKeyDuplicateTag() {
+        MetricKey.of("rpc", "app", "a", "app", "b");
+    }
+
+    @Test(description = "相同的键返回同一个指标")
+    public void register() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Counter counter = registry.counter("rpc.qps", "app", "demo");
+        assertThat(registry.counter(MetricKey.of("rpc.qps", "app", "demo"))).isSameAs(counter);
+        assertThat(registry.timer("rpc.rt", "app", "demo")).isSameAs(registry.timer("rpc.rt", "app", "demo"));
+        assertThat(registry.counters()).containsExactly(counter);
+        assertThat(registry.timers()).hasSize(1);
+
+        registry.clear();
+        assertThat(registry.counters()).isEmpty();
+        assertThat(registry.counter("rpc.qps", "app", "demo")).isNotSameAs(counter);
+    }
+
+    @Test(description = "响应时间聚合器累计次数、总耗时和最大耗时")
+    public void timer() {
+        Timer timer = new MetricsRegistry().timer("rpc.rt");
+        assertThat(timer.meanNanos()).isEqualTo(0.0);
+        timer.record(100L);
+        timer.record(300L);
+        timer.record(-1L);
+        assertThat(timer.count()).isEqualTo(3L);
+        assertThat(timer.totalNanos()).isEqualTo(400L);
+        assertThat(timer.maxNanos()).isEqualTo(300L);
+        assertThat(timer.meanNanos()).isEqualTo(400.0 / 3);
+    }
+
+    @Test(description = "响应时间聚合器报告百分位数和区间快照，精度可配置")
+    public void timerPercentiles() {
+        MetricsRegistry registry = new MetricsRegistry(7);
+        Timer timer = registry.timer("rpc.rt");
+        assertThat(timer.precision()).isEqualTo(7);
+        for (long i = 1; i <= 10_000; i++) {
+            timer.record(i * 1000L);
+        }
+        LatencyHistogram.Snapshot snapshot = timer.intervalSnapshot();
+        assertThat((double) snapshot.percentile(50.0)).isCloseTo(5_000_000.0, within(5_000_000.0 / 128));
+        assertThat((double) snapshot.percentile(90.0)).isCloseTo(9_000_000.0, within(9_000_000.0 / 128));
+        assertThat((double) snapshot.percentile(99.0)).isCloseTo(9_900_000.0, within(9_900_000.0 / 128));
+        assertThat(snapshot.max()).isEqualTo(10_000_000L);
+
+        timer.record(1L);
+        assertThat(timer.intervalSnapshot().count()).isEqualTo(1L);
+        assertThat(timer.snapshot().count()).isEqualTo(10_001L);
+    }
+
+    @Test(description = "直方图精度超出范围",
+            expectedExceptions = IllegalArgumentException.class)
+    public void invalidPrecision() {
+        new MetricsRegistry(11);
+    }
+
+    @Test(description = "速率计按秒的滑动窗口计算瞬时、一分钟和峰值速率")
+    public void meter() {
+        RollingCounterTest.FakeTicker ticker = new RollingCounterTest.FakeTicker();
+        MetricsRegistry registry = new MetricsRegistry(LatencyHistogram.DEFAULT_PRECISION, ticker);
+        Meter meter = registry.meter("rpc.qps");
+        assertThat(registry.meter("rpc.qps")).isSameAs(meter);
+
+        meter.mark(100L);
+        assertThat(meter.currentSecondCount()).isEqualTo(100L);
+        assertThat(meter.instantRate()).isEqualTo(0L);
+        ticker.advance(1L, TimeUnit.SECONDS);
+        meter.mark(30L);
+        ticker.advance(1L, TimeUnit.SECONDS);
+        assertThat(meter.instantRate()).isEqualTo(30L);
+        assertThat(meter.peakRate()).isEqualTo(100L);
+        assertThat(meter.oneMinuteRate()).isEqualTo(130.0 / 60);
+        assertThat(meter.count()).isEqualTo(130L);
+
+        // 超出一分钟的窗口后只保留累计次数
+        ticker.advance(61L, TimeUnit.SECONDS);
+        assertThat(meter.instantRate()).isEqualTo(0L);
+        assertThat(meter.peakRate()).isEqualTo(0L);
+        assertThat(meter.oneMinuteRate()).isEqualTo(0.0);
+        assertThat(meter.count()).isEqualTo(130L);
+        assertThat(registry.meters()).containsExactly(meter);
+    }
+
+    @Test(description = "并发记录不丢失")
+    public void concurrentRecord() throws Exception {
+        final MetricsRegistry registry = new MetricsRegistry();
+        final Counter counter = registry.counter("rpc.qps");
+        final Timer timer = registry.timer("rpc.rt");
+        int threads = 8;
+        final int perThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        counter.increment();
+                        timer.record(thread);
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(executor.awaitTermination(10L, TimeUnit.SECONDS)).isTrue();
+        assertThat(counter.count()).isEqualTo((long) threads * perThread);
+        assertThat(timer.count()).isEqualTo((long) threads * perThread);
+        assertThat(timer.maxNanos()).isEqualTo(threads - 1L);
+    }
+}
@@ -0,0 +1,90 @@
+package com.common.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Ticker;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test of {@link RollingCounter}.
+ *
+ * @since 2026-10-17
+ */
+public class RollingCounterTest {
+
+    @Test(description = "滑动窗口只统计已结束的桶")
+    public void window() {
+        FakeTicker ticker = new FakeTicker();
+        RollingCounter counter = new RollingCounter(1, TimeUnit.SECONDS, 10, ticker);
+        counter.add(5L);
+        assertThat(counter.current()).isEqualTo(5L);
+        assertThat(counter.sum(10)).isEqualTo(0L);
+
+        ticker.advance(1, TimeUnit.SECONDS);
+        counter.increment();
+        assertThat(counter.sum(1)).isEqualTo(5L);
+        ticker.advance(1, TimeUnit.SECONDS);
+        assertThat(counter.sum(2)).isEqualTo(6L);
+
+        // 超出窗口的桶被覆盖
+        ticker.advance(9, TimeUnit.SECONDS);
+        assertThat(counter.sum(10)).isEqualTo(1L);
+        ticker.advance(1, TimeUnit.SECONDS);
+        counter.add(2L);
+        ticker.advance(1, TimeUnit.SECONDS);
+        assertThat(counter.sum(10)).isEqualTo(2L);
+    }
+
+    @Test(description = "复用的桶在新的周期从零计数，切换周期时的并发写入不等待、不丢失")
+    public void reuse() throws Exception {
+        FakeTicker ticker = new FakeTicker();
+        final RollingCounter counter = new RollingCounter(1, TimeUnit.SECONDS, 10, ticker);
+        counter.add(100L);
+        // 11 个桶的环形缓冲区回到同一个桶
+        ticker.advance(11, TimeUnit.SECONDS);
+
+        int threads = 8;
+        final int perThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int t = 0; t < threads; t++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        counter.increment();
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(executor.awaitTermination(10L, TimeUnit.SECONDS)).isTrue();
+        assertThat(counter.current()).isEqualTo((long) threads * perThread);
+        ticker.advance(1, TimeUnit.SECONDS);
+        assertThat(counter.sum(10)).isEqualTo((long) threads * perThread);
+    }
+
+    static final class FakeTicker extends Ticker {
+        private long nanos;
+
+        @Override
+        public synchronized long read() {
+            return nanos;
+        }
+
+        synchronized void advance(long time, TimeUnit timeUnit) {
+            nanos += timeUnit.toNanos(time);
+        }
+    }
+}